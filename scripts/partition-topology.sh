@@ -0,0 +1,74 @@
+#!/usr/bin/env bash
+# Starts a local partitioned cluster of three nodes, writes some users and posts through them, then
+# adds a fourth node and rebalances onto it.
+#
+# Usage: scripts/partition-topology.sh [base-port]
+# Nodes listen on base-port..base-port+3 and are stopped when the script exits. A node that is not
+# healthy within STARTUP_TIMEOUT seconds (default 60) fails the script and prints its log.
+set -euo pipefail
+
+BASE_PORT=${1:-18081}
+SECRET=${PARTITION_SECRET:-local-secret}
+STARTUP_TIMEOUT=${STARTUP_TIMEOUT:-60}
+cd "$(dirname "$0")/.."
+
+WORK="$PWD/build/partition-topology"
+rm -rf "$WORK" && mkdir -p "$WORK"
+
+./gradlew -q bootJar
+JAR=$(ls build/libs/*.jar | grep -v -- '-plain.jar')
+
+node_url() {
+    echo "http://localhost:$((BASE_PORT + $1))"
+}
+
+PIDS=()
+trap 'kill "${PIDS[@]}" 2>/dev/null || true' EXIT
+
+start_node() {
+    local index=$1 nodes=$2
+    java -jar "$JAR" --server.port=$((BASE_PORT + index)) --grpc.server.port=0 \
+        --partition.enabled=true --partition.self="$(node_url "$index")" --partition.nodes="$nodes" \
+        --partition.secret="$SECRET" \
+        >"$WORK/node$index.log" 2>&1 &
+    PIDS+=($!)
+}
+
+await_node() {
+    local deadline=$((SECONDS + STARTUP_TIMEOUT))
+    until curl -sf "$(node_url "$1")/actuator/health" >/dev/null; do
+        if ((SECONDS > deadline)); then
+            echo "node $1 did not become healthy within ${STARTUP_TIMEOUT}s:" >&2
+            cat "$WORK/node$1.log" >&2
+            exit 1
+        fi
+        sleep 0.2
+    done
+}
+
+INITIAL="$(node_url 0),$(node_url 1),$(node_url 2)"
+for index in 0 1 2; do
+    start_node "$index" "$INITIAL"
+done
+for index in 0 1 2; do
+    await_node "$index"
+done
+
+for i in $(seq 1 30); do
+    user=$(curl -sf -H 'Content-Type: application/json' "$(node_url $((i % 3)))/api/v1/users" \
+        -d "{\"name\":\"User $i\",\"username\":\"user$i\",\"email\":\"user$i@mail.com\"}")
+    id=$(echo "$user" | sed -E 's/.*"id":([0-9]+).*/\1/')
+    curl -sf -o /dev/null -H 'Content-Type: application/json' "$(node_url $(((i + 1) % 3)))/api/v1/posts" \
+        -d "{\"userId\":$id,\"title\":\"Title $i\",\"body\":\"Body\"}"
+done
+echo "users: $(curl -sf "$(node_url 0)/api/v1/users" | grep -o '"id"' | wc -l)"
+
+EXPANDED="$INITIAL,$(node_url 3)"
+start_node 3 "$EXPANDED"
+await_node 3
+curl -sf -X PUT -H 'Content-Type: application/json' -H "X-Partition-Secret: $SECRET" "$(node_url 0)/partition/ring" \
+    -d "{\"nodes\":[\"${EXPANDED//,/\",\"}\"]}"
+
+echo "ring: $(curl -sf "$(node_url 3)/partition/ring")"
+echo "users through the new node: $(curl -sf "$(node_url 3)/api/v1/users" | grep -o '"id"' | wc -l)"
+echo "logs: $WORK"
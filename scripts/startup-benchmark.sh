@@ -0,0 +1,70 @@
+#!/usr/bin/env bash
+# Compares time to first healthy response and latency of the first API request for the plain JVM
+# build, the AOT-processed build with an AppCDS archive, and the GraalVM native image.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+# The native variant is skipped unless native-image (GraalVM) is on the PATH. A variant that is not
+# healthy within STARTUP_TIMEOUT seconds (default 60) fails the script and prints its log.
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+STARTUP_TIMEOUT=${STARTUP_TIMEOUT:-60}
+cd "$(dirname "$0")/.."
+
+ARGS=(--server.port="$PORT" --grpc.server.port=0 --logging.level.root=WARN)
+WORK="$PWD/build/startup-benchmark"
+rm -rf "$WORK" && mkdir -p "$WORK"
+
+./gradlew -q bootJar
+cp "$(ls build/libs/*.jar | grep -v -- '-plain.jar')" "$WORK/jvm.jar"
+
+./gradlew -q -Paot cdsArchive
+CDS_JAR=$(ls build/cds/*.jar)
+
+NATIVE=""
+if command -v native-image >/dev/null 2>&1; then
+    ./gradlew -q -Pnative nativeCompile
+    NATIVE=build/native/nativeCompile/spring-boot-rest
+fi
+
+now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+measure() {
+    local label=$1
+    shift
+    local total_startup=0 total_first=0
+    for ((run = 1; run <= RUNS; run++)); do
+        local started
+        started=$(now_ms)
+        "$@" "${ARGS[@]}" >"$WORK/$label.log" 2>&1 &
+        local pid=$!
+        local deadline=$((started + STARTUP_TIMEOUT * 1000))
+        until curl -sf "http://localhost:$PORT/actuator/health" >/dev/null 2>&1; do
+            if ! kill -0 "$pid" 2>/dev/null || (($(now_ms) > deadline)); then
+                echo "$label did not become healthy within ${STARTUP_TIMEOUT}s:" >&2
+                cat "$WORK/$label.log" >&2
+                kill "$pid" 2>/dev/null || true
+                exit 1
+            fi
+            sleep 0.01
+        done
+        local startup=$(($(now_ms) - started))
+        local first
+        first=$(curl -s -o /dev/null -w '%{time_total}' "http://localhost:$PORT/api/v1/users" | awk '{ printf "%d", $1 * 1000 }')
+        kill "$pid" && wait "$pid" 2>/dev/null || true
+        total_startup=$((total_startup + startup))
+        total_first=$((total_first + first))
+    done
+    printf '%-10s startup %6d ms   first request %5d ms\n' "$label" $((total_startup / RUNS)) $((total_first / RUNS))
+}
+
+measure jvm java -jar "$WORK/jvm.jar"
+(cd build/cds && measure jvm+cds java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -jar "$(basename "$CDS_JAR")")
+if [[ -n "$NATIVE" ]]; then
+    measure native "$NATIVE"
+else
+    echo "native     skipped: native-image not found"
+fi
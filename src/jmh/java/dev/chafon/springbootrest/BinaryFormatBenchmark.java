@@ -0,0 +1,65 @@
+package dev.chafon.springbootrest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import dev.chafon.springbootrest.post.Post;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BinaryFormatBenchmark {
+
+    private static final TypeReference<List<Post>> POSTS = new TypeReference<>() {};
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"1", "100"})
+    private int posts;
+
+    private ObjectMapper mapper;
+    private List<Post> payload;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        mapper = switch (format) {
+            case "cbor" -> new CBORMapper();
+            case "smile" -> new SmileMapper();
+            default -> new ObjectMapper();
+        };
+        payload = IntStream.rangeClosed(1, posts)
+                .mapToObj(id -> new Post(id, id % 10, "Post title " + id,
+                        "Lorem ipsum dolor sit amet, consectetur adipiscing elit " + id))
+                .toList();
+        encoded = mapper.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public byte[] encode(PayloadSize size) throws Exception {
+        byte[] bytes = mapper.writeValueAsBytes(payload);
+        size.bytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public List<Post> decode(PayloadSize size) throws Exception {
+        size.bytes = encoded.length;
+        return mapper.readValue(encoded, POSTS);
+    }
+
+    // Reported next to the timings as the "bytes" column, so each format's size sits with its speed.
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+
+        public long bytes;
+    }
+}
@@ -0,0 +1,105 @@
+package dev.chafon.springbootrest.grpc;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.Empty;
+import dev.chafon.springbootrest.Application;
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.post.PostService;
+import dev.chafon.springbootrest.user.User;
+import dev.chafon.springbootrest.user.UserService;
+import io.grpc.Grpc;
+import io.grpc.InsecureChannelCredentials;
+import io.grpc.ManagedChannel;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class GrpcVsRestBenchmark {
+
+    private static final TypeReference<List<Post>> POSTS = new TypeReference<>() {};
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private HttpClient httpClient;
+    private URI userUri;
+    private URI postsUri;
+    private ManagedChannel channel;
+    private UsersGrpc.UsersBlockingStub users;
+    private PostsGrpc.PostsBlockingStub posts;
+    private IdRequest userRequest;
+
+    @Setup
+    public void setUp() {
+        context = SpringApplication.run(Application.class,
+                "--server.port=0", "--grpc.server.port=0", "--logging.level.root=WARN");
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        UserService userService = context.getBean(UserService.class);
+        PostService postService = context.getBean(PostService.class);
+        User user = userService.createUser(new User(null, "John Doe", "johnD", "john.doe@mail.com"));
+        for (int i = 0; i < 100; i++) {
+            postService.createPost(new Post(null, user.id(), "Post " + i, "Content of post " + i));
+        }
+
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        httpClient = HttpClient.newHttpClient();
+        userUri = URI.create(baseUrl + "/api/v1/users/" + user.id());
+        postsUri = URI.create(baseUrl + "/api/v1/posts");
+
+        channel = Grpc.newChannelBuilderForAddress("localhost", context.getBean(GrpcServer.class).getPort(),
+                        InsecureChannelCredentials.create())
+                .build();
+        users = UsersGrpc.newBlockingStub(channel);
+        posts = PostsGrpc.newBlockingStub(channel);
+        userRequest = IdRequest.newBuilder().setId(user.id()).build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        context.close();
+    }
+
+    @Benchmark
+    public User restGetUser() throws Exception {
+        HttpResponse<byte[]> response = httpClient.send(
+                HttpRequest.newBuilder(userUri).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        return objectMapper.readValue(response.body(), User.class);
+    }
+
+    @Benchmark
+    public UserMessage grpcGetUser() {
+        return users.getUser(userRequest);
+    }
+
+    @Benchmark
+    public List<Post> restListPosts() throws Exception {
+        HttpResponse<byte[]> response = httpClient.send(
+                HttpRequest.newBuilder(postsUri).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        return objectMapper.readValue(response.body(), POSTS);
+    }
+
+    @Benchmark
+    public List<PostMessage> grpcListPosts() {
+        List<PostMessage> result = new ArrayList<>();
+        Iterator<PostMessage> iterator = posts.listPosts(Empty.getDefaultInstance());
+        iterator.forEachRemaining(result::add);
+        return result;
+    }
+}
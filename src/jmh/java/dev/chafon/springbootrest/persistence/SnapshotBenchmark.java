@@ -0,0 +1,59 @@
+package dev.chafon.springbootrest.persistence;
+
+import dev.chafon.springbootrest.post.InMemoryPostRepository;
+import dev.chafon.springbootrest.post.Post;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SnapshotBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int records;
+
+    private Path directory;
+    private InMemoryPostRepository repository;
+    private RepositorySnapshotter<Post> snapshotter;
+    private SnapshotFile<Post> file;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshot-benchmark");
+        repository = new InMemoryPostRepository();
+        for (int i = 0; i < records; i++) {
+            repository.save(new Post(null, i % 1000, "Title " + i, "Body of post " + i));
+        }
+        file = new SnapshotFile<>(directory.resolve("posts.snapshot"), new PostSnapshotCodec());
+        snapshotter = new RepositorySnapshotter<>("posts", repository, Post::id, file,
+                new SnapshotProperties(true, directory, Duration.ofHours(1)));
+        snapshotter.snapshot();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.path());
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public long snapshot() throws IOException {
+        return snapshotter.snapshot();
+    }
+
+    @Benchmark
+    public InMemoryPostRepository load() throws IOException {
+        InMemoryPostRepository loaded = new InMemoryPostRepository();
+        file.read(loaded::restore);
+        return loaded;
+    }
+}
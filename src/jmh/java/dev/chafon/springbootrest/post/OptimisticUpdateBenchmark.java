@@ -0,0 +1,71 @@
+package dev.chafon.springbootrest.post;
+
+import dev.chafon.springbootrest.support.VersionConflictException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Read-modify-write updates under contention: optimistic compare-and-set saves retried on a version
+// conflict, holding a per-id lock across the read and the save, and a single atomic update in the
+// store. Fewer hot posts means more writers racing for the same id, e.g.
+// ./gradlew jmh -Pjmh.includes=OptimisticUpdateBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(Threads.MAX)
+public class OptimisticUpdateBenchmark {
+
+    private static final int LOCK_STRIPES = 1024;
+
+    @Param({"1", "16", "100000"})
+    private int hotPosts;
+
+    private InMemoryPostRepository repository;
+    private ReentrantLock[] locks;
+
+    @Setup
+    public void setUp() {
+        repository = new InMemoryPostRepository();
+        for (int i = 0; i < hotPosts; i++) {
+            repository.save(new Post(null, i % 1000, "Title " + i, "Body of post " + i));
+        }
+        locks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Benchmark
+    public Post optimistic() {
+        int id = ThreadLocalRandom.current().nextInt(1, hotPosts + 1);
+        while (true) {
+            Post post = repository.findById(id).orElseThrow();
+            try {
+                return repository.save(new Post(id, post.userId(), post.title(), "Updated", post.version()));
+            } catch (VersionConflictException ex) {
+                // another writer got in between the read and the save, so read again
+            }
+        }
+    }
+
+    @Benchmark
+    public Post locking() {
+        int id = ThreadLocalRandom.current().nextInt(1, hotPosts + 1);
+        ReentrantLock lock = locks[id % LOCK_STRIPES];
+        lock.lock();
+        try {
+            Post post = repository.findById(id).orElseThrow();
+            return repository.save(new Post(id, post.userId(), post.title(), "Updated"));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Benchmark
+    public Post atomicUpdate() {
+        int id = ThreadLocalRandom.current().nextInt(1, hotPosts + 1);
+        return repository.update(id, post -> new Post(id, post.userId(), post.title(), "Updated")).orElseThrow();
+    }
+}
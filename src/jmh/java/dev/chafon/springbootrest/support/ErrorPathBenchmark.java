@@ -0,0 +1,52 @@
+package dev.chafon.springbootrest.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chafon.springbootrest.user.UserNotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.converter.json.ProblemDetailJacksonMixin;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static dev.chafon.springbootrest.Constants.USER_NOT_FOUND_EXCEPTION_MESSAGE;
+
+// The work behind one 404 response: throwing the exception and writing its problem detail body. The
+// default path captures a stack trace and serializes a ProblemDetail through Jackson; the light path
+// throws a stackless exception and renders the body from the cached head. Run with the GC profiler
+// to compare bytes allocated per request, e.g.
+// ./gradlew jmh -Pjmh.includes=ErrorPathBenchmark -Pjmh.profilers=gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ErrorPathBenchmark {
+
+    private static final String INSTANCE = "/api/users/42";
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .addMixIn(ProblemDetail.class, ProblemDetailJacksonMixin.class);
+    private final ProblemBodies notFound = ProblemBodies.forStatus(HttpStatus.NOT_FOUND);
+
+    private int userId = 42;
+
+    @Benchmark
+    public byte[] stackTraceAndProblemDetail() throws Exception {
+        try {
+            throw new RuntimeException(USER_NOT_FOUND_EXCEPTION_MESSAGE + userId);
+        } catch (RuntimeException ex) {
+            ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, ex.getMessage());
+            problem.setInstance(URI.create(INSTANCE));
+            return objectMapper.writeValueAsBytes(problem);
+        }
+    }
+
+    @Benchmark
+    public byte[] stacklessAndPreRendered() {
+        try {
+            throw new UserNotFoundException(userId);
+        } catch (UserNotFoundException ex) {
+            return notFound.render(ex.getMessage(), INSTANCE);
+        }
+    }
+}
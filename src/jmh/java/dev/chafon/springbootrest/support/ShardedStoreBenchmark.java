@@ -0,0 +1,58 @@
+package dev.chafon.springbootrest.support;
+
+import dev.chafon.springbootrest.post.Post;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Scaling across cores: vary the shard count here and the cores with -t (writers) or
+// -Djava.util.concurrent.ForkJoinPool.common.parallelism=N (scans), e.g.
+// ./gradlew jmh -Pjmh.includes=ShardedStoreBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ShardedStoreBenchmark {
+
+    @Param({"1", "8", "64"})
+    private int shards;
+
+    @Param({"1000000"})
+    private int records;
+
+    private ShardedStore<Post> store;
+    private ShardedStore.Index<Post, Integer> userIdIndex;
+
+    @Setup
+    public void setUp() {
+        store = new ShardedStore<>(shards, Post::id);
+        userIdIndex = store.addIndex(Post::userId);
+        for (int id = 1; id <= records; id++) {
+            store.put(new Post(id, id % 1000, "Title " + id, "Body of post " + id));
+        }
+    }
+
+    @Benchmark
+    public List<Post> findAll() {
+        return store.values();
+    }
+
+    @Benchmark
+    public List<Post> fullScanFilter() {
+        int userId = ThreadLocalRandom.current().nextInt(1000);
+        return store.filter(post -> post.userId() == userId);
+    }
+
+    @Benchmark
+    public List<Post> indexedLookup() {
+        return store.findBy(userIdIndex, ThreadLocalRandom.current().nextInt(1000));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Post concurrentUpdates() {
+        int id = ThreadLocalRandom.current().nextInt(1, records + 1);
+        return store.compute(id, (key, post) -> new Post(key, post.userId(), post.title(), "Updated"));
+    }
+}
@@ -0,0 +1,68 @@
+package dev.chafon.springbootrest.support;
+
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.post.PostValidator;
+import dev.chafon.springbootrest.user.User;
+import dev.chafon.springbootrest.user.UserValidator;
+import jakarta.validation.Validation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import java.util.concurrent.TimeUnit;
+
+// The @Valid step of a create or update request: Hibernate Validator through Spring's adapter, as
+// the default binder runs it, against the record validators. Both report into a fresh binding
+// result per call, e.g.
+// ./gradlew jmh -Pjmh.includes=ValidationBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidationBenchmark {
+
+    @Param({"hibernate", "record"})
+    private String validator;
+
+    @Param({"true", "false"})
+    private boolean valid;
+
+    private Validator userValidator;
+    private Validator postValidator;
+    private User user;
+    private Post post;
+
+    @Setup
+    public void setUp() {
+        if (validator.equals("hibernate")) {
+            SpringValidatorAdapter adapter = new SpringValidatorAdapter(
+                    Validation.buildDefaultValidatorFactory().getValidator());
+            userValidator = adapter;
+            postValidator = adapter;
+        } else {
+            userValidator = new UserValidator();
+            postValidator = new PostValidator();
+        }
+        user = valid
+                ? new User(1, "John Doe", "johnD", "john.doe@mail.com")
+                : new User(1, " ", "johnD", "john.doe@mail..com");
+        post = valid
+                ? new Post(1, 1, "Post title", "Lorem ipsum dolor sit amet, consectetur adipiscing elit")
+                : new Post(1, null, "Post title", "");
+    }
+
+    @Benchmark
+    public BindingResult validateUser() {
+        BindingResult errors = new BeanPropertyBindingResult(user, "user");
+        userValidator.validate(user, errors);
+        return errors;
+    }
+
+    @Benchmark
+    public BindingResult validatePost() {
+        BindingResult errors = new BeanPropertyBindingResult(post, "post");
+        postValidator.validate(post, errors);
+        return errors;
+    }
+}
@@ -0,0 +1,81 @@
+package dev.chafon.springbootrest.user;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chafon.springbootrest.Application;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Resolving the authors of a page of posts: one GET per user against a single GET with ?ids=, over
+// a real HTTP connection to a running application, e.g.
+// ./gradlew jmh -Pjmh.includes=MultiGetBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MultiGetBenchmark {
+
+    private static final TypeReference<List<User>> USERS = new TypeReference<>() {};
+
+    @Param({"1", "10", "50"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private HttpClient httpClient;
+    private List<URI> userUris;
+    private URI multiGetUri;
+
+    @Setup
+    public void setUp() {
+        context = SpringApplication.run(Application.class,
+                "--server.port=0", "--grpc.server.port=0", "--admission.rate-limit.enabled=false",
+                "--logging.level.root=WARN");
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        UserService userService = context.getBean(UserService.class);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            ids.add(userService.createUser(new User(null, "User " + i, "user" + i, "user" + i + "@mail.com")).id());
+        }
+
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/v1/users";
+        httpClient = HttpClient.newHttpClient();
+        userUris = ids.stream().map(id -> URI.create(baseUrl + "/" + id)).toList();
+        multiGetUri = URI.create(baseUrl + "?ids=" + ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<User> individualRequests() throws Exception {
+        List<User> users = new ArrayList<>(userUris.size());
+        for (URI userUri : userUris) {
+            HttpResponse<byte[]> response = httpClient.send(
+                    HttpRequest.newBuilder(userUri).GET().build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            users.add(objectMapper.readValue(response.body(), User.class));
+        }
+        return users;
+    }
+
+    @Benchmark
+    public List<User> multiGet() throws Exception {
+        HttpResponse<byte[]> response = httpClient.send(
+                HttpRequest.newBuilder(multiGetUri).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        return objectMapper.readValue(response.body(), USERS);
+    }
+}
@@ -28,6 +28,10 @@ public class Application {
 										PostService postService,
 										ObjectMapper objectMapper) {
 		return args -> {
+			if (!userService.getUsers().isEmpty()) {
+				return;
+			}
+
 			String usersJson = "/data/users.json";
             try (InputStream inputStream = TypeReference.class.getResourceAsStream(usersJson)) {
 				List<User> users = objectMapper.readValue(inputStream, new TypeReference<>() {});
@@ -8,6 +8,10 @@ public final class Constants {
     public static final String EMAIL_CANNOT_BE_BLANK = "Email cannot be blank";
     public static final String EMAIL_MUST_BE_VALID = "Email must be valid";
     public static final String ID_CANNOT_BE_NULL = "Id cannot be null";
+    public static final String IDS_CANNOT_BE_NULL = "Ids cannot be null";
+    public static final String QUERY_CANNOT_BE_NULL = "Query cannot be null";
+    public static final String TIME_RANGE_NEEDS_CREATED_ORDER = "since and until can only be used with sort=created";
+    public static final String INVALID_PAGE_CURSOR = "Invalid page cursor";
     public static final String USER_CANNOT_BE_NULL = "User cannot be null";
     public static final String USER_WITH_ID_DOES_NOT_EXIST = "User with id does not exist";
     public static final String USERNAME_CANNOT_BE_NULL = "Username cannot be null";
@@ -17,4 +21,19 @@ public final class Constants {
     public static final String POST_CANNOT_BE_NULL = "Post cannot be null";
     public static final String POST_WITH_ID_DOES_NOT_EXIST = "Post with id does not exist";
     public static final String POST_NOT_FOUND_EXCEPTION_MESSAGE = "Post not found with the id: ";
+    public static final String RATE_LIMIT_EXCEEDED = "Rate limit exceeded, retry later";
+    public static final String SERVICE_OVERLOADED = "Service overloaded, retry later";
+    public static final String POST_CANNOT_MOVE_PARTITION = "Post cannot be moved to a user on another partition";
+    public static final String PARTITION_NODE_UNAVAILABLE = "Partition node unavailable: ";
+    public static final String PARTITION_NODE_LOCAL_SEQUENCES = "Not available with partitioning, as commit sequences belong to one node: ";
+    public static final String PARTITION_SECRET_MISMATCH = "Partition secret is missing or does not match";
+    public static final String PARTITION_HANDOFF_INVALID = "Invalid partition handoff: ";
+    public static final String PARTITION_SLOT_MOVING = "Slot does not take new entities on this node, retry later: ";
+    public static final String PARTITION_REBALANCE_FAILED = "Rebalance failed and the previous ring was restored: ";
+    public static final String PARTITION_RESPONSE_NOT_ACCEPTABLE = "No partitioned response can be written as: ";
+    public static final String SNAPSHOT_NO_LONGER_RETAINED = "Snapshot is no longer retained for sequence: ";
+    public static final String VERSION_DOES_NOT_MATCH = "Version does not match the current version: ";
+    public static final String SNAPSHOT_AHEAD_OF_LATEST = "Snapshot is ahead of the latest committed sequence: ";
+    public static final String TOMBSTONES_NO_LONGER_RETAINED = "Deletes are no longer retained since sequence: ";
+    public static final String WRITE_BUFFER_FULL = "Too many writes waiting to be persisted, retry later: ";
 }
@@ -0,0 +1,83 @@
+package dev.chafon.springbootrest;
+
+import dev.chafon.springbootrest.grpc.IdRequest;
+import dev.chafon.springbootrest.grpc.PostMessage;
+import dev.chafon.springbootrest.grpc.UpdatePostRequest;
+import dev.chafon.springbootrest.grpc.UpdateUserRequest;
+import dev.chafon.springbootrest.grpc.UserMessage;
+import dev.chafon.springbootrest.partition.PartitionHandoff;
+import dev.chafon.springbootrest.partition.PartitionHandoffReceipt;
+import dev.chafon.springbootrest.partition.PartitionMove;
+import dev.chafon.springbootrest.partition.PartitionNodes;
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.post.PostWithUser;
+import dev.chafon.springbootrest.replication.ReplicationBatch;
+import dev.chafon.springbootrest.replication.ReplicationEntry;
+import dev.chafon.springbootrest.replication.ReplicationSnapshot;
+import dev.chafon.springbootrest.support.ChangeSet;
+import dev.chafon.springbootrest.support.RankedCounts;
+import dev.chafon.springbootrest.user.User;
+import dev.chafon.springbootrest.user.UserWithPosts;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.List;
+
+// Reflection and resource hints for the native image; Spring AOT already covers controller
+// request and response types, these are the uses it cannot see.
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHintsConfig.ApplicationRuntimeHints.class)
+public class NativeHintsConfig {
+
+    static class ApplicationRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // seed data read by the dev profile runner
+            hints.resources().registerPattern("data/*.json");
+
+            // Jackson outside controllers (change stream, journal, node-to-node calls of replication and
+            // partitioning), responses whose element types sit behind generics or ResponseEntity, and
+            // Hibernate Validator reading constraints from record components
+            for (Class<?> type : List.of(
+                    User.class,
+                    Post.class,
+                    UserWithPosts.class,
+                    PostWithUser.class,
+                    ChangeSet.class,
+                    ChangeSet.Deletion.class,
+                    RankedCounts.Count.class,
+                    ReplicationBatch.class,
+                    ReplicationEntry.class,
+                    ReplicationSnapshot.class,
+                    PartitionHandoff.class,
+                    PartitionHandoffReceipt.class,
+                    PartitionMove.class,
+                    PartitionNodes.class)) {
+                registerForJackson(hints, TypeReference.of(type));
+            }
+            registerForJackson(hints, TypeReference.of("dev.chafon.springbootrest.persistence.JournalEntry"));
+
+            // protobuf builds its field accessor tables reflectively
+            for (Class<?> type : List.of(
+                    UserMessage.class, UserMessage.Builder.class,
+                    PostMessage.class, PostMessage.Builder.class,
+                    IdRequest.class, IdRequest.Builder.class,
+                    UpdateUserRequest.class, UpdateUserRequest.Builder.class,
+                    UpdatePostRequest.class, UpdatePostRequest.Builder.class)) {
+                hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+        }
+
+        private static void registerForJackson(RuntimeHints hints, TypeReference type) {
+            hints.reflection().registerType(type,
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package dev.chafon.springbootrest.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+final class AdmissionSupport {
+
+    private static final Pattern COLLECTION_PATH = Pattern.compile("/api/v1/(users|posts|users/[^/]+/posts)/?");
+
+    private AdmissionSupport() {
+    }
+
+    static boolean isCollectionRead(HttpServletRequest request) {
+        return "GET".equals(request.getMethod())
+                && COLLECTION_PATH.matcher(pathWithinApplication(request)).matches();
+    }
+
+    static String pathWithinApplication(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    static void reject(HttpServletRequest request,
+                       HttpServletResponse response,
+                       ObjectMapper objectMapper,
+                       HttpStatus status,
+                       String detail,
+                       long retryAfterSeconds) throws IOException {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(status, detail);
+        problemDetail.setInstance(URI.create(request.getRequestURI()));
+
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), problemDetail);
+    }
+}
@@ -0,0 +1,42 @@
+package dev.chafon.springbootrest.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+import static dev.chafon.springbootrest.Constants.SERVICE_OVERLOADED;
+import static dev.chafon.springbootrest.admission.AdmissionSupport.isCollectionRead;
+import static dev.chafon.springbootrest.admission.AdmissionSupport.reject;
+
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final ObjectMapper objectMapper;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimiter concurrencyLimiter, ObjectMapper objectMapper) {
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!concurrencyLimiter.tryAcquire(isCollectionRead(request))) {
+            reject(request, response, objectMapper, HttpStatus.SERVICE_UNAVAILABLE, SERVICE_OVERLOADED, 1);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            concurrencyLimiter.release(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package dev.chafon.springbootrest.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "admission.concurrency-limit")
+public record ConcurrencyLimitProperties(
+        @DefaultValue("true")
+        boolean enabled,
+        @DefaultValue("50")
+        int initialLimit,
+        @DefaultValue("10")
+        int minLimit,
+        @DefaultValue("200")
+        int maxLimit,
+        @DefaultValue("250ms")
+        Duration latencyThreshold,
+        @DefaultValue("0.9")
+        double backoffRatio,
+        @DefaultValue("0.8")
+        double bulkShare) {
+}
@@ -0,0 +1,69 @@
+package dev.chafon.springbootrest.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// AIMD concurrency limit: grows by one per limit's worth of requests that stay under the latency
+// threshold while the limit is actually being used, and backs off multiplicatively as soon as one is
+// slower.
+// Bulk requests may only use a share of the limit, so they are shed before single-entity ones.
+public class ConcurrencyLimiter {
+
+    private final ConcurrencyLimitProperties properties;
+    private final long latencyThresholdNanos;
+    private final AtomicInteger inFlight;
+    private final AtomicLong limitBits;
+
+    public ConcurrencyLimiter(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.latencyThresholdNanos = properties.latencyThreshold().toNanos();
+        this.inFlight = new AtomicInteger();
+        this.limitBits = new AtomicLong(Double.doubleToRawLongBits(properties.initialLimit()));
+    }
+
+    public boolean tryAcquire(boolean bulk) {
+        double limit = limit();
+        int allowed = Math.max(1, (int) (bulk ? limit * properties.bulkShare() : limit));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos) {
+        int inFlightBeforeRelease = inFlight.getAndDecrement();
+        while (true) {
+            long bits = limitBits.get();
+            double limit = Double.longBitsToDouble(bits);
+            double newLimit;
+            if (latencyNanos > latencyThresholdNanos) {
+                newLimit = Math.max(properties.minLimit(), limit * properties.backoffRatio());
+            } else if (inFlightBeforeRelease * 2 >= limit) {
+                // 1/limit per response, so a full window of fast responses adds one
+                newLimit = Math.min(properties.maxLimit(), limit + 1 / limit);
+            } else {
+                return;
+            }
+            if (newLimit == limit || limitBits.compareAndSet(bits, Double.doubleToRawLongBits(newLimit))) {
+                return;
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private double limit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+}
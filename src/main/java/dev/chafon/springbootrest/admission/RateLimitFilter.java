@@ -0,0 +1,50 @@
+package dev.chafon.springbootrest.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+import static dev.chafon.springbootrest.Constants.RATE_LIMIT_EXCEEDED;
+import static dev.chafon.springbootrest.admission.AdmissionSupport.*;
+
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String API_KEY_HEADER = "X-API-Key";
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties, ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        int cost = isCollectionRead(request) ? properties.collectionCost() : 1;
+        long waitNanos = rateLimiter.tryAcquire(clientKey(request), cost);
+        if (waitNanos > 0) {
+            reject(request, response, objectMapper, HttpStatus.TOO_MANY_REQUESTS,
+                    RATE_LIMIT_EXCEEDED, toRetryAfterSeconds(waitNanos));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // Any client can make up a key, so only the configured ones are trusted with a bucket of their own
+    // and an unknown key is charged to the address it came from.
+    private String clientKey(HttpServletRequest request) {
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        return apiKey != null && properties.apiKeys().contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,23 @@
+package dev.chafon.springbootrest.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Set;
+
+@ConfigurationProperties(prefix = "admission.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true")
+        boolean enabled,
+        @DefaultValue("200")
+        int capacity,
+        @DefaultValue("100")
+        double tokensPerSecond,
+        @DefaultValue("10")
+        int collectionCost,
+        @DefaultValue("10000")
+        int maxClients,
+        // clients sending one of these in X-API-Key get a bucket of their own; other keys are ignored
+        @DefaultValue
+        Set<String> apiKeys) {
+}
@@ -0,0 +1,68 @@
+package dev.chafon.springbootrest.admission;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+public class RateLimiter {
+
+    private static final long EVICTION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final RateLimitProperties properties;
+    private final LongSupplier nanoClock;
+    private final ConcurrentMap<String, TokenBucket> buckets;
+    private final TokenBucket overflowBucket;
+    private final AtomicLong lastEviction;
+
+    public RateLimiter(RateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    RateLimiter(RateLimitProperties properties, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.buckets = new ConcurrentHashMap<>();
+        long now = nanoClock.getAsLong();
+        this.overflowBucket = newBucket(now);
+        this.lastEviction = new AtomicLong(now - EVICTION_INTERVAL_NANOS);
+    }
+
+    // Returns 0 when the request is admitted, otherwise the nanos the client should wait before retrying.
+    public long tryAcquire(String clientKey, int cost) {
+        long now = nanoClock.getAsLong();
+        TokenBucket bucket = buckets.get(clientKey);
+        if (bucket == null) {
+            bucket = bucketForNewClient(clientKey, now);
+        }
+        return bucket.tryConsume(Math.min(cost, properties.capacity()), now);
+    }
+
+    int trackedClients() {
+        return buckets.size();
+    }
+
+    // Past the bound, full buckets are dropped (at most once per interval so a flood of new clients
+    // cannot turn every request into a sweep); clients that still do not fit share one overflow bucket.
+    private TokenBucket bucketForNewClient(String clientKey, long now) {
+        if (buckets.size() >= properties.maxClients()) {
+            evictFullBuckets(now);
+            if (buckets.size() >= properties.maxClients()) {
+                return overflowBucket;
+            }
+        }
+        return buckets.computeIfAbsent(clientKey, key -> newBucket(now));
+    }
+
+    private void evictFullBuckets(long now) {
+        long last = lastEviction.get();
+        if (now - last >= EVICTION_INTERVAL_NANOS && lastEviction.compareAndSet(last, now)) {
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+        }
+    }
+
+    private TokenBucket newBucket(long now) {
+        return new TokenBucket(properties.capacity(), properties.tokensPerSecond(), now);
+    }
+}
@@ -0,0 +1,39 @@
+package dev.chafon.springbootrest.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free token bucket in its GCRA form: instead of a token count it keeps the theoretical
+// arrival time of the next request, so consuming tokens is a single CAS on one long.
+class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrivalTime;
+
+    TokenBucket(long capacity, double tokensPerSecond, long now) {
+        this.nanosPerToken = (long) (1_000_000_000L / tokensPerSecond);
+        this.burstNanos = nanosPerToken * capacity;
+        this.theoreticalArrivalTime = new AtomicLong(now);
+    }
+
+    // Returns 0 when the tokens were taken, otherwise the nanos to wait until they would be available.
+    long tryConsume(int tokens, long now) {
+        long cost = nanosPerToken * tokens;
+        while (true) {
+            long tat = theoreticalArrivalTime.get();
+            long newTat = Math.max(tat, now) + cost;
+            long overdraft = newTat - now - burstNanos;
+            if (overdraft > 0) {
+                return overdraft;
+            }
+            if (theoreticalArrivalTime.compareAndSet(tat, newTat)) {
+                return 0;
+            }
+        }
+    }
+
+    // A fully refilled bucket is indistinguishable from a new one, so it can be dropped without losing state.
+    boolean isFull(long now) {
+        return theoreticalArrivalTime.get() <= now;
+    }
+}
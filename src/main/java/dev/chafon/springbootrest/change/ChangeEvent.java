@@ -0,0 +1,5 @@
+package dev.chafon.springbootrest.change;
+
+// data is the JSON of the entity after the change, or of the deleted entity
+public record ChangeEvent(long sequence, String type, String data) {
+}
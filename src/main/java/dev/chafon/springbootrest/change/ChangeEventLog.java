@@ -0,0 +1,49 @@
+package dev.chafon.springbootrest.change;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Ring buffer of the most recent events. Appends, which come from the dispatcher and direct publishes,
+// are serialized so sequence order and buffer order match; reads are lock-free and detect slots that were overwritten by a newer event.
+class ChangeEventLog {
+
+    private final AtomicReferenceArray<ChangeEvent> ring;
+    private volatile long lastSequence;
+
+    ChangeEventLog(int capacity) {
+        this.ring = new AtomicReferenceArray<>(capacity);
+    }
+
+    synchronized ChangeEvent append(String type, String data) {
+        long sequence = lastSequence + 1;
+        ChangeEvent event = new ChangeEvent(sequence, type, data);
+        ring.set(slot(sequence), event);
+        lastSequence = sequence;
+        return event;
+    }
+
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    // Returns up to max events after the given sequence, oldest first, or null when some of
+    // them have already been overwritten and the reader can no longer catch up from the log.
+    List<ChangeEvent> readAfter(long afterSequence, int max) {
+        long last = lastSequence;
+        long to = Math.min(last, afterSequence + max);
+        List<ChangeEvent> events = new ArrayList<>((int) Math.max(0, to - afterSequence));
+        for (long sequence = afterSequence + 1; sequence <= to; sequence++) {
+            ChangeEvent event = ring.get(slot(sequence));
+            if (event == null || event.sequence() != sequence) {
+                return null;
+            }
+            events.add(event);
+        }
+        return events;
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % ring.length());
+    }
+}
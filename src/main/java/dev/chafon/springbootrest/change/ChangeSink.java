@@ -0,0 +1,17 @@
+package dev.chafon.springbootrest.change;
+
+import java.io.IOException;
+
+// Where a subscriber's events are written; an IOException means the client has gone away.
+interface ChangeSink {
+
+    void send(ChangeEvent event) throws IOException;
+
+    // Tells the client that events between its last event and the given sequence were lost
+    // and it has to reload the full state.
+    void reset(long sequence) throws IOException;
+
+    void heartbeat() throws IOException;
+
+    void close();
+}
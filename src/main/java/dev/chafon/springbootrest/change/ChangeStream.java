@@ -0,0 +1,312 @@
+package dev.chafon.springbootrest.change;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chafon.springbootrest.support.ChangeListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Fans repository changes out to connected clients. A repository change is only queued while its id
+// is locked; once its write is done the single dispatcher serializes it and appends it to a ring
+// buffer, keeping the order the changes were queued in, so no lock is held while the JSON is written.
+// Each subscriber is a cursor into that buffer, and a virtual thread is started for a subscriber only
+// while it has events to send. A subscriber falling further behind than the allowed lag is
+// disconnected and can resume with Last-Event-ID.
+public class ChangeStream implements MeterBinder, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeStream.class);
+
+    private final ObjectMapper objectMapper;
+    private final ChangeStreamProperties properties;
+    private final ChangeEventLog eventLog;
+    private final Set<ChangeSubscriber> subscribers;
+    private final Queue<QueuedChange> queuedChanges;
+    private final AtomicBoolean dispatchPending;
+    private final ScheduledExecutorService dispatcher;
+    private final ExecutorService senders;
+    private volatile Counter droppedCounter;
+
+    public ChangeStream(ObjectMapper objectMapper, ChangeStreamProperties properties) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.eventLog = new ChangeEventLog(properties.bufferSize());
+        this.subscribers = ConcurrentHashMap.newKeySet();
+        this.queuedChanges = new ConcurrentLinkedQueue<>();
+        this.dispatchPending = new AtomicBoolean();
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("change-stream-dispatcher").daemon().factory());
+        this.senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("change-stream-", 0).factory());
+
+        long heartbeatMillis = properties.heartbeatInterval().toMillis();
+        dispatcher.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Event types are "<entity>.created", "<entity>.updated" and "<entity>.deleted".
+    public <T> ChangeListener<T> listener(String entity) {
+        // the changes the current thread queued during its write
+        ThreadLocal<List<QueuedChange>> written = new ThreadLocal<>();
+        return new ChangeListener<>() {
+            @Override
+            public void onSaved(T previous, T saved) {
+                queue(written, entity + (previous == null ? ".created" : ".updated"), saved);
+            }
+
+            @Override
+            public void onDeleted(T deleted) {
+                queue(written, entity + ".deleted", deleted);
+            }
+
+            @Override
+            public void afterChange(boolean applied) {
+                List<QueuedChange> changes = written.get();
+                if (changes == null) {
+                    return;
+                }
+                written.remove();
+                for (QueuedChange change : changes) {
+                    change.settle(applied);
+                }
+                wakeDispatcher();
+            }
+        };
+    }
+
+    public ChangeEvent publish(String type, Object entity) {
+        ChangeEvent event = eventLog.append(type, toJson(entity));
+        wakeDispatcher();
+        return event;
+    }
+
+    // Starts streaming events after lastEventId, or only new events when it is null. When the
+    // requested events are no longer buffered the client is sent a reset instead.
+    public ChangeSubscriber subscribe(ChangeSink sink, Long lastEventId) {
+        long last = eventLog.lastSequence();
+        long cursor = lastEventId == null ? last : lastEventId;
+        if (!canResumeFrom(cursor, last)) {
+            cursor = last;
+            try {
+                sink.reset(last);
+            } catch (IOException ex) {
+                sink.close();
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        ChangeSubscriber subscriber = new ChangeSubscriber(sink, cursor);
+        subscribers.add(subscriber);
+        schedule(subscriber, false);
+        return subscriber;
+    }
+
+    public void unsubscribe(ChangeSubscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.markClosed();
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("changestream.subscribers", subscribers, Set::size)
+                .description("Clients connected to the change stream")
+                .register(registry);
+        droppedCounter = Counter.builder("changestream.dropped")
+                .description("Subscribers disconnected for falling behind")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        dispatcher.shutdownNow();
+        for (ChangeSubscriber subscriber : subscribers) {
+            disconnect(subscriber);
+        }
+        senders.shutdown();
+    }
+
+    private boolean canResumeFrom(long cursor, long last) {
+        if (cursor == last) {
+            return true;
+        }
+        return cursor < last
+                && last - cursor <= properties.maxSubscriberLag()
+                && eventLog.readAfter(cursor, 1) != null;
+    }
+
+    private void queue(ThreadLocal<List<QueuedChange>> written, String type, Object entity) {
+        QueuedChange change = new QueuedChange(type, entity);
+        List<QueuedChange> changes = written.get();
+        if (changes == null) {
+            changes = new ArrayList<>(1);
+            written.set(changes);
+        }
+        changes.add(change);
+        queuedChanges.add(change);
+    }
+
+    private void wakeDispatcher() {
+        if (dispatchPending.compareAndSet(false, true)) {
+            dispatcher.execute(this::dispatch);
+        }
+    }
+
+    private void dispatch() {
+        dispatchPending.set(false);
+        appendSettledChanges();
+        long last = eventLog.lastSequence();
+        for (ChangeSubscriber subscriber : subscribers) {
+            if (subscriber.cursor() < last) {
+                schedule(subscriber, false);
+            }
+        }
+    }
+
+    // Stops at the first change whose write is still running, as later ones may depend on it.
+    private void appendSettledChanges() {
+        for (QueuedChange change; (change = queuedChanges.peek()) != null && change.isSettled(); ) {
+            queuedChanges.poll();
+            if (change.isApplied()) {
+                try {
+                    eventLog.append(change.type(), toJson(change.entity()));
+                } catch (RuntimeException ex) {
+                    log.error("Could not publish a {} event", change.type(), ex);
+                }
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (ChangeSubscriber subscriber : subscribers) {
+            schedule(subscriber, true);
+        }
+    }
+
+    // A subscriber that is already sending picks up new events before it stops, so skipping it here is safe.
+    private void schedule(ChangeSubscriber subscriber, boolean heartbeat) {
+        if (subscriber.tryStartSending()) {
+            try {
+                senders.execute(() -> send(subscriber, heartbeat));
+            } catch (RuntimeException ex) {
+                subscriber.stopSending();
+            }
+        }
+    }
+
+    private void send(ChangeSubscriber subscriber, boolean heartbeat) {
+        try {
+            if (heartbeat && subscriber.cursor() >= eventLog.lastSequence()) {
+                subscriber.sink().heartbeat();
+            }
+            do {
+                if (!sendAvailable(subscriber)) {
+                    return;
+                }
+                subscriber.stopSending();
+            } while (subscriber.cursor() < eventLog.lastSequence() && subscriber.tryStartSending());
+        } catch (IOException | RuntimeException ex) {
+            log.debug("Change stream subscriber disconnected", ex);
+            disconnect(subscriber);
+        }
+    }
+
+    private boolean sendAvailable(ChangeSubscriber subscriber) throws IOException {
+        while (!subscriber.isClosed()) {
+            long last = eventLog.lastSequence();
+            long cursor = subscriber.cursor();
+            if (cursor >= last) {
+                return true;
+            }
+            List<ChangeEvent> events = last - cursor > properties.maxSubscriberLag()
+                    ? null
+                    : eventLog.readAfter(cursor, properties.sendBatchSize());
+            if (events == null) {
+                drop(subscriber, last - cursor);
+                return false;
+            }
+            for (ChangeEvent event : events) {
+                subscriber.sink().send(event);
+                subscriber.advanceTo(event.sequence());
+            }
+        }
+        return false;
+    }
+
+    private void drop(ChangeSubscriber subscriber, long lag) {
+        log.debug("Disconnecting change stream subscriber {} events behind", lag);
+        Counter counter = droppedCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+        disconnect(subscriber);
+    }
+
+    private void disconnect(ChangeSubscriber subscriber) {
+        subscribers.remove(subscriber);
+        if (subscriber.markClosed()) {
+            subscriber.sink().close();
+        }
+    }
+
+    private String toJson(Object entity) {
+        try {
+            return objectMapper.writeValueAsString(entity);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static final class QueuedChange {
+
+        private final String type;
+        private final Object entity;
+        private volatile boolean applied;
+        private volatile boolean settled;
+
+        QueuedChange(String type, Object entity) {
+            this.type = type;
+            this.entity = entity;
+        }
+
+        String type() {
+            return type;
+        }
+
+        Object entity() {
+            return entity;
+        }
+
+        void settle(boolean applied) {
+            this.applied = applied;
+            this.settled = true;
+        }
+
+        boolean isSettled() {
+            return settled;
+        }
+
+        boolean isApplied() {
+            return applied;
+        }
+    }
+}
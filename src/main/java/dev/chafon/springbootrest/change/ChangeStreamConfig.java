@@ -0,0 +1,24 @@
+package dev.chafon.springbootrest.change;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chafon.springbootrest.post.PostRepository;
+import dev.chafon.springbootrest.user.UserRepository;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ChangeStreamProperties.class)
+public class ChangeStreamConfig {
+
+    @Bean(destroyMethod = "close")
+    ChangeStream changeStream(UserRepository userRepository,
+                              PostRepository postRepository,
+                              ChangeStreamProperties properties,
+                              ObjectMapper objectMapper) {
+        ChangeStream changeStream = new ChangeStream(objectMapper, properties);
+        userRepository.addChangeListener(changeStream.listener("user"));
+        postRepository.addChangeListener(changeStream.listener("post"));
+        return changeStream;
+    }
+}
@@ -0,0 +1,30 @@
+package dev.chafon.springbootrest.change;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/v1/changes")
+public class ChangeStreamController {
+
+    private final ChangeStream changeStream;
+
+    public ChangeStreamController(ChangeStream changeStream) {
+        this.changeStream = changeStream;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        // No timeout: dead connections are found by the periodic heartbeat.
+        SseEmitter emitter = new SseEmitter(0L);
+        ChangeSubscriber subscriber = changeStream.subscribe(new SseChangeSink(emitter), lastEventId);
+        emitter.onCompletion(() -> changeStream.unsubscribe(subscriber));
+        emitter.onTimeout(() -> changeStream.unsubscribe(subscriber));
+        emitter.onError(ex -> changeStream.unsubscribe(subscriber));
+        return emitter;
+    }
+}
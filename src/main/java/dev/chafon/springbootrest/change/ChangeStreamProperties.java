@@ -0,0 +1,18 @@
+package dev.chafon.springbootrest.change;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "change-stream")
+public record ChangeStreamProperties(
+        @DefaultValue("10000")
+        int bufferSize,
+        @DefaultValue("1000")
+        int maxSubscriberLag,
+        @DefaultValue("100")
+        int sendBatchSize,
+        @DefaultValue("15s")
+        Duration heartbeatInterval) {
+}
@@ -0,0 +1,49 @@
+package dev.chafon.springbootrest.change;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// A connected client: the sequence of the last event it was sent, and a flag making sure at most
+// one task writes to it at a time. Idle subscribers hold no thread.
+final class ChangeSubscriber {
+
+    private final ChangeSink sink;
+    private final AtomicBoolean sending;
+    private final AtomicBoolean closed;
+    private volatile long cursor;
+
+    ChangeSubscriber(ChangeSink sink, long cursor) {
+        this.sink = sink;
+        this.sending = new AtomicBoolean();
+        this.closed = new AtomicBoolean();
+        this.cursor = cursor;
+    }
+
+    ChangeSink sink() {
+        return sink;
+    }
+
+    long cursor() {
+        return cursor;
+    }
+
+    void advanceTo(long sequence) {
+        cursor = sequence;
+    }
+
+    boolean tryStartSending() {
+        return !closed.get() && sending.compareAndSet(false, true);
+    }
+
+    void stopSending() {
+        sending.set(false);
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    // Returns true only for the first call, so the sink is closed once.
+    boolean markClosed() {
+        return closed.compareAndSet(false, true);
+    }
+}
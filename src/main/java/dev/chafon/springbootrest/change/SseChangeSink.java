@@ -0,0 +1,43 @@
+package dev.chafon.springbootrest.change;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+class SseChangeSink implements ChangeSink {
+
+    static final String RESET_EVENT = "reset";
+
+    private final SseEmitter emitter;
+
+    SseChangeSink(SseEmitter emitter) {
+        this.emitter = emitter;
+    }
+
+    @Override
+    public void send(ChangeEvent event) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(Long.toString(event.sequence()))
+                .name(event.type())
+                .data(event.data(), MediaType.APPLICATION_JSON));
+    }
+
+    @Override
+    public void reset(long sequence) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(Long.toString(sequence))
+                .name(RESET_EVENT)
+                .data(""));
+    }
+
+    @Override
+    public void heartbeat() throws IOException {
+        emitter.send(SseEmitter.event().comment("heartbeat"));
+    }
+
+    @Override
+    public void close() {
+        emitter.complete();
+    }
+}
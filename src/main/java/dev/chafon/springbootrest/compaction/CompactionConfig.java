@@ -0,0 +1,24 @@
+package dev.chafon.springbootrest.compaction;
+
+import dev.chafon.springbootrest.post.PostRepository;
+import dev.chafon.springbootrest.user.UserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(CompactionProperties.class)
+@ConditionalOnProperty(prefix = "repository.compaction", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CompactionConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    TombstoneCompactor userTombstoneCompactor(UserRepository userRepository, CompactionProperties properties) {
+        return new TombstoneCompactor("users", userRepository, properties);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    TombstoneCompactor postTombstoneCompactor(PostRepository postRepository, CompactionProperties properties) {
+        return new TombstoneCompactor("posts", postRepository, properties);
+    }
+}
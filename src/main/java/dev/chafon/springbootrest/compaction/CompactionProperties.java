@@ -0,0 +1,19 @@
+package dev.chafon.springbootrest.compaction;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "repository.compaction")
+public record CompactionProperties(
+        @DefaultValue("true")
+        boolean enabled,
+        // tombstones of the last this many commits are kept for change readers
+        @DefaultValue("100000")
+        long retainedSequences,
+        @DefaultValue("1s")
+        Duration interval,
+        @DefaultValue("10000")
+        int maxTombstonesPerPass) {
+}
@@ -0,0 +1,89 @@
+package dev.chafon.springbootrest.compaction;
+
+import dev.chafon.springbootrest.support.CompactableRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Reclaims the tombstones deletes leave in a repository once they are older than the retention window.
+// Each pass takes at most maxTombstonesPerPass of them, oldest first, and the next pass starts an
+// interval after the last one ended, so a backlog is worked off in small steps next to the writers.
+public class TombstoneCompactor implements MeterBinder, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(TombstoneCompactor.class);
+
+    private final String name;
+    private final CompactableRepository repository;
+    private final CompactionProperties properties;
+    private final ScheduledExecutorService compactionExecutor;
+    private volatile Counter reclaimedCounter;
+
+    TombstoneCompactor(String name, CompactableRepository repository, CompactionProperties properties) {
+        this.name = name;
+        this.repository = repository;
+        this.properties = properties;
+        this.compactionExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("compaction-" + name).daemon().factory());
+    }
+
+    public void start() {
+        long intervalMillis = properties.interval().toMillis();
+        compactionExecutor.scheduleWithFixedDelay(this::compactQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public int compact() {
+        int reclaimed = repository.compactTombstones(properties.retainedSequences(), properties.maxTombstonesPerPass());
+        Counter counter = reclaimedCounter;
+        if (counter != null && reclaimed > 0) {
+            counter.increment(reclaimed);
+        }
+        return reclaimed;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("repository.entries.live", repository, CompactableRepository::count)
+                .description("Entities that are not deleted")
+                .tag("store", name)
+                .register(registry);
+        Gauge.builder("repository.entries.tombstones", repository, CompactableRepository::tombstoneCount)
+                .description("Tombstones of deleted entities not reclaimed yet")
+                .tag("store", name)
+                .register(registry);
+        Gauge.builder("repository.entries.live.ratio", repository, TombstoneCompactor::liveRatio)
+                .description("Share of the stored entries that are live rather than tombstones")
+                .tag("store", name)
+                .register(registry);
+        reclaimedCounter = Counter.builder("repository.tombstones.reclaimed")
+                .description("Tombstones reclaimed by compaction")
+                .tag("store", name)
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        compactionExecutor.shutdownNow();
+    }
+
+    private static double liveRatio(CompactableRepository repository) {
+        long live = repository.count();
+        long entries = live + repository.tombstoneCount();
+        return entries == 0 ? 1.0 : (double) live / entries;
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (RuntimeException ex) {
+            log.error("Unexpected failure compacting {}", name, ex);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package dev.chafon.springbootrest.expiry;
+
+import dev.chafon.springbootrest.post.PostRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ExpiryProperties.class)
+@ConditionalOnProperty(prefix = "posts.expiry", name = "enabled", havingValue = "true")
+public class ExpiryConfig {
+
+    @Bean
+    PostExpirer postExpirer(PostRepository postRepository, ExpiryProperties properties) {
+        PostExpirer postExpirer = new PostExpirer(postRepository, properties, Clock.systemUTC());
+        postRepository.addChangeListener(postExpirer);
+        return postExpirer;
+    }
+}
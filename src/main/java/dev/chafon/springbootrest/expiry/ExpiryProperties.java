@@ -0,0 +1,17 @@
+package dev.chafon.springbootrest.expiry;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "posts.expiry")
+public record ExpiryProperties(
+        @DefaultValue("false")
+        boolean enabled,
+        // posts without an expiresAt of their own are deleted this long after they were created;
+        // unset, only posts with an expiresAt expire
+        Duration retention,
+        @DefaultValue("1s")
+        Duration tick) {
+}
@@ -0,0 +1,167 @@
+package dev.chafon.springbootrest.expiry;
+
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.post.PostRepository;
+import dev.chafon.springbootrest.support.ChangeListener;
+import dev.chafon.springbootrest.support.TimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Deletes posts once their expiry has passed: their expiresAt, or their creation time plus the
+// configured retention. Every write schedules the post's expiry in a timing wheel, so each tick only
+// looks at the posts that came due rather than at all of them. A due post is deleted through the
+// repository like any other delete, and only if it is still due once its id is locked; one that was
+// given a later expiry meanwhile is scheduled again.
+//
+// Restored posts, from a snapshot, the journal or the replication leader, are scheduled as they come
+// in, and the posts already stored when the expirer starts are scheduled once on start.
+public class PostExpirer implements ChangeListener<Post>, SmartLifecycle, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(PostExpirer.class);
+
+    private final PostRepository repository;
+    private final Duration retention;
+    private final long tickMillis;
+    private final Clock clock;
+    private final TimingWheel<Integer> wheel;
+    private final ScheduledExecutorService expiryExecutor;
+    private volatile Counter expiredCounter;
+    private volatile double expiredPerSecond;
+    private volatile boolean running;
+
+    PostExpirer(PostRepository repository, ExpiryProperties properties, Clock clock) {
+        this.repository = repository;
+        this.retention = properties.retention();
+        this.tickMillis = properties.tick().toMillis();
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(tickMillis, clock.millis());
+        this.expiryExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("post-expiry").daemon().factory());
+    }
+
+    @Override
+    public void start() {
+        repository.findAll().forEach(this::schedule);
+        expiryExecutor.scheduleAtFixedRate(this::expireQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        expiryExecutor.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void onSaved(Post previous, Post saved) {
+        schedule(saved);
+    }
+
+    @Override
+    public void onDeleted(Post deleted) {
+        wheel.cancel(deleted.id());
+    }
+
+    @Override
+    public void onRestored(Post restored) {
+        schedule(restored);
+    }
+
+    @Override
+    public void onEvicted(Post evicted) {
+        wheel.cancel(evicted.id());
+    }
+
+    // Deletes the posts that came due since the last call and returns how many; called on the expiry
+    // thread only.
+    public int expire() {
+        Instant now = clock.instant();
+        int expired = 0;
+        RuntimeException failure = null;
+        for (Integer id : wheel.advance(now.toEpochMilli())) {
+            try {
+                if (repository.deleteByIdIf(id, post -> isDue(post, now))) {
+                    expired++;
+                    continue;
+                }
+            } catch (RuntimeException ex) {
+                // e.g. the write was rejected under backpressure; the post is tried again on a later tick
+                failure = ex;
+            }
+            repository.findById(id).ifPresent(this::schedule);
+        }
+        Counter counter = expiredCounter;
+        if (counter != null && expired > 0) {
+            counter.increment(expired);
+        }
+        expiredPerSecond = expired * 1000.0 / tickMillis;
+        if (failure != null) {
+            throw failure;
+        }
+        return expired;
+    }
+
+    public int scheduledCount() {
+        return wheel.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        expiredCounter = Counter.builder("posts.expired")
+                .description("Posts deleted because their expiry passed")
+                .register(registry);
+        Gauge.builder("posts.expired.rate", this, expirer -> expirer.expiredPerSecond)
+                .description("Posts expired per second over the last tick")
+                .baseUnit("posts/s")
+                .register(registry);
+        Gauge.builder("posts.expiry.scheduled", this, PostExpirer::scheduledCount)
+                .description("Posts with an expiry that has not passed yet")
+                .register(registry);
+    }
+
+    private void schedule(Post post) {
+        Instant expiry = expiryOf(post);
+        if (expiry == null) {
+            wheel.cancel(post.id());
+        } else {
+            wheel.schedule(post.id(), expiry.toEpochMilli());
+        }
+    }
+
+    private boolean isDue(Post post, Instant now) {
+        Instant expiry = expiryOf(post);
+        return expiry != null && !expiry.isAfter(now);
+    }
+
+    private Instant expiryOf(Post post) {
+        if (post.expiresAt() != null) {
+            return post.expiresAt();
+        }
+        return retention == null || post.createdAt() == null ? null : post.createdAt().plus(retention);
+    }
+
+    private void expireQuietly() {
+        try {
+            expire();
+        } catch (RuntimeException ex) {
+            log.error("Unexpected failure expiring posts", ex);
+        }
+    }
+}
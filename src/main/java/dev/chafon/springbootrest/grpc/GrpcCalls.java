@@ -0,0 +1,106 @@
+package dev.chafon.springbootrest.grpc;
+
+import dev.chafon.springbootrest.partition.PartitionSlotMovingException;
+import dev.chafon.springbootrest.persistence.WriteBufferFullException;
+import dev.chafon.springbootrest.post.PostNotFoundException;
+import dev.chafon.springbootrest.support.VersionConflictException;
+import dev.chafon.springbootrest.user.UserAlreadyExistsException;
+import dev.chafon.springbootrest.user.UserNotFoundException;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.springframework.validation.Errors;
+import org.springframework.validation.ObjectError;
+import org.springframework.validation.Validator;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+final class GrpcCalls {
+
+    private GrpcCalls() {
+    }
+
+    static <T> void unary(StreamObserver<T> responseObserver, Supplier<T> call) {
+        T response;
+        try {
+            response = call.get();
+        } catch (RuntimeException ex) {
+            responseObserver.onError(toStatusException(ex));
+            return;
+        }
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    // Sends only while the transport is ready for more and carries on from the onReady callback, so a
+    // slow client holds the stream back instead of the server buffering all of it. The callbacks run
+    // one at a time on the call's executor, after this method returns.
+    static <E, T> void serverStreaming(StreamObserver<T> responseObserver,
+                                       Supplier<List<E>> call,
+                                       Function<E, T> mapper) {
+        List<E> elements;
+        try {
+            elements = call.get();
+        } catch (RuntimeException ex) {
+            responseObserver.onError(toStatusException(ex));
+            return;
+        }
+        ServerCallStreamObserver<T> serverObserver = (ServerCallStreamObserver<T>) responseObserver;
+        Iterator<E> remaining = elements.iterator();
+        boolean[] finished = {false};
+        Runnable send = () -> {
+            if (finished[0]) {
+                return;
+            }
+            try {
+                while (serverObserver.isReady() && remaining.hasNext()) {
+                    serverObserver.onNext(mapper.apply(remaining.next()));
+                }
+            } catch (RuntimeException ex) {
+                finished[0] = true;
+                serverObserver.onError(toStatusException(ex));
+                return;
+            }
+            if (!remaining.hasNext()) {
+                finished[0] = true;
+                serverObserver.onCompleted();
+            }
+        };
+        serverObserver.setOnCancelHandler(() -> finished[0] = true);
+        serverObserver.setOnReadyHandler(send);
+        send.run();
+    }
+
+    static <T> T validate(Validator validator, T value) {
+        Errors errors = validator.validateObject(value);
+        if (errors.hasErrors()) {
+            String errorMessages = errors.getAllErrors().stream()
+                    .map(ObjectError::getDefaultMessage)
+                    .collect(Collectors.joining(", "));
+            throw Status.INVALID_ARGUMENT.withDescription(errorMessages).asRuntimeException();
+        }
+        return value;
+    }
+
+    static StatusRuntimeException toStatusException(RuntimeException ex) {
+        if (ex instanceof StatusRuntimeException statusException) {
+            return statusException;
+        }
+        Status status = switch (ex) {
+            case UserNotFoundException e -> Status.NOT_FOUND;
+            case PostNotFoundException e -> Status.NOT_FOUND;
+            case UserAlreadyExistsException e -> Status.ALREADY_EXISTS;
+            case VersionConflictException e -> Status.FAILED_PRECONDITION;
+            case WriteBufferFullException e -> Status.UNAVAILABLE;
+            case PartitionSlotMovingException e -> Status.UNAVAILABLE;
+            case IllegalArgumentException e -> Status.INVALID_ARGUMENT;
+            default -> Status.INTERNAL;
+        };
+        return status.withDescription(ex.getMessage()).withCause(ex).asRuntimeException();
+    }
+}
@@ -0,0 +1,99 @@
+package dev.chafon.springbootrest.grpc;
+
+import com.google.protobuf.Empty;
+import com.google.protobuf.Timestamp;
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.post.PostService;
+import dev.chafon.springbootrest.post.PostValidator;
+import io.grpc.stub.StreamObserver;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.Validator;
+
+import java.time.Instant;
+
+import static dev.chafon.springbootrest.grpc.GrpcCalls.*;
+
+@Component
+public class PostGrpcService extends PostsGrpc.PostsImplBase {
+
+    private final PostService postService;
+    private final Validator validator;
+
+    public PostGrpcService(PostService postService) {
+        this.postService = postService;
+        this.validator = new PostValidator();
+    }
+
+    @Override
+    public void getPost(IdRequest request, StreamObserver<PostMessage> responseObserver) {
+        unary(responseObserver, () -> toMessage(postService.getPost(request.getId())));
+    }
+
+    @Override
+    public void createPost(PostMessage request, StreamObserver<PostMessage> responseObserver) {
+        unary(responseObserver, () -> toMessage(
+                postService.createPost(validate(validator, toPost(request)))));
+    }
+
+    @Override
+    public void updatePost(UpdatePostRequest request, StreamObserver<Empty> responseObserver) {
+        unary(responseObserver, () -> {
+            postService.updatePost(request.getId(), validate(validator, toPost(request.getPost())));
+            return Empty.getDefaultInstance();
+        });
+    }
+
+    @Override
+    public void deletePost(IdRequest request, StreamObserver<Empty> responseObserver) {
+        unary(responseObserver, () -> {
+            postService.deletePost(request.getId());
+            return Empty.getDefaultInstance();
+        });
+    }
+
+    @Override
+    public void listPosts(Empty request, StreamObserver<PostMessage> responseObserver) {
+        serverStreaming(responseObserver, postService::getPosts, PostGrpcService::toMessage);
+    }
+
+    static PostMessage toMessage(Post post) {
+        PostMessage.Builder message = PostMessage.newBuilder()
+                .setId(post.id())
+                .setUserId(post.userId())
+                .setTitle(post.title())
+                .setBody(post.body());
+        if (post.version() != null) {
+            message.setVersion(post.version());
+        }
+        if (post.createdAt() != null) {
+            message.setCreatedAt(toTimestamp(post.createdAt()));
+        }
+        if (post.updatedAt() != null) {
+            message.setUpdatedAt(toTimestamp(post.updatedAt()));
+        }
+        if (post.expiresAt() != null) {
+            message.setExpiresAt(toTimestamp(post.expiresAt()));
+        }
+        return message.build();
+    }
+
+    static Post toPost(PostMessage message) {
+        return new Post(
+                message.hasId() ? message.getId() : null,
+                message.hasUserId() ? message.getUserId() : null,
+                message.getTitle(),
+                message.getBody(),
+                message.hasVersion() ? message.getVersion() : null,
+                message.hasCreatedAt() ? toInstant(message.getCreatedAt()) : null,
+                message.hasUpdatedAt() ? toInstant(message.getUpdatedAt()) : null,
+                message.hasExpiresAt() ? toInstant(message.getExpiresAt()) : null);
+    }
+
+    private static Timestamp toTimestamp(Instant instant) {
+        return Timestamp.newBuilder().setSeconds(instant.getEpochSecond()).setNanos(instant.getNano()).build();
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos());
+    }
+}
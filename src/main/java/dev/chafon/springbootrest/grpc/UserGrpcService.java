@@ -0,0 +1,81 @@
+package dev.chafon.springbootrest.grpc;
+
+import com.google.protobuf.Empty;
+import dev.chafon.springbootrest.user.User;
+import dev.chafon.springbootrest.user.UserService;
+import dev.chafon.springbootrest.user.UserValidator;
+import io.grpc.stub.StreamObserver;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.Validator;
+
+import static dev.chafon.springbootrest.grpc.GrpcCalls.*;
+
+@Component
+public class UserGrpcService extends UsersGrpc.UsersImplBase {
+
+    private final UserService userService;
+    private final Validator validator;
+
+    public UserGrpcService(UserService userService) {
+        this.userService = userService;
+        this.validator = new UserValidator();
+    }
+
+    @Override
+    public void getUser(IdRequest request, StreamObserver<UserMessage> responseObserver) {
+        unary(responseObserver, () -> toMessage(userService.getUser(request.getId())));
+    }
+
+    @Override
+    public void createUser(UserMessage request, StreamObserver<UserMessage> responseObserver) {
+        unary(responseObserver, () -> toMessage(
+                userService.createUser(validate(validator, toUser(request)))));
+    }
+
+    @Override
+    public void updateUser(UpdateUserRequest request, StreamObserver<Empty> responseObserver) {
+        unary(responseObserver, () -> {
+            userService.updateUser(request.getId(), validate(validator, toUser(request.getUser())));
+            return Empty.getDefaultInstance();
+        });
+    }
+
+    @Override
+    public void deleteUser(IdRequest request, StreamObserver<Empty> responseObserver) {
+        unary(responseObserver, () -> {
+            userService.deleteUser(request.getId());
+            return Empty.getDefaultInstance();
+        });
+    }
+
+    @Override
+    public void listUsers(Empty request, StreamObserver<UserMessage> responseObserver) {
+        serverStreaming(responseObserver, userService::getUsers, UserGrpcService::toMessage);
+    }
+
+    @Override
+    public void listUserPosts(IdRequest request, StreamObserver<PostMessage> responseObserver) {
+        serverStreaming(responseObserver, () -> userService.getUserPosts(request.getId()), PostGrpcService::toMessage);
+    }
+
+    static UserMessage toMessage(User user) {
+        UserMessage.Builder message = UserMessage.newBuilder()
+                .setId(user.id())
+                .setName(user.name())
+                .setUsername(user.username())
+                .setEmail(user.email());
+        if (user.version() != null) {
+            message.setVersion(user.version());
+        }
+        return message.build();
+    }
+
+    static User toUser(UserMessage message) {
+        return new User(
+                message.hasId() ? message.getId() : null,
+                message.getName(),
+                message.getUsername(),
+                message.getEmail(),
+                message.hasVersion() ? message.getVersion() : null);
+    }
+}
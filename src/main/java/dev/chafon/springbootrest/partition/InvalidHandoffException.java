@@ -0,0 +1,19 @@
+package dev.chafon.springbootrest.partition;
+
+import dev.chafon.springbootrest.support.StacklessException;
+
+import static dev.chafon.springbootrest.Constants.PARTITION_HANDOFF_INVALID;
+
+public class InvalidHandoffException extends StacklessException {
+
+    private final String reason;
+
+    public InvalidHandoffException(String reason) {
+        this.reason = reason;
+    }
+
+    @Override
+    public String getMessage() {
+        return PARTITION_HANDOFF_INVALID + reason;
+    }
+}
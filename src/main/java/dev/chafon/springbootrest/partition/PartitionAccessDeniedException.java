@@ -0,0 +1,13 @@
+package dev.chafon.springbootrest.partition;
+
+import dev.chafon.springbootrest.support.StacklessException;
+
+import static dev.chafon.springbootrest.Constants.PARTITION_SECRET_MISMATCH;
+
+public class PartitionAccessDeniedException extends StacklessException {
+
+    @Override
+    public String getMessage() {
+        return PARTITION_SECRET_MISMATCH;
+    }
+}
@@ -0,0 +1,102 @@
+package dev.chafon.springbootrest.partition;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.post.PostRepository;
+import dev.chafon.springbootrest.support.RestorableRepository;
+import dev.chafon.springbootrest.user.User;
+import dev.chafon.springbootrest.user.UserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(PartitionProperties.class)
+@ConditionalOnProperty(prefix = "partition", name = "enabled", havingValue = "true")
+public class PartitionConfig {
+
+    @Bean
+    PartitionTopology partitionTopology(UserRepository userRepository,
+                                        PostRepository postRepository,
+                                        PartitionProperties properties) {
+        if (properties.self() == null || !properties.nodes().contains(properties.self())) {
+            throw new IllegalStateException("partition.nodes must contain partition.self");
+        }
+        if (properties.secret() == null || properties.secret().isBlank()) {
+            throw new IllegalStateException("partition.secret must be set");
+        }
+        PartitionTopology topology = new PartitionTopology(properties.self(), properties.nodes(), properties.virtualNodes());
+        useSlotIds(userRepository,
+                new PartitionIdAllocator<>(user -> PartitionRing.slotOfKey(user.username()), topology), User::id);
+        useSlotIds(postRepository,
+                new PartitionIdAllocator<>(post -> PartitionRing.slotOf(post.userId()), topology), Post::id);
+        return topology;
+    }
+
+    @Bean
+    PartitionForwarder partitionForwarder(PartitionProperties properties) {
+        // HTTP/1.1 keeps plain keep-alive connections to each node instead of attempting h2c upgrades
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        return new PartitionForwarder(httpClient, properties);
+    }
+
+    @Bean
+    PartitionRebalancer partitionRebalancer(PartitionTopology topology,
+                                            PartitionForwarder forwarder,
+                                            UserRepository userRepository,
+                                            PostRepository postRepository,
+                                            PartitionProperties properties,
+                                            RestClient.Builder restClientBuilder) {
+        RestClient nodes = restClientBuilder
+                .requestFactory(new JdkClientHttpRequestFactory(forwarder.httpClient()))
+                .defaultHeader(PartitionController.SECRET_HEADER, properties.secret())
+                .build();
+        return new PartitionRebalancer(topology, userRepository, postRepository, nodes);
+    }
+
+    @Bean
+    FilterRegistrationBean<PartitionRoutingFilter> partitionRoutingFilter(PartitionTopology topology,
+                                                                          PartitionForwarder forwarder,
+                                                                          ObjectMapper objectMapper,
+                                                                          HttpMessageConverters converters) {
+        List<AbstractJackson2HttpMessageConverter> bodyConverters = new ArrayList<>();
+        for (HttpMessageConverter<?> converter : converters.getConverters()) {
+            if (converter instanceof AbstractJackson2HttpMessageConverter jacksonConverter) {
+                bodyConverters.add(jacksonConverter);
+            }
+        }
+        FilterRegistrationBean<PartitionRoutingFilter> registration = new FilterRegistrationBean<>(
+                new PartitionRoutingFilter(topology, forwarder, objectMapper, bodyConverters));
+        registration.addUrlPatterns("/api/*");
+        // ahead of admission control, so a request is admitted by the node that serves it
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+
+    // Ids already loaded, from a snapshot or journal, must not be handed out again.
+    private static <T> void useSlotIds(RestorableRepository<T> repository,
+                                       PartitionIdAllocator<T> idAllocator,
+                                       Function<T, Integer> idOf) {
+        repository.findAll().forEach(entity -> idAllocator.observe(idOf.apply(entity)));
+        repository.setIdAllocator(idAllocator);
+    }
+}
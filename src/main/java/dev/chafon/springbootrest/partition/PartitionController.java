@@ -0,0 +1,71 @@
+package dev.chafon.springbootrest.partition;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+// Cluster membership, outside /api so requests between nodes are neither routed nor throttled.
+// Changes to the ring and handoffs between nodes need the cluster's secret.
+@RestController
+@RequestMapping("/partition")
+@ConditionalOnProperty(prefix = "partition", name = "enabled", havingValue = "true")
+public class PartitionController {
+
+    static final String SECRET_HEADER = "X-Partition-Secret";
+
+    private final PartitionTopology topology;
+    private final PartitionRebalancer rebalancer;
+    private final PartitionProperties properties;
+
+    public PartitionController(PartitionTopology topology,
+                               PartitionRebalancer rebalancer,
+                               PartitionProperties properties) {
+        this.topology = topology;
+        this.rebalancer = rebalancer;
+        this.properties = properties;
+    }
+
+    @GetMapping("/ring")
+    public PartitionNodes getRing() {
+        return new PartitionNodes(topology.ring().nodes());
+    }
+
+    // Rebalances the whole cluster; may be sent to any node of the old or new ring.
+    @PutMapping("/ring")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void rebalance(@RequestHeader(name = SECRET_HEADER, required = false) String secret,
+                          @RequestBody PartitionNodes nodes) {
+        requireSecret(secret);
+        rebalancer.rebalance(nodes.nodes());
+    }
+
+    // The first round of a rebalance: switches this node's ring.
+    @PutMapping("/ring/local")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void moveTo(@RequestHeader(name = SECRET_HEADER, required = false) String secret,
+                       @RequestBody PartitionMove move) {
+        requireSecret(secret);
+        rebalancer.moveTo(move.previousNodes(), move.nodes());
+    }
+
+    // The second round: hands what this node no longer owns over to the new owners.
+    @PostMapping("/ring/local/handoff")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void handOff(@RequestHeader(name = SECRET_HEADER, required = false) String secret) {
+        requireSecret(secret);
+        rebalancer.handOff();
+    }
+
+    @PostMapping("/import")
+    public PartitionHandoffReceipt accept(@RequestHeader(name = SECRET_HEADER, required = false) String secret,
+                                          @RequestBody PartitionHandoff handoff) {
+        requireSecret(secret);
+        return rebalancer.accept(handoff);
+    }
+
+    private void requireSecret(String secret) {
+        if (!properties.isSecret(secret)) {
+            throw new PartitionAccessDeniedException();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package dev.chafon.springbootrest.partition;
+
+import dev.chafon.springbootrest.support.ProblemBodies;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+@ControllerAdvice
+public class PartitionControllerAdvice {
+
+    private static final ProblemBodies FORBIDDEN = ProblemBodies.forStatus(HttpStatus.FORBIDDEN);
+    private static final ProblemBodies BAD_REQUEST = ProblemBodies.forStatus(HttpStatus.BAD_REQUEST);
+    private static final ProblemBodies SERVICE_UNAVAILABLE = ProblemBodies.forStatus(HttpStatus.SERVICE_UNAVAILABLE);
+    private static final ProblemBodies BAD_GATEWAY = ProblemBodies.forStatus(HttpStatus.BAD_GATEWAY);
+
+    @ExceptionHandler(PartitionAccessDeniedException.class)
+    ResponseEntity<?> handlePartitionAccessDeniedException(PartitionAccessDeniedException ex, HttpServletRequest request) {
+        return FORBIDDEN.toResponse(ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(InvalidHandoffException.class)
+    ResponseEntity<?> handleInvalidHandoffException(InvalidHandoffException ex, HttpServletRequest request) {
+        return BAD_REQUEST.toResponse(ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(PartitionSlotMovingException.class)
+    ResponseEntity<?> handlePartitionSlotMovingException(PartitionSlotMovingException ex, HttpServletRequest request) {
+        return SERVICE_UNAVAILABLE.toResponse(ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(PartitionRebalanceException.class)
+    ResponseEntity<?> handlePartitionRebalanceException(PartitionRebalanceException ex, HttpServletRequest request) {
+        return BAD_GATEWAY.toResponse(ex.getMessage(), request);
+    }
+}
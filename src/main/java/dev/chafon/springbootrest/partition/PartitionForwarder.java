@@ -0,0 +1,117 @@
+package dev.chafon.springbootrest.partition;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+// Proxies API requests to the node that owns them over one shared HTTP client, whose connection
+// pool is reused across requests. Forwarded requests are marked with the cluster's secret so the
+// receiving node serves them itself instead of routing them again, and clients cannot skip routing.
+// They also carry the address of the client that sent them, so the receiving node rate-limits that
+// client rather than the node it came through.
+public class PartitionForwarder {
+
+    static final String FORWARDED_HEADER = "X-Partition-Forwarded";
+    static final String CLIENT_HEADER = "X-Partition-Client";
+    private static final String API_KEY_HEADER = "X-API-Key";
+
+    // hop-by-hop headers, headers the HTTP client sets itself, and the partition headers, which are set again
+    private static final Set<String> UNFORWARDED_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "keep-alive", "proxy-connection",
+            "te", "trailer", "transfer-encoding", "upgrade", "http2-settings",
+            "x-partition-forwarded", "x-partition-client");
+
+    private final HttpClient httpClient;
+    private final PartitionProperties properties;
+
+    public PartitionForwarder(HttpClient httpClient, PartitionProperties properties) {
+        this.httpClient = httpClient;
+        this.properties = properties;
+    }
+
+    HttpClient httpClient() {
+        return httpClient;
+    }
+
+    boolean isForwarded(HttpServletRequest request) {
+        return properties.isSecret(request.getHeader(FORWARDED_HEADER));
+    }
+
+    // The address of the client a forwarded request came from, trusted only as the marker holds the secret.
+    String clientOf(HttpServletRequest request) {
+        String client = isForwarded(request) ? request.getHeader(CLIENT_HEADER) : null;
+        return client != null ? client : request.getRemoteAddr();
+    }
+
+    void forward(HttpServletRequest request, byte[] body, URI node, HttpServletResponse response) throws IOException {
+        HttpRequest.Builder forwarded = newRequest(request, request.getQueryString(), node)
+                .method(request.getMethod(), body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!UNFORWARDED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    forwarded.header(name, value);
+                }
+            }
+        }
+        HttpResponse<byte[]> reply = send(forwarded.build());
+
+        response.setStatus(reply.statusCode());
+        reply.headers().map().forEach((name, values) -> {
+            if (!UNFORWARDED_HEADERS.contains(name.toLowerCase(Locale.ROOT)) && !name.startsWith(":")) {
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        });
+        response.getOutputStream().write(reply.body());
+    }
+
+    // Reads the same collection from a node as JSON, for merging with the other nodes' results.
+    CompletableFuture<HttpResponse<byte[]>> fetch(HttpServletRequest request, URI node) {
+        return fetch(request, request.getQueryString(), node);
+    }
+
+    // As above, with the query string replaced, for reads that need more from each node than was asked for.
+    CompletableFuture<HttpResponse<byte[]>> fetch(HttpServletRequest request, String query, URI node) {
+        HttpRequest.Builder fetch = newRequest(request, query, node)
+                .GET()
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        if (apiKey != null) {
+            fetch.header(API_KEY_HEADER, apiKey);
+        }
+        return httpClient.sendAsync(fetch.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpRequest.Builder newRequest(HttpServletRequest request, String query, URI node) {
+        String target = request.getRequestURI();
+        if (query != null) {
+            target += "?" + query;
+        }
+        return HttpRequest.newBuilder(node.resolve(target))
+                .timeout(properties.forwardTimeout())
+                .header(FORWARDED_HEADER, properties.secret())
+                .header(CLIENT_HEADER, request.getRemoteAddr());
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws IOException {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while forwarding to " + request.uri(), ex);
+        }
+    }
+}
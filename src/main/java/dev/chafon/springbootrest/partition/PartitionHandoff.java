@@ -0,0 +1,12 @@
+package dev.chafon.springbootrest.partition;
+
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.user.User;
+
+import java.net.URI;
+import java.util.List;
+
+// Entities moved to a node that took over their slots. The sender marks its last handoff of a
+// rebalance as complete, which lets the receiver create entities in the slots it took over from it.
+public record PartitionHandoff(URI from, List<User> users, List<Post> posts, boolean complete) {
+}
@@ -0,0 +1,7 @@
+package dev.chafon.springbootrest.partition;
+
+import java.util.List;
+
+// The ids the receiving node refused because it already holds other entities under them.
+public record PartitionHandoffReceipt(List<Integer> refusedUserIds, List<Integer> refusedPostIds) {
+}
@@ -0,0 +1,39 @@
+package dev.chafon.springbootrest.partition;
+
+import dev.chafon.springbootrest.support.IdAllocator;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.ToIntFunction;
+
+import static dev.chafon.springbootrest.partition.PartitionRing.SLOTS;
+
+// Allocates ids inside the slot chosen for the entity, from a sequence per slot, so the id alone
+// tells which node owns it. Sequences move forward with restored ids, which keeps ids unique when
+// a slot is handed over from another node. Ids are only allocated in slots the topology accepts
+// creates for, as a slot still moving may hold ids this node has not observed yet.
+public class PartitionIdAllocator<T> implements IdAllocator<T> {
+
+    private final ToIntFunction<T> slotOf;
+    private final PartitionTopology topology;
+    private final AtomicIntegerArray slotSequences;
+
+    public PartitionIdAllocator(ToIntFunction<T> slotOf, PartitionTopology topology) {
+        this.slotOf = slotOf;
+        this.topology = topology;
+        this.slotSequences = new AtomicIntegerArray(SLOTS);
+    }
+
+    @Override
+    public int allocate(T entity) {
+        int slot = slotOf.applyAsInt(entity);
+        if (!topology.acceptsCreates(slot)) {
+            throw new PartitionSlotMovingException(slot);
+        }
+        return Math.addExact(Math.multiplyExact(slotSequences.incrementAndGet(slot), SLOTS), slot);
+    }
+
+    @Override
+    public void observe(int id) {
+        slotSequences.accumulateAndGet(PartitionRing.slotOf(id), id / SLOTS, Math::max);
+    }
+}
@@ -0,0 +1,8 @@
+package dev.chafon.springbootrest.partition;
+
+import java.net.URI;
+import java.util.List;
+
+// The ring a rebalance moves the cluster from and the one it moves it to.
+public record PartitionMove(List<URI> previousNodes, List<URI> nodes) {
+}
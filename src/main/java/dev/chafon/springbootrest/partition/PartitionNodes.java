@@ -0,0 +1,7 @@
+package dev.chafon.springbootrest.partition;
+
+import java.net.URI;
+import java.util.List;
+
+public record PartitionNodes(List<URI> nodes) {
+}
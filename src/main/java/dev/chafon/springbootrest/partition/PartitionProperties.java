@@ -0,0 +1,32 @@
+package dev.chafon.springbootrest.partition;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "partition")
+public record PartitionProperties(
+        @DefaultValue("false")
+        boolean enabled,
+        // this node's base URL exactly as it appears in nodes
+        URI self,
+        @DefaultValue
+        List<URI> nodes,
+        @DefaultValue("64")
+        int virtualNodes,
+        @DefaultValue("5s")
+        Duration forwardTimeout,
+        // shared by every node and sent with the requests between them
+        String secret) {
+
+    // compared in constant time, so the secret cannot be guessed from response times
+    public boolean isSecret(String candidate) {
+        return candidate != null && secret != null && MessageDigest.isEqual(
+                candidate.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
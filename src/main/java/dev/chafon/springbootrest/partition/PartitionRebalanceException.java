@@ -0,0 +1,19 @@
+package dev.chafon.springbootrest.partition;
+
+import dev.chafon.springbootrest.support.StacklessException;
+
+import static dev.chafon.springbootrest.Constants.PARTITION_REBALANCE_FAILED;
+
+public class PartitionRebalanceException extends StacklessException {
+
+    private final String reason;
+
+    public PartitionRebalanceException(String reason) {
+        this.reason = reason;
+    }
+
+    @Override
+    public String getMessage() {
+        return PARTITION_REBALANCE_FAILED + reason;
+    }
+}
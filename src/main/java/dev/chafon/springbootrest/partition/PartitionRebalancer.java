@@ -0,0 +1,271 @@
+package dev.chafon.springbootrest.partition;
+
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.post.PostRepository;
+import dev.chafon.springbootrest.post.PostValidator;
+import dev.chafon.springbootrest.user.User;
+import dev.chafon.springbootrest.user.UserRepository;
+import dev.chafon.springbootrest.user.UserValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.validation.Errors;
+import org.springframework.validation.ObjectError;
+import org.springframework.validation.Validator;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Moves the cluster to a new set of nodes in two rounds. First every node of the old and new rings
+// switches to the new ring, fencing the slots it takes over against creates. Then every node pushes
+// the users and posts in slots it no longer owns to their new owner, drops its own copies and tells
+// the other nodes it is done, which lifts their fences on its former slots. A receiver refuses an
+// entity whose id it already holds for another one, and the sender keeps that entity. Both sides go
+// through the repository listeners, so the journal, replication and expiry follow the entities.
+// Requests for a moving slot can miss, and creates in it are refused, while its entities are in
+// flight. When a node cannot be reached, the cluster is moved back to the previous ring.
+public class PartitionRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionRebalancer.class);
+
+    // entities written under the old ring while a handoff runs are picked up by another pass
+    private static final int MAX_HANDOFF_PASSES = 3;
+    // a receiver adopts an entity it already holds unchanged, so a handoff can be sent again
+    private static final int MAX_SEND_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = 200;
+
+    private final PartitionTopology topology;
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final RestClient nodes;
+    private final Validator userValidator = new UserValidator();
+    private final Validator postValidator = new PostValidator();
+
+    public PartitionRebalancer(PartitionTopology topology,
+                               UserRepository userRepository,
+                               PostRepository postRepository,
+                               RestClient nodes) {
+        this.topology = topology;
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.nodes = nodes;
+    }
+
+    public void rebalance(List<URI> newNodes) {
+        List<URI> previousNodes = topology.ring().nodes();
+        Set<URI> affected = new LinkedHashSet<>(previousNodes);
+        affected.addAll(newNodes);
+        List<URI> moved = new ArrayList<>();
+        try {
+            for (URI node : affected) {
+                moved.add(node);
+                moveTo(node, previousNodes, newNodes);
+            }
+            for (URI node : affected) {
+                handOff(node);
+            }
+        } catch (RestClientException ex) {
+            log.error("Rebalance onto {} failed, moving back to {}", newNodes, previousNodes, ex);
+            moveBack(moved, newNodes, previousNodes);
+            throw new PartitionRebalanceException(ex.getMessage());
+        }
+    }
+
+    // Switches this node to the new ring; handOff then moves what it no longer owns.
+    public void moveTo(List<URI> previousNodes, List<URI> newNodes) {
+        topology.moveTo(previousNodes, newNodes);
+    }
+
+    public synchronized void handOff() {
+        for (int pass = 0; pass < MAX_HANDOFF_PASSES; pass++) {
+            if (handOffPass() == 0) {
+                break;
+            }
+        }
+        PartitionRing ring = topology.ring();
+        for (URI node : ring.nodes()) {
+            if (!node.equals(ring.self())) {
+                send(node, new PartitionHandoff(ring.self(), List.of(), List.of(), true));
+            }
+        }
+    }
+
+    // The whole handoff is checked first, so one that is invalid leaves this node as it was. Posts of
+    // a refused user are refused with it, as they would otherwise belong to the other user.
+    public PartitionHandoffReceipt accept(PartitionHandoff handoff) {
+        if (handoff.users() == null || handoff.posts() == null) {
+            throw new InvalidHandoffException("users and posts must both be listed");
+        }
+        if (handoff.complete() && handoff.from() == null) {
+            throw new InvalidHandoffException("a complete handoff must name its sender");
+        }
+        for (User user : handoff.users()) {
+            if (user == null || user.id() == null) {
+                throw new InvalidHandoffException("user without an id");
+            }
+            check(userValidator, user, "user " + user.id());
+        }
+        for (Post post : handoff.posts()) {
+            if (post == null || post.id() == null) {
+                throw new InvalidHandoffException("post without an id");
+            }
+            check(postValidator, post, "post " + post.id());
+        }
+        // users first, so a post never arrives before its owner
+        List<Integer> refusedUserIds = new ArrayList<>();
+        for (User user : handoff.users()) {
+            if (!userRepository.adopt(user)) {
+                refusedUserIds.add(user.id());
+            }
+        }
+        Set<Integer> refusedUsers = new HashSet<>(refusedUserIds);
+        List<Integer> refusedPostIds = new ArrayList<>();
+        for (Post post : handoff.posts()) {
+            if (refusedUsers.contains(post.userId()) || !postRepository.adopt(post)) {
+                refusedPostIds.add(post.id());
+            }
+        }
+        if (handoff.complete()) {
+            topology.handedOver(handoff.from());
+        }
+        return new PartitionHandoffReceipt(refusedUserIds, refusedPostIds);
+    }
+
+    private static void check(Validator validator, Object entity, String name) {
+        Errors errors = validator.validateObject(entity);
+        if (errors.hasErrors()) {
+            throw new InvalidHandoffException(name + ": " + errors.getAllErrors().stream()
+                    .map(ObjectError::getDefaultMessage)
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    private void moveTo(URI node, List<URI> previousNodes, List<URI> newNodes) {
+        if (node.equals(topology.ring().self())) {
+            moveTo(previousNodes, newNodes);
+            return;
+        }
+        nodes.put()
+                .uri(node.resolve("/partition/ring/local"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new PartitionMove(previousNodes, newNodes))
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    private void handOff(URI node) {
+        if (node.equals(topology.ring().self())) {
+            handOff();
+            return;
+        }
+        nodes.post()
+                .uri(node.resolve("/partition/ring/local/handoff"))
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    // The same two rounds with the rings swapped; entities already handed over come back. A node that
+    // cannot be moved back is logged and skipped, so the others are restored.
+    private void moveBack(List<URI> moved, List<URI> newNodes, List<URI> previousNodes) {
+        List<URI> movedBack = new ArrayList<>();
+        for (URI node : moved) {
+            try {
+                moveTo(node, newNodes, previousNodes);
+                movedBack.add(node);
+            } catch (RestClientException ex) {
+                log.error("Could not move {} back to {}", node, previousNodes, ex);
+            }
+        }
+        for (URI node : movedBack) {
+            try {
+                handOff(node);
+            } catch (RestClientException ex) {
+                log.error("Could not hand slots of {} back", node, ex);
+            }
+        }
+    }
+
+    private int handOffPass() {
+        PartitionRing ring = topology.ring();
+        Map<URI, List<User>> users = new HashMap<>();
+        for (User user : userRepository.findAll()) {
+            int slot = PartitionRing.slotOf(user.id());
+            if (!ring.isLocal(slot)) {
+                users.computeIfAbsent(ring.ownerOf(slot), owner -> new ArrayList<>()).add(user);
+            }
+        }
+        Map<URI, List<Post>> posts = new HashMap<>();
+        for (Post post : postRepository.findAll()) {
+            int slot = PartitionRing.slotOf(post.id());
+            if (!ring.isLocal(slot)) {
+                posts.computeIfAbsent(ring.ownerOf(slot), owner -> new ArrayList<>()).add(post);
+            }
+        }
+
+        Set<URI> owners = new LinkedHashSet<>(users.keySet());
+        owners.addAll(posts.keySet());
+        int moved = 0;
+        for (URI owner : owners) {
+            PartitionHandoff handoff = new PartitionHandoff(ring.self(),
+                    users.getOrDefault(owner, List.of()), posts.getOrDefault(owner, List.of()), false);
+            PartitionHandoffReceipt receipt = send(owner, handoff);
+            Set<Integer> refusedUsers = new HashSet<>(receipt.refusedUserIds());
+            Set<Integer> refusedPosts = new HashSet<>(receipt.refusedPostIds());
+            for (Post post : handoff.posts()) {
+                if (!refusedPosts.contains(post.id())) {
+                    postRepository.release(post.id());
+                    moved++;
+                }
+            }
+            for (User user : handoff.users()) {
+                if (!refusedUsers.contains(user.id())) {
+                    userRepository.release(user.id());
+                    moved++;
+                }
+            }
+            if (!refusedUsers.isEmpty() || !refusedPosts.isEmpty()) {
+                log.error("{} already holds other entities with the ids of users {} and posts {}, keeping them here",
+                        owner, refusedUsers, refusedPosts);
+            }
+            log.info("Handed {} users and {} posts over to {}", handoff.users().size() - refusedUsers.size(),
+                    handoff.posts().size() - refusedPosts.size(), owner);
+        }
+        return moved;
+    }
+
+    // Retries when the node could not be reached or failed, not when it rejected the handoff.
+    private PartitionHandoffReceipt send(URI node, PartitionHandoff handoff) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return nodes.post()
+                        .uri(node.resolve("/partition/import"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(handoff)
+                        .retrieve()
+                        .body(PartitionHandoffReceipt.class);
+            } catch (ResourceAccessException | HttpServerErrorException ex) {
+                if (attempt == MAX_SEND_ATTEMPTS) {
+                    throw ex;
+                }
+                log.warn("Handoff to {} failed, retrying", node, ex);
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package dev.chafon.springbootrest.partition;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Ids are split into a fixed number of slots, and slots are placed on a consistent-hash ring of the
+// nodes, so adding a node moves only the slots that land on its share of the ring. Every entity id
+// carries its slot (id mod SLOTS): users take the slot of their username, posts the slot of their
+// user, which keeps a user's posts on the node that owns the user.
+public final class PartitionRing {
+
+    public static final int SLOTS = 1024;
+
+    private final List<URI> nodes;
+    private final URI self;
+    private final URI[] slotOwners;
+
+    // self may be missing from nodes while a node is being removed: it then owns no slots
+
+    public PartitionRing(List<URI> nodes, URI self, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A partition ring needs at least one node and one virtual node");
+        }
+        this.nodes = List.copyOf(nodes);
+        this.self = self;
+        TreeMap<Long, URI> ring = new TreeMap<>();
+        for (URI node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+        this.slotOwners = new URI[SLOTS];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            Map.Entry<Long, URI> owner = ring.ceilingEntry(mix(slot));
+            slotOwners[slot] = (owner != null ? owner : ring.firstEntry()).getValue();
+        }
+    }
+
+    public static int slotOf(int id) {
+        return Math.floorMod(id, SLOTS);
+    }
+
+    public static int slotOfKey(String key) {
+        return Math.floorMod((int) mix(key.hashCode()), SLOTS);
+    }
+
+    public List<URI> nodes() {
+        return nodes;
+    }
+
+    public URI self() {
+        return self;
+    }
+
+    public URI ownerOf(int slot) {
+        return slotOwners[slot];
+    }
+
+    public boolean isLocal(int slot) {
+        return slotOwners[slot].equals(self);
+    }
+
+    private static long hash(String value) {
+        // FNV-1a, then mixed so neighbouring virtual node names spread over the ring
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,511 @@
+package dev.chafon.springbootrest.partition;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.chafon.springbootrest.support.MultiGet;
+import dev.chafon.springbootrest.support.PageCursor;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static dev.chafon.springbootrest.Constants.PARTITION_NODE_LOCAL_SEQUENCES;
+import static dev.chafon.springbootrest.Constants.PARTITION_NODE_UNAVAILABLE;
+import static dev.chafon.springbootrest.Constants.PARTITION_RESPONSE_NOT_ACCEPTABLE;
+import static dev.chafon.springbootrest.Constants.POST_CANNOT_MOVE_PARTITION;
+
+// Sends each API request to the node owning the slot it touches: the user id for a user and its
+// posts, including a ?userId= listing of posts, the post id for a post, and for creates the username
+// or the post's userId from the body. Reads of a whole collection are sent to every node and the
+// results merged back into the listing's order, or into the requested order for a lookup by ids;
+// counts are summed across the nodes. Merged results are written in the format the client accepts.
+//
+// Commit sequences belong to one node, so the change feeds and reads ?asOf= a sequence are refused.
+public class PartitionRoutingFilter extends OncePerRequestFilter {
+
+    private static final Pattern USER_PATH = Pattern.compile("/api/v1/users/(\\d{1,10})(/posts(/[^/]*)?)?/?");
+    private static final Pattern POST_PATH = Pattern.compile("/api/v1/posts/(\\d{1,10})/?");
+    private static final Pattern USERS_PATH = Pattern.compile("/api/v1/users/?");
+    private static final Pattern POSTS_PATH = Pattern.compile("/api/v1/posts/?");
+    private static final Pattern POST_COUNTS_PATH = Pattern.compile("/api/v1/posts/counts-by-user/?");
+    private static final Pattern DOMAIN_COUNTS_PATH = Pattern.compile("/api/v1/users/counts-by-email-domain/?");
+    private static final Pattern DOMAIN_COUNT_PATH = Pattern.compile("/api/v1/users/counts-by-email-domain/[^/]+/?");
+    private static final Pattern CHANGES_PATH = Pattern.compile("/api/v1/((users|posts)/)?changes(/.*)?");
+    private static final int DEFAULT_TOP = 10;
+    private static final int LOCAL = -1;
+
+    private final PartitionTopology topology;
+    private final PartitionForwarder forwarder;
+    private final ObjectMapper objectMapper;
+    private final List<AbstractJackson2HttpMessageConverter> bodyConverters;
+
+    // bodyConverters are the Jackson converters MVC reads request bodies with, so a body is parsed here
+    // in whichever of JSON, CBOR or Smile its Content-Type names
+    public PartitionRoutingFilter(PartitionTopology topology,
+                                  PartitionForwarder forwarder,
+                                  ObjectMapper objectMapper,
+                                  List<AbstractJackson2HttpMessageConverter> bodyConverters) {
+        this.topology = topology;
+        this.forwarder = forwarder;
+        this.objectMapper = objectMapper;
+        this.bodyConverters = bodyConverters;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (forwarder.isForwarded(request)) {
+            // rate limiting and anything else downstream sees the client that sent the request
+            String client = forwarder.clientOf(request);
+            filterChain.doFilter(new HttpServletRequestWrapper(request) {
+                @Override
+                public String getRemoteAddr() {
+                    return client;
+                }
+            }, response);
+            return;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        byte[] body = new byte[0];
+        int slot = LOCAL;
+
+        if (CHANGES_PATH.matcher(path).matches()) {
+            reject(request, response, HttpStatus.NOT_IMPLEMENTED, PARTITION_NODE_LOCAL_SEQUENCES + path);
+            return;
+        }
+        if ("GET".equals(method) && request.getParameter("asOf") != null) {
+            reject(request, response, HttpStatus.BAD_REQUEST, PARTITION_NODE_LOCAL_SEQUENCES + "asOf");
+            return;
+        }
+
+        Matcher matcher;
+        if ("GET".equals(method) && POST_COUNTS_PATH.matcher(path).matches()) {
+            fanOutCounts(request, response, false);
+            return;
+        } else if ("GET".equals(method) && DOMAIN_COUNTS_PATH.matcher(path).matches()) {
+            fanOutCounts(request, response, true);
+            return;
+        } else if ("GET".equals(method) && DOMAIN_COUNT_PATH.matcher(path).matches()) {
+            fanOutCount(request, response);
+            return;
+        } else if ((matcher = USER_PATH.matcher(path)).matches()) {
+            slot = slotOfPathId(matcher.group(1));
+        } else if ((matcher = POST_PATH.matcher(path)).matches()) {
+            slot = slotOfPathId(matcher.group(1));
+            if ("PUT".equals(method)) {
+                body = request.getInputStream().readAllBytes();
+                int userSlot = slotOfId(readField(request, body, "userId"));
+                if (slot != LOCAL && userSlot != LOCAL && userSlot != slot) {
+                    reject(request, response, HttpStatus.CONFLICT, POST_CANNOT_MOVE_PARTITION);
+                    return;
+                }
+            }
+        } else if (USERS_PATH.matcher(path).matches() || POSTS_PATH.matcher(path).matches()) {
+            if ("GET".equals(method) && POSTS_PATH.matcher(path).matches() && request.getParameter("ids") == null
+                    && request.getParameter("userId") != null) {
+                // a user's posts all live on the user's node
+                slot = slotOfPathId(request.getParameter("userId"));
+            } else if ("GET".equals(method)) {
+                fanOut(request, response);
+                return;
+            }
+            if ("POST".equals(method)) {
+                body = request.getInputStream().readAllBytes();
+                slot = USERS_PATH.matcher(path).matches()
+                        ? slotOfKey(readField(request, body, "username"))
+                        : slotOfId(readField(request, body, "userId"));
+            }
+        }
+
+        // anything that cannot be placed, such as an invalid body, is left to the local node to reject
+        if (slot == LOCAL || topology.ring().isLocal(slot)) {
+            filterChain.doFilter(body.length == 0 ? request : new CachedBodyRequest(request, body), response);
+            return;
+        }
+        URI owner = topology.ring().ownerOf(slot);
+        try {
+            forwarder.forward(request, body, owner, response);
+        } catch (IOException ex) {
+            logger.warn("Forwarding to " + owner + " failed", ex);
+            reject(request, response, HttpStatus.BAD_GATEWAY, PARTITION_NODE_UNAVAILABLE + owner);
+        }
+    }
+
+    private void fanOut(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        List<JsonNode> replies = fetchAll(request, response, request.getQueryString());
+        if (replies == null) {
+            return;
+        }
+        List<JsonNode> merged = new ArrayList<>();
+        replies.forEach(reply -> reply.forEach(merged::add));
+
+        List<Integer> ids = requestedIds(request);
+        if (ids == null) {
+            merged.sort(listingOrder(request));
+            Integer limit = limitOf(request);
+            if (limit != null && merged.size() >= limit) {
+                // every node returned its own first page, so the merged page ends at the limit
+                merged = new ArrayList<>(merged.subList(0, Math.max(limit, 0)));
+                if (!merged.isEmpty()) {
+                    JsonNode last = merged.getLast();
+                    String sortKey = switch (sortOf(request)) {
+                        case "title" -> last.path("title").asText();
+                        case "created" -> last.path("createdAt").asText();
+                        default -> null;
+                    };
+                    response.setHeader(PageCursor.NEXT_CURSOR_HEADER,
+                            new PageCursor(sortKey, last.path("id").asInt()).encode());
+                }
+            }
+        } else {
+            // a lookup by ids: every node reports the ids it does not own as missing, so work out
+            // which are missing from all of them and put the rest back in the order asked for
+            Map<Integer, Integer> positions = new HashMap<>();
+            for (int i = ids.size() - 1; i >= 0; i--) {
+                positions.put(ids.get(i), i);
+            }
+            merged.sort(Comparator.comparingInt(node -> positions.getOrDefault(node.path("id").asInt(), ids.size())));
+            Set<Integer> foundIds = new HashSet<>();
+            merged.forEach(node -> foundIds.add(node.path("id").asInt()));
+            List<Integer> missingIds = MultiGet.missingIds(ids, foundIds);
+            if (!missingIds.isEmpty()) {
+                response.setHeader(MultiGet.MISSING_IDS_HEADER, MultiGet.toHeaderValue(missingIds));
+            }
+        }
+        writeResult(request, response, objectMapper.createArrayNode().addAll(merged));
+    }
+
+    // The keys with the highest counts over all nodes. A user's posts live on the user's node, so each
+    // node's own top users are enough; the users of an email domain are spread over the nodes, so then
+    // every node's whole ranking is summed before it is cut to the top.
+    private void fanOutCounts(HttpServletRequest request,
+                              HttpServletResponse response,
+                              boolean keysSpanNodes) throws IOException {
+        Integer top = topOf(request);
+        String query = keysSpanNodes && top != null ? "top=" + Integer.MAX_VALUE : request.getQueryString();
+        List<JsonNode> replies = fetchAll(request, response, query);
+        if (replies == null) {
+            return;
+        }
+        Map<JsonNode, Long> counts = new HashMap<>();
+        for (JsonNode reply : replies) {
+            reply.forEach(count -> counts.merge(count.path("key"), count.path("count").asLong(), Long::sum));
+        }
+        // highest counts first, ties in key order, as on a single node
+        List<Map.Entry<JsonNode, Long>> ranking = new ArrayList<>(counts.entrySet());
+        ranking.sort(Map.Entry.<JsonNode, Long>comparingByValue().reversed()
+                .thenComparing(Map.Entry::getKey, PartitionRoutingFilter::compareKeys));
+
+        int limit = top == null ? ranking.size() : Math.min(Math.max(top, 0), ranking.size());
+        ArrayNode result = objectMapper.createArrayNode();
+        for (Map.Entry<JsonNode, Long> entry : ranking.subList(0, limit)) {
+            ObjectNode count = result.addObject();
+            count.set("key", entry.getKey());
+            count.put("count", entry.getValue());
+        }
+        writeResult(request, response, result);
+    }
+
+    private void fanOutCount(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        List<JsonNode> replies = fetchAll(request, response, request.getQueryString());
+        if (replies == null) {
+            return;
+        }
+        long count = 0;
+        for (JsonNode reply : replies) {
+            count += reply.asLong();
+        }
+        writeResult(request, response, LongNode.valueOf(count));
+    }
+
+    // Every node's reply as JSON, or null once a failure has been passed on to the client.
+    private List<JsonNode> fetchAll(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    String query) throws IOException {
+        List<URI> nodes = topology.ring().nodes();
+        List<CompletableFuture<HttpResponse<byte[]>>> replies = new ArrayList<>(nodes.size());
+        for (URI node : nodes) {
+            replies.add(forwarder.fetch(request, query, node));
+        }
+
+        List<JsonNode> results = new ArrayList<>(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            HttpResponse<byte[]> reply;
+            try {
+                reply = replies.get(i).get();
+            } catch (ExecutionException ex) {
+                logger.warn("Reading from " + nodes.get(i) + " failed", ex.getCause());
+                reject(request, response, HttpStatus.BAD_GATEWAY, PARTITION_NODE_UNAVAILABLE + nodes.get(i));
+                return null;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading from " + nodes.get(i), ex);
+            }
+            if (reply.statusCode() != HttpStatus.OK.value()) {
+                // the same request fails the same way on every node, so pass the first failure on
+                response.setStatus(reply.statusCode());
+                reply.headers().firstValue("Content-Type").ifPresent(response::setContentType);
+                response.getOutputStream().write(reply.body());
+                return null;
+            }
+            results.add(objectMapper.readTree(reply.body()));
+        }
+        return results;
+    }
+
+    // Writes a merged result with the first Jackson converter that produces a type the client accepts,
+    // in the order of its Accept header.
+    private void writeResult(HttpServletRequest request, HttpServletResponse response, JsonNode result) throws IOException {
+        List<String> accept = Collections.list(request.getHeaders(HttpHeaders.ACCEPT));
+        List<MediaType> acceptable;
+        try {
+            acceptable = accept.isEmpty() ? List.of(MediaType.ALL) : MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(acceptable);
+        } catch (InvalidMediaTypeException | InvalidMimeTypeException ex) {
+            acceptable = List.of();
+        }
+        for (MediaType accepted : acceptable) {
+            for (AbstractJackson2HttpMessageConverter converter : bodyConverters) {
+                for (MediaType supported : converter.getSupportedMediaTypes(JsonNode.class)) {
+                    if (supported.isConcrete() && accepted.includes(supported)) {
+                        response.setStatus(HttpStatus.OK.value());
+                        response.setContentType(supported.toString());
+                        converter.getObjectMapper().writeValue(response.getOutputStream(), result);
+                        return;
+                    }
+                }
+            }
+        }
+        reject(request, response, HttpStatus.NOT_ACCEPTABLE, PARTITION_RESPONSE_NOT_ACCEPTABLE + String.join(", ", accept));
+    }
+
+    // The order of a listing: by id, title or creation time as in ?sort=, and reversed for ?order=desc.
+    private static Comparator<JsonNode> listingOrder(HttpServletRequest request) {
+        Comparator<JsonNode> order = Comparator.comparingInt(node -> node.path("id").asInt());
+        switch (sortOf(request)) {
+            case "title" -> order = Comparator.<JsonNode, String>comparing(node -> node.path("title").asText())
+                    .thenComparing(order);
+            // ISO-8601 text does not sort by time when the fraction digits differ, so parse it
+            case "created" -> order = Comparator.<JsonNode, Instant>comparing(
+                    node -> Instant.parse(node.path("createdAt").asText())).thenComparing(order);
+            default -> {
+            }
+        }
+        return "desc".equalsIgnoreCase(request.getParameter("order")) ? order.reversed() : order;
+    }
+
+    // ?since= and ?until= list in creation order unless another sort is given
+    private static String sortOf(HttpServletRequest request) {
+        String sort = request.getParameter("sort");
+        if (sort == null) {
+            return request.getParameter("since") != null || request.getParameter("until") != null ? "created" : "id";
+        }
+        return sort.toLowerCase(Locale.ROOT);
+    }
+
+    // null when ?top= is malformed, which the nodes then reject
+    private static Integer topOf(HttpServletRequest request) {
+        try {
+            String top = request.getParameter("top");
+            return top == null ? DEFAULT_TOP : Integer.valueOf(top.trim());
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static int compareKeys(JsonNode first, JsonNode second) {
+        return first.isNumber() && second.isNumber()
+                ? Long.compare(first.asLong(), second.asLong())
+                : first.asText().compareTo(second.asText());
+    }
+
+    private static Integer limitOf(HttpServletRequest request) {
+        try {
+            String limit = request.getParameter("limit");
+            return limit == null ? null : Integer.valueOf(limit.trim());
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    // The ids of an ?ids= lookup, or null for a plain listing. Malformed ids are left to the nodes to reject.
+    private static List<Integer> requestedIds(HttpServletRequest request) {
+        String[] values = request.getParameterValues("ids");
+        if (values == null) {
+            return null;
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (String value : values) {
+            for (String id : value.split(",")) {
+                if (!id.isBlank()) {
+                    try {
+                        ids.add(Integer.parseInt(id.trim()));
+                    } catch (NumberFormatException ex) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    // null when the body is not in a format MVC reads either, so the local node rejects it with a 415
+    private JsonNode readField(HttpServletRequest request, byte[] body, String field) {
+        MediaType contentType;
+        try {
+            contentType = request.getContentType() == null ? null : MediaType.parseMediaType(request.getContentType());
+        } catch (InvalidMediaTypeException ex) {
+            return null;
+        }
+        for (AbstractJackson2HttpMessageConverter converter : bodyConverters) {
+            if (contentType != null && converter.canRead(JsonNode.class, contentType)) {
+                try {
+                    JsonNode value = converter.getObjectMapper().readTree(body);
+                    return value == null ? null : value.get(field);
+                } catch (IOException ex) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int slotOfPathId(String id) {
+        try {
+            return PartitionRing.slotOf(Integer.parseInt(id));
+        } catch (NumberFormatException ex) {
+            return LOCAL;
+        }
+    }
+
+    private static int slotOfId(JsonNode id) {
+        return id != null && id.canConvertToInt() && id.isIntegralNumber()
+                ? PartitionRing.slotOf(id.intValue())
+                : LOCAL;
+    }
+
+    private static int slotOfKey(JsonNode key) {
+        return key != null && key.isTextual() ? PartitionRing.slotOfKey(key.textValue()) : LOCAL;
+    }
+
+    private void reject(HttpServletRequest request,
+                        HttpServletResponse response,
+                        HttpStatus status,
+                        String detail) throws IOException {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(status, detail);
+        problemDetail.setInstance(URI.create(request.getRequestURI()));
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), problemDetail);
+    }
+
+    // Replays a body the filter already read to decide where the request goes.
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // the whole body is already in memory, so it is available at once and read to its end in one go
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (input.available() > 0) {
+                            readListener.onDataAvailable();
+                        }
+                        if (input.available() == 0) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException ex) {
+                        readListener.onError(ex);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package dev.chafon.springbootrest.partition;
+
+import dev.chafon.springbootrest.support.StacklessException;
+
+import static dev.chafon.springbootrest.Constants.PARTITION_SLOT_MOVING;
+
+public class PartitionSlotMovingException extends StacklessException {
+
+    private final int slot;
+
+    public PartitionSlotMovingException(int slot) {
+        this.slot = slot;
+    }
+
+    @Override
+    public String getMessage() {
+        return PARTITION_SLOT_MOVING + slot;
+    }
+}
@@ -0,0 +1,61 @@
+package dev.chafon.springbootrest.partition;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static dev.chafon.springbootrest.partition.PartitionRing.SLOTS;
+
+// The ring this node currently routes by. It is replaced as a whole when nodes are added or
+// removed, so a request always sees one consistent slot assignment.
+//
+// A slot this node takes over is fenced until its previous owner reports that it has handed over
+// everything in it: until then the ids still on their way are unknown here, and a new id allocated
+// in the slot could take one of them.
+public class PartitionTopology {
+
+    private final URI self;
+    private final int virtualNodes;
+    // the previous owner of each slot still fenced, null for the others
+    private final AtomicReferenceArray<URI> fencedBy;
+    private volatile PartitionRing ring;
+
+    public PartitionTopology(URI self, List<URI> nodes, int virtualNodes) {
+        this.self = self;
+        this.virtualNodes = virtualNodes;
+        this.fencedBy = new AtomicReferenceArray<>(SLOTS);
+        this.ring = new PartitionRing(nodes, self, virtualNodes);
+    }
+
+    public PartitionRing ring() {
+        return ring;
+    }
+
+    // previousNodes is the ring the cluster moves away from, which may differ from the one this node
+    // routed by when it was started with the new ring.
+    public synchronized PartitionRing moveTo(List<URI> previousNodes, List<URI> nodes) {
+        PartitionRing from = new PartitionRing(previousNodes, self, virtualNodes);
+        PartitionRing to = new PartitionRing(nodes, self, virtualNodes);
+        // fenced before the switch, so no create slips in between
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (!to.isLocal(slot)) {
+                fencedBy.set(slot, null);
+            } else if (!from.isLocal(slot)) {
+                fencedBy.set(slot, from.ownerOf(slot));
+            }
+        }
+        PartitionRing previous = ring;
+        ring = to;
+        return previous;
+    }
+
+    public boolean acceptsCreates(int slot) {
+        return ring.isLocal(slot) && fencedBy.get(slot) == null;
+    }
+
+    public void handedOver(URI from) {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            fencedBy.compareAndSet(slot, from, null);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package dev.chafon.springbootrest.persistence;
+
+// A value of null records a deletion.
+record JournalEntry<T>(Integer id, T value) {
+}
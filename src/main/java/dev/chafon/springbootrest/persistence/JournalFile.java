@@ -0,0 +1,142 @@
+package dev.chafon.springbootrest.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.*;
+
+// Append-only journal of JSON lines, one entry per line, forced to disk after every batch. A batch
+// that fails to be written is cut off the file again, so the next one starts on a clean line.
+class JournalFile<T> implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalFile.class);
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private final JavaType entryType;
+    private FileChannel channel;
+    // the length to cut the file back to before the next append, when a failed batch could not be cut off
+    private long tornFrom = -1;
+
+    JournalFile(Path path, Class<T> valueType, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        this.entryType = objectMapper.getTypeFactory().constructParametricType(JournalEntry.class, valueType);
+    }
+
+    List<JournalEntry<T>> read() throws IOException {
+        List<JournalEntry<T>> entries = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return entries;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    entries.add(objectMapper.readValue(line, entryType));
+                } catch (JsonProcessingException ex) {
+                    // failed batches are cut off, so only a crash can leave a line torn, and only the last one
+                    log.warn("Ignoring unreadable journal entry in {}", path, ex);
+                    break;
+                }
+            }
+        }
+        return entries;
+    }
+
+    // Replaces the journal with one entry per live entity and reopens it for appending.
+    void rewrite(Collection<JournalEntry<T>> entries) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(compacted, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            writeFully(out, encode(entries));
+            out.force(true);
+        }
+        close();
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = openForAppend();
+        tornFrom = -1;
+    }
+
+    void append(Collection<JournalEntry<T>> entries) throws IOException {
+        ByteBuffer batch = encode(entries);
+        if (channel == null && tornFrom >= 0) {
+            channel = openForAppend();
+            channel.truncate(tornFrom);
+            tornFrom = -1;
+        }
+        long length = channel.size();
+        try {
+            writeFully(channel, batch);
+            channel.force(false);
+        } catch (IOException ex) {
+            cutOff(length, ex);
+            throw ex;
+        }
+    }
+
+    FileChannel openForAppend() throws IOException {
+        return FileChannel.open(path, CREATE, WRITE, APPEND);
+    }
+
+    // When the failed batch cannot be cut off either, the channel is dropped and the next append
+    // reopens the file and cuts it first.
+    private void cutOff(long length, IOException failure) {
+        try {
+            channel.truncate(length);
+            channel.force(false);
+        } catch (IOException ex) {
+            failure.addSuppressed(ex);
+            try {
+                close();
+            } catch (IOException closeFailure) {
+                failure.addSuppressed(closeFailure);
+            }
+            channel = null;
+            tornFrom = length;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private ByteBuffer encode(Collection<JournalEntry<T>> entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (JournalEntry<T> entry : entries) {
+            out.write(objectMapper.writeValueAsBytes(entry));
+            out.write('\n');
+        }
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
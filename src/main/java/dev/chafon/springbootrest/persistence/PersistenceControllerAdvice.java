@@ -0,0 +1,19 @@
+package dev.chafon.springbootrest.persistence;
+
+import dev.chafon.springbootrest.support.ProblemBodies;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+@ControllerAdvice
+public class PersistenceControllerAdvice {
+
+    private static final ProblemBodies SERVICE_UNAVAILABLE = ProblemBodies.forStatus(HttpStatus.SERVICE_UNAVAILABLE);
+
+    @ExceptionHandler(WriteBufferFullException.class)
+    ResponseEntity<?> handleWriteBufferFullException(WriteBufferFullException ex, HttpServletRequest request) {
+        return SERVICE_UNAVAILABLE.toResponse(ex.getMessage(), request);
+    }
+}
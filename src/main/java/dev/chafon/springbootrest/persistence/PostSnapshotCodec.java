@@ -0,0 +1,33 @@
+package dev.chafon.springbootrest.persistence;
+
+import dev.chafon.springbootrest.post.Post;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static dev.chafon.springbootrest.persistence.SnapshotCodec.*;
+
+class PostSnapshotCodec implements SnapshotCodec<Post> {
+
+    @Override
+    public void write(DataOutput out, Post post) throws IOException {
+        out.writeInt(post.id());
+        writeInteger(out, post.userId());
+        writeString(out, post.title());
+        writeString(out, post.body());
+        writeLong(out, post.version());
+        writeInstant(out, post.createdAt());
+        writeInstant(out, post.updatedAt());
+        writeInstant(out, post.expiresAt());
+    }
+
+    @Override
+    public Post read(ByteBuffer in, int format) {
+        return new Post(in.getInt(), readInteger(in), readString(in), readString(in),
+                format >= 2 ? readLong(in) : null,
+                format >= 3 ? readInstant(in) : null,
+                format >= 3 ? readInstant(in) : null,
+                format >= 4 ? readInstant(in) : null);
+    }
+}
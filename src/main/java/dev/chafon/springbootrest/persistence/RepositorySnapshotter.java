@@ -0,0 +1,168 @@
+package dev.chafon.springbootrest.persistence;
+
+import dev.chafon.springbootrest.support.ChangeListener;
+import dev.chafon.springbootrest.support.RestorableRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Periodically writes the whole repository to a snapshot file and loads it back on start.
+// Writers are never blocked: while a snapshot runs, the first change to each id records the value
+// it replaced, and the snapshot uses that value instead of the live one. The result is the state
+// of the repository at the moment the snapshot started.
+public class RepositorySnapshotter<T> implements ChangeListener<T>, MeterBinder, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RepositorySnapshotter.class);
+
+    private final String name;
+    private final RestorableRepository<T> repository;
+    private final Function<T, Integer> idExtractor;
+    private final SnapshotFile<T> file;
+    private final SnapshotProperties properties;
+    private final ScheduledExecutorService snapshotExecutor;
+    private volatile ConcurrentMap<Integer, Optional<T>> replacedValues;
+    private volatile long loadedRecords;
+    private volatile long loadNanos;
+    private volatile long lastSnapshotRecords;
+    private volatile Timer snapshotTimer;
+
+    RepositorySnapshotter(String name,
+                          RestorableRepository<T> repository,
+                          Function<T, Integer> idExtractor,
+                          SnapshotFile<T> file,
+                          SnapshotProperties properties) {
+        this.name = name;
+        this.repository = repository;
+        this.idExtractor = idExtractor;
+        this.file = file;
+        this.properties = properties;
+        this.snapshotExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("snapshot-" + name).daemon().factory());
+    }
+
+    // Loads the latest snapshot, then starts tracking changes and taking periodic snapshots.
+    public void start() throws IOException {
+        long started = System.nanoTime();
+        long records = file.read(repository::restore);
+        loadNanos = System.nanoTime() - started;
+        if (records >= 0) {
+            loadedRecords = records;
+            log.info("Loaded {} {} from {} in {} ms", records, name, file.path(),
+                    TimeUnit.NANOSECONDS.toMillis(loadNanos));
+        }
+
+        repository.addChangeListener(this);
+        long intervalMillis = properties.interval().toMillis();
+        snapshotExecutor.scheduleWithFixedDelay(this::snapshotQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public long loadedRecords() {
+        return loadedRecords;
+    }
+
+    public synchronized long snapshot() throws IOException {
+        long started = System.nanoTime();
+        ConcurrentMap<Integer, Optional<T>> replaced = new ConcurrentHashMap<>();
+        replacedValues = replaced;
+        long records;
+        try {
+            List<T> live = repository.findAll();
+            List<T> values = new ArrayList<>(live.size());
+            for (T value : live) {
+                if (!replaced.containsKey(idExtractor.apply(value))) {
+                    values.add(value);
+                }
+            }
+            // an id changed after it was copied above is written twice with the same value
+            replaced.values().forEach(value -> value.ifPresent(values::add));
+            records = file.write(values);
+        } finally {
+            replacedValues = null;
+        }
+        lastSnapshotRecords = records;
+        recordSnapshot(System.nanoTime() - started);
+        return records;
+    }
+
+    @Override
+    public void onSaved(T previous, T saved) {
+        recordReplaced(idExtractor.apply(saved), previous);
+    }
+
+    @Override
+    public void onDeleted(T deleted) {
+        recordReplaced(idExtractor.apply(deleted), deleted);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        snapshotTimer = Timer.builder("snapshot.duration")
+                .description("Time to write a snapshot")
+                .tag("store", name)
+                .register(registry);
+        Gauge.builder("snapshot.records", this, snapshotter -> snapshotter.lastSnapshotRecords)
+                .description("Records in the last snapshot written")
+                .tag("store", name)
+                .register(registry);
+        TimeGauge.builder("snapshot.load.duration", this, TimeUnit.NANOSECONDS, snapshotter -> snapshotter.loadNanos)
+                .description("Time spent loading the snapshot at startup")
+                .tag("store", name)
+                .register(registry);
+        Gauge.builder("snapshot.load.records", this, snapshotter -> snapshotter.loadedRecords)
+                .description("Records loaded from the snapshot at startup")
+                .tag("store", name)
+                .register(registry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        snapshotExecutor.shutdown();
+        try {
+            snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        snapshot();
+    }
+
+    // The first change to an id during a snapshot wins: it holds the value at the snapshot point.
+    private void recordReplaced(Integer id, T previous) {
+        ConcurrentMap<Integer, Optional<T>> replaced = replacedValues;
+        if (replaced != null) {
+            replaced.putIfAbsent(id, Optional.ofNullable(previous));
+        }
+    }
+
+    private void recordSnapshot(long durationNanos) {
+        Timer timer = snapshotTimer;
+        if (timer != null) {
+            timer.record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException ex) {
+            log.error("Failed to snapshot {}, retrying on the next interval", name, ex);
+        } catch (RuntimeException ex) {
+            log.error("Unexpected failure snapshotting {}", name, ex);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package dev.chafon.springbootrest.persistence;
+
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.post.PostRepository;
+import dev.chafon.springbootrest.user.User;
+import dev.chafon.springbootrest.user.UserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(SnapshotProperties.class)
+@ConditionalOnProperty(prefix = "persistence.snapshot", name = "enabled", havingValue = "true")
+public class SnapshotConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    RepositorySnapshotter<User> userSnapshotter(UserRepository userRepository, SnapshotProperties properties) {
+        return new RepositorySnapshotter<>("users", userRepository, User::id,
+                new SnapshotFile<>(properties.directory().resolve("users.snapshot"), new UserSnapshotCodec()),
+                properties);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    RepositorySnapshotter<Post> postSnapshotter(PostRepository postRepository, SnapshotProperties properties) {
+        return new RepositorySnapshotter<>("posts", postRepository, Post::id,
+                new SnapshotFile<>(properties.directory().resolve("posts.snapshot"), new PostSnapshotCodec()),
+                properties);
+    }
+}
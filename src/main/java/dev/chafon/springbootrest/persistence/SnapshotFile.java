@@ -0,0 +1,124 @@
+package dev.chafon.springbootrest.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardOpenOption.*;
+
+// Snapshot layout: magic, format version and record count, followed by length-prefixed records.
+// The file is written next to the current one and moved into place, and read back through
+// sequential memory-mapped windows so loading never copies the file through the heap.
+class SnapshotFile<T> {
+
+    private static final int MAGIC = 0x53425253;
+    // format 2 added the entity version, format 3 the post timestamps and format 4 the post expiry;
+    // older files are still read
+    private static final int VERSION = 4;
+    private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES;
+    private static final long DEFAULT_WINDOW_BYTES = 256L * 1024 * 1024;
+
+    private final Path path;
+    private final SnapshotCodec<T> codec;
+    private final long windowBytes;
+
+    SnapshotFile(Path path, SnapshotCodec<T> codec) {
+        this(path, codec, DEFAULT_WINDOW_BYTES);
+    }
+
+    SnapshotFile(Path path, SnapshotCodec<T> codec, long windowBytes) {
+        this.path = path;
+        this.codec = codec;
+        this.windowBytes = windowBytes;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long write(Iterable<T> values) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path next = path.resolveSibling(path.getFileName() + ".tmp");
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(next, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            DataOutputStream out = new DataOutputStream(stream);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(0);
+
+            ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+            DataOutputStream recordOut = new DataOutputStream(record);
+            for (T value : values) {
+                record.reset();
+                codec.write(recordOut, value);
+                out.writeInt(record.size());
+                record.writeTo(out);
+                count++;
+            }
+            out.flush();
+
+            // the count is only known once every record is written
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, count), Integer.BYTES * 2);
+            channel.force(true);
+        }
+        Files.move(next, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    // Returns the number of records read, or -1 when there is no snapshot yet.
+    long read(Consumer<T> consumer) throws IOException {
+        if (!Files.exists(path)) {
+            return -1;
+        }
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+            long windowStart = 0;
+            MappedByteBuffer window = map(channel, windowStart, size);
+            int format = window.getInt(Integer.BYTES);
+            if (window.getInt() != MAGIC || window.getInt() < 1 || format > VERSION) {
+                throw new IOException("Snapshot " + path + " has an unknown format");
+            }
+            long count = window.getLong();
+
+            for (long i = 0; i < count; i++) {
+                if (!hasRecord(window)) {
+                    windowStart += window.position();
+                    window = map(channel, windowStart, size);
+                    if (!hasRecord(window)) {
+                        throw new IOException("Snapshot " + path + " is truncated at record " + i);
+                    }
+                }
+                int length = window.getInt();
+                int end = window.position() + length;
+                consumer.accept(codec.read(window, format));
+                if (window.position() != end) {
+                    throw new IOException("Snapshot " + path + " has a malformed record " + i);
+                }
+            }
+            return count;
+        }
+    }
+
+    private MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowBytes, size - position));
+    }
+
+    private static boolean hasRecord(ByteBuffer window) {
+        return window.remaining() >= Integer.BYTES
+                && window.remaining() - Integer.BYTES >= window.getInt(window.position());
+    }
+}
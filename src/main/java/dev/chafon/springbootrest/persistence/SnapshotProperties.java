@@ -0,0 +1,17 @@
+package dev.chafon.springbootrest.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "persistence.snapshot")
+public record SnapshotProperties(
+        @DefaultValue("false")
+        boolean enabled,
+        @DefaultValue("data")
+        Path directory,
+        @DefaultValue("5m")
+        Duration interval) {
+}
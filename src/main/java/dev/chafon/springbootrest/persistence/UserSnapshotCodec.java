@@ -0,0 +1,27 @@
+package dev.chafon.springbootrest.persistence;
+
+import dev.chafon.springbootrest.user.User;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static dev.chafon.springbootrest.persistence.SnapshotCodec.*;
+
+class UserSnapshotCodec implements SnapshotCodec<User> {
+
+    @Override
+    public void write(DataOutput out, User user) throws IOException {
+        out.writeInt(user.id());
+        writeString(out, user.name());
+        writeString(out, user.username());
+        writeString(out, user.email());
+        writeLong(out, user.version());
+    }
+
+    @Override
+    public User read(ByteBuffer in, int format) {
+        return new User(in.getInt(), readString(in), readString(in), readString(in),
+                format >= 2 ? readLong(in) : null);
+    }
+}
@@ -0,0 +1,40 @@
+package dev.chafon.springbootrest.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.post.PostRepository;
+import dev.chafon.springbootrest.user.User;
+import dev.chafon.springbootrest.user.UserRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(WriteBehindProperties.class)
+@ConditionalOnProperty(prefix = "persistence.write-behind", name = "enabled", havingValue = "true")
+public class WriteBehindConfig {
+
+    // Here and below: the journal is replayed on top of the snapshot, and looking the snapshotter up, when
+    // snapshots are enabled, has Spring create it, and with it load the snapshot, before the writer starts.
+    @Bean(initMethod = "start", destroyMethod = "close")
+    WriteBehindWriter<User> userWriteBehindWriter(UserRepository userRepository,
+                                                  WriteBehindProperties properties,
+                                                  ObjectMapper objectMapper,
+                                                  ObjectProvider<RepositorySnapshotter<User>> userSnapshotter) {
+        return new WriteBehindWriter<>("users", userRepository, User::id,
+                new JournalFile<>(properties.directory().resolve("users.journal"), User.class, objectMapper),
+                properties, userSnapshotter.getIfAvailable());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    WriteBehindWriter<Post> postWriteBehindWriter(PostRepository postRepository,
+                                                  WriteBehindProperties properties,
+                                                  ObjectMapper objectMapper,
+                                                  ObjectProvider<RepositorySnapshotter<Post>> postSnapshotter) {
+        return new WriteBehindWriter<>("posts", postRepository, Post::id,
+                new JournalFile<>(properties.directory().resolve("posts.journal"), Post.class, objectMapper),
+                properties, postSnapshotter.getIfAvailable());
+    }
+}
@@ -0,0 +1,23 @@
+package dev.chafon.springbootrest.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "persistence.write-behind")
+public record WriteBehindProperties(
+        @DefaultValue("false")
+        boolean enabled,
+        @DefaultValue("data")
+        Path directory,
+        @DefaultValue("1s")
+        Duration flushInterval,
+        @DefaultValue("1000")
+        int batchSize,
+        @DefaultValue("10000")
+        int bufferCapacity,
+        @DefaultValue("5s")
+        Duration backpressureTimeout) {
+}
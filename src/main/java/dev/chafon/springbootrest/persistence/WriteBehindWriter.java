@@ -0,0 +1,241 @@
+package dev.chafon.springbootrest.persistence;
+
+import dev.chafon.springbootrest.support.ChangeListener;
+import dev.chafon.springbootrest.support.RestorableRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Acknowledges writes from memory and persists them asynchronously: every change marks its id as
+// pending with the latest value (so repeated changes to one id coalesce), and a background thread
+// appends the pending values to the journal in batches. Once the buffer is full, a writer waits
+// before its write for the flush to make room, holding no lock meanwhile, and the write is rejected
+// when that takes longer than the backpressure timeout.
+public class WriteBehindWriter<T> implements ChangeListener<T>, MeterBinder, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindWriter.class);
+
+    private final String name;
+    private final RestorableRepository<T> repository;
+    private final Function<T, Integer> idExtractor;
+    private final JournalFile<T> journal;
+    private final WriteBehindProperties properties;
+    private final RepositorySnapshotter<T> snapshotter;
+    private final ConcurrentMap<Integer, PendingWrite<T>> pendingWrites;
+    private final AtomicInteger pendingCount;
+    private final Object capacityMonitor;
+    private final ScheduledExecutorService flushExecutor;
+    private volatile Timer flushLagTimer;
+
+    WriteBehindWriter(String name,
+                      RestorableRepository<T> repository,
+                      Function<T, Integer> idExtractor,
+                      JournalFile<T> journal,
+                      WriteBehindProperties properties) {
+        this(name, repository, idExtractor, journal, properties, null);
+    }
+
+    // snapshotter is the one that loaded this repository's snapshot, or null when snapshots are disabled
+    WriteBehindWriter(String name,
+                      RestorableRepository<T> repository,
+                      Function<T, Integer> idExtractor,
+                      JournalFile<T> journal,
+                      WriteBehindProperties properties,
+                      RepositorySnapshotter<T> snapshotter) {
+        this.name = name;
+        this.repository = repository;
+        this.idExtractor = idExtractor;
+        this.journal = journal;
+        this.properties = properties;
+        this.snapshotter = snapshotter;
+        this.pendingWrites = new ConcurrentHashMap<>();
+        this.pendingCount = new AtomicInteger();
+        this.capacityMonitor = new Object();
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("write-behind-" + name).daemon().factory());
+    }
+
+    // Replays the journal into the repository, compacts it to the resulting state and starts tracking changes.
+    public void start() throws IOException {
+        List<JournalEntry<T>> entries = journal.read();
+        for (JournalEntry<T> entry : entries) {
+            if (entry.value() == null) {
+                repository.evict(entry.id());
+            } else {
+                repository.restore(entry.value());
+            }
+        }
+        journal.rewrite(repository.findAll().stream()
+                .map(entity -> new JournalEntry<>(idExtractor.apply(entity), entity))
+                .toList());
+        log.info("Restored {} {} from {} snapshot records and {} journal entries", repository.findAll().size(), name,
+                snapshotter == null ? 0 : snapshotter.loadedRecords(), entries.size());
+
+        repository.addChangeListener(this);
+        long intervalMillis = properties.flushInterval().toMillis();
+        flushExecutor.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Writers passing this together may each add one write, so the buffer can go over its capacity by
+    // at most the number of concurrent writers.
+    @Override
+    public void beforeChange() {
+        if (pendingCount.get() >= properties.bufferCapacity()) {
+            awaitCapacity();
+        }
+    }
+
+    @Override
+    public void onSaved(T previous, T saved) {
+        enqueue(idExtractor.apply(saved), saved);
+    }
+
+    @Override
+    public void onDeleted(T deleted) {
+        enqueue(idExtractor.apply(deleted), null);
+    }
+
+    public synchronized void flush() throws IOException {
+        while (true) {
+            List<Integer> ids = new ArrayList<>(properties.batchSize());
+            List<PendingWrite<T>> writes = new ArrayList<>(properties.batchSize());
+            for (Integer id : pendingWrites.keySet()) {
+                PendingWrite<T> write = pendingWrites.remove(id);
+                if (write != null) {
+                    ids.add(id);
+                    writes.add(write);
+                    if (writes.size() == properties.batchSize()) {
+                        break;
+                    }
+                }
+            }
+            if (writes.isEmpty()) {
+                return;
+            }
+            List<JournalEntry<T>> batch = new ArrayList<>(writes.size());
+            long oldestEnqueuedAt = Long.MAX_VALUE;
+            for (int i = 0; i < writes.size(); i++) {
+                batch.add(new JournalEntry<>(ids.get(i), writes.get(i).value()));
+                oldestEnqueuedAt = Math.min(oldestEnqueuedAt, writes.get(i).enqueuedAt());
+            }
+            try {
+                journal.append(batch);
+            } catch (IOException ex) {
+                requeue(ids, writes);
+                throw ex;
+            }
+            pendingCount.addAndGet(-writes.size());
+            recordFlushLag(System.nanoTime() - oldestEnqueuedAt);
+            synchronized (capacityMonitor) {
+                capacityMonitor.notifyAll();
+            }
+            if (writes.size() < properties.batchSize()) {
+                return;
+            }
+        }
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("writebehind.pending", this, WriteBehindWriter::getPendingCount)
+                .tag("store", name)
+                .register(registry);
+        flushLagTimer = Timer.builder("writebehind.flush.lag")
+                .description("Time from the oldest change in a batch being acknowledged to the batch being durable")
+                .tag("store", name)
+                .register(registry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(properties.flushInterval().toMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        journal.close();
+    }
+
+    // Runs inside the repository's per-id critical section, so it only records the write.
+    private void enqueue(Integer id, T value) {
+        PendingWrite<T> write = new PendingWrite<>(value, System.nanoTime());
+        PendingWrite<T> replaced = pendingWrites.put(id, write);
+        if (replaced != null) {
+            // keep the age of the oldest unflushed change so the flush lag is not understated
+            pendingWrites.replace(id, write, new PendingWrite<>(value, replaced.enqueuedAt()));
+            return;
+        }
+        pendingCount.incrementAndGet();
+    }
+
+    private void awaitCapacity() {
+        flushExecutor.execute(this::flushQuietly);
+        long deadline = System.nanoTime() + properties.backpressureTimeout().toNanos();
+        synchronized (capacityMonitor) {
+            long remaining;
+            while (pendingCount.get() >= properties.bufferCapacity()) {
+                remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new WriteBufferFullException(name);
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(capacityMonitor, remaining);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new WriteBufferFullException(name);
+                }
+            }
+        }
+    }
+
+    private void requeue(List<Integer> ids, List<PendingWrite<T>> writes) {
+        int superseded = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            if (pendingWrites.putIfAbsent(ids.get(i), writes.get(i)) != null) {
+                superseded++;
+            }
+        }
+        pendingCount.addAndGet(-superseded);
+    }
+
+    private void recordFlushLag(long lagNanos) {
+        Timer timer = flushLagTimer;
+        if (timer != null) {
+            timer.record(lagNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException ex) {
+            log.error("Failed to flush {} to the journal, retrying on the next interval", name, ex);
+        } catch (RuntimeException ex) {
+            log.error("Unexpected failure flushing {}", name, ex);
+        }
+    }
+
+    private record PendingWrite<T>(T value, long enqueuedAt) {
+    }
+}
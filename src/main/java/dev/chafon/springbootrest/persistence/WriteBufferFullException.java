@@ -0,0 +1,19 @@
+package dev.chafon.springbootrest.persistence;
+
+import dev.chafon.springbootrest.support.StacklessException;
+
+import static dev.chafon.springbootrest.Constants.WRITE_BUFFER_FULL;
+
+public class WriteBufferFullException extends StacklessException {
+
+    private final String store;
+
+    public WriteBufferFullException(String store) {
+        this.store = store;
+    }
+
+    @Override
+    public String getMessage() {
+        return WRITE_BUFFER_FULL + store;
+    }
+}
@@ -1,82 +1,296 @@
 package dev.chafon.springbootrest.post;
 
+import dev.chafon.springbootrest.support.ChangeListener;
+import dev.chafon.springbootrest.support.ChangeListeners;
+import dev.chafon.springbootrest.support.ChangeSet;
+import dev.chafon.springbootrest.support.EntityVersions;
+import dev.chafon.springbootrest.support.IdAllocator;
+import dev.chafon.springbootrest.support.PageCursor;
+import dev.chafon.springbootrest.support.RankedCounts;
+import dev.chafon.springbootrest.support.SequenceIdAllocator;
+import dev.chafon.springbootrest.support.ShardedStore;
+import dev.chafon.springbootrest.support.VersionClock;
+import dev.chafon.springbootrest.support.VersionConflictException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import static dev.chafon.springbootrest.Constants.*;
 
 @Repository
 public class InMemoryPostRepository implements PostRepository {
 
-    private final Map<Integer, Post> postMap;
+    private final ShardedStore<Post> postStore;
+    private final ShardedStore.Index<Post, Integer> userIdIndex;
+    private final ShardedStore.SortedIndex<Post, Integer> idOrder;
+    private final ShardedStore.SortedIndex<Post, String> titleOrder;
+    private final ShardedStore.SortedIndex<Post, Instant> creationOrder;
+    private final RankedCounts<Integer> postCountsByUser;
+    private final ChangeListeners<Post> changeListeners;
+    private final Clock clock;
+    private volatile IdAllocator<Post> idAllocator;
 
     public InMemoryPostRepository() {
-        this.postMap = new ConcurrentHashMap<>();
+        this(ShardedStore.DEFAULT_SHARDS, new VersionClock());
+    }
+
+    @Autowired
+    public InMemoryPostRepository(@Value("${repository.shards:" + ShardedStore.DEFAULT_SHARDS + "}") int shardCount,
+                                  VersionClock versionClock) {
+        this(shardCount, versionClock, Clock.systemUTC());
+    }
+
+    InMemoryPostRepository(int shardCount, VersionClock versionClock, Clock clock) {
+        this.postStore = new ShardedStore<>(shardCount, Post::id, versionClock);
+        this.userIdIndex = postStore.addIndex(Post::userId);
+        this.idOrder = postStore.addSortedIndex(Post::id, Post::userId);
+        this.titleOrder = postStore.addSortedIndex(Post::title, Post::userId);
+        this.creationOrder = postStore.addSortedIndex(Post::createdAt, Post::userId);
+        this.postCountsByUser = new RankedCounts<>();
+        this.idAllocator = new SequenceIdAllocator<>();
+        this.changeListeners = new ChangeListeners<>();
+        this.clock = clock;
     }
 
     @Override
     public List<Post> findAll() {
-        return postMap.values()
-                .stream()
-                .toList();
+        return postStore.values();
     }
 
     @Override
     public Optional<Post> findById(Integer id) {
         Objects.requireNonNull(id, ID_CANNOT_BE_NULL);
-        return Optional.ofNullable(postMap.get(id));
+        return Optional.ofNullable(postStore.get(id));
+    }
+
+    // Seeks into the sorted index for the user, or for all posts, and reads only the page asked for.
+    @Override
+    public List<Post> findAll(PostQuery query) {
+        Objects.requireNonNull(query, QUERY_CANNOT_BE_NULL);
+        PageCursor after = query.after();
+        Integer afterId = after == null ? null : after.id();
+        return switch (query.sort()) {
+            case ID -> postStore.range(idOrder, query.userId(), afterId, afterId, query.descending(), query.limitOrMax());
+            case TITLE -> postStore.range(titleOrder, query.userId(),
+                    after == null ? null : Objects.requireNonNullElse(after.key(), ""), afterId,
+                    query.descending(), query.limitOrMax());
+            case CREATED -> postStore.range(creationOrder, query.userId(), query.since(), query.until(),
+                    query.afterCreatedAt(), afterId, query.descending(), query.limitOrMax());
+        };
+    }
+
+    @Override
+    public List<Post> findAllById(Collection<Integer> ids) {
+        Objects.requireNonNull(ids, IDS_CANNOT_BE_NULL);
+        return postStore.getAll(ids);
+    }
+
+    @Override
+    public long currentSequence() {
+        return postStore.clock().currentSequence();
+    }
+
+    @Override
+    public List<Post> findAll(long asOf) {
+        return postStore.values(asOf);
+    }
+
+    @Override
+    public List<Post> findAllById(Collection<Integer> ids, long asOf) {
+        Objects.requireNonNull(ids, IDS_CANNOT_BE_NULL);
+        return postStore.getAll(ids, asOf);
+    }
+
+    @Override
+    public ChangeSet<Post> findChangesSince(long sequence) {
+        return postStore.changesSince(sequence);
+    }
+
+    @Override
+    public long count() {
+        return postStore.size();
+    }
+
+    @Override
+    public long tombstoneCount() {
+        return postStore.tombstoneCount();
+    }
+
+    @Override
+    public int compactTombstones(long retainedSequences, int maxTombstones) {
+        return postStore.compactTombstones(retainedSequences, maxTombstones);
+    }
+
+    @Override
+    public Optional<Post> findById(Integer id, long asOf) {
+        Objects.requireNonNull(id, ID_CANNOT_BE_NULL);
+        return Optional.ofNullable(postStore.get(id, asOf));
     }
 
     @Override
     public Post save(Post post) {
         Objects.requireNonNull(post, POST_CANNOT_BE_NULL);
-        Post postToSave;
-        if (post.id() != null) {
-            Post existingPost = postMap.get(post.id());
-            if(existingPost == null) {
-                throw new IllegalArgumentException(POST_WITH_ID_DOES_NOT_EXIST + " : " + post.id());
-            }
-            postToSave = post;
-        } else {
-            postToSave = new Post(postMap.size() + 1, post.userId(), post.title(), post.body());
+        if (post.id() == null) {
+            Instant now = clock.instant();
+            Post postToSave = new Post(idAllocator.allocate(post), post.userId(), post.title(), post.body(),
+                    EntityVersions.FIRST, now, now, post.expiresAt());
+            changeListeners.write(() -> postStore.compute(postToSave.id(), (id, existingPost) -> {
+                changeListeners.saved(existingPost, postToSave);
+                postCountsByUser.move(userIdOf(existingPost), postToSave.userId());
+                return postToSave;
+            }));
+            return postToSave;
         }
-        postMap.put(postToSave.id(), postToSave);
-        return postToSave;
+        return update(post.id(), existingPost -> post)
+                .orElseThrow(() -> new IllegalArgumentException(POST_WITH_ID_DOES_NOT_EXIST + " : " + post.id()));
+    }
+
+    // The updater runs once, while the id is locked, and the userId index moves with the post in the same
+    // step. A post carrying a version is only saved over that version. The creation time is kept, whatever
+    // the updater returns.
+    @Override
+    public Optional<Post> update(Integer id, UnaryOperator<Post> updater) {
+        Objects.requireNonNull(id, ID_CANNOT_BE_NULL);
+        return Optional.ofNullable(changeListeners.write(() -> postStore.computeIfPresent(id, (key, existingPost) -> {
+            Post post = Objects.requireNonNull(updater.apply(existingPost), POST_CANNOT_BE_NULL);
+            if (!EntityVersions.matches(post.version(), existingPost.version())) {
+                throw new VersionConflictException(existingPost.version());
+            }
+            Post postToSave = new Post(key, post.userId(), post.title(), post.body(),
+                    EntityVersions.next(existingPost.version()), existingPost.createdAt(), clock.instant(),
+                    post.expiresAt());
+            changeListeners.saved(existingPost, postToSave);
+            postCountsByUser.move(existingPost.userId(), postToSave.userId());
+            return postToSave;
+        })));
     }
 
     @Override
     public void deleteById(Integer id) {
+        deleteByIdIf(id, post -> true);
+    }
+
+    // The condition is checked while the id is locked, so a post changed in the meantime is judged as it
+    // is now.
+    @Override
+    public boolean deleteByIdIf(Integer id, Predicate<Post> condition) {
         Objects.requireNonNull(id, ID_CANNOT_BE_NULL);
-        postMap.remove(id);
+        boolean[] deleted = new boolean[1];
+        changeListeners.write(() -> postStore.computeIfPresent(id, (key, existingPost) -> {
+            if (!condition.test(existingPost)) {
+                return existingPost;
+            }
+            changeListeners.deleted(existingPost);
+            postCountsByUser.move(existingPost.userId(), null);
+            deleted[0] = true;
+            return null;
+        }));
+        return deleted[0];
     }
 
     @Override
     public boolean existsById(Integer id) {
         Objects.requireNonNull(id, ID_CANNOT_BE_NULL);
-        return postMap.values()
-                .stream()
-                .anyMatch(user -> user.id().equals(id));
+        return postStore.containsKey(id);
     }
 
     @Override
     public List<Post> findByUserId(Integer userId) {
-        return postMap.values()
-                .stream()
-                .filter(post -> post.userId().equals(userId))
-                .toList();
+        return postStore.findBy(userIdIndex, userId);
+    }
+
+    @Override
+    public long countByUserId(Integer userId) {
+        return postCountsByUser.count(userId);
+    }
+
+    @Override
+    public List<RankedCounts.Count<Integer>> findTopUsersByPostCount(int limit) {
+        return postCountsByUser.top(limit);
     }
 
     @Override
     public Optional<Post> findByUserIdAndId(Integer userId, Integer id) {
-        return postMap.values()
-                .stream()
-                .filter(post -> post.userId().equals(userId))
-                .filter(post -> post.id().equals(id))
-                .findFirst();
+        return findById(id)
+                .filter(post -> post.userId().equals(userId));
+    }
+
+    @Override
+    public void restore(Post post) {
+        put(post, false);
+    }
+
+    @Override
+    public void evict(Integer id) {
+        remove(id, false);
+    }
+
+    @Override
+    public boolean adopt(Post post) {
+        return changeListeners.write(() -> put(post, true));
+    }
+
+    @Override
+    public void release(Integer id) {
+        changeListeners.write(() -> remove(id, true));
+    }
+
+    @Override
+    public void addChangeListener(ChangeListener<Post> listener) {
+        changeListeners.add(listener);
+    }
+
+    @Override
+    public void setIdAllocator(IdAllocator<Post> idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    // An adopted post never replaces another one under its id; false tells the caller it was refused,
+    // while an equal one already there counts as adopted.
+    private boolean put(Post post, boolean asWrite) {
+        Objects.requireNonNull(post, POST_CANNOT_BE_NULL);
+        Objects.requireNonNull(post.id(), ID_CANNOT_BE_NULL);
+        idAllocator.observe(post.id());
+        boolean[] refused = new boolean[1];
+        postStore.compute(post.id(), (id, existingPost) -> {
+            if (asWrite && existingPost != null) {
+                refused[0] = !existingPost.equals(post);
+                return existingPost;
+            }
+            if (asWrite) {
+                changeListeners.saved(existingPost, post);
+            } else {
+                changeListeners.restored(post);
+            }
+            postCountsByUser.move(userIdOf(existingPost), post.userId());
+            return post;
+        });
+        return !refused[0];
+    }
+
+    private Post remove(Integer id, boolean asWrite) {
+        Objects.requireNonNull(id, ID_CANNOT_BE_NULL);
+        return postStore.computeIfPresent(id, (key, existingPost) -> {
+            if (asWrite) {
+                changeListeners.deleted(existingPost);
+            } else {
+                changeListeners.evicted(existingPost);
+            }
+            postCountsByUser.move(existingPost.userId(), null);
+            return null;
+        });
+    }
+
+    private static Integer userIdOf(Post post) {
+        return post == null ? null : post.userId();
     }
 }
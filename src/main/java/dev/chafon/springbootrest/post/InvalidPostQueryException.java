@@ -0,0 +1,17 @@
+package dev.chafon.springbootrest.post;
+
+import dev.chafon.springbootrest.support.StacklessException;
+
+public class InvalidPostQueryException extends StacklessException {
+
+    private final String reason;
+
+    public InvalidPostQueryException(String reason) {
+        this.reason = reason;
+    }
+
+    @Override
+    public String getMessage() {
+        return reason;
+    }
+}
@@ -1,8 +1,11 @@
 package dev.chafon.springbootrest.post;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
+import java.time.Instant;
+
 import static dev.chafon.springbootrest.Constants.*;
 
 public record Post(
@@ -12,5 +15,24 @@ public record Post(
         @NotBlank(message = POST_TITLE_CANNOT_BE_BLANK)
         String title,
         @NotBlank(message = POST_BODY_CANNOT_BE_BLANK)
-        String body) {
+        String body,
+        // assigned by the repository, incremented on every update
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        Long version,
+        // assigned by the repository when the post is created and on every update
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        Instant createdAt,
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        Instant updatedAt,
+        // optional; the post is deleted once this time has passed
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        Instant expiresAt) {
+
+    public Post(Integer id, Integer userId, String title, String body) {
+        this(id, userId, title, body, null);
+    }
+
+    public Post(Integer id, Integer userId, String title, String body, Long version) {
+        this(id, userId, title, body, version, null, null, null);
+    }
 }
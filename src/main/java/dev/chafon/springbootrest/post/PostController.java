@@ -1,32 +1,113 @@
 package dev.chafon.springbootrest.post;
 
+import dev.chafon.springbootrest.support.CaseInsensitiveEnumEditor;
+import dev.chafon.springbootrest.support.ChangeSet;
+import dev.chafon.springbootrest.support.EntityVersions;
+import dev.chafon.springbootrest.support.MultiGet;
+import dev.chafon.springbootrest.support.PageCursor;
+import dev.chafon.springbootrest.support.RankedCounts;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.time.Instant;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/v1/posts")
 public class PostController {
 
     private final PostService postService;
+    private final PostValidator postValidator;
 
     public PostController(PostService postService) {
         this.postService = postService;
+        this.postValidator = new PostValidator();
     }
 
+    // @Valid request bodies are checked by PostValidator instead of the reflective default validator
+    @InitBinder("post")
+    void initPostBinder(WebDataBinder binder) {
+        binder.setValidator(postValidator);
+    }
+
+    @InitBinder({"sort", "order"})
+    void initQueryBinder(WebDataBinder binder) {
+        binder.registerCustomEditor(PostQuery.Sort.class, new CaseInsensitiveEnumEditor<>(PostQuery.Sort.class));
+        binder.registerCustomEditor(PostQuery.Order.class, new CaseInsensitiveEnumEditor<>(PostQuery.Order.class));
+    }
+
+    // ?ids=1,2,3 looks up just those posts, missing ids are reported in the X-Missing-Ids header.
+    // ?userId=, ?sort=id|title|created, ?order=asc|desc and ?limit= list posts a page at a time; the next
+    // page starts ?after= the cursor in the X-Next-Cursor header. ?since= and ?until= list the posts
+    // created in that time range, in creation order. ?expand=user embeds each post's user.
     @GetMapping
-    List<Post> getPosts() {
-        return postService.getPosts();
+    ResponseEntity<?> getPosts(@RequestParam(required = false) List<Integer> ids,
+                               @RequestParam(required = false) Long asOf,
+                               @RequestParam(required = false) Set<String> expand,
+                               @RequestParam(required = false) Integer userId,
+                               @RequestParam(required = false) PostQuery.Sort sort,
+                               @RequestParam(required = false) PostQuery.Order order,
+                               @RequestParam(required = false) Integer limit,
+                               @RequestParam(required = false) PageCursor after,
+                               @RequestParam(required = false) Instant since,
+                               @RequestParam(required = false) Instant until) {
+        PostQuery query = null;
+        List<Post> posts;
+        if (ids != null) {
+            posts = asOf == null ? postService.getPostsById(ids) : postService.getPostsById(ids, asOf);
+        } else if (userId != null || sort != null || order != null || limit != null || after != null
+                || since != null || until != null) {
+            query = new PostQuery(userId, sort, order, limit, after, since, until);
+            posts = asOf == null ? postService.getPosts(query) : postService.getPosts(query, asOf);
+        } else {
+            posts = asOf == null ? postService.getPosts() : postService.getPosts(asOf);
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (ids != null) {
+            MultiGet.addMissingIds(response, ids, posts, Post::id);
+        }
+        PageCursor nextCursor = query == null ? null : query.nextCursor(posts);
+        if (nextCursor != null) {
+            response.header(PageCursor.NEXT_CURSOR_HEADER, nextCursor.encode());
+        }
+        if (expand != null && expand.contains("user")) {
+            return response.body(asOf == null ? postService.withUsers(posts) : postService.withUsers(posts, asOf));
+        }
+        return response.body(posts);
     }
 
+    // ?expand=user embeds the user in the same response
     @GetMapping("/{id}")
-    Post getPost(@PathVariable Integer id) {
-        return postService.getPost(id);
+    ResponseEntity<?> getPost(@PathVariable Integer id,
+                              @RequestParam(required = false) Long asOf,
+                              @RequestParam(required = false) Set<String> expand) {
+        if (expand != null && expand.contains("user")) {
+            return ResponseEntity.ok(asOf == null ? postService.getPostWithUser(id) : postService.getPostWithUser(id, asOf));
+        }
+        Post post = asOf == null ? postService.getPost(id) : postService.getPost(id, asOf);
+        if (post.version() == null) {
+            return ResponseEntity.ok(post);
+        }
+        return ResponseEntity.ok().eTag(EntityVersions.toETag(post.version())).body(post);
+    }
+
+    // The posts created, updated and deleted after the sequence of an earlier change set or listing
+    @GetMapping("/changes")
+    ChangeSet<Post> getChanges(@RequestParam long since) {
+        return postService.getChangesSince(since);
+    }
+
+    @GetMapping("/counts-by-user")
+    List<RankedCounts.Count<Integer>> getTopUsersByPostCount(@RequestParam(defaultValue = "10") int top) {
+        return postService.getTopUsersByPostCount(top);
     }
 
     @PostMapping
@@ -44,8 +125,14 @@ public class PostController {
 
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    void updatePost(@PathVariable Integer id, @Valid @RequestBody Post post) {
-        postService.updatePost(id, post);
+    void updatePost(@PathVariable Integer id,
+                    @Valid @RequestBody Post post,
+                    @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch == null) {
+            postService.updatePost(id, post);
+        } else {
+            postService.updatePost(id, post, EntityVersions.fromIfMatch(ifMatch));
+        }
     }
 
     @DeleteMapping("/{id}")
@@ -1,8 +1,10 @@
 package dev.chafon.springbootrest.post;
 
+import dev.chafon.springbootrest.support.ProblemBodies;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.ObjectError;
-import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -12,17 +14,25 @@ import java.util.stream.Collectors;
 @ControllerAdvice
 public class PostControllerAdvice {
 
+    private static final ProblemBodies NOT_FOUND = ProblemBodies.forStatus(HttpStatus.NOT_FOUND);
+    private static final ProblemBodies BAD_REQUEST = ProblemBodies.forStatus(HttpStatus.BAD_REQUEST);
+
     @ExceptionHandler(PostNotFoundException.class)
-    ErrorResponse handlePostNotFoundException(PostNotFoundException ex) {
-        return ErrorResponse.builder(ex, HttpStatus.NOT_FOUND, ex.getMessage()).build();
+    ResponseEntity<?> handlePostNotFoundException(PostNotFoundException ex, HttpServletRequest request) {
+        return NOT_FOUND.toResponse(ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(InvalidPostQueryException.class)
+    ResponseEntity<?> handleInvalidPostQueryException(InvalidPostQueryException ex, HttpServletRequest request) {
+        return BAD_REQUEST.toResponse(ex.getMessage(), request);
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    ErrorResponse handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
+    ResponseEntity<?> handleMethodArgumentNotValidException(MethodArgumentNotValidException ex, HttpServletRequest request) {
         String errorMessages = ex.getBindingResult().getAllErrors().stream()
                 .map(ObjectError::getDefaultMessage)
                 .collect(Collectors.joining(", "));
 
-        return ErrorResponse.builder(ex, HttpStatus.BAD_REQUEST, errorMessages).build();
+        return BAD_REQUEST.toResponse(errorMessages, request);
     }
 }
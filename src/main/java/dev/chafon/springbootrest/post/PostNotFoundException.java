@@ -1,9 +1,19 @@
 package dev.chafon.springbootrest.post;
 
+import dev.chafon.springbootrest.support.StacklessException;
+
 import static dev.chafon.springbootrest.Constants.POST_NOT_FOUND_EXCEPTION_MESSAGE;
 
-public class PostNotFoundException extends RuntimeException {
+public class PostNotFoundException extends StacklessException {
+
+    private final Integer id;
+
     public PostNotFoundException(Integer id) {
-        super(POST_NOT_FOUND_EXCEPTION_MESSAGE + id);
+        this.id = id;
+    }
+
+    @Override
+    public String getMessage() {
+        return POST_NOT_FOUND_EXCEPTION_MESSAGE + id;
     }
 }
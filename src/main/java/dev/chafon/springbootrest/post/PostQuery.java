@@ -0,0 +1,102 @@
+package dev.chafon.springbootrest.post;
+
+import dev.chafon.springbootrest.support.PageCursor;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.List;
+
+import static dev.chafon.springbootrest.Constants.*;
+
+// A listing of posts, optionally of one user, in id, title or creation order, a page at a time.
+// since and until bound the creation time, from since inclusive to until exclusive, and list the
+// posts in creation order.
+public record PostQuery(Integer userId, Sort sort, Order order, Integer limit, PageCursor after,
+                        Instant since, Instant until) {
+
+    public enum Sort { ID, TITLE, CREATED }
+
+    public enum Order { ASC, DESC }
+
+    public PostQuery {
+        boolean timeRange = since != null || until != null;
+        sort = sort == null ? (timeRange ? Sort.CREATED : Sort.ID) : sort;
+        order = order == null ? Order.ASC : order;
+        if (timeRange && sort != Sort.CREATED) {
+            throw new InvalidPostQueryException(TIME_RANGE_NEEDS_CREATED_ORDER);
+        }
+        if (sort == Sort.CREATED && after != null) {
+            parseCreatedAt(after);
+        }
+    }
+
+    public PostQuery(Integer userId, Sort sort, Order order, Integer limit, PageCursor after) {
+        this(userId, sort, order, limit, after, null, null);
+    }
+
+    public boolean descending() {
+        return order == Order.DESC;
+    }
+
+    public int limitOrMax() {
+        return limit == null ? Integer.MAX_VALUE : Math.max(limit, 0);
+    }
+
+    // The creation time the cursor of a created-order listing points at.
+    public Instant afterCreatedAt() {
+        return after == null ? null : parseCreatedAt(after);
+    }
+
+    // The cursor for the page after this one, or null when the page is the last.
+    public PageCursor nextCursor(List<Post> page) {
+        if (limit == null || page.isEmpty() || page.size() < limit) {
+            return null;
+        }
+        Post last = page.getLast();
+        return switch (sort) {
+            case ID -> new PageCursor(null, last.id());
+            case TITLE -> new PageCursor(last.title(), last.id());
+            case CREATED -> new PageCursor(last.createdAt().toString(), last.id());
+        };
+    }
+
+    // The same filter and order applied to a list in memory, for reads at a point in time.
+    public List<Post> apply(List<Post> posts) {
+        Comparator<Post> comparator = switch (sort) {
+            case ID -> Comparator.comparing(Post::id);
+            case TITLE -> Comparator.comparing(Post::title).thenComparing(Post::id);
+            case CREATED -> Comparator.comparing(Post::createdAt).thenComparing(Post::id);
+        };
+        if (descending()) {
+            comparator = comparator.reversed();
+        }
+        Comparator<Post> order = comparator;
+        return posts.stream()
+                .filter(post -> userId == null || userId.equals(post.userId()))
+                .filter(post -> sort != Sort.TITLE || post.title() != null)
+                .filter(post -> sort != Sort.CREATED || post.createdAt() != null)
+                .filter(post -> since == null || !post.createdAt().isBefore(since))
+                .filter(post -> until == null || post.createdAt().isBefore(until))
+                .sorted(order)
+                .filter(post -> after == null || order.compare(post, afterPost()) > 0)
+                .limit(limitOrMax())
+                .toList();
+    }
+
+    private Post afterPost() {
+        return new Post(after.id(), null, after.key() == null ? "" : after.key(), null, null,
+                sort == Sort.CREATED ? afterCreatedAt() : null, null, null);
+    }
+
+    private static Instant parseCreatedAt(PageCursor cursor) {
+        if (cursor.key() != null) {
+            try {
+                return Instant.parse(cursor.key());
+            } catch (DateTimeParseException ex) {
+                // rejected below
+            }
+        }
+        throw new InvalidPostQueryException(INVALID_PAGE_CURSOR);
+    }
+}
@@ -1,14 +1,28 @@
 package dev.chafon.springbootrest.post;
 
+import dev.chafon.springbootrest.support.CompactableRepository;
+import dev.chafon.springbootrest.support.RankedCounts;
+import dev.chafon.springbootrest.support.RestorableRepository;
+import dev.chafon.springbootrest.support.VersionedRepository;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
-public interface PostRepository {
+public interface PostRepository extends RestorableRepository<Post>, VersionedRepository<Post>, CompactableRepository {
     List<Post> findAll();
+    List<Post> findAll(PostQuery query);
     Optional<Post> findById(Integer id);
+    List<Post> findAllById(Collection<Integer> ids);
     Post save(Post post);
+    Optional<Post> update(Integer id, UnaryOperator<Post> updater);
     void deleteById(Integer id);
+    boolean deleteByIdIf(Integer id, Predicate<Post> condition);
     boolean existsById(Integer id);
     List<Post> findByUserId(Integer userId);
     Optional<Post> findByUserIdAndId(Integer userId, Integer id);
+    long countByUserId(Integer userId);
+    List<RankedCounts.Count<Integer>> findTopUsersByPostCount(int limit);
 }
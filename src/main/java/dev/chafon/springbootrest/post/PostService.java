@@ -1,47 +1,118 @@
 package dev.chafon.springbootrest.post;
 
+import dev.chafon.springbootrest.support.ChangeSet;
+import dev.chafon.springbootrest.support.DataLoader;
+import dev.chafon.springbootrest.support.RankedCounts;
+import dev.chafon.springbootrest.support.SingleFlight;
+import dev.chafon.springbootrest.user.User;
+import dev.chafon.springbootrest.user.UserLoader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Service
-public class PostService {
+public class PostService implements MeterBinder {
 
     private final PostRepository postRepository;
+    private final UserLoader userLoader;
+    private final SingleFlight<Integer, Optional<Post>> postLookups;
+    private final SingleFlight<Integer, List<Post>> userPostsLookups;
 
-    public PostService(PostRepository postRepository) {
+    // users are read through the request's loader rather than UserService, which depends on this service
+    public PostService(PostRepository postRepository, UserLoader userLoader) {
         this.postRepository = postRepository;
+        this.userLoader = userLoader;
+        this.postLookups = new SingleFlight<>("post.findById");
+        this.userPostsLookups = new SingleFlight<>("post.findByUserId");
     }
 
     public List<Post> getPosts() {
         return postRepository.findAll();
     }
 
+    public List<Post> getPosts(long asOf) {
+        return postRepository.findAll(asOf);
+    }
+
+    public ChangeSet<Post> getChangesSince(long sequence) {
+        return postRepository.findChangesSince(sequence);
+    }
+
+    public List<Post> getPosts(PostQuery query) {
+        return postRepository.findAll(query);
+    }
+
+    // There are no sorted indexes of past states, so the snapshot is filtered and sorted in memory.
+    public List<Post> getPosts(PostQuery query, long asOf) {
+        return query.apply(postRepository.findAll(asOf));
+    }
+
+    public List<Post> getPostsById(Collection<Integer> ids) {
+        return postRepository.findAllById(ids);
+    }
+
+    public List<Post> getPostsById(Collection<Integer> ids, long asOf) {
+        return postRepository.findAllById(ids, asOf);
+    }
+
     public Post getPost(Integer id) {
-        return postRepository.findById(id)
+        return postLookups.execute(id, () -> postRepository.findById(id))
                 .orElseThrow(() ->
                         new PostNotFoundException(id));
     }
 
+    public Post getPost(Integer id, long asOf) {
+        return postRepository.findById(id, asOf)
+                .orElseThrow(() ->
+                        new PostNotFoundException(id));
+    }
+
+    public PostWithUser getPostWithUser(Integer id) {
+        Post post = getPost(id);
+        return new PostWithUser(post, userLoader.current().load(post.userId()).orElse(null));
+    }
+
+    public PostWithUser getPostWithUser(Integer id, long asOf) {
+        Post post = getPost(id, asOf);
+        return new PostWithUser(post, userLoader.asOf(asOf).load(post.userId()).orElse(null));
+    }
+
+    public List<PostWithUser> withUsers(List<Post> posts) {
+        return withUsers(posts, userLoader.current());
+    }
+
+    public List<PostWithUser> withUsers(List<Post> posts, long asOf) {
+        return withUsers(posts, userLoader.asOf(asOf));
+    }
+
     public Post createPost(Post post) {
         return postRepository.save(post);
     }
 
     public void updatePost(Integer id, Post postToUpdate) {
-        postRepository.findById(id)
-                .ifPresentOrElse(
-                        exisitingPost ->
-                                postRepository.save(
-                                        new Post(
-                                                exisitingPost.id(),
-                                                postToUpdate.userId(),
-                                                postToUpdate.title(),
-                                                postToUpdate.body()
-                                        )
-                                ),
-                        () -> {
-                            throw new PostNotFoundException(id);
-                        });
+        updatePost(id, postToUpdate, postToUpdate.version());
+    }
+
+    // Without an expected version the update applies on top of whatever is stored; with one it fails
+    // if the post changed since that version.
+    public void updatePost(Integer id, Post postToUpdate, Long expectedVersion) {
+        postRepository.update(id, exisitingPost ->
+                        new Post(
+                                exisitingPost.id(),
+                                postToUpdate.userId(),
+                                postToUpdate.title(),
+                                postToUpdate.body(),
+                                expectedVersion == null ? exisitingPost.version() : expectedVersion,
+                                null,
+                                null,
+                                postToUpdate.expiresAt()
+                        ))
+                .orElseThrow(() -> new PostNotFoundException(id));
     }
 
     public void deletePost(Integer id) {
@@ -51,8 +122,24 @@ public class PostService {
         postRepository.deleteById(id);
     }
 
+    // Callers that join a lookup share its list, so it is handed out unmodifiable. A lookup that was
+    // already in flight when the caller wrote may not include that write; read the repository directly
+    // where a request has to see its own earlier writes.
     public List<Post> getPostsByUser(Integer userId) {
-        return postRepository.findByUserId(userId);
+        return userPostsLookups.execute(userId, () -> List.copyOf(postRepository.findByUserId(userId)));
+    }
+
+    // Reads the user's slice of the creation-time index, oldest first.
+    public List<Post> getPostsByUser(Integer userId, Instant since, Instant until) {
+        return postRepository.findAll(
+                new PostQuery(userId, PostQuery.Sort.CREATED, PostQuery.Order.ASC, null, null, since, until));
+    }
+
+    // Point-in-time reads have no userId index to go through, so they filter the snapshot.
+    public List<Post> getPostsByUser(Integer userId, long asOf) {
+        return postRepository.findAll(asOf).stream()
+                .filter(post -> userId.equals(post.userId()))
+                .toList();
     }
 
     public Post getPostByUserAndId(Integer userId, Integer postId) {
@@ -60,4 +147,26 @@ public class PostService {
                 .orElseThrow(() ->
                         new PostNotFoundException(postId));
     }
+
+    public long countPostsByUser(Integer userId) {
+        return postRepository.countByUserId(userId);
+    }
+
+    public List<RankedCounts.Count<Integer>> getTopUsersByPostCount(int limit) {
+        return postRepository.findTopUsersByPostCount(limit);
+    }
+
+    // All the posts' users are queued first, so they are read with one bulk call.
+    private static List<PostWithUser> withUsers(List<Post> posts, DataLoader<User> users) {
+        posts.forEach(post -> users.enqueue(post.userId()));
+        return posts.stream()
+                .map(post -> new PostWithUser(post, users.load(post.userId()).orElse(null)))
+                .toList();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        postLookups.bindTo(registry);
+        userPostsLookups.bindTo(registry);
+    }
 }
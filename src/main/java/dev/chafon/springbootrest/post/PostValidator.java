@@ -0,0 +1,30 @@
+package dev.chafon.springbootrest.post;
+
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+import static dev.chafon.springbootrest.Constants.*;
+import static dev.chafon.springbootrest.support.Constraints.*;
+
+// The constraints declared on Post, checked directly against its components. Keep the two in step.
+public class PostValidator implements Validator {
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return Post.class.equals(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        Post post = (Post) target;
+        if (post.userId() == null) {
+            reject(errors, "userId", null, "NotNull", POST_USER_CANNOT_BE_NULL);
+        }
+        if (!isNotBlank(post.title())) {
+            reject(errors, "title", post.title(), "NotBlank", POST_TITLE_CANNOT_BE_BLANK);
+        }
+        if (!isNotBlank(post.body())) {
+            reject(errors, "body", post.body(), "NotBlank", POST_BODY_CANNOT_BE_BLANK);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package dev.chafon.springbootrest.post;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import dev.chafon.springbootrest.user.User;
+
+// A post with its user embedded, returned for ?expand=user. The user is null if it no longer exists.
+public record PostWithUser(
+        @JsonUnwrapped
+        Post post,
+        User user) {
+}
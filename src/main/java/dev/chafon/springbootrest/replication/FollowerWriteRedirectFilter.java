@@ -0,0 +1,41 @@
+package dev.chafon.springbootrest.replication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.URI;
+
+// Followers only serve reads; writes are redirected to the leader with a 307 so clients repeat
+// the same method and body there.
+public class FollowerWriteRedirectFilter extends OncePerRequestFilter {
+
+    private final URI leaderUrl;
+
+    public FollowerWriteRedirectFilter(URI leaderUrl) {
+        this.leaderUrl = leaderUrl;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        if (method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String location = leaderUrl.resolve(request.getRequestURI()).toString();
+        if (request.getQueryString() != null) {
+            location += "?" + request.getQueryString();
+        }
+        response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+        response.setHeader(HttpHeaders.LOCATION, location);
+    }
+}
@@ -0,0 +1,8 @@
+package dev.chafon.springbootrest.replication;
+
+import java.util.List;
+
+// reset is set when the requested entries are no longer in the log, or the follower followed another
+// epoch, and the follower has to resync
+public record ReplicationBatch(String epoch, long leaderSequence, boolean reset, List<ReplicationEntry> entries) {
+}
@@ -0,0 +1,71 @@
+package dev.chafon.springbootrest.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.post.PostRepository;
+import dev.chafon.springbootrest.user.User;
+import dev.chafon.springbootrest.user.UserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ReplicationProperties.class)
+public class ReplicationConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "replication", name = "role", havingValue = "leader")
+    ReplicationLog replicationLog(UserRepository userRepository,
+                                  PostRepository postRepository,
+                                  ReplicationProperties properties) {
+        ReplicationLog replicationLog = new ReplicationLog(properties.logCapacity());
+        userRepository.addChangeListener(replicationLog.listener(ReplicationLog.USERS, User::id));
+        postRepository.addChangeListener(replicationLog.listener(ReplicationLog.POSTS, Post::id));
+        return replicationLog;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "replication", name = "role", havingValue = "follower")
+    ReplicationFollower replicationFollower(RestClient.Builder restClientBuilder,
+                                            UserRepository userRepository,
+                                            PostRepository postRepository,
+                                            ObjectMapper objectMapper,
+                                            ReplicationProperties properties) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build());
+        // the leader holds a poll open for up to poll-timeout before answering
+        requestFactory.setReadTimeout(properties.pollTimeout().plusSeconds(10));
+        RestClient leader = restClientBuilder
+                .baseUrl(leaderUrl(properties).toString())
+                .requestFactory(requestFactory)
+                .build();
+        return new ReplicationFollower(leader, userRepository, postRepository, objectMapper, properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "replication", name = "role", havingValue = "follower")
+    FilterRegistrationBean<FollowerWriteRedirectFilter> followerWriteRedirectFilter(ReplicationProperties properties) {
+        FilterRegistrationBean<FollowerWriteRedirectFilter> registration = new FilterRegistrationBean<>(
+                new FollowerWriteRedirectFilter(leaderUrl(properties)));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    private static URI leaderUrl(ReplicationProperties properties) {
+        if (properties.leaderUrl() == null) {
+            throw new IllegalStateException("replication.leader-url must be set on followers");
+        }
+        return properties.leaderUrl();
+    }
+}
@@ -0,0 +1,56 @@
+package dev.chafon.springbootrest.replication;
+
+import dev.chafon.springbootrest.post.PostRepository;
+import dev.chafon.springbootrest.support.VersionClock;
+import dev.chafon.springbootrest.user.UserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+// Served by the leader only, outside /api so admission control does not throttle followers.
+@RestController
+@RequestMapping("/replication")
+@ConditionalOnProperty(prefix = "replication", name = "role", havingValue = "leader")
+public class ReplicationController {
+
+    private final ReplicationLog replicationLog;
+    private final ReplicationProperties properties;
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final VersionClock versionClock;
+
+    public ReplicationController(ReplicationLog replicationLog,
+                                 ReplicationProperties properties,
+                                 UserRepository userRepository,
+                                 PostRepository postRepository,
+                                 VersionClock versionClock) {
+        this.replicationLog = replicationLog;
+        this.properties = properties;
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.versionClock = versionClock;
+    }
+
+    @GetMapping("/log")
+    public ReplicationBatch getLog(@RequestParam(required = false) String epoch,
+                                   @RequestParam long after,
+                                   @RequestParam(required = false) Integer limit) throws InterruptedException {
+        int batchSize = limit == null ? properties.batchSize() : Math.min(limit, properties.batchSize());
+        return replicationLog.readAfter(epoch, after, batchSize, properties.pollTimeout());
+    }
+
+    // A write is appended to the log only after its commit, so every write logged up to the returned
+    // sequence has begun before awaitStarted and is readable once it returns. Writes after that
+    // sequence may already be in the snapshot too; the follower replays them over it, which is
+    // idempotent.
+    @GetMapping("/snapshot")
+    public ReplicationSnapshot getSnapshot() {
+        long sequence = replicationLog.lastSequence();
+        versionClock.awaitStarted();
+        return new ReplicationSnapshot(replicationLog.epoch(), sequence, userRepository.findAll(), postRepository.findAll());
+    }
+}
@@ -0,0 +1,5 @@
+package dev.chafon.springbootrest.replication;
+
+// One mutation in the leader's log; a null value means the id was deleted.
+public record ReplicationEntry(long sequence, String store, Integer id, Object value, long committedAt) {
+}
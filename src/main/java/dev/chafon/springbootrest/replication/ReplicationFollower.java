@@ -0,0 +1,202 @@
+package dev.chafon.springbootrest.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.post.PostRepository;
+import dev.chafon.springbootrest.support.RestorableRepository;
+import dev.chafon.springbootrest.user.User;
+import dev.chafon.springbootrest.user.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Tails the leader's log over HTTP long polling and applies the entries in order to the local
+// repositories, which keep serving reads. Falls back to a full snapshot when the log no longer
+// holds the entries it needs.
+public class ReplicationFollower implements SmartLifecycle, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationFollower.class);
+
+    private final RestClient leader;
+    private final ObjectMapper objectMapper;
+    private final ReplicationProperties properties;
+    private final Map<String, Store<?>> stores;
+    private volatile String epoch;
+    private volatile long appliedSequence;
+    private volatile long leaderSequence;
+    private volatile long lastAppliedCommittedAt;
+    private volatile boolean running;
+    private Thread thread;
+
+    public ReplicationFollower(RestClient leader,
+                               UserRepository userRepository,
+                               PostRepository postRepository,
+                               ObjectMapper objectMapper,
+                               ReplicationProperties properties) {
+        this.leader = leader;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.stores = Map.of(
+                ReplicationLog.USERS, new Store<>(userRepository, User.class, User::id),
+                ReplicationLog.POSTS, new Store<>(postRepository, Post.class, Post::id));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = Thread.ofPlatform().name("replication-follower").daemon().start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    public long getLag() {
+        return Math.max(0, leaderSequence - appliedSequence);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("replication.lag", this, ReplicationFollower::getLag)
+                .description("Log entries the leader has committed that this follower has not applied")
+                .baseUnit("entries")
+                .register(registry);
+        TimeGauge.builder("replication.lag.time", this, TimeUnit.MILLISECONDS, ReplicationFollower::lagMillis)
+                .description("Age of the last applied entry while the follower is behind")
+                .register(registry);
+    }
+
+    // Applies one batch from the leader; returns once a batch arrived or the long poll timed out. The
+    // first poll has no epoch yet, so the follower starts from a snapshot.
+    void poll() {
+        ReplicationBatch batch = leader.get()
+                .uri(uri -> uri.path("/replication/log")
+                        .queryParamIfPresent("epoch", Optional.ofNullable(epoch))
+                        .queryParam("after", appliedSequence)
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .body(ReplicationBatch.class);
+        leaderSequence = batch.leaderSequence();
+        if (batch.reset() || !batch.epoch().equals(epoch)) {
+            resync();
+            return;
+        }
+        for (ReplicationEntry entry : batch.entries()) {
+            apply(entry);
+            lastAppliedCommittedAt = entry.committedAt();
+            appliedSequence = entry.sequence();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                poll();
+            } catch (RestClientException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Replication from the leader failed, retrying in {}", properties.retryInterval(), ex);
+                sleep();
+            } catch (RuntimeException ex) {
+                log.error("Unexpected replication failure, retrying in {}", properties.retryInterval(), ex);
+                sleep();
+            }
+        }
+    }
+
+    private void resync() {
+        ReplicationSnapshot snapshot = leader.get()
+                .uri("/replication/snapshot")
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .body(ReplicationSnapshot.class);
+        replaceAll(ReplicationLog.USERS, snapshot.users());
+        replaceAll(ReplicationLog.POSTS, snapshot.posts());
+        epoch = snapshot.epoch();
+        appliedSequence = snapshot.sequence();
+        leaderSequence = snapshot.sequence();
+        log.info("Resynced from the leader snapshot at sequence {} of epoch {}", snapshot.sequence(), snapshot.epoch());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void replaceAll(String storeName, List<?> entities) {
+        Store<T> store = (Store<T>) stores.get(storeName);
+        Set<Integer> ids = new HashSet<>();
+        for (Object entity : entities) {
+            T value = (T) entity;
+            ids.add(store.idOf().apply(value));
+            store.repository().restore(value);
+        }
+        for (T existing : store.repository().findAll()) {
+            Integer id = store.idOf().apply(existing);
+            if (!ids.contains(id)) {
+                store.repository().evict(id);
+            }
+        }
+    }
+
+    private <T> void apply(ReplicationEntry entry) {
+        @SuppressWarnings("unchecked")
+        Store<T> store = (Store<T>) stores.get(entry.store());
+        if (store == null) {
+            throw new IllegalStateException("Unknown replicated store " + entry.store());
+        }
+        if (entry.value() == null) {
+            store.repository().evict(entry.id());
+        } else {
+            store.repository().restore(objectMapper.convertValue(entry.value(), store.type()));
+        }
+    }
+
+    private double lagMillis() {
+        if (getLag() == 0 || lastAppliedCommittedAt == 0) {
+            return 0;
+        }
+        return Math.max(0, System.currentTimeMillis() - lastAppliedCommittedAt);
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(properties.retryInterval());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private record Store<T>(RestorableRepository<T> repository, Class<T> type, Function<T, Integer> idOf) {
+    }
+}
@@ -0,0 +1,173 @@
+package dev.chafon.springbootrest.replication;
+
+import dev.chafon.springbootrest.support.ChangeListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+// The leader's ordered log of recent mutations, kept in a ring buffer. The repository change
+// listeners only queue a mutation while its id is locked, and it is appended once its write is done,
+// keeping the queue order, so entries for one id are in the order they were applied and a write that
+// failed never reaches a follower. Sequences start over with every leader process, so each log has an
+// epoch of its own and a follower that followed another one is sent to resync.
+public class ReplicationLog {
+
+    static final String USERS = "users";
+    static final String POSTS = "posts";
+
+    private final ReplicationEntry[] ring;
+    private final Clock clock;
+    private final String epoch = UUID.randomUUID().toString();
+    private final Queue<QueuedEntry> queuedEntries = new ConcurrentLinkedQueue<>();
+    private long lastSequence;
+
+    public ReplicationLog(int capacity) {
+        this(capacity, Clock.systemUTC());
+    }
+
+    ReplicationLog(int capacity, Clock clock) {
+        this.ring = new ReplicationEntry[capacity];
+        this.clock = clock;
+    }
+
+    public <T> ChangeListener<T> listener(String store, Function<T, Integer> idOf) {
+        // the entries the current thread queued during its write
+        ThreadLocal<List<QueuedEntry>> written = new ThreadLocal<>();
+        return new ChangeListener<>() {
+            @Override
+            public void onSaved(T previous, T saved) {
+                queue(written, new QueuedEntry(store, idOf.apply(saved), saved));
+            }
+
+            @Override
+            public void onDeleted(T deleted) {
+                queue(written, new QueuedEntry(store, idOf.apply(deleted), null));
+            }
+
+            @Override
+            public void afterChange(boolean applied) {
+                List<QueuedEntry> entries = written.get();
+                if (entries == null) {
+                    return;
+                }
+                written.remove();
+                for (QueuedEntry entry : entries) {
+                    entry.settle(applied);
+                }
+                appendSettledEntries();
+            }
+        };
+    }
+
+    public synchronized ReplicationEntry append(String store, Integer id, Object value) {
+        ReplicationEntry entry = new ReplicationEntry(lastSequence + 1, store, id, value, clock.millis());
+        ring[slot(entry.sequence())] = entry;
+        lastSequence = entry.sequence();
+        notifyAll();
+        return entry;
+    }
+
+    public String epoch() {
+        return epoch;
+    }
+
+    public synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    // Waits up to maxWait for entries after the given sequence, then returns at most limit of them.
+    // A follower that has not synced yet passes a null epoch.
+    public synchronized ReplicationBatch readAfter(String followedEpoch, long afterSequence, int limit, Duration maxWait)
+            throws InterruptedException {
+        if (!epoch.equals(followedEpoch)) {
+            return new ReplicationBatch(epoch, lastSequence, true, List.of());
+        }
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        long remaining;
+        while (lastSequence <= afterSequence && (remaining = deadline - System.nanoTime()) > 0) {
+            wait(Math.max(1, remaining / 1_000_000));
+        }
+
+        long oldestRetained = Math.max(1, lastSequence - ring.length + 1);
+        if (afterSequence > lastSequence || afterSequence + 1 < oldestRetained) {
+            return new ReplicationBatch(epoch, lastSequence, true, List.of());
+        }
+        long to = Math.min(lastSequence, afterSequence + limit);
+        List<ReplicationEntry> entries = new ArrayList<>((int) (to - afterSequence));
+        for (long sequence = afterSequence + 1; sequence <= to; sequence++) {
+            entries.add(ring[slot(sequence)]);
+        }
+        return new ReplicationBatch(epoch, lastSequence, false, entries);
+    }
+
+    private void queue(ThreadLocal<List<QueuedEntry>> written, QueuedEntry entry) {
+        List<QueuedEntry> entries = written.get();
+        if (entries == null) {
+            entries = new ArrayList<>(1);
+            written.set(entries);
+        }
+        entries.add(entry);
+        queuedEntries.add(entry);
+    }
+
+    // Stops at the first entry whose write is still running, as later ones may depend on it; that
+    // write appends the rest once it is done.
+    private synchronized void appendSettledEntries() {
+        for (QueuedEntry entry; (entry = queuedEntries.peek()) != null && entry.isSettled(); ) {
+            queuedEntries.poll();
+            if (entry.isApplied()) {
+                append(entry.store(), entry.id(), entry.value());
+            }
+        }
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % ring.length);
+    }
+
+    private static final class QueuedEntry {
+
+        private final String store;
+        private final Integer id;
+        private final Object value;
+        private volatile boolean applied;
+        private volatile boolean settled;
+
+        QueuedEntry(String store, Integer id, Object value) {
+            this.store = store;
+            this.id = id;
+            this.value = value;
+        }
+
+        String store() {
+            return store;
+        }
+
+        Integer id() {
+            return id;
+        }
+
+        Object value() {
+            return value;
+        }
+
+        void settle(boolean applied) {
+            this.applied = applied;
+            this.settled = true;
+        }
+
+        boolean isSettled() {
+            return settled;
+        }
+
+        boolean isApplied() {
+            return applied;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package dev.chafon.springbootrest.replication;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.net.URI;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "replication")
+public record ReplicationProperties(
+        @DefaultValue("none")
+        Role role,
+        URI leaderUrl,
+        @DefaultValue("100000")
+        int logCapacity,
+        @DefaultValue("1000")
+        int batchSize,
+        @DefaultValue("1s")
+        Duration pollTimeout,
+        @DefaultValue("1s")
+        Duration retryInterval) {
+
+    public enum Role {
+        NONE, LEADER, FOLLOWER
+    }
+}
@@ -0,0 +1,10 @@
+package dev.chafon.springbootrest.replication;
+
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.user.User;
+
+import java.util.List;
+
+// Full state for a follower to resync from; log entries of the epoch after sequence bring it up to date.
+public record ReplicationSnapshot(String epoch, long sequence, List<User> users, List<Post> posts) {
+}
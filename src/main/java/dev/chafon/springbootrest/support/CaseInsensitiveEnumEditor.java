@@ -0,0 +1,19 @@
+package dev.chafon.springbootrest.support;
+
+import java.beans.PropertyEditorSupport;
+import java.util.Locale;
+
+// Binds request parameters such as ?order=desc to enum constants without regard to case.
+public class CaseInsensitiveEnumEditor<E extends Enum<E>> extends PropertyEditorSupport {
+
+    private final Class<E> type;
+
+    public CaseInsensitiveEnumEditor(Class<E> type) {
+        this.type = type;
+    }
+
+    @Override
+    public void setAsText(String text) {
+        setValue(text == null || text.isBlank() ? null : Enum.valueOf(type, text.trim().toUpperCase(Locale.ROOT)));
+    }
+}
@@ -0,0 +1,32 @@
+package dev.chafon.springbootrest.support;
+
+// Called by the repositories while the changed id is locked, so calls for one id arrive in the
+// order the changes were applied. Implementations must be quick and must not call back into the
+// repository; throwing aborts the change.
+public interface ChangeListener<T> {
+
+    // Called before every write, on the writing thread and with no lock held, so this is where a
+    // listener may hold writers back. Throwing rejects the write before anything changed.
+    default void beforeChange() {
+    }
+
+    // Called after every write once the id is unlocked again, on the writing thread; applied is false
+    // when the write failed and nothing changed. What onSaved and onDeleted reported during the write
+    // is visible to readers from here on.
+    default void afterChange(boolean applied) {
+    }
+
+    // previous is null when the entity was created
+    void onSaved(T previous, T saved);
+
+    void onDeleted(T deleted);
+
+    // Called while the id is locked when an entity is put back or dropped without a write: loaded from
+    // a snapshot or the journal, or mirrored from the replication leader. There is no beforeChange or
+    // afterChange around these.
+    default void onRestored(T restored) {
+    }
+
+    default void onEvicted(T evicted) {
+    }
+}
@@ -0,0 +1,57 @@
+package dev.chafon.springbootrest.support;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+// The listeners of one repository. A write runs through write(...), which asks every listener
+// beforeChange first and afterChange once it is done, and the write itself reports its changes with
+// saved and deleted while the id is locked.
+public class ChangeListeners<T> {
+
+    private final List<ChangeListener<T>> listeners = new CopyOnWriteArrayList<>();
+
+    public void add(ChangeListener<T> listener) {
+        listeners.add(listener);
+    }
+
+    public <R> R write(Supplier<R> write) {
+        for (ChangeListener<T> listener : listeners) {
+            listener.beforeChange();
+        }
+        boolean applied = false;
+        try {
+            R result = write.get();
+            applied = true;
+            return result;
+        } finally {
+            for (ChangeListener<T> listener : listeners) {
+                listener.afterChange(applied);
+            }
+        }
+    }
+
+    public void saved(T previous, T saved) {
+        for (ChangeListener<T> listener : listeners) {
+            listener.onSaved(previous, saved);
+        }
+    }
+
+    public void deleted(T deleted) {
+        for (ChangeListener<T> listener : listeners) {
+            listener.onDeleted(deleted);
+        }
+    }
+
+    public void restored(T restored) {
+        for (ChangeListener<T> listener : listeners) {
+            listener.onRestored(restored);
+        }
+    }
+
+    public void evicted(T evicted) {
+        for (ChangeListener<T> listener : listeners) {
+            listener.onEvicted(evicted);
+        }
+    }
+}
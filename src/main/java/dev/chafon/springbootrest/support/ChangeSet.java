@@ -0,0 +1,11 @@
+package dev.chafon.springbootrest.support;
+
+import java.util.List;
+
+// What changed in a store after a sequence: the current state of every id created or updated, and the
+// ids deleted, each in commit order. sequence is the position to ask from next time.
+public record ChangeSet<T>(long sequence, List<T> upserted, List<Deletion> deleted) {
+
+    public record Deletion(Integer id, long sequence) {
+    }
+}
@@ -0,0 +1,8 @@
+package dev.chafon.springbootrest.support;
+
+// Deletes leave tombstones behind; these reclaim them and report how many are kept.
+public interface CompactableRepository {
+    long count();
+    long tombstoneCount();
+    int compactTombstones(long retainedSequences, int maxTombstones);
+}
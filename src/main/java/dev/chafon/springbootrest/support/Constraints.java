@@ -0,0 +1,177 @@
+package dev.chafon.springbootrest.support;
+
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+
+import java.net.IDN;
+import java.util.regex.Pattern;
+
+// The checks behind @NotBlank, @NotNull and @Email, written out so validators can call them directly
+// instead of going through Hibernate Validator's metadata and reflective property reads on every call.
+public final class Constraints {
+
+    private static final int MAX_LOCAL_PART_LENGTH = 64;
+    private static final int MAX_DOMAIN_LABEL_LENGTH = 63;
+    private static final int MAX_DOMAIN_LENGTH = 255;
+    private static final String ATOM_SYMBOLS = "!#$%&'*+/=?^_`{|}~-";
+    private static final String DOMAIN_SYMBOLS = "!#$%&'*+/=?^_`{|}~";
+
+    // Quoted local parts, address literals and non-ASCII addresses are rare, so they are matched with
+    // these patterns instead, the ones Hibernate Validator applies for @Email: RFC 5322 atoms and quoted
+    // strings, and RFC 5321 domains and IPv4 or IPv6 address literals, with any non-ASCII character allowed.
+    private static final String LOCAL_ATOM = "[a-z0-9!#$%&'*+/=?^_`{|}~\u0080-\uFFFF-]";
+    private static final String LOCAL_QUOTED_ATOM =
+            "(?:[a-z0-9!#$%&'*.(),<>\\[\\]:;  @+/=?^_`{|}~\u0080-\uFFFF-]|\\\\\\\\|\\\\\")";
+    private static final String LOCAL_WORD = "(?:" + LOCAL_ATOM + "+|\"" + LOCAL_QUOTED_ATOM + "+\")";
+    private static final Pattern LOCAL_PART = Pattern.compile(
+            LOCAL_WORD + "(?:\\." + LOCAL_WORD + ")*", Pattern.CASE_INSENSITIVE);
+    private static final String DOMAIN_CHAR = "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]";
+    private static final String DOMAIN_LABEL = "(?:" + DOMAIN_CHAR + "-*)*" + DOMAIN_CHAR + "+";
+    private static final String IPV4 = "[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}";
+    private static final String IPV4_STRICT =
+            "(?:(?:25[0-5]|(?:2[0-4]|1?[0-9])?[0-9])\\.){3}(?:25[0-5]|(?:2[0-4]|1?[0-9])?[0-9])";
+    private static final String IPV6 = "(?:(?:[0-9a-f]{1,4}:){7}[0-9a-f]{1,4}"
+            + "|(?:[0-9a-f]{1,4}:){1,7}:"
+            + "|(?:[0-9a-f]{1,4}:){1,6}:[0-9a-f]{1,4}"
+            + "|(?:[0-9a-f]{1,4}:){1,5}(?::[0-9a-f]{1,4}){1,2}"
+            + "|(?:[0-9a-f]{1,4}:){1,4}(?::[0-9a-f]{1,4}){1,3}"
+            + "|(?:[0-9a-f]{1,4}:){1,3}(?::[0-9a-f]{1,4}){1,4}"
+            + "|(?:[0-9a-f]{1,4}:){1,2}(?::[0-9a-f]{1,4}){1,5}"
+            + "|[0-9a-f]{1,4}:(?::[0-9a-f]{1,4}){1,6}"
+            + "|:(?:(?::[0-9a-f]{1,4}){1,7}|:)"
+            + "|fe80:(?::[0-9a-f]{0,4}){0,4}%[0-9a-z]+"
+            + "|::(?:ffff(?::0{1,4})?:)?" + IPV4_STRICT
+            + "|(?:[0-9a-f]{1,4}:){1,4}:" + IPV4_STRICT + ")";
+    private static final Pattern DOMAIN = Pattern.compile(
+            DOMAIN_LABEL + "(?:\\." + DOMAIN_LABEL + ")*|\\[" + IPV4 + "]|\\[IPv6:" + IPV6 + "]",
+            Pattern.CASE_INSENSITIVE);
+
+    private Constraints() {
+    }
+
+    public static boolean isNotBlank(CharSequence value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            // String.trim() strips everything up to and including the space
+            if (value.charAt(i) > ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Same rules as @Email: null and empty values pass, as they are left to @NotBlank.
+    public static boolean isEmail(CharSequence value) {
+        if (value == null || value.isEmpty()) {
+            return true;
+        }
+        int at = lastIndexOf(value, '@');
+        if (at < 0) {
+            return false;
+        }
+        if (!isPlain(value) || (at + 1 < value.length() && value.charAt(at + 1) == '[')) {
+            return matchesEmailPatterns(value.toString(), at);
+        }
+        return isLocalPart(value, 0, at) && isDomain(value, at + 1, value.length());
+    }
+
+    // Adds a field error carrying the value that was checked, so no property is read back reflectively.
+    public static void reject(Errors errors, String field, Object value, String code, String message) {
+        if (errors instanceof BindingResult bindingResult) {
+            bindingResult.addError(new FieldError(errors.getObjectName(), field, value, false,
+                    bindingResult.resolveMessageCodes(code, field), null, message));
+        } else {
+            errors.rejectValue(field, code, message);
+        }
+    }
+
+    private static boolean matchesEmailPatterns(String value, int at) {
+        String localPart = value.substring(0, at);
+        String domain = value.substring(at + 1);
+        if (localPart.length() > MAX_LOCAL_PART_LENGTH || !LOCAL_PART.matcher(localPart).matches()
+                || domain.endsWith(".") || !DOMAIN.matcher(domain).matches()) {
+            return false;
+        }
+        try {
+            // also rejects labels longer than 63 characters
+            return IDN.toASCII(domain).length() <= MAX_DOMAIN_LENGTH;
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    // Dot-separated atoms: no leading, trailing or doubled dots.
+    private static boolean isLocalPart(CharSequence value, int from, int to) {
+        if (to - from > MAX_LOCAL_PART_LENGTH || from == to) {
+            return false;
+        }
+        boolean afterDot = true;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                if (afterDot) {
+                    return false;
+                }
+                afterDot = true;
+            } else if (isAlphanumeric(c) || ATOM_SYMBOLS.indexOf(c) >= 0) {
+                afterDot = false;
+            } else {
+                return false;
+            }
+        }
+        return !afterDot;
+    }
+
+    // Dot-separated labels that neither start nor end with a dash, without a trailing dot.
+    private static boolean isDomain(CharSequence value, int from, int to) {
+        if (to - from > MAX_DOMAIN_LENGTH || from == to) {
+            return false;
+        }
+        int labelStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || value.charAt(i) == '.') {
+                if (i == labelStart || i - labelStart > MAX_DOMAIN_LABEL_LENGTH || value.charAt(i - 1) == '-') {
+                    return false;
+                }
+                labelStart = i + 1;
+                continue;
+            }
+            char c = value.charAt(i);
+            if (c == '-') {
+                if (i == labelStart) {
+                    return false;
+                }
+            } else if (!isAlphanumeric(c) && DOMAIN_SYMBOLS.indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAlphanumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    // ASCII without quoted local parts
+    private static boolean isPlain(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80 || c == '"') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int lastIndexOf(CharSequence value, char c) {
+        for (int i = value.length() - 1; i >= 0; i--) {
+            if (value.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
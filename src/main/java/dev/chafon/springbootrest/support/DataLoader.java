@@ -0,0 +1,60 @@
+package dev.chafon.springbootrest.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+// Collects the ids a request is going to look up and loads them with one bulk call when the first of
+// them is needed. Results, including ids that were not found, are kept, so each distinct id is read
+// at most once however many rows refer to it. One instance serves one request and is not thread-safe.
+public class DataLoader<T> {
+
+    private final Function<Collection<Integer>, List<T>> batchLoader;
+    private final Function<T, Integer> idOf;
+    private final Map<Integer, Optional<T>> loaded;
+    private final Set<Integer> queued;
+
+    public DataLoader(Function<Collection<Integer>, List<T>> batchLoader, Function<T, Integer> idOf) {
+        this.batchLoader = batchLoader;
+        this.idOf = idOf;
+        this.loaded = new HashMap<>();
+        this.queued = new LinkedHashSet<>();
+    }
+
+    // Queues an id for the next dispatch, unless it is already loaded.
+    public void enqueue(Integer id) {
+        if (id != null && !loaded.containsKey(id)) {
+            queued.add(id);
+        }
+    }
+
+    public Optional<T> load(Integer id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        enqueue(id);
+        dispatch();
+        return loaded.get(id);
+    }
+
+    // Loads every queued id with one call to the batch loader.
+    public void dispatch() {
+        if (queued.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(queued);
+        queued.clear();
+        for (T entity : batchLoader.apply(ids)) {
+            loaded.put(idOf.apply(entity), Optional.of(entity));
+        }
+        for (Integer id : ids) {
+            loaded.putIfAbsent(id, Optional.empty());
+        }
+    }
+}
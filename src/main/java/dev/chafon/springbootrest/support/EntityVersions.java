@@ -0,0 +1,42 @@
+package dev.chafon.springbootrest.support;
+
+// Entity versions start at 1 and go up by one on every update. They are exposed as strong ETags,
+// so If-Match takes the quoted version.
+public final class EntityVersions {
+
+    public static final long FIRST = 1;
+
+    // never assigned, so an If-Match that cannot be parsed never matches
+    private static final long UNMATCHABLE = -1;
+
+    private EntityVersions() {
+    }
+
+    public static long next(Long current) {
+        return current == null ? FIRST : current + 1;
+    }
+
+    public static boolean matches(Long expected, Long current) {
+        return expected == null || expected.equals(current);
+    }
+
+    public static String toETag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // Returns null for "*", which matches any current version.
+    public static Long fromIfMatch(String ifMatch) {
+        String value = ifMatch.trim();
+        if (value.equals("*")) {
+            return null;
+        }
+        if (value.length() < 3 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            return UNMATCHABLE;
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException ex) {
+            return UNMATCHABLE;
+        }
+    }
+}
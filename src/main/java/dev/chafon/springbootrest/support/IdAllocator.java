@@ -0,0 +1,10 @@
+package dev.chafon.springbootrest.support;
+
+// Hands out ids for new entities. Ids arriving through restore are reported with observe so they
+// are never handed out again.
+public interface IdAllocator<T> {
+
+    int allocate(T entity);
+
+    void observe(int id);
+}
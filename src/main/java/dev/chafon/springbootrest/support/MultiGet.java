@@ -0,0 +1,55 @@
+package dev.chafon.springbootrest.support;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Responses to lookups of several ids at once. The entities found come back in the order they were
+// asked for, and ids that were not found are listed in a header rather than failing the request.
+public final class MultiGet {
+
+    public static final String MISSING_IDS_HEADER = "X-Missing-Ids";
+
+    private MultiGet() {
+    }
+
+    public static <T> ResponseEntity<List<T>> toResponse(Collection<Integer> ids, List<T> found, Function<T, Integer> idOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        addMissingIds(response, ids, found, idOf);
+        return response.body(found);
+    }
+
+    public static <T> void addMissingIds(ResponseEntity.HeadersBuilder<?> response,
+                                         Collection<Integer> ids,
+                                         List<T> found,
+                                         Function<T, Integer> idOf) {
+        Set<Integer> foundIds = new HashSet<>();
+        found.forEach(entity -> foundIds.add(idOf.apply(entity)));
+        List<Integer> missingIds = missingIds(ids, foundIds);
+        if (!missingIds.isEmpty()) {
+            response.header(MISSING_IDS_HEADER, toHeaderValue(missingIds));
+        }
+    }
+
+    // Requested ids that are not among those found, in request order and once each.
+    public static List<Integer> missingIds(Collection<Integer> ids, Set<Integer> foundIds) {
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer id : new LinkedHashSet<>(ids)) {
+            if (id != null && !foundIds.contains(id)) {
+                missingIds.add(id);
+            }
+        }
+        return missingIds;
+    }
+
+    public static String toHeaderValue(List<Integer> missingIds) {
+        return missingIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+}
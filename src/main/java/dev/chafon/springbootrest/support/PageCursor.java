@@ -0,0 +1,26 @@
+package dev.chafon.springbootrest.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Where a page of a sorted listing ended: the sort key and id of its last entity. Sent to clients as
+// an opaque token in the X-Next-Cursor header and passed back as ?after= for the next page, so a
+// page starts with a seek into the index instead of skipping over the pages before it.
+public record PageCursor(String key, Integer id) {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public String encode() {
+        String value = key == null ? String.valueOf(id) : id + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Used by Spring to convert the ?after= parameter; a malformed token is rejected as a bad request.
+    public static PageCursor valueOf(String token) {
+        String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = value.indexOf(':');
+        return separator < 0
+                ? new PageCursor(null, Integer.valueOf(value))
+                : new PageCursor(value.substring(separator + 1), Integer.valueOf(value.substring(0, separator)));
+    }
+}
@@ -0,0 +1,96 @@
+package dev.chafon.springbootrest.support;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Writes the application/problem+json body of an error response straight to bytes, in the shape the
+// ProblemDetail converter produces. Everything up to the detail is rendered once per status, so a
+// response costs one array plus the escaped detail and path. Clients asking for another format get a
+// ProblemDetail for the regular converters.
+public final class ProblemBodies {
+
+    private static final JsonStringEncoder ENCODER = JsonStringEncoder.getInstance();
+    private static final byte[] INSTANCE = "\",\"instance\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END = "\"}".getBytes(StandardCharsets.US_ASCII);
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private final HttpStatus status;
+    private final byte[] head;
+
+    private ProblemBodies(HttpStatus status) {
+        this.status = status;
+        this.head = ("{\"type\":\"about:blank\",\"title\":\"" + new String(ENCODER.quoteAsString(status.getReasonPhrase()))
+                + "\",\"status\":" + status.value() + ",\"detail\":\"").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static ProblemBodies forStatus(HttpStatus status) {
+        return new ProblemBodies(status);
+    }
+
+    public ResponseEntity<?> toResponse(String detail, HttpServletRequest request) {
+        if (!acceptsJson(request.getHeader(HttpHeaders.ACCEPT))) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(status, detail)).build();
+        }
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(render(detail, request.getRequestURI()));
+    }
+
+    public byte[] render(String detail, String instance) {
+        byte[] escapedDetail = ENCODER.quoteAsUTF8(detail);
+        byte[] escapedInstance = ENCODER.quoteAsUTF8(instance);
+        byte[] body = new byte[head.length + escapedDetail.length + INSTANCE.length + escapedInstance.length + END.length];
+        int position = append(body, 0, head);
+        position = append(body, position, escapedDetail);
+        position = append(body, position, INSTANCE);
+        position = append(body, position, escapedInstance);
+        append(body, position, END);
+        return body;
+    }
+
+    private static int append(byte[] body, int position, byte[] part) {
+        System.arraycopy(part, 0, body, position, part.length);
+        return position + part.length;
+    }
+
+    // True when JSON is the client's most preferred of the types problems are written in. The usual
+    // single-type headers are compared as they are; others are parsed and ordered by quality and
+    // specificity like content negotiation does.
+    private static boolean acceptsJson(String accept) {
+        if (accept == null || accept.isEmpty() || accept.equals(MediaType.ALL_VALUE)
+                || accept.equals(MediaType.APPLICATION_JSON_VALUE) || accept.equals(MediaType.APPLICATION_PROBLEM_JSON_VALUE)) {
+            return true;
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(acceptable);
+        } catch (InvalidMediaTypeException | InvalidMimeTypeException ex) {
+            return false;
+        }
+        for (MediaType accepted : acceptable) {
+            if (accepted.getQualityValue() == 0) {
+                continue;
+            }
+            if (accepted.includes(MediaType.APPLICATION_PROBLEM_JSON) || accepted.includes(MediaType.APPLICATION_JSON)) {
+                return true;
+            }
+            if (accepted.includes(CBOR) || accepted.includes(SMILE)) {
+                return false;
+            }
+        }
+        return acceptable.isEmpty();
+    }
+}
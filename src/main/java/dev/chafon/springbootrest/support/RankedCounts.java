@@ -0,0 +1,77 @@
+package dev.chafon.springbootrest.support;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// How many entities share each key, kept up to date by the repositories as entities are written
+// instead of counted on request. Each key's count changes under its own map bin, and the same step
+// moves the key's entry in a skip list ordered by count, so a count is a single lookup and the top k
+// is the first k entries of the list.
+//
+// The top k is weakly consistent: a key whose count is changing meanwhile is listed once, with either
+// its old or its new count.
+public class RankedCounts<K extends Comparable<K>> {
+
+    private final ConcurrentHashMap<K, Long> counts = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Count<K>> ranking = new ConcurrentSkipListSet<>(
+            Comparator.<Count<K>>comparingLong(Count::count).reversed().thenComparing(Count::key));
+
+    public long count(K key) {
+        if (key == null) {
+            return 0;
+        }
+        Long count = counts.get(key);
+        return count == null ? 0 : count;
+    }
+
+    // Highest counts first, ties in key order.
+    public List<Count<K>> top(int limit) {
+        List<Count<K>> top = new ArrayList<>(Math.min(Math.max(limit, 0), counts.size()));
+        Set<K> seen = new HashSet<>();
+        for (Count<K> count : ranking) {
+            if (top.size() >= limit) {
+                break;
+            }
+            if (seen.add(count.key())) {
+                top.add(count);
+            }
+        }
+        return top;
+    }
+
+    // An entity keyed under previous is now keyed under next; either is null when the entity was
+    // created, deleted or has no key.
+    public void move(K previous, K next) {
+        if (previous != null && previous.equals(next)) {
+            return;
+        }
+        if (previous != null) {
+            add(previous, -1);
+        }
+        if (next != null) {
+            add(next, 1);
+        }
+    }
+
+    private void add(K key, long delta) {
+        counts.compute(key, (k, current) -> {
+            long updated = (current == null ? 0 : current) + delta;
+            // the new entry goes in before the old one leaves, so a reader never misses the key
+            if (updated > 0) {
+                ranking.add(new Count<>(key, updated));
+            }
+            if (current != null) {
+                ranking.remove(new Count<>(key, current));
+            }
+            return updated > 0 ? updated : null;
+        });
+    }
+
+    public record Count<K>(K key, long count) {
+    }
+}
@@ -0,0 +1,19 @@
+package dev.chafon.springbootrest.support;
+
+import java.util.List;
+
+// Operations used to rebuild or mirror repository state (persistence, replication) without
+// going through the validation and id assignment of save. restore and evict only tell listeners
+// through onRestored and onEvicted; adopt and release notify them as a save and a delete, for
+// entities that move in from or out to another node and so have to reach the journal, replication
+// and expiry like any other write. adopt refuses an entity whose id is already taken by a different
+// one.
+public interface RestorableRepository<T> {
+    List<T> findAll();
+    void restore(T entity);
+    void evict(Integer id);
+    boolean adopt(T entity);
+    void release(Integer id);
+    void addChangeListener(ChangeListener<T> listener);
+    void setIdAllocator(IdAllocator<T> idAllocator);
+}
@@ -0,0 +1,18 @@
+package dev.chafon.springbootrest.support;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SequenceIdAllocator<T> implements IdAllocator<T> {
+
+    private final AtomicInteger idSequence = new AtomicInteger();
+
+    @Override
+    public int allocate(T entity) {
+        return idSequence.incrementAndGet();
+    }
+
+    @Override
+    public void observe(int id) {
+        idSequence.accumulateAndGet(id, Math::max);
+    }
+}
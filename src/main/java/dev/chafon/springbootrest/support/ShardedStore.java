@@ -0,0 +1,644 @@
+package dev.chafon.springbootrest.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static dev.chafon.springbootrest.Constants.SNAPSHOT_AHEAD_OF_LATEST;
+import static dev.chafon.springbootrest.Constants.TOMBSTONES_NO_LONGER_RETAINED;
+
+// Entities keyed by id and spread over independent shards, each with its own map and secondary
+// indexes, so writers to different shards never share a lock or a table resize. Indexes are updated
+// in the same compute as the entry. Scans over all shards fork one task per shard on the common
+// fork/join pool and merge the per-shard results back into id order.
+//
+// Every write adds a version tagged with a commit sequence from the clock instead of replacing the
+// entry, and a delete adds a tombstone. Scans pin a sequence and read the newest version at or
+// below it from each chain, so they see a consistent state without blocking writers. Versions no
+// reader can see any more are cut off the chain by the next write to the id or the next scan passing
+// it. Tombstones stay, with the sequence of the delete, so changesSince can report deletes;
+// compactTombstones reclaims them once they are older than the retention window.
+public class ShardedStore<T> {
+
+    public static final int DEFAULT_SHARDS = 16;
+
+    // below this many entries a scan costs less than handing it to the pool
+    private static final int PARALLEL_SCAN_THRESHOLD = 8192;
+
+    private final List<Shard<T>> shards;
+    private final Function<T, Integer> idOf;
+    private final Comparator<T> idOrder;
+    private final List<Index<T, ?>> indexes;
+    private final List<SortedIndex<T, ?>> sortedIndexes;
+    private final VersionClock clock;
+    // tombstones in about the order of their sequences, for the compactor to take from the front
+    private final ConcurrentLinkedQueue<Grave<T>> graves;
+    private final AtomicLong compactedThrough;
+
+    public ShardedStore(int shardCount, Function<T, Integer> idOf) {
+        this(shardCount, idOf, new VersionClock());
+    }
+
+    public ShardedStore(int shardCount, Function<T, Integer> idOf, VersionClock clock) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be at least 1");
+        }
+        this.shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new Shard<>());
+        }
+        this.idOf = idOf;
+        this.idOrder = Comparator.comparingInt(entity -> idOf.apply(entity));
+        this.indexes = new CopyOnWriteArrayList<>();
+        this.sortedIndexes = new CopyOnWriteArrayList<>();
+        this.clock = clock;
+        this.graves = new ConcurrentLinkedQueue<>();
+        this.compactedThrough = new AtomicLong();
+    }
+
+    // Indexes must be added while the store is still empty; null keys are not indexed.
+    public <K> Index<T, K> addIndex(Function<T, K> keyOf) {
+        if (size() > 0) {
+            throw new IllegalStateException("Indexes must be added before the store is populated");
+        }
+        Index<T, K> index = new Index<>(indexes.size(), keyOf);
+        indexes.add(index);
+        shards.forEach(shard -> shard.indexes.add(new ConcurrentHashMap<>()));
+        return index;
+    }
+
+    // Keeps the ids in sortKey order, once over the whole store and once within each group, in skip lists
+    // shared by all shards. Same rules as addIndex; entities with a null sort key are not indexed.
+    public <S extends Comparable<S>> SortedIndex<T, S> addSortedIndex(Function<T, S> sortKeyOf, Function<T, ?> groupOf) {
+        if (size() > 0) {
+            throw new IllegalStateException("Indexes must be added before the store is populated");
+        }
+        SortedIndex<T, S> index = new SortedIndex<>(sortKeyOf, groupOf);
+        sortedIndexes.add(index);
+        return index;
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public VersionClock clock() {
+        return clock;
+    }
+
+    // Point reads see the latest write, including one whose commit has not been published yet.
+    public T get(Integer id) {
+        Version<T> head = shardFor(id).entries.get(slotOf(id));
+        return head == null ? null : head.value;
+    }
+
+    public T get(Integer id, long asOf) {
+        try (VersionClock.Snapshot snapshot = clock.pin(asOf)) {
+            return visible(shardFor(id).entries.get(slotOf(id)), snapshot.sequence());
+        }
+    }
+
+    // Entities for the ids found, in the order asked for and once each; unknown ids are left out.
+    public List<T> getAll(Collection<Integer> ids) {
+        List<T> found = new ArrayList<>(ids.size());
+        Set<Integer> seen = new HashSet<>();
+        for (Integer id : ids) {
+            if (id != null && seen.add(id)) {
+                Version<T> head = shardFor(id).entries.get(slotOf(id));
+                if (head != null && head.value != null) {
+                    found.add(head.value);
+                }
+            }
+        }
+        return found;
+    }
+
+    // All ids are read at one pinned sequence, so the entities come from the same state.
+    public List<T> getAll(Collection<Integer> ids, long asOf) {
+        try (VersionClock.Snapshot snapshot = clock.pin(asOf)) {
+            List<T> found = new ArrayList<>(ids.size());
+            Set<Integer> seen = new HashSet<>();
+            for (Integer id : ids) {
+                if (id != null && seen.add(id)) {
+                    T entity = visible(shardFor(id).entries.get(slotOf(id)), snapshot.sequence());
+                    if (entity != null) {
+                        found.add(entity);
+                    }
+                }
+            }
+            return found;
+        }
+    }
+
+    public boolean containsKey(Integer id) {
+        return get(id) != null;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard<T> shard : shards) {
+            size += shard.live.get();
+        }
+        return size;
+    }
+
+    // versions kept for the id, tombstones included
+    int versionCount(Integer id) {
+        int count = 0;
+        for (Version<T> version = shardFor(id).entries.get(slotOf(id)); version != null; version = version.previous) {
+            count++;
+        }
+        return count;
+    }
+
+    public int tombstoneCount() {
+        int count = 0;
+        for (Shard<T> shard : shards) {
+            count += shard.tombstones.get();
+        }
+        return count;
+    }
+
+    // The ids written after since, up to the current sequence, in sequence order: the entity for a
+    // create or update and a deletion for a delete. Deletes are only known while their tombstones are
+    // kept, so a position behind a compacted tombstone is rejected and the reader has to reload from 0.
+    public ChangeSet<T> changesSince(long since) {
+        try (VersionClock.Snapshot snapshot = clock.pinCurrent()) {
+            if (since > snapshot.sequence()) {
+                throw new SnapshotUnavailableException(SNAPSHOT_AHEAD_OF_LATEST + since, false);
+            }
+            List<Version<T>> upserted = new ArrayList<>();
+            List<ChangeSet.Deletion> deleted = new ArrayList<>();
+            for (int i = 0; i < shards.size(); i++) {
+                for (Map.Entry<Integer, Version<T>> entry : shards.get(i).entries.entrySet()) {
+                    Version<T> version = entry.getValue();
+                    while (version != null && version.sequence > snapshot.sequence()) {
+                        version = version.previous;
+                    }
+                    if (version == null || version.sequence <= since) {
+                        continue;
+                    }
+                    if (version.value != null) {
+                        upserted.add(version);
+                    } else {
+                        deleted.add(new ChangeSet.Deletion(entry.getKey() * shards.size() + i, version.sequence));
+                    }
+                }
+            }
+            // checked after the scan, as a compaction running meanwhile may have taken a tombstone it needed;
+            // a reader starting from 0 holds nothing that a delete could still apply to
+            if (since > 0 && since < compactedThrough.get()) {
+                throw new SnapshotUnavailableException(TOMBSTONES_NO_LONGER_RETAINED + since, true);
+            }
+            upserted.sort(Comparator.comparingLong(version -> version.sequence));
+            deleted.sort(Comparator.comparingLong(ChangeSet.Deletion::sequence));
+            List<T> values = new ArrayList<>(upserted.size());
+            upserted.forEach(version -> values.add(version.value));
+            return new ChangeSet<>(snapshot.sequence(), values, deleted);
+        }
+    }
+
+    // Reclaims up to maxTombstones tombstones, oldest first, that are behind the last retainedSequences
+    // commits and behind every pinned reader. Each is dropped with a conditional remove of its own entry,
+    // so a writer waits at most for that one entry, and a tombstone whose id was written again is
+    // left to the newer version.
+    public synchronized int compactTombstones(long retainedSequences, int maxTombstones) {
+        long floor = Math.min(clock.horizon(), clock.currentSequence() - retainedSequences);
+        int reclaimed = 0;
+        for (int i = 0; i < maxTombstones; i++) {
+            Grave<T> grave = graves.peek();
+            if (grave == null || grave.version.sequence > floor) {
+                break;
+            }
+            graves.poll();
+            // raised before the remove, so a changesSince scan that missed the tombstone sees it
+            compactedThrough.accumulateAndGet(grave.version.sequence, Math::max);
+            if (grave.shard.entries.remove(grave.slot, grave.version)) {
+                grave.shard.tombstones.decrementAndGet();
+                reclaimed++;
+            }
+        }
+        return reclaimed;
+    }
+
+    // Same contract as ConcurrentHashMap.compute: the function runs while the id is locked.
+    public T compute(Integer id, BiFunction<Integer, T, T> remapping) {
+        return write(id, remapping, false);
+    }
+
+    public T computeIfPresent(Integer id, BiFunction<Integer, T, T> remapping) {
+        return write(id, remapping, true);
+    }
+
+    public void put(T entity) {
+        compute(idOf.apply(entity), (id, current) -> entity);
+    }
+
+    public void remove(Integer id) {
+        computeIfPresent(id, (key, current) -> null);
+    }
+
+    public List<T> values() {
+        return filter(entity -> true);
+    }
+
+    public List<T> values(long asOf) {
+        return filter(entity -> true, asOf);
+    }
+
+    public List<T> filter(Predicate<T> predicate) {
+        try (VersionClock.Snapshot snapshot = clock.pinCurrent()) {
+            return scan(predicate, snapshot.sequence());
+        }
+    }
+
+    public List<T> filter(Predicate<T> predicate, long asOf) {
+        try (VersionClock.Snapshot snapshot = clock.pin(asOf)) {
+            return scan(predicate, snapshot.sequence());
+        }
+    }
+
+    // Index lookups touch only the matching ids, so they stay on the calling thread.
+    public <K> List<T> findBy(Index<T, K> index, K key) {
+        if (key == null) {
+            return List.of();
+        }
+        List<T> matches = new ArrayList<>();
+        for (Shard<T> shard : shards) {
+            Set<Integer> ids = shard.indexes.get(index.position).get(key);
+            if (ids == null) {
+                continue;
+            }
+            for (Integer id : ids) {
+                Version<T> head = shard.entries.get(slotOf(id));
+                T entity = head == null ? null : head.value;
+                // the index is updated just before the entry, so re-check the key
+                if (entity != null && key.equals(index.keyOf.apply(entity))) {
+                    matches.add(entity);
+                }
+            }
+        }
+        matches.sort(idOrder);
+        return matches;
+    }
+
+    public <K> boolean existsBy(Index<T, K> index, K key) {
+        if (key == null) {
+            return false;
+        }
+        for (Shard<T> shard : shards) {
+            Set<Integer> ids = shard.indexes.get(index.position).get(key);
+            if (ids != null && !ids.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Walks the index from just past (afterKey, afterId), or from the start, and returns up to limit
+    // entities of the group, or of the whole store for a null group. Only entries read, plus any left
+    // behind by a concurrent move, are touched, so the cost follows the size of the page.
+    public <S extends Comparable<S>> List<T> range(SortedIndex<T, S> index, Object group, S afterKey, Integer afterId,
+                                                   boolean descending, int limit) {
+        return range(index, group, null, null, afterKey, afterId, descending, limit);
+    }
+
+    // Same, limited to sort keys from fromKey inclusive to toKey exclusive; either bound may be null.
+    public <S extends Comparable<S>> List<T> range(SortedIndex<T, S> index, Object group, S fromKey, S toKey,
+                                                   S afterKey, Integer afterId, boolean descending, int limit) {
+        NavigableSet<SortedEntry<S>> entries = group == null ? index.all : index.groups.get(group);
+        if (entries == null || limit <= 0 || (fromKey != null && toKey != null && fromKey.compareTo(toKey) >= 0)) {
+            return List.of();
+        }
+        // ids are never negative, so these sort before every entry with the same key
+        if (fromKey != null) {
+            entries = entries.tailSet(new SortedEntry<>(fromKey, Integer.MIN_VALUE), true);
+        }
+        if (toKey != null) {
+            entries = entries.headSet(new SortedEntry<>(toKey, Integer.MIN_VALUE), false);
+        }
+        if (descending) {
+            entries = entries.descendingSet();
+        }
+        if (afterKey != null && afterId != null) {
+            entries = entries.tailSet(new SortedEntry<>(afterKey, afterId), false);
+        }
+        List<T> matches = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        for (SortedEntry<S> entry : entries) {
+            Version<T> head = shardFor(entry.id).entries.get(slotOf(entry.id));
+            T entity = head == null ? null : head.value;
+            // an entry whose entity has moved on is about to be removed, so skip it
+            if (entity == null
+                    || !entry.key.equals(index.sortKeyOf.apply(entity))
+                    || (group != null && !group.equals(index.groupOf.apply(entity)))
+                    || !seen.add(entry.id)) {
+                continue;
+            }
+            matches.add(entity);
+            if (matches.size() >= limit) {
+                break;
+            }
+        }
+        return matches;
+    }
+
+    private List<T> scan(Predicate<T> predicate, long sequence) {
+        long horizon = clock.horizon();
+        if (shards.size() > 1 && ForkJoinPool.getCommonPoolParallelism() > 1 && size() >= PARALLEL_SCAN_THRESHOLD) {
+            return ForkJoinPool.commonPool().invoke(new Gather(0, shards.size(), predicate, sequence, horizon));
+        }
+        List<T> matches = new ArrayList<>();
+        shards.forEach(shard -> collect(shard, predicate, sequence, horizon, matches));
+        matches.sort(idOrder);
+        return matches;
+    }
+
+    private static <T> void collect(Shard<T> shard, Predicate<T> predicate, long sequence, long horizon, List<T> matches) {
+        for (Map.Entry<Integer, Version<T>> entry : shard.entries.entrySet()) {
+            Version<T> head = entry.getValue();
+            if (head.value == null && head.sequence <= horizon) {
+                // a tombstone no reader can see past; what it deleted is not needed any more
+                cutAfter(head);
+                continue;
+            }
+            // done here as well as on writes, so ids that are not written again let go of old versions too
+            cutBelow(head, horizon);
+            T entity = visible(head, sequence);
+            if (entity != null && predicate.test(entity)) {
+                matches.add(entity);
+            }
+        }
+    }
+
+    private static <T> T visible(Version<T> head, long sequence) {
+        Version<T> version = head;
+        while (version != null && version.sequence > sequence) {
+            version = version.previous;
+        }
+        return version == null ? null : version.value;
+    }
+
+    private T write(Integer id, BiFunction<Integer, T, T> remapping, boolean onlyIfPresent) {
+        Shard<T> shard = shardFor(id);
+        long[] sequence = {0};
+        try {
+            Version<T> head = shard.entries.compute(slotOf(id), (slot, currentHead) -> {
+                T current = currentHead == null ? null : currentHead.value;
+                if (current == null && onlyIfPresent) {
+                    return currentHead;
+                }
+                T next = remapping.apply(id, current);
+                if (next == current) {
+                    return currentHead;
+                }
+                reindex(shard, id, current, next);
+                reindexSorted(id, current, next);
+                shard.live.addAndGet((next == null ? 0 : 1) - (current == null ? 0 : 1));
+                if (next == null) {
+                    shard.tombstones.incrementAndGet();
+                } else if (current == null && currentHead != null) {
+                    // the id is written again over its tombstone
+                    shard.tombstones.decrementAndGet();
+                }
+                // taken under the id's lock, so versions of one id are ordered like their writes
+                sequence[0] = clock.begin();
+                Version<T> version = new Version<>(sequence[0], next, trim(currentHead));
+                if (next == null) {
+                    graves.add(new Grave<>(shard, slot, version));
+                }
+                return version;
+            });
+            return head == null ? null : head.value;
+        } finally {
+            if (sequence[0] != 0) {
+                clock.end(sequence[0]);
+            }
+        }
+    }
+
+    // Keeps the versions newer than the horizon and the newest one at or below it, which is what a
+    // reader pinned at the horizon sees; a tombstone there is dropped as it reads the same as nothing.
+    private Version<T> trim(Version<T> head) {
+        if (head == null || head.previous == null) {
+            return head;
+        }
+        long horizon = clock.horizon();
+        cutBelow(head, horizon);
+        return head.sequence <= horizon && head.value == null ? null : head;
+    }
+
+    // Cutting needs no lock: only versions no reader can reach any more are let go, whichever horizon
+    // a writer or scan used.
+    private static <T> void cutBelow(Version<T> head, long horizon) {
+        Version<T> version = head;
+        while (version.sequence > horizon && version.previous != null) {
+            version = version.previous;
+        }
+        cutAfter(version);
+    }
+
+    // only writes when there is something to cut, so scans leave settled chains untouched
+    private static <T> void cutAfter(Version<T> version) {
+        if (version.previous != null) {
+            version.previous = null;
+        }
+    }
+
+    // Consecutive ids go round-robin over the shards, and within a shard they are stored under
+    // id / shardCount, so each shard's table stays dense and iterates close to id order.
+    private Shard<T> shardFor(Integer id) {
+        return shards.get(Math.floorMod(id, shards.size()));
+    }
+
+    private Integer slotOf(Integer id) {
+        return Math.floorDiv(id, shards.size());
+    }
+
+    private void reindex(Shard<T> shard, Integer id, T previous, T next) {
+        for (Index<T, ?> index : indexes) {
+            Map<Object, Set<Integer>> entries = shard.indexes.get(index.position);
+            Object previousKey = previous == null ? null : index.keyOf.apply(previous);
+            Object nextKey = next == null ? null : index.keyOf.apply(next);
+            if (previousKey != null && !previousKey.equals(nextKey)) {
+                entries.computeIfPresent(previousKey, (key, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+            if (nextKey != null && !nextKey.equals(previousKey)) {
+                entries.compute(nextKey, (key, ids) -> {
+                    Set<Integer> updated = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+                    updated.add(id);
+                    return updated;
+                });
+            }
+        }
+    }
+
+    private void reindexSorted(Integer id, T previous, T next) {
+        for (SortedIndex<T, ?> index : sortedIndexes) {
+            index.move(id, previous, next);
+        }
+    }
+
+    private List<T> merge(List<T> left, List<T> right) {
+        if (left.isEmpty()) {
+            return right;
+        }
+        if (right.isEmpty()) {
+            return left;
+        }
+        List<T> merged = new ArrayList<>(left.size() + right.size());
+        int i = 0;
+        int j = 0;
+        while (i < left.size() && j < right.size()) {
+            merged.add(idOrder.compare(left.get(i), right.get(j)) <= 0 ? left.get(i++) : right.get(j++));
+        }
+        merged.addAll(left.subList(i, left.size()));
+        merged.addAll(right.subList(j, right.size()));
+        return merged;
+    }
+
+    public static final class Index<T, K> {
+
+        private final int position;
+        private final Function<T, K> keyOf;
+
+        private Index(int position, Function<T, K> keyOf) {
+            this.position = position;
+            this.keyOf = keyOf;
+        }
+    }
+
+    public static final class SortedIndex<T, S extends Comparable<S>> {
+
+        private final Function<T, S> sortKeyOf;
+        private final Function<T, ?> groupOf;
+        private final ConcurrentSkipListSet<SortedEntry<S>> all;
+        private final ConcurrentHashMap<Object, ConcurrentSkipListSet<SortedEntry<S>>> groups;
+
+        private SortedIndex(Function<T, S> sortKeyOf, Function<T, ?> groupOf) {
+            this.sortKeyOf = sortKeyOf;
+            this.groupOf = groupOf;
+            this.all = new ConcurrentSkipListSet<>();
+            this.groups = new ConcurrentHashMap<>();
+        }
+
+        // Runs in the entity's compute, before the entry itself changes. Readers re-check each entry
+        // against the stored entity, so they skip entries left over from a move still in progress.
+        private void move(Integer id, T previous, T next) {
+            S previousKey = previous == null ? null : sortKeyOf.apply(previous);
+            S nextKey = next == null ? null : sortKeyOf.apply(next);
+            Object previousGroup = previous == null ? null : groupOf.apply(previous);
+            Object nextGroup = next == null ? null : groupOf.apply(next);
+            if (Objects.equals(previousKey, nextKey) && Objects.equals(previousGroup, nextGroup)) {
+                return;
+            }
+            if (previousKey != null) {
+                SortedEntry<S> entry = new SortedEntry<>(previousKey, id);
+                all.remove(entry);
+                if (previousGroup != null) {
+                    groups.computeIfPresent(previousGroup, (group, entries) -> {
+                        entries.remove(entry);
+                        return entries.isEmpty() ? null : entries;
+                    });
+                }
+            }
+            if (nextKey != null) {
+                SortedEntry<S> entry = new SortedEntry<>(nextKey, id);
+                all.add(entry);
+                if (nextGroup != null) {
+                    groups.compute(nextGroup, (group, entries) -> {
+                        ConcurrentSkipListSet<SortedEntry<S>> updated = entries == null ? new ConcurrentSkipListSet<>() : entries;
+                        updated.add(entry);
+                        return updated;
+                    });
+                }
+            }
+        }
+    }
+
+    private record SortedEntry<S extends Comparable<S>>(S key, Integer id) implements Comparable<SortedEntry<S>> {
+
+        @Override
+        public int compareTo(SortedEntry<S> other) {
+            int byKey = key.compareTo(other.key);
+            return byKey != 0 ? byKey : Integer.compare(id, other.id);
+        }
+    }
+
+    private static final class Version<T> {
+
+        private final long sequence;
+        // null for a tombstone
+        private final T value;
+        private volatile Version<T> previous;
+
+        private Version(long sequence, T value, Version<T> previous) {
+            this.sequence = sequence;
+            this.value = value;
+            this.previous = previous;
+        }
+    }
+
+    private static final class Shard<T> {
+
+        private final ConcurrentHashMap<Integer, Version<T>> entries = new ConcurrentHashMap<>();
+        private final AtomicInteger live = new AtomicInteger();
+        private final AtomicInteger tombstones = new AtomicInteger();
+        private final List<ConcurrentHashMap<Object, Set<Integer>>> indexes = new CopyOnWriteArrayList<>();
+    }
+
+    private record Grave<T>(Shard<T> shard, Integer slot, Version<T> version) {
+    }
+
+    private final class Gather extends RecursiveTask<List<T>> {
+
+        private final int from;
+        private final int to;
+        private final Predicate<T> predicate;
+        private final long sequence;
+        private final long horizon;
+
+        private Gather(int from, int to, Predicate<T> predicate, long sequence, long horizon) {
+            this.from = from;
+            this.to = to;
+            this.predicate = predicate;
+            this.sequence = sequence;
+            this.horizon = horizon;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if (to - from == 1) {
+                List<T> matches = new ArrayList<>();
+                collect(shards.get(from), predicate, sequence, horizon, matches);
+                matches.sort(idOrder);
+                return matches;
+            }
+            int middle = (from + to) >>> 1;
+            Gather left = new Gather(from, middle, predicate, sequence, horizon);
+            left.fork();
+            List<T> right = new Gather(middle, to, predicate, sequence, horizon).compute();
+            return merge(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package dev.chafon.springbootrest.support;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Coalesces concurrent calls for the same key into one execution of the loader: the first caller
+// runs it, callers arriving while it is in flight wait for and share its result or exception.
+// A shared result should be immutable, and it may predate a write the joining caller made just before.
+public class SingleFlight<K, V> implements MeterBinder {
+
+    private final String name;
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight;
+    private final LongAdder calls;
+    private final LongAdder executions;
+
+    public SingleFlight(String name) {
+        this.name = name;
+        this.inFlight = new ConcurrentHashMap<>();
+        this.calls = new LongAdder();
+        this.executions = new LongAdder();
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        calls.increment();
+        CompletableFuture<V> flight = inFlight.get(key);
+        if (flight == null) {
+            CompletableFuture<V> newFlight = new CompletableFuture<>();
+            flight = inFlight.putIfAbsent(key, newFlight);
+            if (flight == null) {
+                return load(key, newFlight, loader);
+            }
+        }
+        return await(flight);
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public double getDedupRatio() {
+        long total = calls.sum();
+        return total == 0 ? 0 : 1 - (double) executions.sum() / total;
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    int waitingCallers(K key) {
+        CompletableFuture<V> flight = inFlight.get(key);
+        return flight == null ? 0 : flight.getNumberOfDependents();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("singleflight.calls", this, SingleFlight::getCalls)
+                .tag("lookup", name)
+                .register(registry);
+        FunctionCounter.builder("singleflight.executions", this, SingleFlight::getExecutions)
+                .tag("lookup", name)
+                .register(registry);
+        Gauge.builder("singleflight.dedup.ratio", this, SingleFlight::getDedupRatio)
+                .tag("lookup", name)
+                .register(registry);
+    }
+
+    private V load(K key, CompletableFuture<V> flight, Supplier<V> loader) {
+        executions.increment();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
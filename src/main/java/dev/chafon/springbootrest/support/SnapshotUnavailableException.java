@@ -0,0 +1,16 @@
+package dev.chafon.springbootrest.support;
+
+public class SnapshotUnavailableException extends RuntimeException {
+
+    private final boolean expired;
+
+    public SnapshotUnavailableException(String message, boolean expired) {
+        super(message);
+        this.expired = expired;
+    }
+
+    // true when the versions were already collected, false when the sequence is not committed yet
+    public boolean isExpired() {
+        return expired;
+    }
+}
@@ -0,0 +1,14 @@
+package dev.chafon.springbootrest.support;
+
+// Base for exceptions that report an expected outcome of a request, such as an unknown id. They are
+// thrown often and only their message is ever read, so they skip capturing a stack trace and
+// subclasses build the message when it is asked for rather than on every throw.
+public abstract class StacklessException extends RuntimeException {
+
+    protected StacklessException() {
+        super(null, null, false, false);
+    }
+
+    @Override
+    public abstract String getMessage();
+}
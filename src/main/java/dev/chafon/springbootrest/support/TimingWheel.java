@@ -0,0 +1,141 @@
+package dev.chafon.springbootrest.support;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Deadlines kept in a hierarchical timing wheel, so advancing the clock only touches the keys that are
+// due instead of scanning all of them. Each level has 64 buckets; a bucket of level 0 spans one tick and
+// a bucket of level n spans 64^n ticks. A deadline goes into the lowest level whose range reaches it,
+// and whenever the wheel below turns over, the next bucket of the level above is cascaded down and its
+// keys placed again, so a key moves down at most once per level before it is due. Deadlines beyond the
+// top level wait there and are placed again each time their bucket comes round.
+//
+// Keys are scheduled and cancelled from any thread: both only record the key's current deadline and
+// queue it, and the single thread that advances the wheel places the queued deadlines first. A key
+// rescheduled or cancelled meanwhile leaves its old entry behind, which is dropped when it comes due
+// as it no longer matches the current deadline.
+public class TimingWheel<K> {
+
+    public static final int DEFAULT_LEVELS = 4;
+
+    private static final int BUCKET_BITS = 6;
+    private static final int BUCKETS = 1 << BUCKET_BITS;
+    private static final int BUCKET_MASK = BUCKETS - 1;
+
+    private final long tickMillis;
+    private final Queue<Entry<K>>[][] levels;
+    private final Map<K, Long> deadlines = new ConcurrentHashMap<>();
+    private final Queue<Entry<K>> pending = new ConcurrentLinkedQueue<>();
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, long startMillis) {
+        this(tickMillis, startMillis, DEFAULT_LEVELS);
+    }
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long startMillis, int levelCount) {
+        if (tickMillis <= 0 || levelCount <= 0) {
+            throw new IllegalArgumentException("tickMillis and levelCount must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.levels = new Queue[levelCount][BUCKETS];
+        for (Queue<Entry<K>>[] level : levels) {
+            for (int i = 0; i < BUCKETS; i++) {
+                level[i] = new ArrayDeque<>();
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    // Replaces any deadline the key had.
+    public void schedule(K key, long deadlineMillis) {
+        // rounded up, so a key never comes due before its deadline
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        deadlines.put(key, deadlineTick);
+        pending.add(new Entry<>(key, deadlineTick));
+    }
+
+    public void cancel(K key) {
+        deadlines.remove(key);
+    }
+
+    public int size() {
+        return deadlines.size();
+    }
+
+    // Turns the wheel up to the given time and returns the keys that came due, each removed from the
+    // wheel. Only one thread at a time may advance it.
+    public List<K> advance(long nowMillis) {
+        List<K> due = new ArrayList<>();
+        for (Entry<K> entry; (entry = pending.poll()) != null; ) {
+            place(entry, due);
+        }
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade(1, due);
+            placeAll(levels[0][bucketOf(currentTick, 0)], due);
+        }
+        return due;
+    }
+
+    private void cascade(int level, List<K> due) {
+        if (level >= levels.length || (currentTick & bucketMask(level - 1)) != 0) {
+            return;
+        }
+        // the level above turns over first, so its keys can land in the bucket cascaded here
+        cascade(level + 1, due);
+        placeAll(levels[level][bucketOf(currentTick, level)], due);
+    }
+
+    private void placeAll(Queue<Entry<K>> bucket, List<K> due) {
+        // a deadline beyond the top level goes back into the bucket it came from
+        for (int remaining = bucket.size(); remaining > 0; remaining--) {
+            place(bucket.poll(), due);
+        }
+    }
+
+    private void place(Entry<K> entry, List<K> due) {
+        if (!isCurrent(entry)) {
+            return;
+        }
+        long ticksLeft = entry.deadlineTick - currentTick;
+        if (ticksLeft <= 0) {
+            complete(entry, due);
+            return;
+        }
+        int level = 0;
+        while (level < levels.length - 1 && ticksLeft >= 1L << (BUCKET_BITS * (level + 1))) {
+            level++;
+        }
+        levels[level][bucketOf(entry.deadlineTick, level)].add(entry);
+    }
+
+    private void complete(Entry<K> entry, List<K> due) {
+        if (deadlines.remove(entry.key, entry.deadlineTick)) {
+            due.add(entry.key);
+        }
+    }
+
+    private boolean isCurrent(Entry<K> entry) {
+        Long deadlineTick = deadlines.get(entry.key);
+        return deadlineTick != null && deadlineTick == entry.deadlineTick;
+    }
+
+    private static int bucketOf(long tick, int level) {
+        return (int) ((tick >>> (BUCKET_BITS * level)) & BUCKET_MASK);
+    }
+
+    // the low bits of a tick, which are all zero when the wheel of the level turns over
+    private static long bucketMask(int level) {
+        return (1L << (BUCKET_BITS * (level + 1))) - 1;
+    }
+
+    private record Entry<K>(K key, long deadlineTick) {
+    }
+}
@@ -0,0 +1,179 @@
+package dev.chafon.springbootrest.support;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static dev.chafon.springbootrest.Constants.SNAPSHOT_AHEAD_OF_LATEST;
+import static dev.chafon.springbootrest.Constants.SNAPSHOT_NO_LONGER_RETAINED;
+
+// Hands out the commit sequence shared by every versioned store, and tracks which sequences readers
+// still need. A sequence becomes readable once it and every sequence before it have committed, so a
+// snapshot never sees half of the writes that were in flight when it was taken. Old versions are
+// kept for the last retainedSequences commits and for as long as a pinned reader needs them.
+//
+// Nothing here takes a lock, as begin and end run inside every write to any store. Sequences come from
+// an atomic counter and a committed sequence is marked in a ring of slots; whichever writer finds the
+// sequence after the readable one marked moves the readable sequence on. A writer only waits when it is
+// a whole ring ahead of the oldest write still in flight, which needs that write to stall for as many
+// commits.
+@Component
+public class VersionClock implements MeterBinder {
+
+    public static final long DEFAULT_RETAINED_SEQUENCES = 10_000;
+
+    private static final int COMMIT_RING_SIZE = 1 << 16;
+
+    private final long retainedSequences;
+    private final AtomicLong lastStarted;
+    // slot of each sequence holds it once it committed
+    private final AtomicLongArray committed;
+    private final AtomicLong stable;
+    private final ConcurrentSkipListMap<Long, Integer> pinned;
+    private final AtomicLong collectedBelow;
+
+    public VersionClock() {
+        this(DEFAULT_RETAINED_SEQUENCES);
+    }
+
+    @Autowired
+    public VersionClock(@Value("${repository.retained-sequences:" + DEFAULT_RETAINED_SEQUENCES + "}") long retainedSequences) {
+        if (retainedSequences < 0) {
+            throw new IllegalArgumentException("retainedSequences must not be negative");
+        }
+        this.retainedSequences = retainedSequences;
+        this.lastStarted = new AtomicLong();
+        this.committed = new AtomicLongArray(COMMIT_RING_SIZE);
+        this.stable = new AtomicLong();
+        this.pinned = new ConcurrentSkipListMap<>();
+        this.collectedBelow = new AtomicLong();
+    }
+
+    // The latest sequence whose writes, and all writes before it, are visible to snapshots.
+    public long currentSequence() {
+        return stable.get();
+    }
+
+    // Waits for the writes that have begun so far to commit and returns a sequence at which all of them
+    // are readable. Writes only hold their sequence for the length of one compute, so this spins.
+    public long awaitStarted() {
+        long started = lastStarted.get();
+        long readable;
+        while ((readable = stable.get()) < started) {
+            Thread.onSpinWait();
+        }
+        return readable;
+    }
+
+    // Pins a point-in-time view; versions it can see are kept until it is closed.
+    public Snapshot pin(long sequence) {
+        if (sequence > stable.get()) {
+            throw new SnapshotUnavailableException(SNAPSHOT_AHEAD_OF_LATEST + sequence, false);
+        }
+        Snapshot snapshot = tryPin(sequence);
+        if (snapshot == null) {
+            throw new SnapshotUnavailableException(SNAPSHOT_NO_LONGER_RETAINED + sequence, true);
+        }
+        return snapshot;
+    }
+
+    public Snapshot pinCurrent() {
+        Snapshot snapshot;
+        do {
+            // with no retained sequences a collector can pass the sequence just read, so read it again
+            snapshot = tryPin(stable.get());
+        } while (snapshot == null);
+        return snapshot;
+    }
+
+    // Versions older than the newest one at or below the horizon are not visible to any reader.
+    long horizon() {
+        long candidate = stable.get() - retainedSequences;
+        if (candidate > collectedBelow.get()) {
+            collectedBelow.accumulateAndGet(candidate, Math::max);
+        }
+        Map.Entry<Long, Integer> oldest = pinned.firstEntry();
+        return oldest == null ? candidate : Math.min(candidate, oldest.getKey());
+    }
+
+    long begin() {
+        long sequence = lastStarted.incrementAndGet();
+        // the slot is free again once the sequence a ring earlier is readable
+        while (sequence - stable.get() > COMMIT_RING_SIZE) {
+            Thread.onSpinWait();
+        }
+        return sequence;
+    }
+
+    void end(long sequence) {
+        committed.set(slotOf(sequence), sequence);
+        // marked before reading the readable sequence, so either this writer or the one ending the
+        // sequence before it sees both and moves on
+        long readable = stable.get();
+        while (committed.get(slotOf(readable + 1)) == readable + 1) {
+            if (stable.compareAndSet(readable, readable + 1)) {
+                readable++;
+            } else {
+                readable = stable.get();
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("repository.sequence", this, VersionClock::currentSequence)
+                .description("Latest commit sequence visible to snapshot reads")
+                .register(registry);
+        Gauge.builder("repository.snapshots.pinned", pinned, Map::size)
+                .description("Distinct sequences pinned by open snapshot reads")
+                .register(registry);
+    }
+
+    private static int slotOf(long sequence) {
+        return (int) (sequence & (COMMIT_RING_SIZE - 1));
+    }
+
+    private Snapshot tryPin(long sequence) {
+        pinned.merge(sequence, 1, Integer::sum);
+        // collectors publish their horizon before looking at the pins, so one of the two sees the other
+        if (sequence < collectedBelow.get()) {
+            unpin(sequence);
+            return null;
+        }
+        return new Snapshot(sequence);
+    }
+
+    private void unpin(long sequence) {
+        pinned.computeIfPresent(sequence, (key, readers) -> readers == 1 ? null : readers - 1);
+    }
+
+    public final class Snapshot implements AutoCloseable {
+
+        private final long sequence;
+        private boolean closed;
+
+        private Snapshot(long sequence) {
+            this.sequence = sequence;
+        }
+
+        public long sequence() {
+            return sequence;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                unpin(sequence);
+            }
+        }
+    }
+}
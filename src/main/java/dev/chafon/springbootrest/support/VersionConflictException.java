@@ -0,0 +1,17 @@
+package dev.chafon.springbootrest.support;
+
+import static dev.chafon.springbootrest.Constants.VERSION_DOES_NOT_MATCH;
+
+public class VersionConflictException extends StacklessException {
+
+    private final Long currentVersion;
+
+    public VersionConflictException(Long currentVersion) {
+        this.currentVersion = currentVersion;
+    }
+
+    @Override
+    public String getMessage() {
+        return VERSION_DOES_NOT_MATCH + currentVersion;
+    }
+}
@@ -0,0 +1,25 @@
+package dev.chafon.springbootrest.support;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+@ControllerAdvice
+public class VersionControllerAdvice {
+
+    private static final ProblemBodies PRECONDITION_FAILED = ProblemBodies.forStatus(HttpStatus.PRECONDITION_FAILED);
+
+    @ExceptionHandler(SnapshotUnavailableException.class)
+    ErrorResponse handleSnapshotUnavailableException(SnapshotUnavailableException ex) {
+        HttpStatus status = ex.isExpired() ? HttpStatus.GONE : HttpStatus.BAD_REQUEST;
+        return ErrorResponse.builder(ex, status, ex.getMessage()).build();
+    }
+
+    @ExceptionHandler(VersionConflictException.class)
+    ResponseEntity<?> handleVersionConflictException(VersionConflictException ex, HttpServletRequest request) {
+        return PRECONDITION_FAILED.toResponse(ex.getMessage(), request);
+    }
+}
@@ -0,0 +1,14 @@
+package dev.chafon.springbootrest.support;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Point-in-time reads at a commit sequence of the shared VersionClock, and the changes made after one.
+public interface VersionedRepository<T> {
+    long currentSequence();
+    List<T> findAll(long asOf);
+    Optional<T> findById(Integer id, long asOf);
+    List<T> findAllById(Collection<Integer> ids, long asOf);
+    ChangeSet<T> findChangesSince(long sequence);
+}
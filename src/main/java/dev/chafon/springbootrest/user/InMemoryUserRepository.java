@@ -1,13 +1,26 @@
 package dev.chafon.springbootrest.user;
 
+import dev.chafon.springbootrest.support.ChangeListener;
+import dev.chafon.springbootrest.support.ChangeListeners;
+import dev.chafon.springbootrest.support.ChangeSet;
+import dev.chafon.springbootrest.support.EntityVersions;
+import dev.chafon.springbootrest.support.IdAllocator;
+import dev.chafon.springbootrest.support.RankedCounts;
+import dev.chafon.springbootrest.support.SequenceIdAllocator;
+import dev.chafon.springbootrest.support.ShardedStore;
+import dev.chafon.springbootrest.support.VersionClock;
+import dev.chafon.springbootrest.support.VersionConflictException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
 
 import static dev.chafon.springbootrest.Constants.*;
 
@@ -15,61 +28,224 @@ import static dev.chafon.springbootrest.Constants.*;
 @Validated
 public class InMemoryUserRepository implements UserRepository {
 
-    private final Map<Integer, User> userMap;
+    private final ShardedStore<User> userStore;
+    private final ShardedStore.Index<User, String> usernameIndex;
+    private final RankedCounts<String> userCountsByEmailDomain;
+    private final ChangeListeners<User> changeListeners;
+    private volatile IdAllocator<User> idAllocator;
 
     public InMemoryUserRepository() {
-        this.userMap = new ConcurrentHashMap<>();
+        this(ShardedStore.DEFAULT_SHARDS, new VersionClock());
+    }
+
+    @Autowired
+    public InMemoryUserRepository(@Value("${repository.shards:" + ShardedStore.DEFAULT_SHARDS + "}") int shardCount,
+                                  VersionClock versionClock) {
+        this.userStore = new ShardedStore<>(shardCount, User::id, versionClock);
+        this.usernameIndex = userStore.addIndex(User::username);
+        this.userCountsByEmailDomain = new RankedCounts<>();
+        this.idAllocator = new SequenceIdAllocator<>();
+        this.changeListeners = new ChangeListeners<>();
     }
 
     @Override
     public List<User> findAll() {
-        return userMap.values()
-                .stream()
-                .toList();
+        return userStore.values();
     }
 
     @Override
     public Optional<User> findById(Integer id) {
         Objects.requireNonNull(id, ID_CANNOT_BE_NULL);
-        return Optional.ofNullable(userMap.get(id));
+        return Optional.ofNullable(userStore.get(id));
+    }
+
+    @Override
+    public List<User> findAllById(Collection<Integer> ids) {
+        Objects.requireNonNull(ids, IDS_CANNOT_BE_NULL);
+        return userStore.getAll(ids);
+    }
+
+    @Override
+    public long currentSequence() {
+        return userStore.clock().currentSequence();
+    }
+
+    @Override
+    public List<User> findAll(long asOf) {
+        return userStore.values(asOf);
+    }
+
+    @Override
+    public List<User> findAllById(Collection<Integer> ids, long asOf) {
+        Objects.requireNonNull(ids, IDS_CANNOT_BE_NULL);
+        return userStore.getAll(ids, asOf);
+    }
+
+    @Override
+    public ChangeSet<User> findChangesSince(long sequence) {
+        return userStore.changesSince(sequence);
+    }
+
+    @Override
+    public long count() {
+        return userStore.size();
+    }
+
+    @Override
+    public long tombstoneCount() {
+        return userStore.tombstoneCount();
+    }
+
+    @Override
+    public int compactTombstones(long retainedSequences, int maxTombstones) {
+        return userStore.compactTombstones(retainedSequences, maxTombstones);
+    }
+
+    @Override
+    public Optional<User> findById(Integer id, long asOf) {
+        Objects.requireNonNull(id, ID_CANNOT_BE_NULL);
+        return Optional.ofNullable(userStore.get(id, asOf));
     }
 
     @Override
     public User save(User user) {
         Objects.requireNonNull(user, USER_CANNOT_BE_NULL);
-        User userToSave;
-        if(user.id() != null) {
-            User existingUser = userMap.get(user.id());
-            if(existingUser == null) {
-                throw new IllegalArgumentException(USER_WITH_ID_DOES_NOT_EXIST + " : " + user.id());
-            }
-            userToSave = new User(existingUser.id(), user.name(), existingUser.username(), user.email());
-        } else {
-            userToSave = new User(userMap.size() + 1, user.name(), user.username(), user.email());
+        if(user.id() == null) {
+            User userToSave = new User(idAllocator.allocate(user), user.name(), user.username(), user.email(),
+                    EntityVersions.FIRST);
+            changeListeners.write(() -> userStore.compute(userToSave.id(), (id, existingUser) -> {
+                changeListeners.saved(existingUser, userToSave);
+                userCountsByEmailDomain.move(emailDomainOf(existingUser), emailDomainOf(userToSave));
+                return userToSave;
+            }));
+            return userToSave;
         }
-        userMap.put(userToSave.id(), userToSave);
-        return userToSave;
+        return update(user.id(), existingUser -> user)
+                .orElseThrow(() -> new IllegalArgumentException(USER_WITH_ID_DOES_NOT_EXIST + " : " + user.id()));
+    }
+
+    // The updater runs once, while the id is locked, so nothing can change the user in between. The id,
+    // username and version stay the repository's; a user carrying a version is only saved over that version.
+    @Override
+    public Optional<User> update(Integer id, UnaryOperator<User> updater) {
+        Objects.requireNonNull(id, ID_CANNOT_BE_NULL);
+        return Optional.ofNullable(changeListeners.write(() -> userStore.computeIfPresent(id, (key, existingUser) -> {
+            User user = Objects.requireNonNull(updater.apply(existingUser), USER_CANNOT_BE_NULL);
+            if (!EntityVersions.matches(user.version(), existingUser.version())) {
+                throw new VersionConflictException(existingUser.version());
+            }
+            User userToSave = new User(existingUser.id(), user.name(), existingUser.username(), user.email(),
+                    EntityVersions.next(existingUser.version()));
+            changeListeners.saved(existingUser, userToSave);
+            userCountsByEmailDomain.move(emailDomainOf(existingUser), emailDomainOf(userToSave));
+            return userToSave;
+        })));
     }
 
     @Override
     public boolean existsByUsername(String username) {
         Objects.requireNonNull(username, USERNAME_CANNOT_BE_NULL);
-        return userMap.values()
-                .stream()
-                .anyMatch(user -> user.username().equals(username));
+        return userStore.existsBy(usernameIndex, username);
+    }
+
+    @Override
+    public long countByEmailDomain(String domain) {
+        return domain == null ? 0 : userCountsByEmailDomain.count(domain.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public List<RankedCounts.Count<String>> findTopEmailDomains(int limit) {
+        return userCountsByEmailDomain.top(limit);
     }
 
     @Override
     public void deleteById(Integer id) {
         Objects.requireNonNull(id, ID_CANNOT_BE_NULL);
-        userMap.remove(id);
+        changeListeners.write(() -> userStore.computeIfPresent(id, (key, existingUser) -> {
+            changeListeners.deleted(existingUser);
+            userCountsByEmailDomain.move(emailDomainOf(existingUser), null);
+            return null;
+        }));
     }
 
     @Override
     public boolean existsById(Integer id) {
         Objects.requireNonNull(id, ID_CANNOT_BE_NULL);
-        return userMap.values()
-                .stream()
-                .anyMatch(user -> user.id().equals(id));
+        return userStore.containsKey(id);
+    }
+
+    @Override
+    public void restore(User user) {
+        put(user, false);
+    }
+
+    @Override
+    public void evict(Integer id) {
+        remove(id, false);
+    }
+
+    @Override
+    public boolean adopt(User user) {
+        return changeListeners.write(() -> put(user, true));
+    }
+
+    @Override
+    public void release(Integer id) {
+        changeListeners.write(() -> remove(id, true));
+    }
+
+    @Override
+    public void addChangeListener(ChangeListener<User> listener) {
+        changeListeners.add(listener);
+    }
+
+    @Override
+    public void setIdAllocator(IdAllocator<User> idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    // An adopted user never replaces another one under its id; false tells the caller it was refused,
+    // while an equal one already there counts as adopted.
+    private boolean put(User user, boolean asWrite) {
+        Objects.requireNonNull(user, USER_CANNOT_BE_NULL);
+        Objects.requireNonNull(user.id(), ID_CANNOT_BE_NULL);
+        idAllocator.observe(user.id());
+        boolean[] refused = new boolean[1];
+        userStore.compute(user.id(), (id, existingUser) -> {
+            if (asWrite && existingUser != null) {
+                refused[0] = !existingUser.equals(user);
+                return existingUser;
+            }
+            if (asWrite) {
+                changeListeners.saved(existingUser, user);
+            } else {
+                changeListeners.restored(user);
+            }
+            userCountsByEmailDomain.move(emailDomainOf(existingUser), emailDomainOf(user));
+            return user;
+        });
+        return !refused[0];
+    }
+
+    private User remove(Integer id, boolean asWrite) {
+        Objects.requireNonNull(id, ID_CANNOT_BE_NULL);
+        return userStore.computeIfPresent(id, (key, existingUser) -> {
+            if (asWrite) {
+                changeListeners.deleted(existingUser);
+            } else {
+                changeListeners.evicted(existingUser);
+            }
+            userCountsByEmailDomain.move(emailDomainOf(existingUser), null);
+            return null;
+        });
+    }
+
+    // Domains are case-insensitive, so they are counted in lower case.
+    private static String emailDomainOf(User user) {
+        if (user == null || user.email() == null) {
+            return null;
+        }
+        int at = user.email().lastIndexOf('@');
+        return at < 0 ? null : user.email().substring(at + 1).toLowerCase(Locale.ROOT);
     }
 }
@@ -1,5 +1,6 @@
 package dev.chafon.springbootrest.user;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 
@@ -13,6 +14,13 @@ public record User(
         String username,
         @Email(message = EMAIL_MUST_BE_VALID)
         @NotBlank(message = EMAIL_CANNOT_BE_BLANK)
-        String email
+        String email,
+        // assigned by the repository, incremented on every update
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        Long version
 ) {
+
+    public User(Integer id, String name, String username, String email) {
+        this(id, name, username, email, null);
+    }
 }
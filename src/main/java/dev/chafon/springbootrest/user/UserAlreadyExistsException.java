@@ -1,10 +1,19 @@
 package dev.chafon.springbootrest.user;
 
+import dev.chafon.springbootrest.support.StacklessException;
+
 import static dev.chafon.springbootrest.Constants.USER_ALREADY_EXISTS_EXCEPTION_MESSAGE;
 
-public class UserAlreadyExistsException extends RuntimeException {
+public class UserAlreadyExistsException extends StacklessException {
+
+    private final String username;
 
     public UserAlreadyExistsException(String  username) {
-        super(USER_ALREADY_EXISTS_EXCEPTION_MESSAGE + username);
+        this.username = username;
+    }
+
+    @Override
+    public String getMessage() {
+        return USER_ALREADY_EXISTS_EXCEPTION_MESSAGE + username;
     }
 }
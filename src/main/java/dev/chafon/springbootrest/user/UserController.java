@@ -1,33 +1,81 @@
 package dev.chafon.springbootrest.user;
 
 import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.support.ChangeSet;
+import dev.chafon.springbootrest.support.EntityVersions;
+import dev.chafon.springbootrest.support.MultiGet;
+import dev.chafon.springbootrest.support.RankedCounts;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.time.Instant;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/v1/users")
 public class UserController {
 
     private final UserService userService;
+    private final UserValidator userValidator;
 
     public UserController(UserService userService) {
         this.userService = userService;
+        this.userValidator = new UserValidator();
     }
 
+    // @Valid request bodies are checked by UserValidator instead of the reflective default validator
+    @InitBinder("user")
+    void initUserBinder(WebDataBinder binder) {
+        binder.setValidator(userValidator);
+    }
+
+    // ?ids=1,2,3 looks up just those users, missing ids are reported in the X-Missing-Ids header
     @GetMapping
-    List<User> getUsers() {
-        return userService.getUsers();
+    ResponseEntity<List<User>> getUsers(@RequestParam(required = false) List<Integer> ids,
+                                        @RequestParam(required = false) Long asOf) {
+        if (ids == null) {
+            return ResponseEntity.ok(asOf == null ? userService.getUsers() : userService.getUsers(asOf));
+        }
+        List<User> users = asOf == null ? userService.getUsersById(ids) : userService.getUsersById(ids, asOf);
+        return MultiGet.toResponse(ids, users, User::id);
     }
 
+    // ?expand=posts embeds the posts in the same response
     @GetMapping("/{id}")
-    User getUser(@PathVariable Integer id) {
-        return userService.getUser(id);
+    ResponseEntity<?> getUser(@PathVariable Integer id,
+                              @RequestParam(required = false) Long asOf,
+                              @RequestParam(required = false) Set<String> expand) {
+        if (expand != null && expand.contains("posts")) {
+            return ResponseEntity.ok(asOf == null ? userService.getUserWithPosts(id) : userService.getUserWithPosts(id, asOf));
+        }
+        User user = asOf == null ? userService.getUser(id) : userService.getUser(id, asOf);
+        if (user.version() == null) {
+            return ResponseEntity.ok(user);
+        }
+        return ResponseEntity.ok().eTag(EntityVersions.toETag(user.version())).body(user);
+    }
+
+    // The users created, updated and deleted after the sequence of an earlier change set or listing
+    @GetMapping("/changes")
+    ChangeSet<User> getChanges(@RequestParam long since) {
+        return userService.getChangesSince(since);
+    }
+
+    @GetMapping("/counts-by-email-domain")
+    List<RankedCounts.Count<String>> getTopEmailDomains(@RequestParam(defaultValue = "10") int top) {
+        return userService.getTopEmailDomains(top);
+    }
+
+    @GetMapping("/counts-by-email-domain/{domain}")
+    long getUserCountByEmailDomain(@PathVariable String domain) {
+        return userService.countUsersByEmailDomain(domain);
     }
 
     @PostMapping
@@ -45,8 +93,14 @@ public class UserController {
 
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    void updateUser(@PathVariable Integer id, @Valid @RequestBody User userToUpdate) {
-        userService.updateUser(id, userToUpdate);
+    void updateUser(@PathVariable Integer id,
+                    @Valid @RequestBody User userToUpdate,
+                    @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch == null) {
+            userService.updateUser(id, userToUpdate);
+        } else {
+            userService.updateUser(id, userToUpdate, EntityVersions.fromIfMatch(ifMatch));
+        }
     }
 
     @DeleteMapping("/{id}")
@@ -55,9 +109,20 @@ public class UserController {
         userService.deleteUser(id);
     }
 
+    // ?since= and ?until= list the posts created in that time range, oldest first
     @GetMapping("/{id}/posts")
-    List<Post> getPosts(@PathVariable Integer id) {
-        return userService.getUserPosts(id);
+    List<Post> getPosts(@PathVariable Integer id,
+                        @RequestParam(required = false) Instant since,
+                        @RequestParam(required = false) Instant until) {
+        if (since == null && until == null) {
+            return userService.getUserPosts(id);
+        }
+        return userService.getUserPosts(id, since, until);
+    }
+
+    @GetMapping("/{id}/posts/count")
+    long getPostCount(@PathVariable Integer id) {
+        return userService.countUserPosts(id);
     }
 
     @GetMapping("/{id}/posts/{postId}")
@@ -1,8 +1,10 @@
 package dev.chafon.springbootrest.user;
 
+import dev.chafon.springbootrest.support.ProblemBodies;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.ObjectError;
-import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -12,22 +14,26 @@ import java.util.stream.Collectors;
 @ControllerAdvice
 public class UserControllerAdvice {
 
+    private static final ProblemBodies NOT_FOUND = ProblemBodies.forStatus(HttpStatus.NOT_FOUND);
+    private static final ProblemBodies BAD_REQUEST = ProblemBodies.forStatus(HttpStatus.BAD_REQUEST);
+    private static final ProblemBodies CONFLICT = ProblemBodies.forStatus(HttpStatus.CONFLICT);
+
     @ExceptionHandler(UserNotFoundException.class)
-    ErrorResponse handleUserNotFoundException(UserNotFoundException ex) {
-       return ErrorResponse.builder(ex, HttpStatus.NOT_FOUND, ex.getMessage()).build();
+    ResponseEntity<?> handleUserNotFoundException(UserNotFoundException ex, HttpServletRequest request) {
+       return NOT_FOUND.toResponse(ex.getMessage(), request);
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    ErrorResponse handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
+    ResponseEntity<?> handleMethodArgumentNotValidException(MethodArgumentNotValidException ex, HttpServletRequest request) {
         String errorMessages = ex.getBindingResult().getAllErrors().stream()
                 .map(ObjectError::getDefaultMessage)
                 .collect(Collectors.joining(", "));
 
-        return ErrorResponse.builder(ex, HttpStatus.BAD_REQUEST, errorMessages).build();
+        return BAD_REQUEST.toResponse(errorMessages, request);
     }
 
     @ExceptionHandler(UserAlreadyExistsException.class)
-    ErrorResponse handleUserAlreadyExistsException(UserAlreadyExistsException ex) {
-        return ErrorResponse.builder(ex, HttpStatus.CONFLICT, ex.getMessage()).build();
+    ResponseEntity<?> handleUserAlreadyExistsException(UserAlreadyExistsException ex, HttpServletRequest request) {
+        return CONFLICT.toResponse(ex.getMessage(), request);
     }
 }
@@ -0,0 +1,34 @@
+package dev.chafon.springbootrest.user;
+
+import dev.chafon.springbootrest.support.DataLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// The users looked up while handling one HTTP request, read in bulk through DataLoader. Reads at a
+// point in time get a loader of their own per sequence, as their results never change.
+@Component
+@RequestScope
+public class UserLoader {
+
+    private final UserRepository userRepository;
+    private final DataLoader<User> current;
+    private final Map<Long, DataLoader<User>> snapshots;
+
+    public UserLoader(UserRepository userRepository) {
+        this.userRepository = userRepository;
+        this.current = new DataLoader<>(userRepository::findAllById, User::id);
+        this.snapshots = new HashMap<>();
+    }
+
+    public DataLoader<User> current() {
+        return current;
+    }
+
+    public DataLoader<User> asOf(long asOf) {
+        return snapshots.computeIfAbsent(asOf,
+                sequence -> new DataLoader<>(ids -> userRepository.findAllById(ids, sequence), User::id));
+    }
+}
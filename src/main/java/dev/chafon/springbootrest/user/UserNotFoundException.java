@@ -1,9 +1,19 @@
 package dev.chafon.springbootrest.user;
 
+import dev.chafon.springbootrest.support.StacklessException;
+
 import static dev.chafon.springbootrest.Constants.USER_NOT_FOUND_EXCEPTION_MESSAGE;
 
-public class UserNotFoundException extends RuntimeException {
+public class UserNotFoundException extends StacklessException {
+
+    private final Integer userId;
+
     public UserNotFoundException(Integer userId) {
-        super(USER_NOT_FOUND_EXCEPTION_MESSAGE + userId);
+        this.userId = userId;
+    }
+
+    @Override
+    public String getMessage() {
+        return USER_NOT_FOUND_EXCEPTION_MESSAGE + userId;
     }
 }
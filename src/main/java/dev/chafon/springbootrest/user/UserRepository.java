@@ -1,13 +1,24 @@
 package dev.chafon.springbootrest.user;
 
+import dev.chafon.springbootrest.support.CompactableRepository;
+import dev.chafon.springbootrest.support.RankedCounts;
+import dev.chafon.springbootrest.support.RestorableRepository;
+import dev.chafon.springbootrest.support.VersionedRepository;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 
-public interface UserRepository {
+public interface UserRepository extends RestorableRepository<User>, VersionedRepository<User>, CompactableRepository {
     List<User> findAll();
     Optional<User> findById(Integer id);
+    List<User> findAllById(Collection<Integer> ids);
     User save(User user);
+    Optional<User> update(Integer id, UnaryOperator<User> updater);
     boolean existsByUsername(String username);
     void deleteById(Integer id);
     boolean existsById(Integer id);
+    long countByEmailDomain(String domain);
+    List<RankedCounts.Count<String>> findTopEmailDomains(int limit);
 }
@@ -2,31 +2,72 @@ package dev.chafon.springbootrest.user;
 
 import dev.chafon.springbootrest.post.Post;
 import dev.chafon.springbootrest.post.PostService;
+import dev.chafon.springbootrest.support.ChangeSet;
+import dev.chafon.springbootrest.support.RankedCounts;
+import dev.chafon.springbootrest.support.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Service
-public class UserService {
+public class UserService implements MeterBinder {
 
     private final UserRepository userRepository;
     private final PostService postService;
+    private final SingleFlight<Integer, Optional<User>> userLookups;
 
     public UserService(UserRepository userRepository, PostService postService) {
         this.userRepository = userRepository;
         this.postService = postService;
+        this.userLookups = new SingleFlight<>("user.findById");
     }
 
     public List<User> getUsers() {
         return userRepository.findAll();
     }
 
+    public List<User> getUsers(long asOf) {
+        return userRepository.findAll(asOf);
+    }
+
+    public ChangeSet<User> getChangesSince(long sequence) {
+        return userRepository.findChangesSince(sequence);
+    }
+
+    public List<User> getUsersById(Collection<Integer> ids) {
+        return userRepository.findAllById(ids);
+    }
+
+    public List<User> getUsersById(Collection<Integer> ids, long asOf) {
+        return userRepository.findAllById(ids, asOf);
+    }
+
     public User getUser(Integer id) {
-        return userRepository.findById(id)
+        return userLookups.execute(id, () -> userRepository.findById(id))
                 .orElseThrow(() ->
                         new UserNotFoundException(id));
     }
 
+    public User getUser(Integer id, long asOf) {
+        return userRepository.findById(id, asOf)
+                .orElseThrow(() ->
+                        new UserNotFoundException(id));
+    }
+
+    // The user lookup is the only existence check; its posts are read without validating the user again.
+    public UserWithPosts getUserWithPosts(Integer id) {
+        return new UserWithPosts(getUser(id), postService.getPostsByUser(id));
+    }
+
+    public UserWithPosts getUserWithPosts(Integer id, long asOf) {
+        return new UserWithPosts(getUser(id, asOf), postService.getPostsByUser(id, asOf));
+    }
+
     public User createUser(User user) {
         if (userRepository.existsByUsername(user.username())) {
             throw new UserAlreadyExistsException(user.username());
@@ -35,28 +76,22 @@ public class UserService {
     }
 
     public void updateUser(Integer id, User user) {
-        //If it is required to return the updated user, use the following code:
-        /*
-        return userRepository.findById(id)
-                .map(existingUser -> {
-                    new User(existingUser.id(), user.name(), existingUser.username(), user.email());
-                    return userRepository.save(existingUser);
-                })
+        updateUser(id, user, user.version());
+    }
+
+    // Without an expected version the update applies on top of whatever is stored; with one it fails
+    // if the user changed since that version.
+    public void updateUser(Integer id, User user, Long expectedVersion) {
+        //If it is required to return the updated user, return the result of update instead.
+        userRepository.update(id, existingUser ->
+                        new User(
+                                existingUser.id(),
+                                user.name(),
+                                existingUser.username(),
+                                user.email(),
+                                expectedVersion == null ? existingUser.version() : expectedVersion
+                        ))
                 .orElseThrow(() -> new UserNotFoundException(id));
-        */
-
-        userRepository.findById(id)
-                .ifPresentOrElse(
-                        existingUser -> userRepository.save(
-                                new User(
-                                        existingUser.id(),
-                                        user.name(),
-                                        existingUser.username(),
-                                        user.email()
-                                )),
-                        () -> {
-                            throw new UserNotFoundException(id);
-                        });
     }
 
     public void deleteUser(Integer id) {
@@ -69,13 +104,37 @@ public class UserService {
         return postService.getPostsByUser(id);
     }
 
+    public List<Post> getUserPosts(Integer id, Instant since, Instant until) {
+        validateUser(id);
+        return postService.getPostsByUser(id, since, until);
+    }
+
     public Post getUserPost(Integer id, Integer postId) {
         validateUser(id);
         return postService.getPostByUserAndId(id, postId);
     }
+
+    public long countUserPosts(Integer id) {
+        validateUser(id);
+        return postService.countPostsByUser(id);
+    }
+
+    public long countUsersByEmailDomain(String domain) {
+        return userRepository.countByEmailDomain(domain);
+    }
+
+    public List<RankedCounts.Count<String>> getTopEmailDomains(int limit) {
+        return userRepository.findTopEmailDomains(limit);
+    }
+
     private void validateUser(Integer id) {
         if (!userRepository.existsById(id)) {
             throw new UserNotFoundException(id);
         }
     }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        userLookups.bindTo(registry);
+    }
 }
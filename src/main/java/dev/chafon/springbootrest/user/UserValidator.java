@@ -0,0 +1,33 @@
+package dev.chafon.springbootrest.user;
+
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+import static dev.chafon.springbootrest.Constants.*;
+import static dev.chafon.springbootrest.support.Constraints.*;
+
+// The constraints declared on User, checked directly against its components. Keep the two in step.
+public class UserValidator implements Validator {
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return User.class.equals(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        User user = (User) target;
+        if (!isNotBlank(user.name())) {
+            reject(errors, "name", user.name(), "NotBlank", NAME_CANNOT_BE_BLANK);
+        }
+        if (!isNotBlank(user.username())) {
+            reject(errors, "username", user.username(), "NotBlank", USERNAME_CANNOT_BE_BLANK);
+        }
+        if (!isEmail(user.email())) {
+            reject(errors, "email", user.email(), "Email", EMAIL_MUST_BE_VALID);
+        }
+        if (!isNotBlank(user.email())) {
+            reject(errors, "email", user.email(), "NotBlank", EMAIL_CANNOT_BE_BLANK);
+        }
+    }
+}
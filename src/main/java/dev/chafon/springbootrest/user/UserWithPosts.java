@@ -0,0 +1,13 @@
+package dev.chafon.springbootrest.user;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import dev.chafon.springbootrest.post.Post;
+
+import java.util.List;
+
+// A user with its posts embedded, returned for ?expand=posts.
+public record UserWithPosts(
+        @JsonUnwrapped
+        User user,
+        List<Post> posts) {
+}
@@ -0,0 +1,130 @@
+package dev.chafon.springbootrest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.post.PostController;
+import dev.chafon.springbootrest.post.PostNotFoundException;
+import dev.chafon.springbootrest.post.PostService;
+import dev.chafon.springbootrest.user.User;
+import dev.chafon.springbootrest.user.UserController;
+import dev.chafon.springbootrest.user.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static dev.chafon.springbootrest.Constants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest({UserController.class, PostController.class})
+@Import(ContentNegotiationConfig.class)
+class ContentNegotiationTest {
+
+    private static final MediaType APPLICATION_SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private PostService postService;
+
+    @Autowired
+    private MockMvc mvc;
+
+    private final ObjectMapper cborMapper = new CBORMapper();
+
+    private final ObjectMapper smileMapper = new SmileMapper();
+
+    @Test
+    void shouldReturnUsersAsCborWhenRequested() throws Exception {
+        List<User> users = List.of(
+                new User(1, "John Doe", "johnD", "john.doe@mail.com"),
+                new User(2, "Jane Doe", "janeD", "jane.doe@mail.com")
+        );
+        given(userService.getUsers())
+                .willReturn(users);
+
+        byte[] content = mvc.perform(get("/api/v1/users")
+                        .accept(APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(cborMapper.readValue(content, User[].class)).containsExactlyElementsOf(users);
+    }
+
+    @Test
+    void shouldCreateUserFromCborBody() throws Exception {
+        User userToCreate = new User(null, "John Doe", "johnD", "john.doe@mail.com");
+        User userCreated = new User(1, "John Doe", "johnD", "john.doe@mail.com");
+        given(userService.createUser(userToCreate))
+                .willReturn(userCreated);
+
+        byte[] content = mvc.perform(post("/api/v1/users")
+                        .contentType(APPLICATION_CBOR)
+                        .accept(APPLICATION_CBOR)
+                        .content(cborMapper.writeValueAsBytes(userToCreate)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "http://localhost/api/v1/users/1"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(cborMapper.readValue(content, User.class)).isEqualTo(userCreated);
+    }
+
+    @Test
+    void shouldReturnValidationErrorsAsCborWhenCborBodyIsInvalid() throws Exception {
+        User userToCreate = new User(null, null, null, "invalid-email");
+
+        byte[] content = mvc.perform(post("/api/v1/users")
+                        .contentType(APPLICATION_CBOR)
+                        .accept(APPLICATION_CBOR)
+                        .content(cborMapper.writeValueAsBytes(userToCreate)))
+                .andExpect(status().isBadRequest())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode problem = cborMapper.readTree(content);
+        assertThat(problem.get("status").asInt()).isEqualTo(400);
+        assertThat(problem.get("detail").asText())
+                .contains(NAME_CANNOT_BE_BLANK)
+                .contains(USERNAME_CANNOT_BE_BLANK)
+                .contains(EMAIL_MUST_BE_VALID);
+    }
+
+    @Test
+    void shouldUpdatePostFromSmileBody() throws Exception {
+        Post postToUpdate = new Post(1, 123, "My first post", "My first post content");
+
+        mvc.perform(put("/api/v1/posts/{id}", postToUpdate.id())
+                        .contentType(APPLICATION_SMILE)
+                        .content(smileMapper.writeValueAsBytes(postToUpdate)))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void shouldReturnNotFoundAsSmileWhenPostDoesNotExist() throws Exception {
+        Integer idToGet = 100;
+        willThrow(new PostNotFoundException(idToGet))
+                .given(postService).getPost(idToGet);
+
+        byte[] content = mvc.perform(get("/api/v1/posts/{id}", idToGet)
+                        .accept(APPLICATION_SMILE))
+                .andExpect(status().isNotFound())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode problem = smileMapper.readTree(content);
+        assertThat(problem.get("detail").asText()).isEqualTo(POST_NOT_FOUND_EXCEPTION_MESSAGE + idToGet);
+    }
+}
@@ -0,0 +1,66 @@
+package dev.chafon.springbootrest;
+
+import dev.chafon.springbootrest.grpc.UserMessage;
+import dev.chafon.springbootrest.partition.PartitionHandoff;
+import dev.chafon.springbootrest.partition.PartitionNodes;
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.post.PostWithUser;
+import dev.chafon.springbootrest.replication.ReplicationBatch;
+import dev.chafon.springbootrest.replication.ReplicationEntry;
+import dev.chafon.springbootrest.replication.ReplicationSnapshot;
+import dev.chafon.springbootrest.support.ChangeSet;
+import dev.chafon.springbootrest.support.RankedCounts;
+import dev.chafon.springbootrest.user.User;
+import dev.chafon.springbootrest.user.UserWithPosts;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NativeHintsConfigTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    NativeHintsConfigTest() {
+        new NativeHintsConfig.ApplicationRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void shouldRegisterSeedData() {
+        assertThat(RuntimeHintsPredicates.resource().forResource("data/users.json")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("data/posts.json")).accepts(hints);
+    }
+
+    @Test
+    void shouldRegisterEntitiesForBindingAndValidation() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(User.class)
+                .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_PUBLIC_METHODS))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(Post.class)
+                .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_PUBLIC_METHODS))
+                .accepts(hints);
+    }
+
+    @Test
+    void shouldRegisterTypesSerializedOutsideControllers() {
+        for (Class<?> type : List.of(ReplicationBatch.class, ReplicationEntry.class, ReplicationSnapshot.class,
+                PartitionHandoff.class, PartitionNodes.class, ChangeSet.class, RankedCounts.Count.class,
+                PostWithUser.class, UserWithPosts.class)) {
+            assertThat(RuntimeHintsPredicates.reflection().onType(type)
+                    .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS))
+                    .as(type.getName())
+                    .accepts(hints);
+        }
+    }
+
+    @Test
+    void shouldRegisterProtobufMessages() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(UserMessage.Builder.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_METHODS))
+                .accepts(hints);
+    }
+}
@@ -0,0 +1,100 @@
+package dev.chafon.springbootrest.admission;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Overloads a simulated backend (8 workers, 2ms per request) with 256 concurrent clients and compares
+// the p99 latency of admitted requests with and without the limiter in front of it. Run with ./gradlew loadTest.
+@Tag("load")
+class ConcurrencyLimiterLoadTest {
+
+    private static final int CLIENTS = 256;
+    private static final int WORKERS = 8;
+    private static final long SERVICE_TIME_MILLIS = 2;
+    private static final Duration LATENCY_THRESHOLD = Duration.ofMillis(10);
+    private static final Duration RUN_TIME = Duration.ofSeconds(2);
+
+    @Test
+    void shouldKeepP99BoundedAndShedExcessLoadFast() throws Exception {
+        LoadResult unlimited = runLoad(null);
+        LoadResult limited = runLoad(new ConcurrencyLimiter(new ConcurrencyLimitProperties(
+                true, 20, 4, CLIENTS, LATENCY_THRESHOLD, 0.9, 0.8)));
+
+        assertThat(unlimited.rejected()).isZero();
+        assertThat(limited.rejected()).isPositive();
+        assertThat(limited.admittedP99Nanos()).isLessThan(unlimited.admittedP99Nanos() / 2);
+        assertThat(limited.admittedP99Nanos()).isLessThan(LATENCY_THRESHOLD.toNanos() * 4);
+        assertThat(limited.rejectedP99Nanos()).isLessThan(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private LoadResult runLoad(ConcurrencyLimiter limiter) throws Exception {
+        Semaphore backend = new Semaphore(WORKERS, true);
+        List<Long> admitted = Collections.synchronizedList(new ArrayList<>());
+        List<Long> rejected = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong deadline = new AtomicLong(System.nanoTime() + RUN_TIME.toNanos());
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            clients.execute(() -> {
+                while (System.nanoTime() < deadline.get()) {
+                    long start = System.nanoTime();
+                    if (limiter != null && !limiter.tryAcquire(false)) {
+                        rejected.add(System.nanoTime() - start);
+                        sleepMillis(SERVICE_TIME_MILLIS);
+                        continue;
+                    }
+                    try {
+                        backend.acquireUninterruptibly();
+                        try {
+                            sleepMillis(SERVICE_TIME_MILLIS);
+                        } finally {
+                            backend.release();
+                        }
+                    } finally {
+                        long latency = System.nanoTime() - start;
+                        if (limiter != null) {
+                            limiter.release(latency);
+                        }
+                        admitted.add(latency);
+                    }
+                }
+            });
+        }
+        clients.shutdown();
+        assertThat(clients.awaitTermination(RUN_TIME.toSeconds() + 10, TimeUnit.SECONDS)).isTrue();
+
+        return new LoadResult(p99(admitted), p99(rejected), rejected.size());
+    }
+
+    private static long p99(List<Long> latencies) {
+        if (latencies.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+    }
+
+    private static void sleepMillis(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record LoadResult(long admittedP99Nanos, long rejectedP99Nanos, int rejected) {
+    }
+}
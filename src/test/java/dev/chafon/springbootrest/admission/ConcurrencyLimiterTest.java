@@ -0,0 +1,96 @@
+package dev.chafon.springbootrest.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    void shouldRejectWhenTheLimitIsReached() {
+        ConcurrencyLimiter limiter = limiter(2);
+
+        assertThat(limiter.tryAcquire(false)).isTrue();
+        assertThat(limiter.tryAcquire(false)).isTrue();
+        assertThat(limiter.tryAcquire(false)).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldShedBulkRequestsBeforeSingleEntityRequests() {
+        ConcurrencyLimiter limiter = limiter(10);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(true)).isTrue();
+        }
+
+        assertThat(limiter.tryAcquire(true)).isFalse();
+        assertThat(limiter.tryAcquire(false)).isTrue();
+    }
+
+    @Test
+    void shouldBackOffWhenLatencyExceedsTheThreshold() {
+        ConcurrencyLimiter limiter = limiter(20);
+        limiter.tryAcquire(false);
+
+        limiter.release(SLOW);
+
+        assertThat(limiter.getLimit()).isEqualTo(18);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldNotBackOffBelowTheMinimumLimit() {
+        ConcurrencyLimiter limiter = limiter(2);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire(false);
+            limiter.release(SLOW);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldGrowByAboutOnePerWindowWhenTheLimitIsUsedAndLatencyIsLow() {
+        ConcurrencyLimiter limiter = limiter(4);
+        limiter.tryAcquire(false);
+        limiter.tryAcquire(false);
+        limiter.tryAcquire(false);
+
+        limiter.release(FAST);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire(false);
+            limiter.release(FAST);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(5);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire(false);
+            limiter.release(FAST);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(6);
+    }
+
+    @Test
+    void shouldNotGrowWhenTheLimitIsMostlyUnused() {
+        ConcurrencyLimiter limiter = limiter(10);
+        limiter.tryAcquire(false);
+
+        limiter.release(FAST);
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    private static ConcurrencyLimiter limiter(int initialLimit) {
+        return new ConcurrencyLimiter(new ConcurrencyLimitProperties(
+                true, initialLimit, 2, 100, Duration.ofMillis(100), 0.9, 0.5));
+    }
+}
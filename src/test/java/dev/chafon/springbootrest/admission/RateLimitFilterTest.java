@@ -0,0 +1,81 @@
+package dev.chafon.springbootrest.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Set;
+
+import static dev.chafon.springbootrest.Constants.RATE_LIMIT_EXCEEDED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties(true, 10, 1, 5, 100, Set.of("service-a"));
+        filter = new RateLimitFilter(new RateLimiter(properties), properties, new ObjectMapper());
+    }
+
+    @Test
+    void shouldPassRequestsWithinTheLimit() throws Exception {
+        MockHttpServletResponse response = perform("GET", "/api/v1/posts/1", null);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void shouldRejectWithTooManyRequestsAndRetryAfterWhenCollectionReadsExhaustTheBucket() throws Exception {
+        assertThat(perform("GET", "/api/v1/posts", null).getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(perform("GET", "/api/v1/users/1/posts", null).getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        MockHttpServletResponse response = perform("GET", "/api/v1/users", null);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("5");
+        assertThat(response.getContentAsString()).contains(RATE_LIMIT_EXCEEDED);
+    }
+
+    @Test
+    void shouldChargeSingleEntityRequestsOneToken() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertThat(perform("PUT", "/api/v1/posts", null).getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+
+        assertThat(perform("GET", "/api/v1/posts/1", null).getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    @Test
+    void shouldKeyClientsByApiKeyBeforeAddress() throws Exception {
+        perform("GET", "/api/v1/posts", null);
+        perform("GET", "/api/v1/posts", null);
+
+        assertThat(perform("GET", "/api/v1/posts", null).getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(perform("GET", "/api/v1/posts", "service-a").getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void shouldChargeUnknownApiKeysToTheAddress() throws Exception {
+        perform("GET", "/api/v1/posts", "made-up-1");
+        perform("GET", "/api/v1/posts", "made-up-2");
+
+        assertThat(perform("GET", "/api/v1/posts", "made-up-3").getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    private MockHttpServletResponse perform(String method, String uri, String apiKey) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (apiKey != null) {
+            request.addHeader(RateLimitFilter.API_KEY_HEADER, apiKey);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,88 @@
+package dev.chafon.springbootrest.admission;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new RateLimiter(new RateLimitProperties(true, 10, 5, 4, 2, Set.of()), clock::get);
+    }
+
+    @Test
+    void shouldAdmitRequestsUpToTheCapacity() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(rateLimiter.tryAcquire("client", 1)).isZero();
+        }
+
+        assertThat(rateLimiter.tryAcquire("client", 1)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    void shouldRefillTokensOverTime() {
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.tryAcquire("client", 1);
+        }
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(400));
+
+        assertThat(rateLimiter.tryAcquire("client", 1)).isZero();
+        assertThat(rateLimiter.tryAcquire("client", 1)).isZero();
+        assertThat(rateLimiter.tryAcquire("client", 1)).isPositive();
+    }
+
+    @Test
+    void shouldChargeExpensiveRequestsMore() {
+        assertThat(rateLimiter.tryAcquire("client", 4)).isZero();
+        assertThat(rateLimiter.tryAcquire("client", 4)).isZero();
+
+        assertThat(rateLimiter.tryAcquire("client", 4)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(400));
+        assertThat(rateLimiter.tryAcquire("client", 1)).isZero();
+    }
+
+    @Test
+    void shouldKeepClientsIndependent() {
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.tryAcquire("client-1", 1);
+        }
+
+        assertThat(rateLimiter.tryAcquire("client-1", 1)).isPositive();
+        assertThat(rateLimiter.tryAcquire("client-2", 1)).isZero();
+    }
+
+    @Test
+    void shouldEvictRefilledBucketsWhenTheClientBoundIsReached() {
+        rateLimiter.tryAcquire("client-1", 1);
+        rateLimiter.tryAcquire("client-2", 1);
+        assertThat(rateLimiter.trackedClients()).isEqualTo(2);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        rateLimiter.tryAcquire("client-3", 1);
+
+        assertThat(rateLimiter.trackedClients()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldShareTheOverflowBucketWhenAllTrackedClientsAreActive() {
+        rateLimiter.tryAcquire("client-1", 10);
+        rateLimiter.tryAcquire("client-2", 10);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(rateLimiter.tryAcquire("client-" + (i + 3), 1)).isZero();
+        }
+
+        assertThat(rateLimiter.tryAcquire("client-13", 1)).isPositive();
+        assertThat(rateLimiter.trackedClients()).isEqualTo(2);
+    }
+}
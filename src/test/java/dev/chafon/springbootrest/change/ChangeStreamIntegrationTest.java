@@ -0,0 +1,62 @@
+package dev.chafon.springbootrest.change;
+
+import dev.chafon.springbootrest.post.Post;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@DirtiesContext
+class ChangeStreamIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void shouldStreamCreatedPost() throws Exception {
+        HttpResponse<Stream<String>> stream = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/changes"))
+                        .header("Accept", "text/event-stream")
+                        .build(),
+                HttpResponse.BodyHandlers.ofLines());
+        assertThat(stream.statusCode()).isEqualTo(HttpStatus.OK.value());
+
+        ResponseEntity<Void> created = restTemplate.postForEntity("/api/v1/posts",
+                new Post(null, 1, "Title", "Body"), Void.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        Iterator<String> lines = stream.body().iterator();
+        String event = CompletableFuture.supplyAsync(() -> {
+            StringBuilder builder = new StringBuilder();
+            for (String line = lines.next(); !line.isEmpty(); line = lines.next()) {
+                builder.append(line).append('\n');
+            }
+            return builder.toString();
+        }).get(5, TimeUnit.SECONDS);
+        stream.body().close();
+
+        assertThat(event)
+                .contains("event:post.created")
+                .contains("\"title\":\"Title\"");
+    }
+}
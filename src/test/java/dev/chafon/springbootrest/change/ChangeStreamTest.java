@@ -0,0 +1,216 @@
+package dev.chafon.springbootrest.change;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chafon.springbootrest.post.InMemoryPostRepository;
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.support.ChangeListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChangeStreamTest {
+
+    private final List<ChangeStream> streams = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        streams.forEach(ChangeStream::close);
+    }
+
+    @Test
+    void shouldPublishCreateUpdateAndDeleteEvents() throws Exception {
+        ChangeStream changeStream = changeStream(100, 100);
+        InMemoryPostRepository repository = new InMemoryPostRepository();
+        repository.addChangeListener(changeStream.listener("post"));
+        RecordingSink sink = new RecordingSink();
+        changeStream.subscribe(sink, null);
+
+        Post post = repository.save(new Post(null, 1, "Title", "Body"));
+        repository.save(new Post(post.id(), 1, "New title", "Body"));
+        repository.deleteById(post.id());
+
+        List<String> events = sink.take(3);
+        assertThat(events.get(0)).startsWith(
+                "1 post.created {\"id\":1,\"userId\":1,\"title\":\"Title\",\"body\":\"Body\",\"version\":1,");
+        assertThat(events.get(1)).startsWith(
+                "2 post.updated {\"id\":1,\"userId\":1,\"title\":\"New title\",\"body\":\"Body\",\"version\":2,");
+        assertThat(events.get(2)).startsWith(
+                "3 post.deleted {\"id\":1,\"userId\":1,\"title\":\"New title\",\"body\":\"Body\",\"version\":2,");
+    }
+
+    @Test
+    void shouldNotPublishWritesThatWereAborted() throws Exception {
+        ChangeStream changeStream = changeStream(100, 100);
+        InMemoryPostRepository repository = new InMemoryPostRepository();
+        repository.addChangeListener(changeStream.listener("post"));
+        repository.addChangeListener(new ChangeListener<>() {
+            @Override
+            public void onSaved(Post previous, Post saved) {
+                if (saved.title().equals("Rejected")) {
+                    throw new IllegalStateException("rejected");
+                }
+            }
+
+            @Override
+            public void onDeleted(Post deleted) {
+            }
+        });
+        RecordingSink sink = new RecordingSink();
+        changeStream.subscribe(sink, null);
+
+        assertThatThrownBy(() -> repository.save(new Post(null, 1, "Rejected", "Body")))
+                .isInstanceOf(IllegalStateException.class);
+        repository.save(new Post(null, 1, "Title", "Body"));
+
+        assertThat(sink.take(1)).singleElement().asString().startsWith(
+                "1 post.created {\"id\":2,\"userId\":1,\"title\":\"Title\",");
+    }
+
+    @Test
+    void shouldResumeAfterLastEventId() throws Exception {
+        ChangeStream changeStream = changeStream(100, 100);
+        for (int i = 0; i < 5; i++) {
+            changeStream.publish("post.created", i);
+        }
+        RecordingSink sink = new RecordingSink();
+
+        changeStream.subscribe(sink, 3L);
+        changeStream.publish("post.created", 5);
+
+        assertThat(sink.take(3)).containsExactly("4 post.created 3", "5 post.created 4", "6 post.created 5");
+    }
+
+    @Test
+    void shouldSendResetWhenLastEventIdIsNoLongerBuffered() throws Exception {
+        ChangeStream changeStream = changeStream(4, 100);
+        for (int i = 0; i < 10; i++) {
+            changeStream.publish("post.created", i);
+        }
+        RecordingSink sink = new RecordingSink();
+
+        changeStream.subscribe(sink, 2L);
+        changeStream.publish("post.created", 10);
+
+        assertThat(sink.take(2)).containsExactly("10 reset", "11 post.created 10");
+    }
+
+    @Test
+    void shouldDisconnectSubscriberThatFallsBehind() throws Exception {
+        ChangeStream changeStream = changeStream(1000, 10);
+        RecordingSink fastSink = new RecordingSink();
+        BlockingSink slowSink = new BlockingSink();
+        changeStream.subscribe(fastSink, null);
+        changeStream.subscribe(slowSink, null);
+
+        changeStream.publish("post.created", 0);
+        assertThat(slowSink.sending.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(fastSink.take(1)).containsExactly("1 post.created 0");
+        for (int i = 1; i < 50; i++) {
+            changeStream.publish("post.created", i);
+            assertThat(fastSink.take(1)).containsExactly((i + 1) + " post.created " + i);
+        }
+        slowSink.release.countDown();
+
+        assertThat(slowSink.closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(changeStream.getSubscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDeliverToThousandsOfSubscribers() throws Exception {
+        ChangeStream changeStream = changeStream(100, 100);
+        List<RecordingSink> sinks = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            RecordingSink sink = new RecordingSink();
+            sinks.add(sink);
+            changeStream.subscribe(sink, null);
+        }
+
+        changeStream.publish("user.created", 1);
+
+        for (RecordingSink sink : sinks) {
+            assertThat(sink.take(1)).containsExactly("1 user.created 1");
+        }
+    }
+
+    private ChangeStream changeStream(int bufferSize, int maxSubscriberLag) {
+        ChangeStream changeStream = new ChangeStream(new ObjectMapper().findAndRegisterModules(),
+                new ChangeStreamProperties(bufferSize, maxSubscriberLag, 10, Duration.ofHours(1)));
+        streams.add(changeStream);
+        return changeStream;
+    }
+
+    private static class RecordingSink implements ChangeSink {
+
+        private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(ChangeEvent event) {
+            received.add(event.sequence() + " " + event.type() + " " + event.data());
+        }
+
+        @Override
+        public void reset(long sequence) {
+            received.add(sequence + " reset");
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        List<String> take(int count) throws InterruptedException {
+            List<String> events = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String event = received.poll(5, TimeUnit.SECONDS);
+                assertThat(event).as("event %d of %d", i + 1, count).isNotNull();
+                events.add(event);
+            }
+            return events;
+        }
+    }
+
+    private static class BlockingSink implements ChangeSink {
+
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void send(ChangeEvent event) throws IOException {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            }
+        }
+
+        @Override
+        public void reset(long sequence) {
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+}
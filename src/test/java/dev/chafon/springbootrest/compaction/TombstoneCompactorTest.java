@@ -0,0 +1,38 @@
+package dev.chafon.springbootrest.compaction;
+
+import dev.chafon.springbootrest.support.ShardedStore;
+import dev.chafon.springbootrest.support.VersionClock;
+import dev.chafon.springbootrest.user.InMemoryUserRepository;
+import dev.chafon.springbootrest.user.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TombstoneCompactorTest {
+
+    private final InMemoryUserRepository repository = new InMemoryUserRepository(ShardedStore.DEFAULT_SHARDS, new VersionClock(0));
+
+    @Test
+    void shouldReclaimTombstonesOutsideRetentionAFewPerPass() {
+        TombstoneCompactor compactor = new TombstoneCompactor("users", repository,
+                new CompactionProperties(true, 2, Duration.ofHours(1), 2));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        compactor.bindTo(registry);
+        for (int i = 1; i <= 4; i++) {
+            User user = repository.save(new User(null, "User " + i, "user" + i, "user" + i + "@mail.com"));
+            if (i > 1) {
+                repository.deleteById(user.id());
+            }
+        }
+
+        assertThat(registry.get("repository.entries.live.ratio").tag("store", "users").gauge().value()).isEqualTo(0.25);
+        assertThat(compactor.compact()).isEqualTo(2);
+        assertThat(compactor.compact()).isZero();
+        assertThat(repository.tombstoneCount()).isEqualTo(1);
+        assertThat(registry.get("repository.entries.tombstones").tag("store", "users").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("repository.tombstones.reclaimed").tag("store", "users").counter().count()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,143 @@
+package dev.chafon.springbootrest.expiry;
+
+import dev.chafon.springbootrest.post.InMemoryPostRepository;
+import dev.chafon.springbootrest.post.Post;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostExpirerTest {
+
+    private final InMemoryPostRepository repository = new InMemoryPostRepository();
+    private final MovableClock clock = new MovableClock(Instant.now());
+
+    @Test
+    void expire_shouldDeletePostsWhoseExpiryPassed() {
+        PostExpirer expirer = expirer(null, Duration.ofSeconds(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        expirer.bindTo(registry);
+        Post soon = repository.save(post(1, clock.instant().plusSeconds(5)));
+        Post later = repository.save(post(1, clock.instant().plusSeconds(60)));
+        Post kept = repository.save(post(2, null));
+
+        clock.move(Duration.ofSeconds(4));
+        assertThat(expirer.expire()).isZero();
+
+        clock.move(Duration.ofSeconds(2));
+        assertThat(expirer.expire()).isEqualTo(1);
+        assertThat(repository.findById(soon.id())).isEmpty();
+        assertThat(repository.countByUserId(1)).isEqualTo(1);
+        assertThat(registry.get("posts.expired.rate").gauge().value()).isEqualTo(1.0);
+
+        clock.move(Duration.ofMinutes(2));
+        assertThat(expirer.expire()).isEqualTo(1);
+        assertThat(repository.findAll()).containsExactly(kept);
+        assertThat(repository.findById(later.id())).isEmpty();
+        assertThat(registry.get("posts.expired").counter().count()).isEqualTo(2);
+        assertThat(registry.get("posts.expiry.scheduled").gauge().value()).isZero();
+    }
+
+    @Test
+    void expire_shouldFollowTheExpiryOfUpdatedPosts() {
+        PostExpirer expirer = expirer(null, Duration.ofSeconds(1));
+        Post extended = repository.save(post(1, clock.instant().plusSeconds(5)));
+        Post cleared = repository.save(post(1, clock.instant().plusSeconds(5)));
+
+        repository.update(extended.id(), post -> post(1, clock.instant().plusSeconds(30)));
+        repository.update(cleared.id(), post -> post(1, null));
+
+        clock.move(Duration.ofSeconds(10));
+        assertThat(expirer.expire()).isZero();
+        assertThat(repository.findAll()).hasSize(2);
+
+        clock.move(Duration.ofSeconds(30));
+        assertThat(expirer.expire()).isEqualTo(1);
+        assertThat(repository.findById(extended.id())).isEmpty();
+        assertThat(repository.findById(cleared.id())).isPresent();
+    }
+
+    @Test
+    void start_shouldScheduleStoredPostsAgainstTheRetention() {
+        PostExpirer expirer = expirer(Duration.ofHours(1), Duration.ofMinutes(1));
+        Instant now = clock.instant();
+        repository.restore(new Post(1, 1, "Title", "Body", 1L, now.minus(Duration.ofHours(2)), null, null));
+        repository.restore(new Post(2, 1, "Title", "Body", 1L, now.minus(Duration.ofMinutes(30)), null, null));
+
+        expirer.start();
+        try {
+            clock.move(Duration.ofMinutes(1));
+            assertThat(expirer.expire()).isEqualTo(1);
+            assertThat(repository.findById(1)).isEmpty();
+
+            clock.move(Duration.ofMinutes(30));
+            assertThat(expirer.expire()).isEqualTo(1);
+            assertThat(repository.findAll()).isEmpty();
+        } finally {
+            expirer.stop();
+        }
+    }
+
+    @Test
+    void expire_shouldFollowPostsRestoredAndEvictedAfterStart() {
+        PostExpirer expirer = expirer(null, Duration.ofMinutes(1));
+        expirer.start();
+        try {
+            Instant now = clock.instant();
+            repository.restore(new Post(1, 1, "Title", "Body", 1L, now, null, now.plus(Duration.ofMinutes(5))));
+            repository.restore(new Post(2, 1, "Title", "Body", 1L, now, null, now.plus(Duration.ofMinutes(5))));
+            repository.evict(2);
+
+            clock.move(Duration.ofMinutes(6));
+            assertThat(expirer.expire()).isEqualTo(1);
+            assertThat(repository.findById(1)).isEmpty();
+            assertThat(expirer.scheduledCount()).isZero();
+        } finally {
+            expirer.stop();
+        }
+    }
+
+    private PostExpirer expirer(Duration retention, Duration tick) {
+        PostExpirer expirer = new PostExpirer(repository, new ExpiryProperties(true, retention, tick), clock);
+        repository.addChangeListener(expirer);
+        return expirer;
+    }
+
+    private static Post post(Integer userId, Instant expiresAt) {
+        return new Post(null, userId, "Title", "Body", null, null, null, expiresAt);
+    }
+
+    private static final class MovableClock extends Clock {
+
+        private Instant instant;
+
+        private MovableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void move(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package dev.chafon.springbootrest.grpc;
+
+import com.google.protobuf.Empty;
+import dev.chafon.springbootrest.post.InMemoryPostRepository;
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.post.PostService;
+import dev.chafon.springbootrest.user.InMemoryUserRepository;
+import dev.chafon.springbootrest.user.UserLoader;
+import dev.chafon.springbootrest.user.UserService;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static dev.chafon.springbootrest.Constants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GrpcServicesTest {
+
+    private Server server;
+    private ManagedChannel channel;
+    private UsersGrpc.UsersBlockingStub users;
+    private PostsGrpc.PostsBlockingStub posts;
+    private InMemoryPostRepository postRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        InMemoryUserRepository userRepository = new InMemoryUserRepository();
+        postRepository = new InMemoryPostRepository();
+        PostService postService = new PostService(postRepository, new UserLoader(userRepository));
+        UserService userService = new UserService(userRepository, postService);
+
+        String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+                .directExecutor()
+                .addService(new UserGrpcService(userService))
+                .addService(new PostGrpcService(postService))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(serverName)
+                .directExecutor()
+                .build();
+        users = UsersGrpc.newBlockingStub(channel);
+        posts = PostsGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldCreateAndGetUser() {
+        UserMessage created = users.createUser(aUser("johnD"));
+
+        assertThat(created.hasId()).isTrue();
+
+        UserMessage found = users.getUser(IdRequest.newBuilder().setId(created.getId()).build());
+        assertThat(found).isEqualTo(created);
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenUserDoesNotExist() {
+        assertThatThrownBy(() -> users.getUser(IdRequest.newBuilder().setId(99).build()))
+                .isInstanceOfSatisfying(StatusRuntimeException.class, ex -> {
+                    assertThat(ex.getStatus().getCode()).isEqualTo(Status.Code.NOT_FOUND);
+                    assertThat(ex.getStatus().getDescription()).isEqualTo(USER_NOT_FOUND_EXCEPTION_MESSAGE + 99);
+                });
+    }
+
+    @Test
+    void shouldReturnAlreadyExistsWhenUsernameIsTaken() {
+        users.createUser(aUser("johnD"));
+
+        assertThatThrownBy(() -> users.createUser(aUser("johnD")))
+                .isInstanceOfSatisfying(StatusRuntimeException.class, ex ->
+                        assertThat(ex.getStatus().getCode()).isEqualTo(Status.Code.ALREADY_EXISTS));
+    }
+
+    @Test
+    void shouldReturnInvalidArgumentWhenUserIsInvalid() {
+        assertThatThrownBy(() -> users.createUser(UserMessage.newBuilder().setEmail("invalid").build()))
+                .isInstanceOfSatisfying(StatusRuntimeException.class, ex -> {
+                    assertThat(ex.getStatus().getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+                    assertThat(ex.getStatus().getDescription())
+                            .contains(NAME_CANNOT_BE_BLANK)
+                            .contains(USERNAME_CANNOT_BE_BLANK)
+                            .contains(EMAIL_MUST_BE_VALID);
+                });
+    }
+
+    @Test
+    void shouldUpdateAndDeleteUser() {
+        UserMessage created = users.createUser(aUser("johnD"));
+
+        users.updateUser(UpdateUserRequest.newBuilder()
+                .setId(created.getId())
+                .setUser(UserMessage.newBuilder()
+                        .setName("Johnny Doe")
+                        .setUsername("ignored")
+                        .setEmail("johnny.doe@mail.com"))
+                .build());
+
+        UserMessage updated = users.getUser(IdRequest.newBuilder().setId(created.getId()).build());
+        assertThat(updated.getName()).isEqualTo("Johnny Doe");
+        assertThat(updated.getUsername()).isEqualTo("johnD");
+
+        users.deleteUser(IdRequest.newBuilder().setId(created.getId()).build());
+
+        assertThatThrownBy(() -> users.getUser(IdRequest.newBuilder().setId(created.getId()).build()))
+                .isInstanceOfSatisfying(StatusRuntimeException.class, ex ->
+                        assertThat(ex.getStatus().getCode()).isEqualTo(Status.Code.NOT_FOUND));
+    }
+
+    @Test
+    void shouldStreamUsersPostsAndUserPosts() {
+        UserMessage john = users.createUser(aUser("johnD"));
+        UserMessage jane = users.createUser(aUser("janeD"));
+        PostMessage johnPost = posts.createPost(aPost(john.getId(), "John's post"));
+        PostMessage janePost = posts.createPost(aPost(jane.getId(), "Jane's post"));
+
+        List<UserMessage> allUsers = streamToList(users.listUsers(Empty.getDefaultInstance()));
+        assertThat(allUsers).containsExactlyInAnyOrder(john, jane);
+
+        List<PostMessage> allPosts = streamToList(posts.listPosts(Empty.getDefaultInstance()));
+        assertThat(allPosts).containsExactlyInAnyOrder(johnPost, janePost);
+
+        List<PostMessage> userPosts = streamToList(users.listUserPosts(IdRequest.newBuilder().setId(jane.getId()).build()));
+        assertThat(userPosts).containsExactly(janePost);
+    }
+
+    @Test
+    void shouldStreamMorePostsThanTheClientRequestsAtOnce() {
+        for (int i = 0; i < 500; i++) {
+            posts.createPost(aPost(1, "Post " + i));
+        }
+
+        assertThat(streamToList(posts.listPosts(Empty.getDefaultInstance()))).hasSize(500);
+    }
+
+    @Test
+    void shouldCloseTheStreamWithAnErrorWhenAnElementCannotBeSent() {
+        posts.createPost(aPost(1, "Title"));
+        postRepository.restore(new Post(99, 1, null, "Body"));
+
+        assertThatThrownBy(() -> streamToList(posts.listPosts(Empty.getDefaultInstance())))
+                .isInstanceOfSatisfying(StatusRuntimeException.class, ex ->
+                        assertThat(ex.getStatus().getCode()).isEqualTo(Status.Code.INTERNAL));
+    }
+
+    @Test
+    void shouldUpdateAndDeletePost() {
+        PostMessage created = posts.createPost(aPost(1, "Title"));
+
+        posts.updatePost(UpdatePostRequest.newBuilder()
+                .setId(created.getId())
+                .setPost(aPost(1, "New title"))
+                .build());
+
+        assertThat(posts.getPost(IdRequest.newBuilder().setId(created.getId()).build()).getTitle())
+                .isEqualTo("New title");
+
+        posts.deletePost(IdRequest.newBuilder().setId(created.getId()).build());
+
+        assertThatThrownBy(() -> posts.getPost(IdRequest.newBuilder().setId(created.getId()).build()))
+                .isInstanceOfSatisfying(StatusRuntimeException.class, ex -> {
+                    assertThat(ex.getStatus().getCode()).isEqualTo(Status.Code.NOT_FOUND);
+                    assertThat(ex.getStatus().getDescription()).isEqualTo(POST_NOT_FOUND_EXCEPTION_MESSAGE + created.getId());
+                });
+    }
+
+    @Test
+    void shouldReturnInvalidArgumentWhenPostIsInvalid() {
+        assertThatThrownBy(() -> posts.createPost(PostMessage.getDefaultInstance()))
+                .isInstanceOfSatisfying(StatusRuntimeException.class, ex -> {
+                    assertThat(ex.getStatus().getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+                    assertThat(ex.getStatus().getDescription())
+                            .contains(POST_USER_CANNOT_BE_NULL)
+                            .contains(POST_TITLE_CANNOT_BE_BLANK)
+                            .contains(POST_BODY_CANNOT_BE_BLANK);
+                });
+    }
+
+    private static UserMessage aUser(String username) {
+        return UserMessage.newBuilder()
+                .setName("Name of " + username)
+                .setUsername(username)
+                .setEmail(username + "@mail.com")
+                .build();
+    }
+
+    private static PostMessage aPost(int userId, String title) {
+        return PostMessage.newBuilder()
+                .setUserId(userId)
+                .setTitle(title)
+                .setBody("Body of " + title)
+                .build();
+    }
+
+    private static <T> List<T> streamToList(Iterator<T> iterator) {
+        List<T> elements = new ArrayList<>();
+        iterator.forEachRemaining(elements::add);
+        return elements;
+    }
+}
@@ -0,0 +1,313 @@
+package dev.chafon.springbootrest.partition;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import dev.chafon.springbootrest.Application;
+import dev.chafon.springbootrest.post.PostRepository;
+import dev.chafon.springbootrest.support.MultiGet;
+import dev.chafon.springbootrest.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs two partitioned nodes on localhost, writes through both, then adds a third node and
+// rebalances, checking every user and post stays reachable through any node.
+class PartitionIntegrationTest {
+
+    private static final int USERS = 30;
+    private static final int POSTS_PER_USER = 2;
+    private static final int WRITERS = 4;
+    private static final String SECRET = "cluster-secret";
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.reversed().forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void shouldRouteRequestsAndRebalanceOntoAddedNode() throws Exception {
+        List<String> cluster = List.of(freeNode(), freeNode(), freeNode());
+        List<String> initial = cluster.subList(0, 2);
+        start(cluster.get(0), initial);
+        start(cluster.get(1), initial);
+
+        List<String> userPaths = new ArrayList<>();
+        List<String> postPaths = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            String userPath = path(send(initial.get(i % 2), "POST", "/api/v1/users", """
+                    {"name":"User %1$d","username":"user%1$d","email":"user%1$d@mail.com"}""".formatted(i), 201));
+            userPaths.add(userPath);
+            int userId = Integer.parseInt(userPath.substring(userPath.lastIndexOf('/') + 1));
+            for (int j = 0; j < POSTS_PER_USER; j++) {
+                postPaths.add(path(send(initial.get((i + 1) % 2), "POST", "/api/v1/posts", """
+                        {"userId":%d,"title":"Title %d","body":"Body"}""".formatted(userId, j), 201)));
+            }
+        }
+        assertThat(localUsers(0)).isPositive();
+        assertThat(localUsers(1)).isPositive();
+        assertThat(localUsers(0) + localUsers(1)).isEqualTo(USERS);
+
+        String users = get(initial.get(0), "/api/v1/users");
+        assertThat(get(initial.get(1), "/api/v1/users")).isEqualTo(users);
+        assertThat(ids(users)).hasSize(USERS).isSorted();
+        assertThat(ids(get(initial.get(1), "/api/v1/posts"))).hasSize(USERS * POSTS_PER_USER).isSorted();
+
+        List<Integer> userIds = ids(users);
+        HttpResponse<String> lookup = httpClient.send(HttpRequest.newBuilder(URI.create(initial.get(0)
+                        + "/api/v1/users?ids=" + userIds.get(5) + ",999999," + userIds.get(0))).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(ids(lookup.body())).containsExactly(userIds.get(5), userIds.get(0));
+        assertThat(lookup.headers().firstValue(MultiGet.MISSING_IDS_HEADER)).contains("999999");
+
+        JsonNode topUsers = objectMapper.readTree(get(initial.get(0), "/api/v1/posts/counts-by-user?top=3"));
+        assertThat(topUsers).hasSize(3).allSatisfy(count -> assertThat(count.get("count").asInt()).isEqualTo(POSTS_PER_USER));
+        assertThat(get(initial.get(1), "/api/v1/posts/counts-by-user?top=3")).isEqualTo(topUsers.toString());
+        assertThat(get(initial.get(0), "/api/v1/users/counts-by-email-domain"))
+                .isEqualTo("[{\"key\":\"mail.com\",\"count\":%d}]".formatted(USERS));
+        assertThat(get(initial.get(1), "/api/v1/users/counts-by-email-domain/mail.com")).isEqualTo(String.valueOf(USERS));
+
+        HttpResponse<byte[]> cborUsers = httpClient.send(HttpRequest.newBuilder(URI.create(initial.get(1) + "/api/v1/users"))
+                        .header("Accept", "application/cbor")
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(cborUsers.headers().firstValue("Content-Type")).contains("application/cbor");
+        assertThat(new ObjectMapper(new CBORFactory()).readTree(cborUsers.body()).toString()).isEqualTo(users);
+
+        // commit sequences belong to one node
+        send(initial.get(0), "GET", "/api/v1/users?asOf=1", null, 400);
+        send(initial.get(0), "GET", "/api/v1/posts/changes?since=0", null, 501);
+
+        start(cluster.get(2), cluster);
+        String ring = objectMapper.writeValueAsString(new PartitionNodes(cluster.stream().map(URI::create).toList()));
+        send(cluster.get(0), "PUT", "/partition/ring", ring, 403);
+        send(cluster.get(0), "PUT", "/partition/ring", ring, 204, PartitionController.SECRET_HEADER, SECRET);
+
+        assertThat(localUsers(2)).isPositive();
+        assertThat(localUsers(0) + localUsers(1) + localUsers(2)).isEqualTo(USERS);
+        assertThat(nodes.stream().mapToInt(node -> node.getBean(PostRepository.class).findAll().size()).sum())
+                .isEqualTo(USERS * POSTS_PER_USER);
+        for (String node : cluster) {
+            assertThat(get(node, "/api/v1/users")).isEqualTo(users);
+            for (String userPath : userPaths) {
+                assertThat(ids(get(node, userPath + "/posts"))).hasSize(POSTS_PER_USER);
+            }
+            for (String postPath : postPaths) {
+                send(node, "GET", postPath, null, 200);
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectMovingPostToUserOnAnotherSlot() throws Exception {
+        String node = freeNode();
+        start(node, List.of(node));
+
+        String first = path(send(node, "POST", "/api/v1/users", """
+                {"name":"First","username":"first","email":"first@mail.com"}""", 201));
+        String second = path(send(node, "POST", "/api/v1/users", """
+                {"name":"Second","username":"second","email":"second@mail.com"}""", 201));
+        int firstId = Integer.parseInt(first.substring(first.lastIndexOf('/') + 1));
+        int secondId = Integer.parseInt(second.substring(second.lastIndexOf('/') + 1));
+        assertThat(PartitionRing.slotOf(firstId)).isNotEqualTo(PartitionRing.slotOf(secondId));
+
+        String post = path(send(node, "POST", "/api/v1/posts", """
+                {"userId":%d,"title":"Title","body":"Body"}""".formatted(firstId), 201));
+
+        send(node, "PUT", post, """
+                {"userId":%d,"title":"Title","body":"Body"}""".formatted(secondId), 409);
+
+        byte[] cborBody = new ObjectMapper(new CBORFactory()).writeValueAsBytes(
+                Map.of("userId", secondId, "title", "Title", "body", "Body"));
+        HttpResponse<String> cborMove = httpClient.send(HttpRequest.newBuilder(URI.create(node + post))
+                        .header("Content-Type", "application/cbor")
+                        .PUT(HttpRequest.BodyPublishers.ofByteArray(cborBody))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(cborMove.statusCode()).isEqualTo(409);
+    }
+
+    @Test
+    void shouldOnlyImportValidHandoffsWithTheSecret() throws Exception {
+        String node = freeNode();
+        start(node, List.of(node));
+
+        String handoff = """
+                {"users":[{"id":5,"name":"User","username":"user","email":"user@mail.com"}],"posts":[]}""";
+        send(node, "POST", "/partition/import", handoff, 403);
+        send(node, "POST", "/partition/import", handoff, 403, PartitionController.SECRET_HEADER, "wrong");
+        send(node, "POST", "/partition/import", """
+                {"users":[{"id":5,"name":"User","username":"user","email":"invalid"}],"posts":[]}""",
+                400, PartitionController.SECRET_HEADER, SECRET);
+        send(node, "POST", "/partition/import", """
+                {"users":[],"posts":[{"userId":5,"title":"Title","body":"Body"}]}""",
+                400, PartitionController.SECRET_HEADER, SECRET);
+        assertThat(localUsers(0)).isZero();
+
+        send(node, "POST", "/partition/import", handoff, 200, PartitionController.SECRET_HEADER, SECRET);
+        assertThat(localUsers(0)).isEqualTo(1);
+        // a different user under an id that is taken is refused, not saved over it
+        assertThat(post(node, "/partition/import", """
+                {"users":[{"id":5,"name":"Other","username":"other","email":"other@mail.com"}],"posts":[]}""",
+                PartitionController.SECRET_HEADER, SECRET).body()).contains("\"refusedUserIds\":[5]");
+        assertThat(get(node, "/api/v1/users/5")).contains("\"username\":\"user\"");
+
+        // a client cannot mark its own request as forwarded to skip routing
+        HttpResponse<String> spoofed = httpClient.send(HttpRequest.newBuilder(URI.create(node + "/api/v1/users/changes?since=0"))
+                        .header(PartitionForwarder.FORWARDED_HEADER, "true")
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(spoofed.statusCode()).isEqualTo(501);
+    }
+
+    @Test
+    void shouldKeepEveryWriteMadeWhileRebalancing() throws Exception {
+        List<String> cluster = List.of(freeNode(), freeNode(), freeNode());
+        List<String> initial = cluster.subList(0, 2);
+        start(cluster.get(0), initial);
+        start(cluster.get(1), initial);
+        start(cluster.get(2), cluster);
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        List<Future<Map<String, String>>> writers = new ArrayList<>();
+        for (int writer = 0; writer < WRITERS; writer++) {
+            int writerNumber = writer;
+            writers.add(executor.submit(() -> {
+                // path of every user and post created, to the name or title it was created with
+                Map<String, String> written = new HashMap<>();
+                for (int i = 0; writing.get() || i < 20; i++) {
+                    String username = "writer" + writerNumber + "user" + i;
+                    String userPath = create(initial.get(i % 2), "/api/v1/users", """
+                            {"name":"%1$s","username":"%1$s","email":"%1$s@mail.com"}""".formatted(username));
+                    written.put(userPath, username);
+                    String title = username + "post";
+                    written.put(create(initial.get((i + 1) % 2), "/api/v1/posts", """
+                            {"userId":%s,"title":"%s","body":"Body"}""".formatted(
+                            userPath.substring(userPath.lastIndexOf('/') + 1), title)), title);
+                }
+                return written;
+            }));
+        }
+
+        Thread.sleep(200);
+        String ring = objectMapper.writeValueAsString(new PartitionNodes(cluster.stream().map(URI::create).toList()));
+        send(cluster.get(0), "PUT", "/partition/ring", ring, 204, PartitionController.SECRET_HEADER, SECRET);
+        writing.set(false);
+        Map<String, String> written = new HashMap<>();
+        for (Future<Map<String, String>> writer : writers) {
+            written.putAll(writer.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertThat(localUsers(2)).isPositive();
+        assertThat(localUsers(0) + localUsers(1) + localUsers(2)).isEqualTo(written.size() / 2);
+        for (Map.Entry<String, String> entity : written.entrySet()) {
+            assertThat(get(cluster.get(2), entity.getKey())).contains("\"" + entity.getValue() + "\"");
+        }
+    }
+
+    // every request of the test comes from one address, so its bucket is made big enough for all of them
+    private void start(String node, List<String> cluster) {
+        ConfigurableApplicationContext context = SpringApplication.run(Application.class,
+                "--server.port=" + URI.create(node).getPort(), "--grpc.server.port=0",
+                "--admission.rate-limit.capacity=100000", "--spring.jmx.enabled=false",
+                "--partition.enabled=true", "--partition.self=" + node,
+                "--partition.nodes=" + String.join(",", cluster), "--partition.secret=" + SECRET);
+        nodes.add(context);
+    }
+
+    private int localUsers(int node) {
+        return nodes.get(node).getBean(UserRepository.class).findAll().size();
+    }
+
+    private static String freeNode() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return "http://localhost:" + socket.getLocalPort();
+        }
+    }
+
+    private static String path(String location) {
+        return URI.create(location).getPath();
+    }
+
+    private List<Integer> ids(String json) throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        for (JsonNode entity : objectMapper.readTree(json)) {
+            ids.add(entity.get("id").asInt());
+        }
+        return ids;
+    }
+
+    private String send(String node,
+                        String method,
+                        String path,
+                        String json,
+                        int expectedStatus,
+                        String... headers) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(node + path))
+                .header("Content-Type", "application/json");
+        for (int i = 0; i < headers.length; i += 2) {
+            request.header(headers[i], headers[i + 1]);
+        }
+        request.method(method, json == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(json));
+        HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).as("%s %s %s", method, path, response.body()).isEqualTo(expectedStatus);
+        return response.headers().firstValue("Location").orElse(null);
+    }
+
+    // Creates are refused while their slot moves, so they are retried until the rebalance let them in.
+    private String create(String node, String path, String json) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            HttpResponse<String> response = post(node, path, json);
+            if (response.statusCode() != 503) {
+                assertThat(response.statusCode()).as("POST %s %s", path, response.body()).isEqualTo(201);
+                return path(response.headers().firstValue("Location").orElseThrow());
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("POST " + path + " was refused until the test gave up");
+    }
+
+    private HttpResponse<String> post(String node, String path, String json, String... headers) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(node + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        for (int i = 0; i < headers.length; i += 2) {
+            request.header(headers[i], headers[i + 1]);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String get(String node, String path) throws Exception {
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(node + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).as("GET %s", path).isEqualTo(200);
+        return response.body();
+    }
+}
@@ -0,0 +1,132 @@
+package dev.chafon.springbootrest.partition;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static dev.chafon.springbootrest.partition.PartitionRing.SLOTS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PartitionRingTest {
+
+    private static final URI NODE_1 = URI.create("http://localhost:8081");
+    private static final URI NODE_2 = URI.create("http://localhost:8082");
+    private static final URI NODE_3 = URI.create("http://localhost:8083");
+
+    @Test
+    void shouldSpreadSlotsOverAllNodes() {
+        PartitionRing ring = new PartitionRing(List.of(NODE_1, NODE_2, NODE_3), NODE_1, 64);
+
+        Map<URI, Integer> slotsPerNode = new HashMap<>();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            slotsPerNode.merge(ring.ownerOf(slot), 1, Integer::sum);
+        }
+
+        assertThat(slotsPerNode).containsOnlyKeys(NODE_1, NODE_2, NODE_3);
+        assertThat(slotsPerNode.values()).allSatisfy(slots -> assertThat(slots).isBetween(SLOTS / 6, SLOTS / 2));
+    }
+
+    @Test
+    void shouldOnlyMoveSlotsToAddedNode() {
+        PartitionRing before = new PartitionRing(List.of(NODE_1, NODE_2), NODE_1, 64);
+        PartitionRing after = new PartitionRing(List.of(NODE_1, NODE_2, NODE_3), NODE_1, 64);
+
+        int moved = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (!before.ownerOf(slot).equals(after.ownerOf(slot))) {
+                assertThat(after.ownerOf(slot)).isEqualTo(NODE_3);
+                moved++;
+            }
+        }
+        assertThat(moved).isPositive().isLessThan(SLOTS / 2);
+    }
+
+    @Test
+    void shouldOwnNothingWhenLeavingRing() {
+        PartitionRing ring = new PartitionRing(List.of(NODE_2, NODE_3), NODE_1, 64);
+
+        for (int slot = 0; slot < SLOTS; slot++) {
+            assertThat(ring.isLocal(slot)).isFalse();
+        }
+    }
+
+    @Test
+    void shouldRejectEmptyRing() {
+        assertThatThrownBy(() -> new PartitionRing(List.of(), NODE_1, 64))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldAllocateIdsInEntitySlot() {
+        PartitionIdAllocator<String> allocator = new PartitionIdAllocator<>(PartitionRing::slotOfKey, singleNode());
+
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            int id = allocator.allocate("user");
+            assertThat(PartitionRing.slotOf(id)).isEqualTo(PartitionRing.slotOfKey("user"));
+            ids.add(id);
+        }
+        assertThat(ids).hasSize(100);
+    }
+
+    @Test
+    void shouldNotReuseObservedIds() {
+        PartitionIdAllocator<Integer> allocator = new PartitionIdAllocator<>(slot -> slot, singleNode());
+        allocator.observe(5 * SLOTS + 7);
+
+        assertThat(allocator.allocate(7)).isEqualTo(6 * SLOTS + 7);
+        assertThat(allocator.allocate(8)).isEqualTo(SLOTS + 8);
+    }
+
+    @Test
+    void shouldFenceTakenOverSlotsUntilThePreviousOwnerHandedThemOver() {
+        PartitionTopology topology = new PartitionTopology(NODE_3, List.of(NODE_1, NODE_2, NODE_3), 64);
+        PartitionIdAllocator<Integer> allocator = new PartitionIdAllocator<>(slot -> slot, topology);
+        int fromNode1 = slotMoving(NODE_1);
+        int fromNode2 = slotMoving(NODE_2);
+
+        topology.moveTo(List.of(NODE_1, NODE_2), List.of(NODE_1, NODE_2, NODE_3));
+        assertThatThrownBy(() -> allocator.allocate(fromNode1)).isInstanceOf(PartitionSlotMovingException.class);
+
+        topology.handedOver(NODE_1);
+        assertThat(allocator.allocate(fromNode1)).isEqualTo(SLOTS + fromNode1);
+        assertThat(topology.acceptsCreates(fromNode2)).isFalse();
+        topology.handedOver(NODE_2);
+        assertThat(topology.acceptsCreates(fromNode2)).isTrue();
+    }
+
+    @Test
+    void shouldRefuseCreatesInSlotsOwnedByAnotherNode() {
+        PartitionTopology topology = new PartitionTopology(NODE_1, List.of(NODE_1, NODE_2), 64);
+        PartitionIdAllocator<Integer> allocator = new PartitionIdAllocator<>(slot -> slot, topology);
+        int remoteSlot = 0;
+        while (topology.ring().isLocal(remoteSlot)) {
+            remoteSlot++;
+        }
+        int slot = remoteSlot;
+
+        assertThatThrownBy(() -> allocator.allocate(slot)).isInstanceOf(PartitionSlotMovingException.class);
+    }
+
+    private static PartitionTopology singleNode() {
+        return new PartitionTopology(NODE_1, List.of(NODE_1), 1);
+    }
+
+    // a slot node 3 takes over from the given node when it joins
+    private static int slotMoving(URI from) {
+        PartitionRing before = new PartitionRing(List.of(NODE_1, NODE_2), NODE_3, 64);
+        PartitionRing after = new PartitionRing(List.of(NODE_1, NODE_2, NODE_3), NODE_3, 64);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (after.isLocal(slot) && before.ownerOf(slot).equals(from)) {
+                return slot;
+            }
+        }
+        throw new IllegalStateException("No slot moves from " + from);
+    }
+}
@@ -0,0 +1,195 @@
+package dev.chafon.springbootrest.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chafon.springbootrest.user.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JournalFileTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void shouldCutOffAFailedBatchSoLaterBatchesAreReadBack() throws Exception {
+        FailingJournalFile journal = new FailingJournalFile(directory.resolve("users.journal"));
+        journal.rewrite(List.of());
+        JournalEntry<User> first = entry(1);
+        JournalEntry<User> lost = entry(2);
+        JournalEntry<User> last = entry(3);
+
+        journal.append(List.of(first));
+        journal.failNextWrite();
+        assertThatThrownBy(() -> journal.append(List.of(lost))).isInstanceOf(IOException.class);
+        journal.append(List.of(last));
+        journal.close();
+
+        assertThat(journal.read()).containsExactly(first, last);
+    }
+
+    @Test
+    void shouldCutOffAFailedBatchOnTheNextAppendWhenItCannotBeCutAtOnce() throws Exception {
+        FailingJournalFile journal = new FailingJournalFile(directory.resolve("users.journal"));
+        journal.rewrite(List.of());
+        JournalEntry<User> first = entry(1);
+        JournalEntry<User> last = entry(3);
+
+        journal.append(List.of(first));
+        journal.failNextWrite();
+        journal.failNextTruncate();
+        assertThatThrownBy(() -> journal.append(List.of(entry(2)))).isInstanceOf(IOException.class);
+        journal.append(List.of(last));
+        journal.close();
+
+        assertThat(journal.read()).containsExactly(first, last);
+    }
+
+    private static JournalEntry<User> entry(int id) {
+        return new JournalEntry<>(id, new User(id, "User " + id, "user" + id, "user" + id + "@mail.com", 1L));
+    }
+
+    private static final class FailingJournalFile extends JournalFile<User> {
+
+        private boolean failNextWrite;
+        private boolean failNextTruncate;
+
+        private FailingJournalFile(Path path) {
+            super(path, User.class, new ObjectMapper());
+        }
+
+        void failNextWrite() {
+            failNextWrite = true;
+        }
+
+        void failNextTruncate() {
+            failNextTruncate = true;
+        }
+
+        @Override
+        FileChannel openForAppend() throws IOException {
+            return new FailingChannel(super.openForAppend());
+        }
+
+        // Writes half of the batch before failing, like a disk filling up in the middle of it.
+        private final class FailingChannel extends FileChannel {
+
+            private final FileChannel delegate;
+
+            private FailingChannel(FileChannel delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                if (!failNextWrite) {
+                    return delegate.write(src);
+                }
+                failNextWrite = false;
+                ByteBuffer half = src.duplicate();
+                half.limit(src.position() + src.remaining() / 2);
+                delegate.write(half);
+                src.position(half.position());
+                throw new IOException("No space left on device");
+            }
+
+            @Override
+            public FileChannel truncate(long size) throws IOException {
+                if (failNextTruncate) {
+                    failNextTruncate = false;
+                    throw new IOException("Input/output error");
+                }
+                delegate.truncate(size);
+                return this;
+            }
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                return delegate.read(dst);
+            }
+
+            @Override
+            public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+                return delegate.read(dsts, offset, length);
+            }
+
+            @Override
+            public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+                return delegate.write(srcs, offset, length);
+            }
+
+            @Override
+            public long position() throws IOException {
+                return delegate.position();
+            }
+
+            @Override
+            public FileChannel position(long newPosition) throws IOException {
+                delegate.position(newPosition);
+                return this;
+            }
+
+            @Override
+            public long size() throws IOException {
+                return delegate.size();
+            }
+
+            @Override
+            public void force(boolean metaData) throws IOException {
+                delegate.force(metaData);
+            }
+
+            @Override
+            public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+                return delegate.transferTo(position, count, target);
+            }
+
+            @Override
+            public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+                return delegate.transferFrom(src, position, count);
+            }
+
+            @Override
+            public int read(ByteBuffer dst, long position) throws IOException {
+                return delegate.read(dst, position);
+            }
+
+            @Override
+            public int write(ByteBuffer src, long position) throws IOException {
+                return delegate.write(src, position);
+            }
+
+            @Override
+            public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+                return delegate.map(mode, position, size);
+            }
+
+            @Override
+            public FileLock lock(long position, long size, boolean shared) throws IOException {
+                return delegate.lock(position, size, shared);
+            }
+
+            @Override
+            public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+                return delegate.tryLock(position, size, shared);
+            }
+
+            @Override
+            protected void implCloseChannel() throws IOException {
+                delegate.close();
+            }
+        }
+    }
+}
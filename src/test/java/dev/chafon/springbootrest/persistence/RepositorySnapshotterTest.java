@@ -0,0 +1,145 @@
+package dev.chafon.springbootrest.persistence;
+
+import dev.chafon.springbootrest.post.InMemoryPostRepository;
+import dev.chafon.springbootrest.post.Post;
+import dev.chafon.springbootrest.user.InMemoryUserRepository;
+import dev.chafon.springbootrest.user.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RepositorySnapshotterTest {
+
+    private static final SnapshotProperties PROPERTIES = new SnapshotProperties(true, Path.of("unused"), Duration.ofHours(1));
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void shouldRestoreSnapshotAfterRestart() throws Exception {
+        InMemoryUserRepository repository = new InMemoryUserRepository();
+        RepositorySnapshotter<User> snapshotter = userSnapshotter(repository);
+        snapshotter.start();
+        User john = repository.save(new User(null, "John Doe", "johnD", "john.doe@mail.com"));
+        User jane = repository.save(new User(null, "Jane Doe", "janeD", "jane.doe@mail.com"));
+        User unnamed = repository.save(new User(null, null, "anon", "anon@mail.com"));
+        repository.deleteById(jane.id());
+        snapshotter.close();
+
+        InMemoryUserRepository restoredRepository = new InMemoryUserRepository();
+        userSnapshotter(restoredRepository).start();
+
+        assertThat(restoredRepository.findAll()).containsExactlyInAnyOrder(john, unnamed);
+        assertThat(restoredRepository.save(new User(null, "Jim Doe", "jimD", "jim.doe@mail.com")).id())
+                .isEqualTo(unnamed.id() + 1);
+    }
+
+    @Test
+    void shouldReadRecordsAcrossMappedWindows() throws Exception {
+        SnapshotFile<Post> file = new SnapshotFile<>(directory.resolve("posts.snapshot"), new PostSnapshotCodec(), 64);
+        List<Post> posts = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            Instant createdAt = i % 3 == 0 ? null : Instant.ofEpochSecond(1_700_000_000L + i, i);
+            Instant expiresAt = i % 4 == 0 ? Instant.ofEpochSecond(1_800_000_000L + i) : null;
+            posts.add(new Post(i, i % 7, "Title " + i, "Body ".repeat(i % 5 + 1), (long) i, createdAt, createdAt,
+                    expiresAt));
+        }
+
+        assertThat(file.write(posts)).isEqualTo(1000);
+
+        List<Post> read = new ArrayList<>();
+        assertThat(file.read(read::add)).isEqualTo(1000);
+        assertThat(read).containsExactlyElementsOf(posts);
+    }
+
+    @Test
+    void shouldCaptureStateAtSnapshotStartWhileWritersContinue() throws Exception {
+        InMemoryPostRepository repository = new InMemoryPostRepository();
+        Post post1 = repository.save(new Post(null, 1, "Title 1", "Body 1"));
+        Post post2 = repository.save(new Post(null, 1, "Title 2", "Body 2"));
+        PostSnapshotCodec writingCodec = new PostSnapshotCodec() {
+            private boolean changed;
+
+            @Override
+            public void write(DataOutput out, Post post) throws IOException {
+                if (!changed) {
+                    changed = true;
+                    repository.save(new Post(post1.id(), 1, "Changed", "Changed"));
+                    repository.deleteById(post2.id());
+                    repository.save(new Post(null, 1, "Title 3", "Body 3"));
+                }
+                super.write(out, post);
+            }
+        };
+        Path path = directory.resolve("posts.snapshot");
+        RepositorySnapshotter<Post> snapshotter = new RepositorySnapshotter<>("posts", repository, Post::id,
+                new SnapshotFile<>(path, writingCodec), PROPERTIES);
+        repository.addChangeListener(snapshotter);
+
+        snapshotter.snapshot();
+
+        List<Post> read = new ArrayList<>();
+        new SnapshotFile<>(path, new PostSnapshotCodec()).read(read::add);
+        assertThat(read).containsExactlyInAnyOrder(post1, post2);
+    }
+
+    @Test
+    void shouldStartEmptyWithoutSnapshot() throws Exception {
+        InMemoryUserRepository repository = new InMemoryUserRepository();
+
+        userSnapshotter(repository).start();
+
+        assertThat(repository.findAll()).isEmpty();
+    }
+
+    @Test
+    void shouldReadSnapshotWrittenBeforeVersionsWereStored() throws Exception {
+        Path path = directory.resolve("users.snapshot");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x53425253);
+        out.writeInt(1);
+        out.writeLong(1);
+        out.writeInt(Integer.BYTES * 4 + "John Doe".length() + "johnD".length() + "john.doe@mail.com".length());
+        out.writeInt(3);
+        for (String value : List.of("John Doe", "johnD", "john.doe@mail.com")) {
+            out.writeInt(value.length());
+            out.writeBytes(value);
+        }
+        Files.write(path, bytes.toByteArray());
+
+        InMemoryUserRepository repository = new InMemoryUserRepository();
+        userSnapshotter(repository).start();
+
+        assertThat(repository.findAll()).containsExactly(new User(3, "John Doe", "johnD", "john.doe@mail.com"));
+        assertThat(repository.save(new User(3, "Johnny Doe", "johnD", "johnny.doe@mail.com")).version()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldRejectCorruptSnapshot() throws Exception {
+        Path path = directory.resolve("users.snapshot");
+        Files.writeString(path, "not a snapshot file");
+
+        assertThatThrownBy(() -> userSnapshotter(new InMemoryUserRepository()).start())
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("unknown format");
+    }
+
+    private RepositorySnapshotter<User> userSnapshotter(InMemoryUserRepository repository) {
+        return new RepositorySnapshotter<>("users", repository, User::id,
+                new SnapshotFile<>(directory.resolve("users.snapshot"), new UserSnapshotCodec()), PROPERTIES);
+    }
+}
@@ -0,0 +1,133 @@
+package dev.chafon.springbootrest.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chafon.springbootrest.post.InMemoryPostRepository;
+import dev.chafon.springbootrest.post.Post;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteBehindWriterTest {
+
+    @TempDir
+    private Path directory;
+
+    private final List<WriteBehindWriter<Post>> writers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (WriteBehindWriter<Post> writer : writers) {
+            writer.close();
+        }
+    }
+
+    @Test
+    void shouldRestoreWritesAfterRestart() throws Exception {
+        InMemoryPostRepository repository = new InMemoryPostRepository();
+        WriteBehindWriter<Post> writer = startWriter(repository, properties(Duration.ofMillis(50), 100));
+
+        Post post1 = repository.save(new Post(null, 1, "Title 1", "Body 1"));
+        Post post2 = repository.save(new Post(null, 1, "Title 2", "Body 2"));
+        Post post3 = repository.save(new Post(null, 2, "Title 3", "Body 3"));
+        Post updatedPost1 = repository.save(new Post(post1.id(), 1, "New title", "New body"));
+        repository.deleteById(post2.id());
+        writer.close();
+        writers.remove(writer);
+
+        InMemoryPostRepository restoredRepository = new InMemoryPostRepository();
+        startWriter(restoredRepository, properties(Duration.ofMillis(50), 100));
+
+        assertThat(restoredRepository.findAll()).containsExactlyInAnyOrder(updatedPost1, post3);
+        assertThat(restoredRepository.save(new Post(null, 3, "Title 4", "Body 4")).id())
+                .isEqualTo(post3.id() + 1);
+    }
+
+    @Test
+    void shouldCoalesceRepeatedWritesToTheSameId() throws Exception {
+        InMemoryPostRepository repository = new InMemoryPostRepository();
+        WriteBehindWriter<Post> writer = startWriter(repository, properties(Duration.ofHours(1), 100));
+
+        Post post = repository.save(new Post(null, 1, "Title", "Body"));
+        for (int i = 0; i < 100; i++) {
+            repository.save(new Post(post.id(), 1, "Title " + i, "Body"));
+        }
+
+        assertThat(writer.getPendingCount()).isEqualTo(1);
+
+        writer.flush();
+
+        assertThat(writer.getPendingCount()).isZero();
+        assertThat(Files.readAllLines(directory.resolve("posts.journal")))
+                .singleElement()
+                .asString()
+                .contains("Title 99");
+    }
+
+    @Test
+    void shouldFlushEarlyInsteadOfGrowingPastTheBufferCapacity() throws Exception {
+        InMemoryPostRepository repository = new InMemoryPostRepository();
+        WriteBehindWriter<Post> writer = startWriter(repository, properties(Duration.ofHours(1), 2));
+
+        for (int i = 0; i < 10; i++) {
+            repository.save(new Post(null, 1, "Title " + i, "Body"));
+        }
+
+        assertThat(writer.getPendingCount()).isLessThanOrEqualTo(2);
+        assertThat(Files.readAllLines(directory.resolve("posts.journal"))).hasSizeGreaterThanOrEqualTo(8);
+    }
+
+    @Test
+    void shouldRejectWritesWhileTheBufferStaysFullPastTheTimeout() throws Exception {
+        InMemoryPostRepository repository = new InMemoryPostRepository();
+        AtomicBoolean diskFull = new AtomicBoolean(true);
+        JournalFile<Post> journal = new JournalFile<>(directory.resolve("posts.journal"), Post.class,
+                new ObjectMapper().findAndRegisterModules()) {
+            @Override
+            void append(Collection<JournalEntry<Post>> entries) throws IOException {
+                if (diskFull.get()) {
+                    throw new IOException("No space left on device");
+                }
+                super.append(entries);
+            }
+        };
+        WriteBehindWriter<Post> writer = new WriteBehindWriter<>("posts", repository, Post::id, journal,
+                new WriteBehindProperties(true, directory, Duration.ofHours(1), 100, 2, Duration.ofMillis(100)));
+        writer.start();
+        writers.add(writer);
+        repository.save(new Post(null, 1, "Title 1", "Body"));
+        repository.save(new Post(null, 1, "Title 2", "Body"));
+
+        assertThatThrownBy(() -> repository.save(new Post(null, 1, "Title 3", "Body")))
+                .isInstanceOf(WriteBufferFullException.class);
+        assertThat(repository.findAll()).hasSize(2);
+
+        diskFull.set(false);
+        assertThat(repository.save(new Post(null, 1, "Title 3", "Body")).title()).isEqualTo("Title 3");
+    }
+
+    private WriteBehindWriter<Post> startWriter(InMemoryPostRepository repository,
+                                                WriteBehindProperties properties) throws Exception {
+        WriteBehindWriter<Post> writer = new WriteBehindWriter<>("posts", repository, Post::id,
+                new JournalFile<>(directory.resolve("posts.journal"), Post.class, new ObjectMapper().findAndRegisterModules()),
+                properties);
+        writer.start();
+        writers.add(writer);
+        return writer;
+    }
+
+    private WriteBehindProperties properties(Duration flushInterval, int bufferCapacity) {
+        return new WriteBehindProperties(true, directory, flushInterval, 100, bufferCapacity, Duration.ofSeconds(5));
+    }
+}
@@ -1,8 +1,20 @@
 package dev.chafon.springbootrest.post;
 
+import dev.chafon.springbootrest.support.ChangeListener;
+import dev.chafon.springbootrest.support.ChangeSet;
+import dev.chafon.springbootrest.support.PageCursor;
+import dev.chafon.springbootrest.support.RankedCounts;
+import dev.chafon.springbootrest.support.ShardedStore;
+import dev.chafon.springbootrest.support.VersionClock;
+import dev.chafon.springbootrest.support.VersionConflictException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,11 +24,13 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class InMemoryPostRepositoryTest {
 
+    private static final Instant START = Instant.parse("2024-06-01T10:00:00Z");
+
     private InMemoryPostRepository repository;
 
     @BeforeEach
     void setUp() {
-        repository = new InMemoryPostRepository();
+        repository = new InMemoryPostRepository(ShardedStore.DEFAULT_SHARDS, new VersionClock(), new TickingClock());
     }
 
     @Test
@@ -165,7 +179,330 @@ public class InMemoryPostRepositoryTest {
         assertThat(postExpected).isEmpty();
     }
 
+    @Test
+    void save_shouldNotifyChangeListenersWithThePreviousPost() {
+        List<Post> previousPosts = new ArrayList<>();
+        List<Post> savedPosts = new ArrayList<>();
+        repository.addChangeListener(new ChangeListener<>() {
+            @Override
+            public void onSaved(Post previous, Post saved) {
+                previousPosts.add(previous);
+                savedPosts.add(saved);
+            }
+
+            @Override
+            public void onDeleted(Post deleted) {
+            }
+        });
+
+        Post post = saveAPost();
+        Post updatedPost = repository.save(new Post(post.id(), post.userId(), "New title", "New body"));
+
+        assertThat(previousPosts).containsExactly(null, post);
+        assertThat(savedPosts).containsExactly(post, updatedPost);
+    }
+
+    @Test
+    void deleteById_shouldNotifyChangeListenersOnlyWhenThePostExisted() {
+        List<Post> deletedPosts = new ArrayList<>();
+        repository.addChangeListener(new ChangeListener<>() {
+            @Override
+            public void onSaved(Post previous, Post saved) {
+            }
+
+            @Override
+            public void onDeleted(Post deleted) {
+                deletedPosts.add(deleted);
+            }
+        });
+        Post post = saveAPost();
+
+        repository.deleteById(post.id());
+        repository.deleteById(post.id());
+
+        assertThat(deletedPosts).containsExactly(post);
+    }
+
+    @Test
+    void save_shouldRejectAnUpdateOfAStaleVersion() {
+        Post post = saveAPost();
+        Post updatedPost = repository.save(new Post(post.id(), 1, "New title", "New body", post.version()));
+
+        assertThatThrownBy(() -> repository.save(new Post(post.id(), 1, "Other title", "Other body", post.version())))
+                .isInstanceOf(VersionConflictException.class)
+                .hasMessage(VERSION_DOES_NOT_MATCH + updatedPost.version());
+        assertThat(updatedPost.version()).isEqualTo(post.version() + 1);
+        assertThat(repository.findById(post.id())).contains(updatedPost);
+    }
+
+    @Test
+    void update_shouldMoveThePostToItsNewUserInTheSameStep() {
+        Post post = saveAPost();
+
+        Optional<Post> updatedPost = repository.update(post.id(), existingPost ->
+                new Post(existingPost.id(), 2, existingPost.title(), "New body"));
+
+        assertThat(updatedPost).isPresent();
+        assertThat(updatedPost.get().version()).isEqualTo(post.version() + 1);
+        assertThat(repository.findByUserId(1)).isEmpty();
+        assertThat(repository.findByUserId(2)).containsExactly(updatedPost.get());
+    }
+
+    @Test
+    void update_shouldReturnEmptyWhenPostDoesNotExist() {
+        assertThat(repository.update(1, existingPost -> existingPost)).isEmpty();
+    }
+
+    @Test
+    void restore_shouldPutThePostAndContinueTheIdSequenceAfterIt() {
+        Post restoredPost = new Post(10, 1, "Title", "Body");
+
+        repository.restore(restoredPost);
+
+        assertThat(repository.findById(10)).contains(restoredPost);
+        assertThat(saveAPost().id()).isEqualTo(11);
+    }
+
+    @Test
+    void evict_shouldRemoveThePost() {
+        Post post = saveAPost();
+
+        repository.evict(post.id());
+
+        assertThat(repository.findById(post.id())).isEmpty();
+    }
+
+    @Test
+    void adoptAndRelease_shouldNotifyChangeListenersUnlikeRestoreAndEvict() {
+        List<String> changes = new ArrayList<>();
+        repository.addChangeListener(new ChangeListener<>() {
+            @Override
+            public void onSaved(Post previous, Post saved) {
+                changes.add("saved " + saved.id());
+            }
+
+            @Override
+            public void onDeleted(Post deleted) {
+                changes.add("deleted " + deleted.id());
+            }
+        });
+
+        repository.restore(new Post(10, 1, "Title", "Body"));
+        repository.evict(10);
+        repository.adopt(new Post(11, 1, "Title", "Body"));
+        repository.adopt(new Post(11, 1, "Title", "Body"));
+        assertThat(repository.adopt(new Post(11, 2, "Other", "Body"))).isFalse();
+        repository.release(11);
+
+        assertThat(changes).containsExactly("saved 11", "deleted 11");
+        assertThat(repository.findById(11)).isEmpty();
+        assertThat(repository.countByUserId(1)).isZero();
+    }
+
+    @Test
+    void countByUserId_shouldFollowSavesOwnerChangesAndDeletes() {
+        Post post = saveAPost();
+        saveAPost();
+        repository.save(new Post(null, 2, "Title", "Body"));
+
+        repository.update(post.id(), existingPost -> new Post(existingPost.id(), 3, existingPost.title(), "Body"));
+        repository.deleteById(2);
+
+        assertThat(repository.countByUserId(1)).isZero();
+        assertThat(repository.countByUserId(2)).isEqualTo(1);
+        assertThat(repository.countByUserId(3)).isEqualTo(1);
+        assertThat(repository.countByUserId(null)).isZero();
+    }
+
+    @Test
+    void countByUserId_shouldFollowRestoresAndEvictions() {
+        repository.restore(new Post(10, 1, "Title", "Body"));
+        repository.restore(new Post(10, 2, "Title", "Body"));
+        repository.restore(new Post(11, 2, "Title", "Body"));
+
+        repository.evict(11);
+
+        assertThat(repository.countByUserId(1)).isZero();
+        assertThat(repository.countByUserId(2)).isEqualTo(1);
+    }
+
+    @Test
+    void findTopUsersByPostCount_shouldReturnTheUsersWithTheMostPostsFirst() {
+        for (int userId = 1; userId <= 4; userId++) {
+            for (int i = 0; i < userId; i++) {
+                repository.save(new Post(null, userId, "Title", "Body"));
+            }
+        }
+
+        assertThat(repository.findTopUsersByPostCount(2)).containsExactly(
+                new RankedCounts.Count<>(4, 4L),
+                new RankedCounts.Count<>(3, 3L));
+    }
+
+    @Test
+    void findAllById_shouldReturnThePostsFoundInTheRequestedOrder() {
+        Post first = saveAPost();
+        Post second = saveAPost();
+        repository.deleteById(saveAPost().id());
+
+        assertThat(repository.findAllById(List.of(second.id(), 3, first.id()))).containsExactly(second, first);
+        assertThat(repository.findAllById(List.of())).isEmpty();
+    }
+
+    @Test
+    void findAll_shouldListTheUsersPostsByTitleAPageAtATime() {
+        repository.save(new Post(null, 1, "Spring", "Body"));
+        repository.save(new Post(null, 2, "Gradle", "Body"));
+        repository.save(new Post(null, 1, "Java", "Body"));
+        repository.save(new Post(null, 1, "Kotlin", "Body"));
+        repository.save(new Post(null, 1, "Java", "Body"));
+
+        PostQuery firstPage = new PostQuery(1, PostQuery.Sort.TITLE, PostQuery.Order.ASC, 2, null);
+        List<Post> first = repository.findAll(firstPage);
+        PostQuery secondPage = new PostQuery(1, PostQuery.Sort.TITLE, PostQuery.Order.ASC, 2, firstPage.nextCursor(first));
+        List<Post> second = repository.findAll(secondPage);
+
+        assertThat(first).extracting(Post::id).containsExactly(3, 5);
+        assertThat(second).extracting(Post::id).containsExactly(4, 1);
+        assertThat(repository.findAll(new PostQuery(1, PostQuery.Sort.TITLE, PostQuery.Order.ASC, 2,
+                secondPage.nextCursor(second)))).isEmpty();
+    }
+
+    @Test
+    void findAll_shouldListPostsInDescendingIdOrderAfterTheCursor() {
+        for (int i = 0; i < 5; i++) {
+            saveAPost();
+        }
+        repository.deleteById(3);
+
+        List<Post> posts = repository.findAll(
+                new PostQuery(null, PostQuery.Sort.ID, PostQuery.Order.DESC, 3, new PageCursor(null, 5)));
+
+        assertThat(posts).extracting(Post::id).containsExactly(4, 2, 1);
+    }
+
+    @Test
+    void findAll_shouldAgreeWithTheQueryAppliedToAllPosts() {
+        for (int i = 0; i < 200; i++) {
+            repository.save(new Post(null, i % 7, "Title " + (i * 31 % 50), "Body"));
+        }
+        for (int id = 1; id <= 200; id += 9) {
+            repository.update(id, post -> new Post(post.id(), post.userId() + 1, "Moved " + post.title(), post.body()));
+        }
+
+        for (PostQuery.Sort sort : PostQuery.Sort.values()) {
+            for (PostQuery.Order order : PostQuery.Order.values()) {
+                PageCursor after = switch (sort) {
+                    case ID -> new PageCursor(null, 40);
+                    case TITLE -> new PageCursor("Title 2", 40);
+                    case CREATED -> new PageCursor(START.plusSeconds(39).toString(), 40);
+                };
+                PostQuery query = new PostQuery(3, sort, order, 10, after);
+                assertThat(repository.findAll(query)).as("%s %s", sort, order)
+                        .isEqualTo(query.apply(repository.findAll()));
+            }
+        }
+    }
+
+    @Test
+    void save_shouldSetTheCreationTimeAndUpdateShouldKeepIt() {
+        Post post = saveAPost();
+
+        Post updatedPost = repository.update(post.id(), existingPost ->
+                new Post(existingPost.id(), 1, "New title", "Body", null, Instant.EPOCH, Instant.EPOCH, null)).orElseThrow();
+
+        assertThat(post.createdAt()).isEqualTo(START);
+        assertThat(post.updatedAt()).isEqualTo(START);
+        assertThat(updatedPost.createdAt()).isEqualTo(START);
+        assertThat(updatedPost.updatedAt()).isEqualTo(START.plusSeconds(1));
+    }
+
+    @Test
+    void findAll_shouldListThePostsCreatedInATimeRangeOldestFirst() {
+        for (int i = 0; i < 10; i++) {
+            repository.save(new Post(null, i % 2, "Title", "Body"));
+        }
+        repository.deleteById(5);
+
+        PostQuery lastFive = new PostQuery(null, null, null, null, null, START.plusSeconds(5), null);
+        PostQuery userOneBetween = new PostQuery(1, null, null, null, null, START.plusSeconds(2), START.plusSeconds(8));
+        PostQuery newestFirst = new PostQuery(null, null, PostQuery.Order.DESC, 3, null, null, START.plusSeconds(6));
+
+        assertThat(repository.findAll(lastFive)).extracting(Post::id).containsExactly(6, 7, 8, 9, 10);
+        assertThat(repository.findAll(userOneBetween)).extracting(Post::id).containsExactly(4, 6, 8);
+        assertThat(repository.findAll(newestFirst)).extracting(Post::id).containsExactly(6, 4, 3);
+        assertThat(repository.findAll(new PostQuery(null, null, PostQuery.Order.DESC, 3,
+                newestFirst.nextCursor(repository.findAll(newestFirst)), null, START.plusSeconds(6))))
+                .extracting(Post::id).containsExactly(2, 1);
+    }
+
+    @Test
+    void findAll_shouldAgreeWithTheTimeRangeAppliedToAllPosts() {
+        for (int i = 0; i < 100; i++) {
+            repository.save(new Post(null, i % 3, "Title", "Body"));
+        }
+        for (int id = 1; id <= 100; id += 7) {
+            repository.update(id, post -> new Post(post.id(), post.userId() + 1, post.title(), post.body()));
+        }
+
+        for (PostQuery.Order order : PostQuery.Order.values()) {
+            PostQuery query = new PostQuery(1, null, order, 20, null, START.plusSeconds(15), START.plusSeconds(80));
+            assertThat(repository.findAll(query)).as("%s", order)
+                    .isEqualTo(query.apply(repository.findAll()));
+        }
+    }
+
+    @Test
+    void deleteById_shouldLeaveATombstoneForChangeReaders() {
+        Post kept = saveAPost();
+        Post deleted = saveAPost();
+        long since = repository.currentSequence();
+
+        repository.deleteById(deleted.id());
+
+        assertThat(repository.count()).isEqualTo(1);
+        assertThat(repository.tombstoneCount()).isEqualTo(1);
+        assertThat(repository.findChangesSince(since).deleted()).extracting(ChangeSet.Deletion::id)
+                .containsExactly(deleted.id());
+        assertThat(repository.findChangesSince(0).upserted()).containsExactly(kept);
+    }
+
+    @Test
+    void deleteByIdIf_shouldDeleteOnlyWhenTheConditionHolds() {
+        Post post = repository.save(new Post(null, 1, "Title", "Body", null, null, null, START.plusSeconds(60)));
+
+        assertThat(repository.deleteByIdIf(post.id(), existingPost -> existingPost.expiresAt().isBefore(START))).isFalse();
+        assertThat(repository.findById(post.id())).isPresent();
+        assertThat(repository.tombstoneCount()).isZero();
+
+        assertThat(repository.deleteByIdIf(post.id(), existingPost -> existingPost.userId() == 1)).isTrue();
+        assertThat(repository.findById(post.id())).isEmpty();
+        assertThat(repository.countByUserId(1)).isZero();
+        assertThat(repository.deleteByIdIf(post.id(), existingPost -> true)).isFalse();
+    }
+
     private Post saveAPost() {
         return repository.save(new Post(null, 1, "Title", "Body"));
     }
+
+    // Moves on by a second every time it is read, so each write gets its own time.
+    private static final class TickingClock extends Clock {
+
+        private long seconds;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized Instant instant() {
+            return START.plusSeconds(seconds++);
+        }
+    }
 }
@@ -1,12 +1,17 @@
 package dev.chafon.springbootrest.post;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chafon.springbootrest.persistence.WriteBufferFullException;
+import dev.chafon.springbootrest.support.ChangeSet;
+import dev.chafon.springbootrest.support.PageCursor;
+import dev.chafon.springbootrest.user.User;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
 import java.util.List;
 
 import static dev.chafon.springbootrest.Constants.*;
@@ -102,6 +107,20 @@ class PostControllerTest {
                 .andExpect(header().string("Location", "http://localhost" + API_PATH + "/" + postCreated.id()));
     }
 
+    @Test
+    void shouldReturnStatusServiceUnavailableWhenTheWriteBufferIsFull() throws Exception {
+        Post postToCreate = new Post(null, 567, "Java post", "Java post content");
+
+        given(postService.createPost(postToCreate))
+                .willThrow(new WriteBufferFullException("posts"));
+
+        mvc.perform(post(API_PATH)
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(postToCreate)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.detail", equalTo(WRITE_BUFFER_FULL + "posts")));
+    }
+
     @Test
     void shouldReturnStatusBadRequestWhenPostToCreateIsInvalid() throws Exception {
         Post postToCreate = new Post(null, null, null, null);
@@ -168,4 +187,117 @@ class PostControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.detail", containsString(POST_NOT_FOUND_EXCEPTION_MESSAGE + idToDelete)));
     }
+
+    @Test
+    void shouldEmbedTheUserOfThePostWhenExpanded() throws Exception {
+        Post post = new Post(1, 123, "My first post", "My first post content");
+        User user = new User(123, "John Doe", "johnD", "john.doe@mail.com");
+        given(postService.getPostWithUser(post.id()))
+                .willReturn(new PostWithUser(post, user));
+
+        mvc.perform(get(API_PATH + "/{id}", post.id()).param("expand", "user"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", equalTo(post.id())))
+                .andExpect(jsonPath("$.title", equalTo(post.title())))
+                .andExpect(jsonPath("$.user.id", equalTo(user.id())))
+                .andExpect(jsonPath("$.user.name", equalTo(user.name())));
+    }
+
+    @Test
+    void shouldEmbedTheUsersOfAllPostsWhenExpanded() throws Exception {
+        List<Post> posts = List.of(
+                new Post(1, 123, "My first post", "My first post content"),
+                new Post(2, 456, "My second post", "My second post content"));
+        User user = new User(123, "John Doe", "johnD", "john.doe@mail.com");
+        given(postService.getPosts())
+                .willReturn(posts);
+        given(postService.withUsers(posts))
+                .willReturn(List.of(new PostWithUser(posts.get(0), user), new PostWithUser(posts.get(1), null)));
+
+        mvc.perform(get(API_PATH).param("expand", "user"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", equalTo(1)))
+                .andExpect(jsonPath("$[0].user.username", equalTo(user.username())))
+                .andExpect(jsonPath("$[1].id", equalTo(2)))
+                .andExpect(jsonPath("$[1].user", nullValue()));
+    }
+
+    @Test
+    void shouldListPostsPageByPageWithACursor() throws Exception {
+        List<Post> posts = List.of(
+                new Post(4, 123, "Gradle", "Content"),
+                new Post(2, 123, "Java", "Content"));
+        PostQuery query = new PostQuery(123, PostQuery.Sort.TITLE, PostQuery.Order.ASC, 2, null);
+        given(postService.getPosts(query))
+                .willReturn(posts);
+        String cursor = new PageCursor("Java", 2).encode();
+
+        mvc.perform(get(API_PATH).param("userId", "123").param("sort", "title").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PageCursor.NEXT_CURSOR_HEADER, cursor))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", equalTo(4)));
+
+        PostQuery nextQuery = new PostQuery(123, PostQuery.Sort.TITLE, PostQuery.Order.ASC, 2, new PageCursor("Java", 2));
+        given(postService.getPosts(nextQuery))
+                .willReturn(List.of(new Post(7, 123, "Kotlin", "Content")));
+
+        mvc.perform(get(API_PATH).param("userId", "123").param("sort", "title").param("limit", "2")
+                        .param("after", cursor))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(PageCursor.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$[0].id", equalTo(7)));
+    }
+
+    @Test
+    void shouldRejectAnUnknownSortOrder() throws Exception {
+        mvc.perform(get(API_PATH).param("sort", "body"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldListPostsCreatedInATimeRange() throws Exception {
+        Instant since = Instant.parse("2024-06-01T10:00:00Z");
+        Instant until = Instant.parse("2024-06-01T11:00:00Z");
+        Post post = new Post(3, 123, "Java", "Content", 1L, since.plusSeconds(60), since.plusSeconds(90), null);
+        given(postService.getPosts(new PostQuery(123, null, null, 1, null, since, until)))
+                .willReturn(List.of(post));
+
+        mvc.perform(get(API_PATH).param("userId", "123").param("limit", "1")
+                        .param("since", since.toString()).param("until", until.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PageCursor.NEXT_CURSOR_HEADER,
+                        new PageCursor("2024-06-01T10:01:00Z", 3).encode()))
+                .andExpect(jsonPath("$[0].createdAt", equalTo("2024-06-01T10:01:00Z")))
+                .andExpect(jsonPath("$[0].updatedAt", equalTo("2024-06-01T10:01:30Z")));
+    }
+
+    @Test
+    void shouldRejectATimeRangeInAnotherOrder() throws Exception {
+        mvc.perform(get(API_PATH).param("sort", "title").param("since", "2024-06-01T10:00:00Z"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail", equalTo(TIME_RANGE_NEEDS_CREATED_ORDER)));
+    }
+
+    @Test
+    void shouldRejectACursorOfAnotherOrder() throws Exception {
+        mvc.perform(get(API_PATH).param("sort", "created").param("after", new PageCursor("Java", 2).encode()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail", equalTo(INVALID_PAGE_CURSOR)));
+    }
+
+    @Test
+    void shouldReturnTheChangesSinceASequence() throws Exception {
+        given(postService.getChangesSince(5))
+                .willReturn(new ChangeSet<>(9, List.of(new Post(1, 123, "Java", "Content")),
+                        List.of(new ChangeSet.Deletion(2, 7))));
+
+        mvc.perform(get(API_PATH + "/changes").param("since", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sequence", equalTo(9)))
+                .andExpect(jsonPath("$.upserted[0].id", equalTo(1)))
+                .andExpect(jsonPath("$.deleted[0].id", equalTo(2)))
+                .andExpect(jsonPath("$.deleted[0].sequence", equalTo(7)));
+    }
 }
@@ -1,5 +1,8 @@
 package dev.chafon.springbootrest.post;
 
+import dev.chafon.springbootrest.user.User;
+import dev.chafon.springbootrest.user.UserLoader;
+import dev.chafon.springbootrest.user.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -8,12 +11,16 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 
 import static dev.chafon.springbootrest.Constants.POST_NOT_FOUND_EXCEPTION_MESSAGE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -24,12 +31,18 @@ class PostServiceTest {
     @Mock
     private PostRepository postRepository;
 
+    @Mock
+    private UserRepository userRepository;
+
     @InjectMocks
     private PostService postService;
 
     @Captor
     private ArgumentCaptor<Post> argumentCaptor;
 
+    @Captor
+    private ArgumentCaptor<UnaryOperator<Post>> updaterCaptor;
+
     @Test
     void shouldReturnAllPosts() {
         Post post1 = new Post(1, 1, "Java Post", "Java post content");
@@ -119,38 +132,40 @@ class PostServiceTest {
     @Test
     void shouldUpdatePost() {
         Post postToUpdate = new Post(123, 567, "Updated title", "Updated post content");
+        Post existingPost = new Post(postToUpdate.id(),
+                postToUpdate.userId(),
+                "Existing title",
+                "Existing post content",
+                2L);
 
-        given(postRepository.findById(postToUpdate.id()))
-                .willReturn(Optional.of(
-                        new Post(postToUpdate.id(),
-                                postToUpdate.userId(),
-                                "Existing title",
-                                "Existing post content")));
+        given(postRepository.update(eq(postToUpdate.id()), any()))
+                .willReturn(Optional.of(existingPost));
 
         postService.updatePost(postToUpdate.id(), postToUpdate);
 
-        verify(postRepository).findById(postToUpdate.id());
-        verify(postRepository).save(argumentCaptor.capture());
+        verify(postRepository).update(eq(postToUpdate.id()), updaterCaptor.capture());
+        verify(postRepository, never()).findById(postToUpdate.id());
 
-        Post capturedPost = argumentCaptor.getValue();
+        Post capturedPost = updaterCaptor.getValue().apply(existingPost);
         assertThat(capturedPost.id()).isEqualTo(postToUpdate.id());
         assertThat(capturedPost.userId()).isEqualTo(postToUpdate.userId());
         assertThat(capturedPost.title()).isEqualTo(postToUpdate.title());
         assertThat(capturedPost.body()).isEqualTo(postToUpdate.body());
+        assertThat(capturedPost.version()).isEqualTo(existingPost.version());
     }
 
     @Test
     void shouldThrowPostNotFoundExceptionWhenUpdatingPostNotExist() {
         Post postToUpdate = new Post(123, 567, "Updated title", "Updated post content");
 
-        given(postRepository.findById(postToUpdate.id()))
+        given(postRepository.update(eq(postToUpdate.id()), any()))
                 .willReturn(Optional.empty());
 
         assertThatThrownBy(() -> postService.updatePost(postToUpdate.id(), postToUpdate))
                 .isInstanceOf(PostNotFoundException.class)
                 .hasMessageContaining(POST_NOT_FOUND_EXCEPTION_MESSAGE + postToUpdate.id());
 
-        verify(postRepository).findById(postToUpdate.id());
+        verify(postRepository).update(eq(postToUpdate.id()), any());
         verify(postRepository, never()).save(postToUpdate);
     }
 
@@ -188,7 +203,7 @@ class PostServiceTest {
         Post post1 = new Post(1, userId, "Post 1", "Post content");
         Post post2 = new Post(2, userId, "Post 2", "Post content");
         given(postRepository.findByUserId(userId))
-                .willReturn(List.of(post1, post2));
+                .willReturn(new ArrayList<>(List.of(post1, post2)));
 
         List<Post> posts = postService.getPostsByUser(userId);
 
@@ -205,6 +220,7 @@ class PostServiceTest {
         assertThat(posts.get(1).body()).isEqualTo(post2.body());
 
         verify(postRepository).findByUserId(userId);
+        assertThatThrownBy(() -> posts.add(post1)).isInstanceOf(UnsupportedOperationException.class);
     }
 
     @Test
@@ -233,4 +249,52 @@ class PostServiceTest {
                 .isInstanceOf(PostNotFoundException.class)
                 .hasMessageContaining(POST_NOT_FOUND_EXCEPTION_MESSAGE + postId);
     }
+
+    @Test
+    void shouldReturnPostWithItsUser() {
+        PostService expandingPostService = new PostService(postRepository, new UserLoader(userRepository));
+        Post post = new Post(1, 123, "Post 1", "Post content");
+        User user = new User(123, "John Doe", "johnD", "john.doe@mail.com");
+        given(postRepository.findById(post.id()))
+                .willReturn(Optional.of(post));
+        given(userRepository.findAllById(List.of(user.id())))
+                .willReturn(List.of(user));
+
+        PostWithUser postWithUser = expandingPostService.getPostWithUser(post.id());
+
+        assertThat(postWithUser.post()).isEqualTo(post);
+        assertThat(postWithUser.user()).isEqualTo(user);
+    }
+
+    @Test
+    void shouldThrowPostNotFoundExceptionWhenPostToExpandDoesNotExist() {
+        PostService expandingPostService = new PostService(postRepository, new UserLoader(userRepository));
+        Integer postId = 1;
+        given(postRepository.findById(postId))
+                .willReturn(Optional.empty());
+
+        assertThatThrownBy(() -> expandingPostService.getPostWithUser(postId))
+                .isInstanceOf(PostNotFoundException.class);
+
+        verify(userRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void shouldLoadTheUsersOfAllPostsWithOneBulkRead() {
+        PostService expandingPostService = new PostService(postRepository, new UserLoader(userRepository));
+        User john = new User(1, "John Doe", "johnD", "john.doe@mail.com");
+        User jane = new User(2, "Jane Doe", "janeD", "jane.doe@mail.com");
+        List<Post> posts = List.of(
+                new Post(1, 1, "Post 1", "Post content"),
+                new Post(2, 2, "Post 2", "Post content"),
+                new Post(3, 1, "Post 3", "Post content"),
+                new Post(4, 9, "Post 4", "Post content"));
+        given(userRepository.findAllById(List.of(1, 2, 9)))
+                .willReturn(List.of(john, jane));
+
+        List<PostWithUser> postsWithUsers = expandingPostService.withUsers(posts);
+
+        assertThat(postsWithUsers).extracting(PostWithUser::user).containsExactly(john, jane, john, null);
+        verify(userRepository).findAllById(List.of(1, 2, 9));
+    }
 }
@@ -0,0 +1,129 @@
+package dev.chafon.springbootrest.replication;
+
+import dev.chafon.springbootrest.Application;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs a leader and two followers on localhost, writes to the leader from several threads and
+// waits for every follower to serve the same users and posts.
+class ReplicationIntegrationTest {
+
+    private static final int WRITERS = 4;
+    private static final int POSTS_PER_WRITER = 50;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.reversed().forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void shouldConvergeFollowersUnderConcurrentWrites() throws Exception {
+        String leader = start("--replication.role=leader", "--replication.log-capacity=64");
+        String follower = start("--replication.role=follower", "--replication.leader-url=" + leader);
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int writer = 0; writer < WRITERS; writer++) {
+            int userNumber = writer;
+            writers.add(executor.submit(() -> {
+                send(leader, "POST", "/api/v1/users", """
+                        {"name":"User %1$d","username":"user%1$d","email":"user%1$d@mail.com"}""".formatted(userNumber));
+                for (int i = 0; i < POSTS_PER_WRITER; i++) {
+                    String location = send(leader, "POST", "/api/v1/posts", """
+                            {"userId":%d,"title":"Title %d","body":"Body"}""".formatted(userNumber, i));
+                    String path = URI.create(location).getPath();
+                    if (i % 3 == 0) {
+                        send(leader, "PUT", path, """
+                                {"userId":%d,"title":"Updated %d","body":"Body"}""".formatted(userNumber, i));
+                    } else if (i % 5 == 0) {
+                        send(leader, "DELETE", path, null);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        executor.shutdown();
+
+        // joins after more changes than the leader's log holds, so it has to resync from a snapshot
+        String lateFollower = start("--replication.role=follower", "--replication.leader-url=" + leader);
+
+        for (String path : List.of("/api/v1/users", "/api/v1/posts")) {
+            String expected = get(leader, path);
+            assertThat(awaitBody(follower, path, expected)).isEqualTo(expected);
+            assertThat(awaitBody(lateFollower, path, expected)).isEqualTo(expected);
+        }
+        assertThat(nodes.get(1).getBean(ReplicationFollower.class).getLag()).isZero();
+    }
+
+    @Test
+    void shouldRedirectWritesOnFollowerToLeader() throws Exception {
+        String leader = start("--replication.role=leader");
+        String follower = start("--replication.role=follower", "--replication.leader-url=" + leader);
+
+        HttpResponse<String> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create(follower + "/api/v1/users"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(307);
+        assertThat(response.headers().firstValue("Location")).hasValue(leader + "/api/v1/users");
+    }
+
+    private String start(String... args) {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        arguments.addAll(List.of("--server.port=0", "--grpc.server.port=0",
+                "--admission.rate-limit.enabled=false", "--spring.jmx.enabled=false"));
+        ConfigurableApplicationContext context = SpringApplication.run(Application.class, arguments.toArray(String[]::new));
+        nodes.add(context);
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    private String send(String node, String method, String path, String json) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(node + path))
+                .header("Content-Type", "application/json");
+        request.method(method, json == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(json));
+        HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).as("%s %s", method, path).isBetween(200, 299);
+        return response.headers().firstValue("Location").orElse(null);
+    }
+
+    private String get(String node, String path) throws Exception {
+        return httpClient.send(HttpRequest.newBuilder(URI.create(node + path)).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private String awaitBody(String node, String path, String expected) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        String body = get(node, path);
+        while (!body.equals(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            body = get(node, path);
+        }
+        return body;
+    }
+}
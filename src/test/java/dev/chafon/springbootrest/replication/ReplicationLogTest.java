@@ -0,0 +1,136 @@
+package dev.chafon.springbootrest.replication;
+
+import dev.chafon.springbootrest.support.ChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ReplicationLogTest {
+
+    private final ReplicationLog replicationLog = new ReplicationLog(4);
+
+    @Test
+    void shouldReturnEntriesAfterSequenceInOrder() throws Exception {
+        replicationLog.append(ReplicationLog.USERS, 1, "user 1");
+        replicationLog.append(ReplicationLog.POSTS, 1, "post 1");
+        replicationLog.append(ReplicationLog.POSTS, 1, null);
+
+        ReplicationBatch batch = replicationLog.readAfter(replicationLog.epoch(), 1, 10, Duration.ZERO);
+
+        assertThat(batch.reset()).isFalse();
+        assertThat(batch.leaderSequence()).isEqualTo(3);
+        assertThat(batch.entries()).extracting(ReplicationEntry::sequence).containsExactly(2L, 3L);
+        assertThat(batch.entries().getLast().value()).isNull();
+    }
+
+    @Test
+    void shouldLimitBatchSize() throws Exception {
+        replicationLog.append(ReplicationLog.USERS, 1, "user 1");
+        replicationLog.append(ReplicationLog.USERS, 2, "user 2");
+        replicationLog.append(ReplicationLog.USERS, 3, "user 3");
+
+        ReplicationBatch batch = replicationLog.readAfter(replicationLog.epoch(), 0, 2, Duration.ZERO);
+
+        assertThat(batch.entries()).extracting(ReplicationEntry::id).containsExactly(1, 2);
+    }
+
+    @Test
+    void shouldAskForResyncWhenEntriesWereOverwritten() throws Exception {
+        for (int id = 1; id <= 6; id++) {
+            replicationLog.append(ReplicationLog.USERS, id, "user " + id);
+        }
+
+        assertThat(replicationLog.readAfter(replicationLog.epoch(), 1, 10, Duration.ZERO).reset()).isTrue();
+        assertThat(replicationLog.readAfter(replicationLog.epoch(), 2, 10, Duration.ZERO).entries())
+                .extracting(ReplicationEntry::sequence).containsExactly(3L, 4L, 5L, 6L);
+    }
+
+    @Test
+    void shouldAskForResyncWhenFollowerIsAheadOfTheLeader() throws Exception {
+        replicationLog.append(ReplicationLog.USERS, 1, "user 1");
+
+        assertThat(replicationLog.readAfter(replicationLog.epoch(), 5, 10, Duration.ZERO).reset()).isTrue();
+    }
+
+    @Test
+    void shouldAppendAChangeOnlyOnceItsWriteApplied() throws Exception {
+        ChangeListener<String> listener = replicationLog.listener(ReplicationLog.USERS, value -> 1);
+
+        listener.onSaved(null, "user 1");
+        assertThat(replicationLog.lastSequence()).isZero();
+        listener.afterChange(true);
+        listener.onSaved("user 1", "rolled back");
+        listener.afterChange(false);
+        listener.onDeleted("user 1");
+        listener.afterChange(true);
+
+        assertThat(replicationLog.readAfter(replicationLog.epoch(), 0, 10, Duration.ZERO).entries())
+                .extracting(ReplicationEntry::sequence, ReplicationEntry::value)
+                .containsExactly(tuple(1L, "user 1"), tuple(2L, null));
+    }
+
+    @Test
+    void shouldKeepQueuedOrderWhenAnEarlierWriteFinishesLast() throws Exception {
+        ChangeListener<String> listener = replicationLog.listener(ReplicationLog.USERS, value -> 1);
+        CompletableFuture<Void> earlierWriteQueued = new CompletableFuture<>();
+        CompletableFuture<Void> laterWriteDone = new CompletableFuture<>();
+        CompletableFuture<Void> earlierWrite = CompletableFuture.runAsync(() -> {
+            listener.onSaved(null, "first");
+            earlierWriteQueued.complete(null);
+            laterWriteDone.join();
+            listener.afterChange(true);
+        });
+
+        earlierWriteQueued.get(5, TimeUnit.SECONDS);
+        listener.onSaved("first", "second");
+        listener.afterChange(true);
+        assertThat(replicationLog.lastSequence()).isZero();
+        laterWriteDone.complete(null);
+        earlierWrite.get(5, TimeUnit.SECONDS);
+
+        assertThat(replicationLog.readAfter(replicationLog.epoch(), 0, 10, Duration.ZERO).entries())
+                .extracting(ReplicationEntry::value).containsExactly("first", "second");
+    }
+
+    @Test
+    void shouldAskForResyncWhenFollowerFollowedAnotherEpoch() throws Exception {
+        replicationLog.append(ReplicationLog.USERS, 1, "user 1");
+        ReplicationLog restartedLog = new ReplicationLog(4);
+        restartedLog.append(ReplicationLog.USERS, 1, "user 1");
+        restartedLog.append(ReplicationLog.USERS, 2, "user 2");
+
+        ReplicationBatch batch = restartedLog.readAfter(replicationLog.epoch(), 1, 10, Duration.ZERO);
+
+        assertThat(batch.reset()).isTrue();
+        assertThat(batch.epoch()).isEqualTo(restartedLog.epoch()).isNotEqualTo(replicationLog.epoch());
+        assertThat(restartedLog.readAfter(null, 0, 10, Duration.ZERO).reset()).isTrue();
+    }
+
+    @Test
+    void shouldWaitForNewEntries() throws Exception {
+        CompletableFuture<ReplicationBatch> poll = CompletableFuture.supplyAsync(() -> {
+            try {
+                return replicationLog.readAfter(replicationLog.epoch(), 0, 10, Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+
+        replicationLog.append(ReplicationLog.USERS, 1, "user 1");
+
+        assertThat(poll.get(5, TimeUnit.SECONDS).entries()).hasSize(1);
+    }
+
+    @Test
+    void shouldReturnEmptyBatchWhenPollTimesOut() throws Exception {
+        ReplicationBatch batch = replicationLog.readAfter(replicationLog.epoch(), 0, 10, Duration.ofMillis(20));
+
+        assertThat(batch.reset()).isFalse();
+        assertThat(batch.entries()).isEmpty();
+    }
+}
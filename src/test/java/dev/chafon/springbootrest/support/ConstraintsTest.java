@@ -0,0 +1,50 @@
+package dev.chafon.springbootrest.support;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Email;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConstraintsTest {
+
+    private static final List<String> ADDRESSES = List.of(
+            "", "-", "@", "a@", "@b", "a@b", "john.doe@mail.com", "John.Doe@Mail.COM", "john..doe@mail.com",
+            ".john@mail.com", "john.@mail.com", "john@mail..com", "john@.mail.com", "john@mail.com.",
+            "john@-mail.com", "john@mail-.com", "john@ma--il.com", "john@@mail.com", "a@b@mail.com",
+            "john doe@mail.com", "john@mail com", "!#$%&'*+/=?^_`{|}~-@mail.com", "john@m!il.com", "john@ma_il.com",
+            "\"john doe\"@mail.com", "john.\"doe\"@mail.com", "\"john\\\"doe\"@mail.com", "john@[192.168.0.1]", "john@[IPv6:2001:db8::1]",
+            "john@[300.1.1.1", "jöhn@mail.com", "john@mäil.com", "john@mail.comé",
+            "a".repeat(64) + "@mail.com", "a".repeat(65) + "@mail.com",
+            "john@" + "a".repeat(63) + ".com", "john@" + "a".repeat(64) + ".com",
+            "john@" + ("a".repeat(62) + ".").repeat(4) + "com", "john@" + ("a".repeat(50) + ".").repeat(5) + "com");
+
+    @Test
+    void isEmail_shouldAgreeWithTheEmailConstraint() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+        for (String address : ADDRESSES) {
+            assertThat(Constraints.isEmail(address))
+                    .as(address)
+                    .isEqualTo(validator.validateValue(Address.class, "value", address).isEmpty());
+        }
+        assertThat(Constraints.isEmail(null)).isTrue();
+    }
+
+    @Test
+    void isNotBlank_shouldRejectNullEmptyAndWhitespace() {
+        assertThat(Constraints.isNotBlank(null)).isFalse();
+        assertThat(Constraints.isNotBlank("")).isFalse();
+        assertThat(Constraints.isNotBlank(" \t\n")).isFalse();
+        assertThat(Constraints.isNotBlank(" a ")).isTrue();
+    }
+
+    private static final class Address {
+
+        @Email
+        private String value;
+    }
+}
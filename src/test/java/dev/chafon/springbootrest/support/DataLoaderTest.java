@@ -0,0 +1,53 @@
+package dev.chafon.springbootrest.support;
+
+import dev.chafon.springbootrest.user.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataLoaderTest {
+
+    private final Map<Integer, User> users = Map.of(
+            1, new User(1, "John Doe", "johnD", "john.doe@mail.com"),
+            2, new User(2, "Jane Doe", "janeD", "jane.doe@mail.com"));
+    private final List<Collection<Integer>> batches = new ArrayList<>();
+    private final DataLoader<User> loader = new DataLoader<>(this::findAllById, User::id);
+
+    @Test
+    void shouldLoadQueuedIdsWithOneBatch() {
+        loader.enqueue(1);
+        loader.enqueue(2);
+        loader.enqueue(1);
+        loader.enqueue(3);
+
+        assertThat(loader.load(2)).contains(users.get(2));
+        assertThat(loader.load(1)).contains(users.get(1));
+        assertThat(loader.load(3)).isEmpty();
+        assertThat(batches).containsExactly(List.of(1, 2, 3));
+    }
+
+    @Test
+    void shouldOnlyLoadIdsNotLoadedBefore() {
+        loader.load(1);
+        loader.load(7);
+
+        loader.enqueue(1);
+        loader.enqueue(7);
+        loader.enqueue(2);
+        loader.dispatch();
+        loader.dispatch();
+
+        assertThat(batches).containsExactly(List.of(1), List.of(7), List.of(2));
+        assertThat(loader.load(null)).isEmpty();
+    }
+
+    private List<User> findAllById(Collection<Integer> ids) {
+        batches.add(List.copyOf(ids));
+        return ids.stream().filter(users::containsKey).map(users::get).toList();
+    }
+}
@@ -0,0 +1,99 @@
+package dev.chafon.springbootrest.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chafon.springbootrest.user.UserNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static dev.chafon.springbootrest.Constants.USER_NOT_FOUND_EXCEPTION_MESSAGE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProblemBodiesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void render_shouldWriteTheProblemDetailFields() throws Exception {
+        byte[] body = ProblemBodies.forStatus(HttpStatus.NOT_FOUND).render("User not found: 1", "/api/users/1");
+
+        JsonNode problem = objectMapper.readTree(body);
+        assertThat(problem.size()).isEqualTo(5);
+        assertThat(problem.get("type").asText()).isEqualTo("about:blank");
+        assertThat(problem.get("title").asText()).isEqualTo("Not Found");
+        assertThat(problem.get("status").asInt()).isEqualTo(404);
+        assertThat(problem.get("detail").asText()).isEqualTo("User not found: 1");
+        assertThat(problem.get("instance").asText()).isEqualTo("/api/users/1");
+    }
+
+    @Test
+    void render_shouldEscapeTheDetailAndInstance() throws Exception {
+        String detail = "Name \"John\\Doe\"\n is not valid: Jöhn";
+        String instance = "/api/users/\"1\"";
+
+        JsonNode problem = objectMapper.readTree(
+                ProblemBodies.forStatus(HttpStatus.BAD_REQUEST).render(detail, instance));
+
+        assertThat(problem.get("detail").asText()).isEqualTo(detail);
+        assertThat(problem.get("instance").asText()).isEqualTo(instance);
+    }
+
+    @Test
+    void toResponse_shouldRenderJsonWhenJsonIsAccepted() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+        request.addHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+
+        ResponseEntity<?> response = ProblemBodies.forStatus(HttpStatus.NOT_FOUND).toResponse("User not found: 1", request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_PROBLEM_JSON);
+        assertThat(objectMapper.readTree((byte[]) response.getBody()).get("instance").asText()).isEqualTo("/api/users/1");
+    }
+
+    @Test
+    void toResponse_shouldLeaveOtherFormatsToTheConverters() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+        request.addHeader(HttpHeaders.ACCEPT, "application/cbor");
+
+        ResponseEntity<?> response = ProblemBodies.forStatus(HttpStatus.NOT_FOUND).toResponse("User not found: 1", request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(response.getBody()).isInstanceOf(ProblemDetail.class);
+        assertThat(((ProblemDetail) response.getBody()).getDetail()).isEqualTo("User not found: 1");
+    }
+
+    @Test
+    void toResponse_shouldRenderJsonOnlyWhenItIsTheMostPreferredType() {
+        ProblemBodies notFound = ProblemBodies.forStatus(HttpStatus.NOT_FOUND);
+
+        assertThat(notFound.toResponse("Not found", requestAccepting("application/cbor, application/json;q=0.1")).getBody())
+                .isInstanceOf(ProblemDetail.class);
+        assertThat(notFound.toResponse("Not found", requestAccepting("application/json;q=0.1, application/smile;q=0.5")).getBody())
+                .isInstanceOf(ProblemDetail.class);
+        assertThat(notFound.toResponse("Not found", requestAccepting("application/cbor;q=0.5, application/json")).getBody())
+                .isInstanceOf(byte[].class);
+        assertThat(notFound.toResponse("Not found", requestAccepting("text/html, application/problem+json;q=0.9, */*;q=0.8")).getBody())
+                .isInstanceOf(byte[].class);
+        assertThat(notFound.toResponse("Not found", requestAccepting("application/*")).getBody())
+                .isInstanceOf(byte[].class);
+    }
+
+    @Test
+    void stacklessException_shouldNotCaptureAStackTrace() {
+        UserNotFoundException ex = new UserNotFoundException(1);
+
+        assertThat(ex.getStackTrace()).isEmpty();
+        assertThat(ex.getMessage()).isEqualTo(USER_NOT_FOUND_EXCEPTION_MESSAGE + 1);
+    }
+
+    private static MockHttpServletRequest requestAccepting(String accept) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+        request.addHeader(HttpHeaders.ACCEPT, accept);
+        return request;
+    }
+}
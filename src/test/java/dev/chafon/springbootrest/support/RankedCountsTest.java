@@ -0,0 +1,72 @@
+package dev.chafon.springbootrest.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RankedCountsTest {
+
+    private final RankedCounts<String> counts = new RankedCounts<>();
+
+    @Test
+    void move_shouldCountEntitiesPerKey() {
+        counts.move(null, "a");
+        counts.move(null, "a");
+        counts.move(null, "b");
+        counts.move("a", "b");
+        counts.move("b", "b");
+
+        assertThat(counts.count("a")).isEqualTo(1);
+        assertThat(counts.count("b")).isEqualTo(2);
+        assertThat(counts.count("c")).isZero();
+        assertThat(counts.count(null)).isZero();
+    }
+
+    @Test
+    void move_shouldDropKeysWhoseCountReachesZero() {
+        counts.move(null, "a");
+        counts.move("a", null);
+
+        assertThat(counts.count("a")).isZero();
+        assertThat(counts.top(10)).isEmpty();
+    }
+
+    @Test
+    void top_shouldListHighestCountsFirstWithTiesInKeyOrder() {
+        counts.move(null, "c");
+        counts.move(null, "b");
+        counts.move(null, "a");
+        counts.move(null, "a");
+
+        assertThat(counts.top(2)).containsExactly(
+                new RankedCounts.Count<>("a", 2L),
+                new RankedCounts.Count<>("b", 1L));
+        assertThat(counts.top(0)).isEmpty();
+        assertThat(counts.top(-1)).isEmpty();
+    }
+
+    @Test
+    void move_shouldNotLoseConcurrentChanges() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            String key = "key" + (thread % 2);
+            executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    counts.move(null, key);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(counts.count("key0")).isEqualTo(4000);
+        assertThat(counts.count("key1")).isEqualTo(4000);
+        assertThat(counts.top(10)).containsExactly(
+                new RankedCounts.Count<>("key0", 4000L),
+                new RankedCounts.Count<>("key1", 4000L));
+    }
+}
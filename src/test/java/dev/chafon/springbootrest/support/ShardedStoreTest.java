@@ -0,0 +1,294 @@
+package dev.chafon.springbootrest.support;
+
+import dev.chafon.springbootrest.post.Post;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardedStoreTest {
+
+    private final ShardedStore<Post> store = new ShardedStore<>(8, Post::id);
+    private final ShardedStore.Index<Post, Integer> userIdIndex = store.addIndex(Post::userId);
+    private final ShardedStore.SortedIndex<Post, String> titleOrder = store.addSortedIndex(Post::title, Post::userId);
+
+    @Test
+    void shouldReturnValuesInIdOrderAcrossShards() {
+        List<Integer> ids = new ArrayList<>(IntStream.rangeClosed(1, 100).boxed().toList());
+        Collections.shuffle(ids);
+        ids.forEach(id -> store.put(new Post(id, id % 3, "Title " + id, "Body")));
+
+        assertThat(store.values()).extracting(Post::id)
+                .containsExactlyElementsOf(IntStream.rangeClosed(1, 100).boxed().toList());
+        assertThat(store.size()).isEqualTo(100);
+    }
+
+    @Test
+    void shouldScanInParallelAboveThreshold() {
+        for (int id = 1; id <= 20_000; id++) {
+            store.put(new Post(id, id % 10, "Title " + id, "Body"));
+        }
+
+        List<Post> matches = store.filter(post -> post.userId() == 3);
+
+        assertThat(matches).hasSize(2_000);
+        assertThat(matches).extracting(Post::id).isSorted().allMatch(id -> id % 10 == 3);
+        assertThat(store.values()).hasSize(20_000).extracting(Post::id).isSorted();
+    }
+
+    @Test
+    void shouldKeepIndexInStepWithUpdatesAndDeletes() {
+        store.put(new Post(1, 10, "Title 1", "Body"));
+        store.put(new Post(2, 10, "Title 2", "Body"));
+        store.put(new Post(3, 20, "Title 3", "Body"));
+
+        store.compute(2, (id, post) -> new Post(id, 20, post.title(), post.body()));
+        store.remove(1);
+
+        assertThat(store.findBy(userIdIndex, 10)).isEmpty();
+        assertThat(store.existsBy(userIdIndex, 10)).isFalse();
+        assertThat(store.findBy(userIdIndex, 20)).extracting(Post::id).containsExactly(2, 3);
+        assertThat(store.existsBy(userIdIndex, 20)).isTrue();
+    }
+
+    @Test
+    void shouldNotIndexNullKeys() {
+        store.put(new Post(1, null, "Title", "Body"));
+
+        assertThat(store.findBy(userIdIndex, null)).isEmpty();
+        assertThat(store.get(1)).isNotNull();
+    }
+
+    @Test
+    void shouldRejectIndexOnPopulatedStore() {
+        store.put(new Post(1, 10, "Title", "Body"));
+
+        assertThatThrownBy(() -> store.addIndex(Post::title))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldReadPointInTimeVersions() {
+        store.put(new Post(1, 10, "Title 1", "Body"));
+        store.put(new Post(2, 10, "Title 2", "Body"));
+        long before = store.clock().currentSequence();
+
+        store.compute(1, (id, post) -> new Post(id, 10, "Updated", post.body()));
+        store.remove(2);
+        store.put(new Post(3, 10, "Title 3", "Body"));
+
+        assertThat(store.values(before)).extracting(Post::title).containsExactly("Title 1", "Title 2");
+        assertThat(store.get(2, before)).isNotNull();
+        assertThat(store.values()).extracting(Post::title).containsExactly("Updated", "Title 3");
+        assertThat(store.get(2)).isNull();
+        assertThat(store.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCollectVersionsOutsideRetention() {
+        ShardedStore<Post> unretained = new ShardedStore<>(8, Post::id, new VersionClock(0));
+        unretained.put(new Post(1, 10, "Title 1", "Body"));
+        long before = unretained.clock().currentSequence();
+
+        unretained.compute(1, (id, post) -> new Post(id, 10, "Updated", post.body()));
+        unretained.compute(1, (id, post) -> new Post(id, 10, "Updated again", post.body()));
+
+        assertThatThrownBy(() -> unretained.values(before))
+                .isInstanceOf(SnapshotUnavailableException.class)
+                .matches(ex -> ((SnapshotUnavailableException) ex).isExpired());
+        assertThat(unretained.values()).extracting(Post::title).containsExactly("Updated again");
+    }
+
+    @Test
+    void shouldCutVersionsOutsideRetentionWhenScanning() {
+        ShardedStore<Post> retaining = new ShardedStore<>(8, Post::id, new VersionClock(2));
+        retaining.put(new Post(1, 10, "Title 1", "Body"));
+        retaining.compute(1, (id, post) -> new Post(id, 10, "Updated", post.body()));
+        for (int id = 2; id <= 5; id++) {
+            retaining.put(new Post(id, 10, "Title " + id, "Body"));
+        }
+        assertThat(retaining.versionCount(1)).isEqualTo(2);
+
+        assertThat(retaining.values()).hasSize(5);
+
+        assertThat(retaining.versionCount(1)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectSequenceNotCommittedYet() {
+        store.put(new Post(1, 10, "Title 1", "Body"));
+
+        assertThatThrownBy(() -> store.values(store.clock().currentSequence() + 1))
+                .isInstanceOf(SnapshotUnavailableException.class)
+                .matches(ex -> !((SnapshotUnavailableException) ex).isExpired());
+    }
+
+    @Test
+    void shouldScanConsistentSnapshotWhileWriterUpdates() throws Exception {
+        // the writer bumps every post in id order each round, so a consistent scan sees a prefix of
+        // posts already on the next round followed by posts still on the previous one
+        int posts = 256;
+        for (int id = 1; id <= posts; id++) {
+            store.put(new Post(id, 0, "Title", "Body"));
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = Thread.ofPlatform().start(() -> {
+            for (int round = 1; running.get(); round++) {
+                for (int id = 1; id <= posts; id++) {
+                    int next = round;
+                    store.compute(id, (key, post) -> new Post(key, next, post.title(), post.body()));
+                }
+            }
+        });
+        try {
+            for (int i = 0; i < 500; i++) {
+                List<Integer> rounds = store.values().stream().map(Post::userId).toList();
+                assertThat(rounds).hasSize(posts);
+                assertThat(rounds).isSortedAccordingTo(Collections.reverseOrder());
+                assertThat(rounds.getFirst() - rounds.getLast()).isBetween(0, 1);
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidShardCount() {
+        assertThatThrownBy(() -> new ShardedStore<Post>(0, Post::id))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRangeOverSortedIndexFromCursor() {
+        store.put(new Post(1, 1, "b", "Body"));
+        store.put(new Post(2, 2, "a", "Body"));
+        store.put(new Post(3, 1, "c", "Body"));
+        store.put(new Post(4, 1, "a", "Body"));
+
+        assertThat(store.range(titleOrder, null, null, null, false, 10)).extracting(Post::id)
+                .containsExactly(2, 4, 1, 3);
+        assertThat(store.range(titleOrder, 1, null, null, false, 2)).extracting(Post::id)
+                .containsExactly(4, 1);
+        assertThat(store.range(titleOrder, 1, "b", 1, false, 2)).extracting(Post::id)
+                .containsExactly(3);
+        assertThat(store.range(titleOrder, null, "b", 1, true, 10)).extracting(Post::id)
+                .containsExactly(4, 2);
+        assertThat(store.range(titleOrder, 7, null, null, false, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldRangeOverSortedIndexBetweenBounds() {
+        for (int id = 1; id <= 6; id++) {
+            store.put(new Post(id, id % 2, String.valueOf((char) ('a' + id)), "Body"));
+        }
+
+        assertThat(store.range(titleOrder, null, "c", "f", null, null, false, 10)).extracting(Post::id)
+                .containsExactly(2, 3, 4);
+        assertThat(store.range(titleOrder, 0, "c", null, null, null, true, 10)).extracting(Post::id)
+                .containsExactly(6, 4, 2);
+        assertThat(store.range(titleOrder, null, null, "e", "d", 3, true, 10)).extracting(Post::id)
+                .containsExactly(2, 1);
+        assertThat(store.range(titleOrder, null, "f", "c", null, null, false, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldMoveEntriesOfSortedIndexOnUpdateAndRemove() {
+        store.put(new Post(1, 1, "b", "Body"));
+        store.put(new Post(2, 1, "c", "Body"));
+
+        store.put(new Post(1, 2, "d", "Body"));
+        store.remove(2);
+
+        assertThat(store.range(titleOrder, 1, null, null, false, 10)).isEmpty();
+        assertThat(store.range(titleOrder, 2, null, null, false, 10)).extracting(Post::title).containsExactly("d");
+        assertThat(store.range(titleOrder, null, null, null, false, 10)).extracting(Post::id).containsExactly(1);
+    }
+
+    @Test
+    void shouldKeepTombstonesHiddenUntilCompactedOutsideRetention() {
+        ShardedStore<Post> unretained = new ShardedStore<>(8, Post::id, new VersionClock(0));
+        unretained.put(new Post(1, 10, "Title 1", "Body"));
+        unretained.put(new Post(2, 10, "Title 2", "Body"));
+        unretained.remove(2);
+
+        assertThat(unretained.get(2)).isNull();
+        assertThat(unretained.values()).extracting(Post::id).containsExactly(1);
+        assertThat(unretained.size()).isEqualTo(1);
+        assertThat(unretained.tombstoneCount()).isEqualTo(1);
+        assertThat(unretained.compactTombstones(5, 10)).isZero();
+
+        unretained.put(new Post(3, 10, "Title 3", "Body"));
+        unretained.put(new Post(4, 10, "Title 4", "Body"));
+        unretained.put(new Post(5, 10, "Title 5", "Body"));
+
+        assertThat(unretained.compactTombstones(2, 10)).isEqualTo(1);
+        assertThat(unretained.tombstoneCount()).isZero();
+    }
+
+    @Test
+    void shouldCompactAtMostTheGivenNumberOfTombstonesPerPass() {
+        ShardedStore<Post> unretained = new ShardedStore<>(8, Post::id, new VersionClock(0));
+        for (int id = 1; id <= 5; id++) {
+            unretained.put(new Post(id, 10, "Title " + id, "Body"));
+            unretained.remove(id);
+        }
+
+        assertThat(unretained.compactTombstones(0, 2)).isEqualTo(2);
+        assertThat(unretained.compactTombstones(0, 2)).isEqualTo(2);
+        assertThat(unretained.compactTombstones(0, 2)).isEqualTo(1);
+        assertThat(unretained.tombstoneCount()).isZero();
+    }
+
+    @Test
+    void shouldNotCompactAnIdWrittenAgainAfterItsDelete() {
+        ShardedStore<Post> unretained = new ShardedStore<>(8, Post::id, new VersionClock(0));
+        unretained.put(new Post(1, 10, "Title 1", "Body"));
+        unretained.remove(1);
+        unretained.put(new Post(1, 10, "Restored", "Body"));
+
+        assertThat(unretained.tombstoneCount()).isZero();
+        assertThat(unretained.compactTombstones(0, 10)).isZero();
+        assertThat(unretained.get(1)).extracting(Post::title).isEqualTo("Restored");
+    }
+
+    @Test
+    void shouldReportChangesSinceASequence() {
+        store.put(new Post(1, 10, "Title 1", "Body"));
+        store.put(new Post(2, 10, "Title 2", "Body"));
+        long since = store.clock().currentSequence();
+
+        store.compute(1, (id, post) -> new Post(id, 10, "Updated", post.body()));
+        store.remove(2);
+        long deletedAt = store.clock().currentSequence();
+        store.put(new Post(3, 10, "Title 3", "Body"));
+
+        ChangeSet<Post> changes = store.changesSince(since);
+
+        assertThat(changes.sequence()).isEqualTo(store.clock().currentSequence());
+        assertThat(changes.upserted()).extracting(Post::title).containsExactly("Updated", "Title 3");
+        assertThat(changes.deleted()).containsExactly(new ChangeSet.Deletion(2, deletedAt));
+        assertThat(store.changesSince(changes.sequence()).upserted()).isEmpty();
+    }
+
+    @Test
+    void shouldRejectChangesSinceASequenceBehindCompaction() {
+        ShardedStore<Post> unretained = new ShardedStore<>(8, Post::id, new VersionClock(0));
+        unretained.put(new Post(1, 10, "Title 1", "Body"));
+        unretained.put(new Post(2, 10, "Title 2", "Body"));
+        long since = unretained.clock().currentSequence();
+        unretained.remove(1);
+        unretained.compactTombstones(0, 10);
+
+        assertThatThrownBy(() -> unretained.changesSince(since))
+                .isInstanceOf(SnapshotUnavailableException.class)
+                .matches(ex -> ((SnapshotUnavailableException) ex).isExpired());
+        assertThat(unretained.changesSince(0).upserted()).extracting(Post::id).containsExactly(2);
+    }
+}
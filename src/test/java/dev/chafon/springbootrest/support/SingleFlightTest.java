@@ -0,0 +1,125 @@
+package dev.chafon.springbootrest.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test");
+
+    @Test
+    void shouldShareOneExecutionBetweenConcurrentCallersForTheSameKey() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = callConcurrently(() -> singleFlight.execute(1, () -> {
+            executions.incrementAndGet();
+            await(release);
+            return "value";
+        }), release);
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        }
+        assertThat(executions).hasValue(1);
+        assertThat(singleFlight.getCalls()).isEqualTo(CALLERS);
+        assertThat(singleFlight.getExecutions()).isEqualTo(1);
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+
+    @Test
+    void shouldPropagateTheLoaderExceptionToAllWaitingCallers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = callConcurrently(() -> singleFlight.execute(1, () -> {
+            await(release);
+            throw new IllegalStateException("backend failure");
+        }), release);
+
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class)
+                    .hasRootCauseMessage("backend failure");
+        }
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+
+    @Test
+    void shouldLoadAgainOnceThePreviousFlightCompleted() {
+        AtomicInteger executions = new AtomicInteger();
+
+        singleFlight.execute(1, () -> "value-" + executions.incrementAndGet());
+        String value = singleFlight.execute(1, () -> "value-" + executions.incrementAndGet());
+
+        assertThat(value).isEqualTo("value-2");
+        assertThat(singleFlight.getDedupRatio()).isZero();
+    }
+
+    @Test
+    void shouldNotCoalesceDifferentKeys() {
+        assertThat(singleFlight.execute(1, () -> "one")).isEqualTo("one");
+        assertThat(singleFlight.execute(2, () -> "two")).isEqualTo("two");
+        assertThat(singleFlight.getExecutions()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldExposeDedupMetrics() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        singleFlight.bindTo(registry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        for (Future<String> result : callConcurrently(() -> singleFlight.execute(1, () -> {
+            await(release);
+            return "value";
+        }), release)) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(registry.get("singleflight.calls").tag("lookup", "test").functionCounter().count())
+                .isEqualTo(CALLERS);
+        assertThat(registry.get("singleflight.executions").tag("lookup", "test").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("singleflight.dedup.ratio").tag("lookup", "test").gauge().value())
+                .isEqualTo(1 - 1.0 / CALLERS);
+    }
+
+    // Starts all callers, waits until every one of them joined the flight, then lets the loader finish.
+    private List<Future<String>> callConcurrently(Callable<String> call,
+                                                  CountDownLatch release) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(call));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.waitingCallers(1) < CALLERS - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        executor.shutdown();
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
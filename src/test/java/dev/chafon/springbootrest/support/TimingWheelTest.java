@@ -0,0 +1,63 @@
+package dev.chafon.springbootrest.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private static final long START = 1_000_000;
+
+    private final TimingWheel<Integer> wheel = new TimingWheel<>(10, START);
+
+    @Test
+    void advance_shouldReturnKeysOnlyOnceTheirDeadlinePassed() {
+        wheel.schedule(1, START + 25);
+        wheel.schedule(2, START + 40);
+
+        assertThat(wheel.advance(START + 20)).isEmpty();
+        assertThat(wheel.advance(START + 30)).containsExactly(1);
+        assertThat(wheel.advance(START + 30)).isEmpty();
+        assertThat(wheel.advance(START + 45)).containsExactly(2);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void advance_shouldReturnKeysScheduledInThePastRightAway() {
+        wheel.schedule(1, START - 1000);
+
+        assertThat(wheel.advance(START)).containsExactly(1);
+    }
+
+    @Test
+    void advance_shouldCascadeDeadlinesFromTheUpperLevels() {
+        // one tick short of the end of the second and third levels, and beyond all four levels
+        long[] deadlines = {START + 10 * 64 * 64 - 10, START + 10 * 64 * 64 * 64 - 10, START + 10L * (1 << 24) * 3};
+        for (int i = 0; i < deadlines.length; i++) {
+            wheel.schedule(i, deadlines[i]);
+        }
+
+        for (int i = 0; i < deadlines.length; i++) {
+            assertThat(wheel.advance(deadlines[i] - 10)).isEmpty();
+            assertThat(wheel.advance(deadlines[i])).containsExactly(i);
+        }
+    }
+
+    @Test
+    void schedule_shouldReplaceTheDeadlineOfAKey() {
+        wheel.schedule(1, START + 20);
+        wheel.schedule(1, START + 200);
+
+        assertThat(wheel.advance(START + 100)).isEmpty();
+        assertThat(wheel.advance(START + 200)).containsExactly(1);
+    }
+
+    @Test
+    void cancel_shouldDropTheKey() {
+        wheel.schedule(1, START + 20);
+        wheel.cancel(1);
+
+        assertThat(wheel.size()).isZero();
+        assertThat(wheel.advance(START + 100)).isEmpty();
+    }
+}
@@ -0,0 +1,102 @@
+package dev.chafon.springbootrest.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VersionClockTest {
+
+    private final VersionClock clock = new VersionClock(10);
+
+    @Test
+    void shouldPublishSequenceOnlyOnceEarlierWritesCommit() {
+        long first = clock.begin();
+        long second = clock.begin();
+
+        clock.end(second);
+        assertThat(clock.currentSequence()).isEqualTo(first - 1);
+
+        clock.end(first);
+        assertThat(clock.currentSequence()).isEqualTo(second);
+    }
+
+    @Test
+    void shouldPublishEverySequenceOnceConcurrentWritersCommit() throws Exception {
+        int writers = 8;
+        int commits = 100_000;
+        AtomicBoolean publishedEarly = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int j = 0; j < commits; j++) {
+                    long sequence = clock.begin();
+                    if (clock.currentSequence() >= sequence) {
+                        publishedEarly.set(true);
+                    }
+                    clock.end(sequence);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(publishedEarly).isFalse();
+        assertThat(clock.currentSequence()).isEqualTo((long) writers * commits);
+    }
+
+    @Test
+    void shouldWaitForStartedWritesToCommit() throws Exception {
+        commit(2);
+        long inFlight = clock.begin();
+        CompletableFuture<Long> awaited = CompletableFuture.supplyAsync(clock::awaitStarted);
+
+        Thread.sleep(50);
+        assertThat(awaited).isNotDone();
+        clock.end(inFlight);
+
+        assertThat(awaited.get(5, TimeUnit.SECONDS)).isGreaterThanOrEqualTo(inFlight);
+    }
+
+    @Test
+    void shouldHoldHorizonAtOldestPinnedSnapshot() {
+        commit(20);
+        try (VersionClock.Snapshot snapshot = clock.pin(5)) {
+            commit(20);
+
+            assertThat(clock.horizon()).isEqualTo(snapshot.sequence());
+        }
+        assertThat(clock.horizon()).isEqualTo(clock.currentSequence() - 10);
+    }
+
+    @Test
+    void shouldRejectSnapshotBehindCollectedHorizon() {
+        commit(30);
+        clock.horizon();
+
+        assertThatThrownBy(() -> clock.pin(5))
+                .isInstanceOf(SnapshotUnavailableException.class);
+        assertThat(clock.pin(25).sequence()).isEqualTo(25);
+    }
+
+    @Test
+    void shouldRejectSnapshotAheadOfLatestCommit() {
+        commit(3);
+
+        assertThatThrownBy(() -> clock.pin(4))
+                .isInstanceOf(SnapshotUnavailableException.class);
+    }
+
+    private void commit(int writes) {
+        for (int i = 0; i < writes; i++) {
+            clock.end(clock.begin());
+        }
+    }
+}
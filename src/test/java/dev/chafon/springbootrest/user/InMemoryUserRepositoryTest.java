@@ -1,11 +1,17 @@
 package dev.chafon.springbootrest.user;
 
 import dev.chafon.springbootrest.Constants;
+import dev.chafon.springbootrest.support.ChangeListener;
+import dev.chafon.springbootrest.support.RankedCounts;
+import dev.chafon.springbootrest.support.VersionConflictException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static dev.chafon.springbootrest.Constants.*;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -147,6 +153,162 @@ class InMemoryUserRepositoryTest {
                 .hasMessage(ID_CANNOT_BE_NULL);
     }
 
+    @Test
+    void save_shouldNotifyChangeListenersWithTheUserAsStored() {
+        List<User> previousUsers = new ArrayList<>();
+        List<User> savedUsers = new ArrayList<>();
+        List<User> deletedUsers = new ArrayList<>();
+        repository.addChangeListener(new ChangeListener<>() {
+            @Override
+            public void onSaved(User previous, User saved) {
+                previousUsers.add(previous);
+                savedUsers.add(saved);
+            }
+
+            @Override
+            public void onDeleted(User deleted) {
+                deletedUsers.add(deleted);
+            }
+        });
+
+        User user = saveATestUser();
+        User updatedUser = repository.save(new User(user.id(), "Johnny Doe", "ignored", "johnny.doe@mail.com"));
+        repository.deleteById(user.id());
+
+        assertThat(previousUsers).containsExactly(null, user);
+        assertThat(savedUsers).containsExactly(user, updatedUser);
+        assertThat(updatedUser.username()).isEqualTo(user.username());
+        assertThat(deletedUsers).containsExactly(updatedUser);
+    }
+
+    @Test
+    void save_shouldStartAtTheFirstVersionAndIncrementOnEveryUpdate() {
+        User user = saveATestUser();
+        User updatedUser = repository.save(new User(user.id(), "Johnny Doe", "johnD", "johnny.doe@mail.com"));
+
+        assertThat(user.version()).isEqualTo(1L);
+        assertThat(updatedUser.version()).isEqualTo(2L);
+    }
+
+    @Test
+    void save_shouldRejectAnUpdateOfAStaleVersion() {
+        User user = saveATestUser();
+        User updatedUser = repository.save(new User(user.id(), "Johnny Doe", "johnD", "johnny.doe@mail.com", user.version()));
+
+        assertThatThrownBy(() -> repository.save(new User(user.id(), "J D", "johnD", "j.d@mail.com", user.version())))
+                .isInstanceOf(VersionConflictException.class)
+                .hasMessage(VERSION_DOES_NOT_MATCH + updatedUser.version());
+        assertThat(repository.findById(user.id())).contains(updatedUser);
+    }
+
+    @Test
+    void update_shouldApplyConcurrentUpdatesWithoutLosingAny() throws Exception {
+        User user = repository.save(new User(null, "0", "counter", "counter@mail.com"));
+        int threads = 8;
+        int updatesPerThread = 1000;
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                executor.submit(() -> {
+                    for (int j = 0; j < updatesPerThread; j++) {
+                        repository.update(user.id(), existingUser -> new User(existingUser.id(),
+                                String.valueOf(Integer.parseInt(existingUser.name()) + 1),
+                                existingUser.username(), existingUser.email(), existingUser.version()));
+                    }
+                });
+            }
+        }
+
+        User updatedUser = repository.findById(user.id()).orElseThrow();
+        assertThat(updatedUser.name()).isEqualTo(String.valueOf(threads * updatesPerThread));
+        assertThat(updatedUser.version()).isEqualTo(user.version() + threads * updatesPerThread);
+    }
+
+    @Test
+    void update_shouldReturnEmptyWithoutCallingTheUpdaterWhenUserDoesNotExist() {
+        assertThat(repository.update(1, existingUser -> {
+            throw new AssertionError("updater called for a missing user");
+        })).isEmpty();
+    }
+
+    @Test
+    void restore_shouldPutTheUserAndContinueTheIdSequenceAfterIt() {
+        User restoredUser = new User(7, "Jane Doe", "janeD", "jane.doe@mail.com");
+
+        repository.restore(restoredUser);
+
+        assertThat(repository.findById(7)).contains(restoredUser);
+        assertThat(saveATestUser().id()).isEqualTo(8);
+    }
+
+    @Test
+    void adopt_shouldRefuseAUserWhoseIdIsTakenByAnotherOne() {
+        User user = saveATestUser();
+        User sameIdOtherUser = new User(user.id(), "Jane Doe", "janeD", "jane.doe@mail.com");
+
+        assertThat(repository.adopt(sameIdOtherUser)).isFalse();
+        assertThat(repository.adopt(user)).isTrue();
+
+        assertThat(repository.findById(user.id())).contains(user);
+    }
+
+    @Test
+    void evict_shouldRemoveTheUser() {
+        User user = saveATestUser();
+
+        repository.evict(user.id());
+
+        assertThat(repository.findById(user.id())).isEmpty();
+    }
+
+    @Test
+    void countByEmailDomain_shouldFollowSavesEmailChangesAndDeletes() {
+        User user = saveATestUser();
+        repository.save(new User(null, "Jane Doe", "janeD", "jane.doe@Mail.com"));
+        User otherUser = repository.save(new User(null, "Jim Doe", "jimD", "jim.doe@example.org"));
+
+        repository.update(user.id(), existingUser ->
+                new User(existingUser.id(), existingUser.name(), existingUser.username(), "john.doe@example.org"));
+        repository.deleteById(otherUser.id());
+
+        assertThat(repository.countByEmailDomain("mail.com")).isEqualTo(1);
+        assertThat(repository.countByEmailDomain("MAIL.COM")).isEqualTo(1);
+        assertThat(repository.countByEmailDomain("example.org")).isEqualTo(1);
+        assertThat(repository.countByEmailDomain("unknown.net")).isZero();
+    }
+
+    @Test
+    void findTopEmailDomains_shouldReturnTheDomainsWithTheMostUsersFirst() {
+        repository.save(new User(null, "John Doe", "johnD", "john.doe@mail.com"));
+        repository.save(new User(null, "Jane Doe", "janeD", "jane.doe@example.org"));
+        repository.save(new User(null, "Jim Doe", "jimD", "jim.doe@example.org"));
+        repository.restore(new User(10, "Joe Doe", "joeD", "joe.doe@test.net"));
+        repository.evict(10);
+
+        assertThat(repository.findTopEmailDomains(10)).containsExactly(
+                new RankedCounts.Count<>("example.org", 2L),
+                new RankedCounts.Count<>("mail.com", 1L));
+    }
+
+    @Test
+    void findAllById_shouldReturnTheUsersFoundInTheRequestedOrder() {
+        User john = saveATestUser();
+        User jane = repository.save(new User(null, "Jane Doe", "janeD", "jane.doe@mail.com"));
+
+        List<User> users = repository.findAllById(List.of(jane.id(), 99, john.id(), jane.id()));
+
+        assertThat(users).containsExactly(jane, john);
+    }
+
+    @Test
+    void findAllById_shouldReadAllUsersAtTheRequestedSequence() {
+        User john = saveATestUser();
+        long asOf = repository.currentSequence();
+        repository.save(new User(john.id(), "Johnny Doe", john.username(), john.email()));
+        repository.save(new User(null, "Jane Doe", "janeD", "jane.doe@mail.com"));
+
+        assertThat(repository.findAllById(List.of(john.id(), john.id() + 1), asOf)).containsExactly(john);
+    }
+
     private User saveATestUser() {
         return repository.save(
                 new User(null, "John Doe", "johnD", "john.doe@mail.com"));
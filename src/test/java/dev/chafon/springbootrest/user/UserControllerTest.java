@@ -4,12 +4,18 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.chafon.springbootrest.post.Post;
 import dev.chafon.springbootrest.post.PostNotFoundException;
 import dev.chafon.springbootrest.post.PostService;
+import dev.chafon.springbootrest.support.MultiGet;
+import dev.chafon.springbootrest.support.RankedCounts;
+import dev.chafon.springbootrest.support.SnapshotUnavailableException;
+import dev.chafon.springbootrest.support.VersionConflictException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
 import java.util.List;
 
 import static dev.chafon.springbootrest.Constants.*;
@@ -93,6 +99,26 @@ class UserControllerTest {
 
     }
 
+    @Test
+    void shouldReturnUsersAsOfSequence() throws Exception {
+        given(userService.getUsers(42))
+                .willReturn(List.of(new User(1, "John Doe", "johnD", "john.doe@mail.com")));
+
+        mvc.perform(get(API_PATH).param("asOf", "42"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void shouldReturnStatusGoneWhenSnapshotNoLongerRetained() throws Exception {
+        willThrow(new SnapshotUnavailableException(SNAPSHOT_NO_LONGER_RETAINED + 1, true))
+                .given(userService).getUser(1, 1);
+
+        mvc.perform(get(API_PATH + "/{id}", 1).param("asOf", "1"))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.detail", equalTo(SNAPSHOT_NO_LONGER_RETAINED + 1)));
+    }
+
     @Test
     void shouldCreateUserAndReturnUserAndLocationAndStatusCreated() throws Exception {
         User userToCreate = new User(null, "John Doe", "johnD", "john.doe@mail.com");
@@ -174,6 +200,31 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.detail", containsString(USER_NOT_FOUND_EXCEPTION_MESSAGE + userToUpdate.id())));
     }
 
+    @Test
+    void shouldReturnTheVersionAsETag() throws Exception {
+        given(userService.getUser(1))
+                .willReturn(new User(1, "John Doe", "johnD", "john.doe@mail.com", 3L));
+
+        mvc.perform(get(API_PATH + "/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(jsonPath("$.version", equalTo(3)));
+    }
+
+    @Test
+    void shouldReturnStatusPreconditionFailedWhenIfMatchIsStale() throws Exception {
+        User userToUpdate = new User(1, "John Doe", "johnD", "john.doe@mail.com");
+        willThrow(new VersionConflictException(4L))
+                .given(userService).updateUser(userToUpdate.id(), userToUpdate, 3L);
+
+        mvc.perform(put(API_PATH + "/{id}", userToUpdate.id())
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userToUpdate)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.detail", equalTo(VERSION_DOES_NOT_MATCH + 4)));
+    }
+
     @Test
     void shouldDeleteUserAndReturnStatusNoContent() throws Exception {
         mvc.perform(delete(API_PATH + "/{id}", 1))
@@ -191,6 +242,20 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.detail", containsString(USER_NOT_FOUND_EXCEPTION_MESSAGE + idToDelete)));
     }
 
+    @Test
+    void shouldReturnPostsOfUserCreatedInATimeRange() throws Exception {
+        Instant since = Instant.parse("2024-06-01T10:00:00Z");
+        List<Post> posts = List.of(new Post(2, 123, "My second post", "My second post content", 1L,
+                since.plusSeconds(5), since.plusSeconds(5), null));
+        given(userService.getUserPosts(123, since, null))
+                .willReturn(posts);
+
+        mvc.perform(get(API_PATH + "/{id}/posts", 123).param("since", since.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].createdAt", equalTo("2024-06-01T10:00:05Z")));
+    }
+
     @Test
     void shouldReturnPostsForUserAndStatusOkWhenUserExists() throws Exception {
         Integer userId = 123;
@@ -265,4 +330,96 @@ class UserControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.detail", containsString(POST_NOT_FOUND_EXCEPTION_MESSAGE + postId)));
     }
+
+    @Test
+    void shouldReturnThePostCountOfTheUser() throws Exception {
+        Integer userId = 123;
+        given(userService.countUserPosts(userId))
+                .willReturn(3L);
+
+        mvc.perform(get(API_PATH + "/{id}/posts/count", userId))
+                .andExpect(status().isOk())
+                .andExpect(content().string("3"));
+    }
+
+    @Test
+    void shouldReturnTheEmailDomainsWithTheMostUsers() throws Exception {
+        given(userService.getTopEmailDomains(2))
+                .willReturn(List.of(
+                        new RankedCounts.Count<>("mail.com", 5L),
+                        new RankedCounts.Count<>("example.org", 2L)));
+
+        mvc.perform(get(API_PATH + "/counts-by-email-domain").param("top", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].key", equalTo("mail.com")))
+                .andExpect(jsonPath("$[0].count", equalTo(5)))
+                .andExpect(jsonPath("$[1].key", equalTo("example.org")));
+    }
+
+    @Test
+    void shouldReturnTheUserCountOfAnEmailDomain() throws Exception {
+        given(userService.countUsersByEmailDomain("mail.com"))
+                .willReturn(5L);
+
+        mvc.perform(get(API_PATH + "/counts-by-email-domain/{domain}", "mail.com"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("5"));
+    }
+
+    @Test
+    void shouldReturnTheUsersAskedForAndReportTheMissingIds() throws Exception {
+        List<User> users = List.of(
+                new User(2, "Jane Doe", "janeD", "jane.doe@mail.com"),
+                new User(1, "John Doe", "johnD", "john.doe@mail.com")
+        );
+        given(userService.getUsersById(List.of(2, 7, 1)))
+                .willReturn(users);
+
+        mvc.perform(get(API_PATH).param("ids", "2,7,1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(MultiGet.MISSING_IDS_HEADER, "7"))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", equalTo(2)))
+                .andExpect(jsonPath("$[1].id", equalTo(1)));
+    }
+
+    @Test
+    void shouldNotReportMissingIdsWhenAllUsersAreFound() throws Exception {
+        given(userService.getUsersById(List.of(1)))
+                .willReturn(List.of(new User(1, "John Doe", "johnD", "john.doe@mail.com")));
+
+        mvc.perform(get(API_PATH).param("ids", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(MultiGet.MISSING_IDS_HEADER))
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void shouldEmbedThePostsOfTheUserWhenExpanded() throws Exception {
+        User user = new User(1, "John Doe", "johnD", "john.doe@mail.com", 3L);
+        Post post = new Post(7, 1, "My first post", "My first post content");
+        given(userService.getUserWithPosts(user.id()))
+                .willReturn(new UserWithPosts(user, List.of(post)));
+
+        mvc.perform(get(API_PATH + "/{id}", user.id()).param("expand", "posts"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.id", equalTo(user.id())))
+                .andExpect(jsonPath("$.username", equalTo(user.username())))
+                .andExpect(jsonPath("$.version", equalTo(3)))
+                .andExpect(jsonPath("$.posts", hasSize(1)))
+                .andExpect(jsonPath("$.posts[0].id", equalTo(post.id())))
+                .andExpect(jsonPath("$.posts[0].title", equalTo(post.title())));
+    }
+
+    @Test
+    void shouldReturnGoneForChangesSinceACompactedSequence() throws Exception {
+        given(userService.getChangesSince(5))
+                .willThrow(new SnapshotUnavailableException(TOMBSTONES_NO_LONGER_RETAINED + 5, true));
+
+        mvc.perform(get(API_PATH + "/changes").param("since", "5"))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.detail", equalTo(TOMBSTONES_NO_LONGER_RETAINED + 5)));
+    }
 }
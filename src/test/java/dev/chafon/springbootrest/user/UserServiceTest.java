@@ -3,6 +3,7 @@ package dev.chafon.springbootrest.user;
 import dev.chafon.springbootrest.post.Post;
 import dev.chafon.springbootrest.post.PostNotFoundException;
 import dev.chafon.springbootrest.post.PostService;
+import dev.chafon.springbootrest.support.VersionConflictException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -13,10 +14,13 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 
 import static dev.chafon.springbootrest.Constants.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.never;
@@ -36,6 +40,9 @@ class UserServiceTest {
     @Captor
     private ArgumentCaptor<User> argumentCaptor;
 
+    @Captor
+    private ArgumentCaptor<UnaryOperator<User>> updaterCaptor;
+
     @Test
     void shouldReturnAllUsers() {
         given(userRepository.findAll()).willReturn(List.of(
@@ -132,20 +139,36 @@ class UserServiceTest {
     @Test
     void shouldUpdateUser() {
         User userToUpdate = new User(1, "Updated name", "johnD", "updated@mail.com");
-
-        given(userRepository.findById(userToUpdate.id()))
-                .willReturn(Optional.of(new User(userToUpdate.id(), "Existing name", "johnD", "existing@mail.com")));
+        User existingUser = new User(userToUpdate.id(), "Existing name", "johnD", "existing@mail.com", 4L);
+        given(userRepository.update(eq(userToUpdate.id()), any()))
+                .willReturn(Optional.of(existingUser));
 
         userService.updateUser(userToUpdate.id(), userToUpdate);
 
-        verify(userRepository).findById(userToUpdate.id());
-        verify(userRepository).save(argumentCaptor.capture());
+        verify(userRepository).update(eq(userToUpdate.id()), updaterCaptor.capture());
+        verify(userRepository, never()).save(any());
 
-        User capturedUser = argumentCaptor.getValue();
+        User capturedUser = updaterCaptor.getValue().apply(existingUser);
         assertThat(capturedUser.id()).isEqualTo(userToUpdate.id());
         assertThat(capturedUser.name()).isEqualTo(userToUpdate.name());
         assertThat(capturedUser.username()).isEqualTo(userToUpdate.username());
         assertThat(capturedUser.email()).isEqualTo(userToUpdate.email());
+        assertThat(capturedUser.version()).isEqualTo(existingUser.version());
+    }
+
+    @Test
+    void shouldUpdateUserOnlyOverTheExpectedVersion() {
+        User userToUpdate = new User(1, "Updated name", "johnD", "updated@mail.com");
+        User existingUser = new User(userToUpdate.id(), "Existing name", "johnD", "existing@mail.com", 4L);
+        given(userRepository.update(eq(userToUpdate.id()), any()))
+                .willThrow(new VersionConflictException(4L));
+
+        assertThatThrownBy(() -> userService.updateUser(userToUpdate.id(), userToUpdate, 3L))
+                .isInstanceOf(VersionConflictException.class)
+                .hasMessage(VERSION_DOES_NOT_MATCH + 4);
+
+        verify(userRepository).update(eq(userToUpdate.id()), updaterCaptor.capture());
+        assertThat(updaterCaptor.getValue().apply(existingUser).version()).isEqualTo(3L);
     }
 
     @Test
@@ -156,7 +179,7 @@ class UserServiceTest {
                 .isInstanceOf(UserNotFoundException.class)
                 .hasMessage(USER_NOT_FOUND_EXCEPTION_MESSAGE + userToUpdate.id());
 
-        verify(userRepository).findById(userToUpdate.id());
+        verify(userRepository).update(eq(userToUpdate.id()), any());
         verify(userRepository, never()).save(userToUpdate);
     }
 
@@ -164,15 +187,14 @@ class UserServiceTest {
     void shouldNotUpdateTheUsernameAlways() {
         User existingUser = new User(1, "John Doe", "johnD", "john.doe@mail.com");
         User userToUpdate = new User(1, "J D", "johnDoe", "john.doe@abc.com");
-        given(userRepository.findById(userToUpdate.id()))
+        given(userRepository.update(eq(userToUpdate.id()), any()))
                 .willReturn(Optional.of(existingUser));
 
         userService.updateUser(userToUpdate.id(), userToUpdate);
 
-        verify(userRepository).findById(userToUpdate.id());
-        verify(userRepository).save(argumentCaptor.capture());
+        verify(userRepository).update(eq(userToUpdate.id()), updaterCaptor.capture());
 
-        User capturedUser = argumentCaptor.getValue();
+        User capturedUser = updaterCaptor.getValue().apply(existingUser);
         assertThat(capturedUser.name()).isEqualTo(userToUpdate.name());
         assertThat(capturedUser.username()).isEqualTo(existingUser.username());
         assertThat(capturedUser.email()).isEqualTo(userToUpdate.email());
@@ -286,4 +308,18 @@ class UserServiceTest {
         verify(userRepository).existsById(userId);
         verify(poseService).getPostByUserAndId(userId, postId);
     }
+
+    @Test
+    void shouldReturnUserWithPostsCheckingTheUserOnce() {
+        User user = new User(1, "John Doe", "johnD", "john.doe@mail.com");
+        List<Post> posts = List.of(new Post(1, user.id(), "Post 1", "Post content"));
+        given(userRepository.findById(user.id())).willReturn(Optional.of(user));
+        given(poseService.getPostsByUser(user.id())).willReturn(posts);
+
+        UserWithPosts userWithPosts = userService.getUserWithPosts(user.id());
+
+        assertThat(userWithPosts.user()).isEqualTo(user);
+        assertThat(userWithPosts.posts()).isEqualTo(posts);
+        verify(userRepository, never()).existsById(any());
+    }
 }
@@ -0,0 +1,54 @@
+package dev.chafon.springbootrest.user;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.Errors;
+import org.springframework.validation.ObjectError;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserValidatorTest {
+
+    private static Validator annotationValidator;
+
+    private final UserValidator userValidator = new UserValidator();
+
+    @BeforeAll
+    static void beforeAll() {
+        annotationValidator = Validation.buildDefaultValidatorFactory().getValidator();
+    }
+
+    @Test
+    void shouldReportTheSameMessagesAsTheAnnotations() {
+        List<User> users = List.of(
+                new User(1, "John Doe", "johnD", "john.doe@mail.com"),
+                new User(1, null, null, null),
+                new User(1, " ", "", "\t"),
+                new User(1, "John Doe", "johnD", "-"),
+                new User(1, "John Doe", "johnD", "john.doe@mail..com"),
+                new User(1, "John Doe", "johnD", "\"john doe\"@mail.com"));
+
+        for (User user : users) {
+            List<String> annotationMessages = annotationValidator.validate(user).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .toList();
+            Errors errors = userValidator.validateObject(user);
+
+            assertThat(errors.getAllErrors())
+                    .as(user.toString())
+                    .extracting(ObjectError::getDefaultMessage)
+                    .containsExactlyInAnyOrderElementsOf(annotationMessages);
+        }
+    }
+
+    @Test
+    void shouldOnlySupportUsers() {
+        assertThat(userValidator.supports(User.class)).isTrue();
+        assertThat(userValidator.supports(Object.class)).isFalse();
+    }
+}